@@ -98,6 +98,8 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
 
     private final ArrayBlockingQueue<FileStarted> timedOuts;
 
+    private ProgressJournal progressJournal = null;
+
     private boolean alreadyExecuted = false;
 
     public BatchProcess(FileResourceCrawler fileResourceCrawler,
@@ -166,7 +168,11 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
             State state = mainLoop(completionService, timeoutChecker);
             result = shutdown(ex, completionService, timeoutChecker, state);
         } finally {
-            shutdownConsumersManager();
+            try {
+                shutdownConsumersManager();
+            } finally {
+                closeProgressJournal();
+            }
         }
         LOG.trace("finishing up");
         return result;
@@ -424,6 +430,17 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
         }
     }
 
+    private void closeProgressJournal() {
+        if (progressJournal == null) {
+            return;
+        }
+        try {
+            progressJournal.close();
+        } catch (IOException e) {
+            LOG.warn("Couldn't close the progress journal", e);
+        }
+    }
+
     /**
      * This is used instead of awaitTermination(), because that interrupts
      * the thread and then waits for its termination.  This politely waits.
@@ -553,6 +570,16 @@ public class BatchProcess implements Callable<ParallelFileProcessingResult> {
         this.maxAliveTimeSeconds = maxAliveTimeSeconds;
     }
 
+    /**
+     * The journal that the crawler and consumers share.  This closes it
+     * when the process finishes.
+     *
+     * @param progressJournal progress journal
+     */
+    public void setProgressJournal(ProgressJournal progressJournal) {
+        this.progressJournal = progressJournal;
+    }
+
     private class TimeoutChecker implements Callable<IFileProcessorFutureResult> {
         @Override
         public TimeoutFutureResult call() throws Exception {
@@ -36,6 +36,10 @@ public interface FileResource {
   //have any relationship to the actual type of the file.
   public static final Property FILE_EXTENSION = Property.internalText("tika:file_ext");
 
+  //Set when the resource is being retried after its process died while it was
+  //processed; any output that is already there is left over from that attempt.
+  public static final Property OVERWRITE_OUTPUT = Property.internalBoolean("tika:overwrite_output");
+
   /**
    * This is only used in logging to identify which file
    * may have caused problems.  While it is probably best
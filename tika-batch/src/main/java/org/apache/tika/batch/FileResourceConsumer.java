@@ -100,6 +100,10 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
     //this should only be set by setEndedState.
     private volatile STATE currentState = STATE.NOT_YET_STARTED;
 
+    private ProgressJournal progressJournal = null;
+
+    private FileResourceLanes lanes = null;
+
     public FileResourceConsumer(ArrayBlockingQueue<FileResource> fileQueue) {
         this.fileQueue = fileQueue;
         consumerId = numConsumers.incrementAndGet();
@@ -112,7 +116,14 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
             FileResource fileResource = getNextFileResource();
             while (fileResource != null) {
                 LOG.trace("file consumer is about to process: {}", fileResource.getResourceId());
-                boolean consumed = _processFileResource(fileResource);
+                boolean consumed = false;
+                try {
+                    consumed = _processFileResource(fileResource);
+                } finally {
+                    if (lanes != null) {
+                        lanes.finished(fileResource);
+                    }
+                }
                 LOG.trace("file consumer has finished processing: {}", fileResource.getResourceId());
 
                 if (consumed) {
@@ -175,23 +186,69 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
     }
 
     private boolean _processFileResource(FileResource fileResource) {
-        currentFile = new FileStarted(fileResource.getResourceId());
+        String resourceId = fileResource.getResourceId();
+        ProgressJournal.STATUS startStatus = ProgressJournal.STATUS.STARTED;
+        if (progressJournal != null) {
+            ProgressJournal.STATUS status = progressJournal.getStatus(resourceId);
+            if (status == ProgressJournal.STATUS.INTERRUPTED) {
+                //the output of the interrupted attempt may be half written
+                LOG.info("Retrying: {}; it was interrupted by an earlier process", resourceId);
+                fileResource.getMetadata().set(FileResource.OVERWRITE_OUTPUT, "true");
+                startStatus = ProgressJournal.STATUS.RETRIED;
+            } else if (status != null) {
+                LOG.debug("Skipping: {}; it is already in the progress journal", resourceId);
+                return false;
+            }
+        }
+        currentFile = new FileStarted(resourceId);
+        record(resourceId, startStatus);
+        int handledExceptions = numHandledExceptions;
         boolean consumed = false;
         try {
             consumed = processFileResource(fileResource);
         } catch (RuntimeException e) {
             setEndedState(STATE.CONSUMER_EXCEPTION);
+            record(resourceId, ProgressJournal.STATUS.FAILED);
             throw e;
         } catch (Error e) {
             setEndedState(STATE.CONSUMER_ERROR);
+            record(resourceId, ProgressJournal.STATUS.FAILED);
             throw e;
         }
         //if anything is thrown from processFileResource, then the fileStarted
         //will remain what it was right before the exception was thrown.
         currentFile = null;
+        if (consumed) {
+            record(resourceId, ProgressJournal.STATUS.COMPLETED);
+        } else if (numHandledExceptions > handledExceptions) {
+            record(resourceId, ProgressJournal.STATUS.FAILED);
+        } else {
+            record(resourceId, ProgressJournal.STATUS.SKIPPED);
+        }
         return consumed;
     }
 
+    private void record(String resourceId, ProgressJournal.STATUS status) {
+        if (progressJournal == null) {
+            return;
+        }
+        try {
+            progressJournal.record(resourceId, status);
+        } catch (IOException e) {
+            LOG.warn("Couldn't record {} for {} in the progress journal", status, resourceId, e);
+        }
+    }
+
+    /**
+     * If a journal is set, this skips resources that are already in it,
+     * and records what happens to each resource that it processes.
+     *
+     * @param progressJournal journal shared by the crawler and the consumers
+     */
+    public void setProgressJournal(ProgressJournal progressJournal) {
+        this.progressJournal = progressJournal;
+    }
+
     /**
      * This politely asks the consumer to shutdown.
      * Before processing another file, the consumer will check to see
@@ -206,6 +263,15 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
         setEndedState(STATE.ASKED_TO_SHUTDOWN);
     }
 
+    /**
+     * If lanes are set, the consumer takes resources from them instead of from the queue.
+     *
+     * @param lanes lanes shared by the crawler and the consumers
+     */
+    public void setLanes(FileResourceLanes lanes) {
+        this.lanes = lanes;
+    }
+
     /**
      * Returns the name and start time of a file that is currently being processed.
      * If no file is currently being processed, this will return null.
@@ -263,6 +329,7 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
                         TIMED_OUT,
                         tmp.getResourceId(),
                         ELAPSED_MILLIS, Long.toString(tmp.getElapsedMillis())));
+                record(tmp.getResourceId(), ProgressJournal.STATUS.TIMED_OUT);
                 return tmp;
             }
         }
@@ -328,7 +395,8 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
                     break;
                 }
             }
-            fileResource = fileQueue.poll(1L, TimeUnit.SECONDS);
+            fileResource = (lanes != null) ? lanes.poll(1L, TimeUnit.SECONDS) :
+                    fileQueue.poll(1L, TimeUnit.SECONDS);
             if (fileResource != null) {
                 if (fileResource instanceof PoisonFileResource) {
                     setEndedState(STATE.SWALLOWED_POISON);
@@ -336,7 +404,8 @@ public abstract class FileResourceConsumer implements Callable<IFileProcessorFut
                 }
                 break;
             }
-            LOG.debug("{} is waiting for file and the queue size is: {}", consumerId, fileQueue.size());
+            LOG.debug("{} is waiting for file and the queue size is: {}", consumerId,
+                    (lanes != null) ? lanes.size() : fileQueue.size());
 
             long elapsed = System.currentTimeMillis() - start;
             if (maxConsecWaitInMillis > 0 && elapsed > maxConsecWaitInMillis) {
@@ -51,6 +51,8 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
 
     private long maxConsecWaitInMillis = 300000;//300,000ms = 5 minutes
     private DocumentSelector documentSelector = null;
+    private ProgressJournal progressJournal = null;
+    private FileResourceLanes lanes = null;
 
     //number of files added to queue
     private int added = 0;
@@ -111,12 +113,16 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
             return STOP_NOW;
         }
 
+        if (isJournaled(fileResource.getResourceId())) {
+            return SKIPPED;
+        }
+
         boolean isAdded = false;
         if (select(fileResource.getMetadata())) {
             long totalConsecutiveWait = 0;
-            while (queue.offer(fileResource, 1L, TimeUnit.SECONDS) == false) {
+            while (offer(fileResource) == false) {
 
-                LOG.info("FileResourceCrawler is pausing. Queue is full: {}", queue.size());
+                LOG.info("FileResourceCrawler is pausing. Queue is full: {}", getQueueSize());
                 Thread.sleep(PAUSE_INCREMENT_MILLIS);
                 totalConsecutiveWait += PAUSE_INCREMENT_MILLIS;
                 if (maxConsecWaitInMillis > -1 && totalConsecutiveWait > maxConsecWaitInMillis) {
@@ -147,7 +153,7 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
         }
         int i = 0;
         long start = System.currentTimeMillis();
-        while (queue.offer(new PoisonFileResource(), 1L, TimeUnit.SECONDS)) {
+        while (offer(new PoisonFileResource())) {
             if (shutDownNoPoison) {
                 LOG.debug("quitting the poison loop because shutDownNoPoison is now true");
                 return;
@@ -170,6 +176,17 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
         hasCompletedCrawling = true;
     }
 
+    private boolean offer(FileResource fileResource) throws InterruptedException {
+        if (lanes != null) {
+            return lanes.offer(fileResource, 1L, TimeUnit.SECONDS);
+        }
+        return queue.offer(fileResource, 1L, TimeUnit.SECONDS);
+    }
+
+    private int getQueueSize() {
+        return (lanes != null) ? lanes.size() : queue.size();
+    }
+
     /**
      * If the crawler stops for any reason, it is no longer active.
      *
@@ -186,6 +203,41 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
         this.documentSelector = documentSelector;
     }
 
+    /**
+     * If a journal is set, resources that are already in it are not added to
+     * the queue, nor are they counted as considered.
+     *
+     * @param progressJournal journal shared by the crawler and the consumers
+     */
+    public void setProgressJournal(ProgressJournal progressJournal) {
+        this.progressJournal = progressJournal;
+    }
+
+    /**
+     * If lanes are set, the crawler adds resources (and poison) to them
+     * instead of to the queue.
+     *
+     * @param lanes lanes shared by the crawler and the consumers
+     */
+    public void setLanes(FileResourceLanes lanes) {
+        this.lanes = lanes;
+    }
+
+    /**
+     * {@link #tryToAdd} checks this, but crawlers can call it before building a
+     * FileResource to avoid the cost of building one for a resource that won't be added.
+     *
+     * @param resourceId resourceId
+     * @return whether the resource is in the progress journal
+     */
+    protected boolean isJournaled(String resourceId) {
+        if (progressJournal != null && progressJournal.contains(resourceId)) {
+            LOG.debug("crawler skipped journaled resource: {}", resourceId);
+            return true;
+        }
+        return false;
+    }
+
     public int getConsidered() {
         return considered;
     }
@@ -223,6 +275,9 @@ public abstract class FileResourceCrawler implements Callable<IFileProcessorFutu
      * @return whether this queue contains any non-poison file resources
      */
     public boolean isQueueEmpty() {
+        if (lanes != null) {
+            return lanes.isEmpty();
+        }
         int size= 0;
         synchronized(queue) {
             for (FileResource aQueue : queue) {
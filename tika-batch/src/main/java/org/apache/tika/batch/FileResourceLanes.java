@@ -0,0 +1,296 @@
+package org.apache.tika.batch;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.tika.metadata.Metadata;
+
+/**
+ * Lanes of FileResources, split by size, that take the place of the single FIFO
+ * queue between the {@link FileResourceCrawler} and the {@link FileResourceConsumer}s.
+ * <p>
+ * With a single queue, a few huge files near the end of a run leave all
+ * but one consumer idle, and a burst of huge files ties up every consumer at once.
+ * With lanes, consumers take the next resource from the lane of the largest
+ * resources first, so that the slowest resources are started as early as possible.
+ * The number of consumers working on a lane can be limited, so that the others
+ * keep working through the smaller resources; the limit only applies while
+ * another lane has resources waiting, so a consumer that would otherwise be idle
+ * takes whatever is left.
+ * <p>
+ * Resources are classified by their {@link Metadata#CONTENT_LENGTH}, multiplied
+ * by an optional weight for their {@link FileResource#FILE_EXTENSION}, as some types
+ * (e.g. pdf or zip) take much longer per byte than others. Resources without a
+ * length go in the first lane. Within a lane, resources are taken in the order
+ * in which they were added.
+ * <p>
+ * {@link PoisonFileResource}s are only handed out once all the lanes are empty.
+ */
+public class FileResourceLanes {
+
+    private final int capacity;
+
+    //upper bounds (exclusive) of the weighted sizes of all but the last lane
+    private final long[] laneSizes;
+
+    private final ArrayDeque<FileResource>[] lanes;
+
+    private final int[] maxConsumers;
+
+    private final int[] activeConsumers;
+
+    //lanes that the resources being worked on were taken from; the metadata,
+    //and with it the lane, may change while a consumer works on a resource
+    private final Map<FileResource, Integer> activeLanes = new IdentityHashMap<>();
+
+    private final ArrayDeque<FileResource> poison = new ArrayDeque<>();
+
+    private final Map<String, Float> typeWeights = new HashMap<>();
+
+    private int size = 0;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * @param capacity maximum number of resources, including poison, in all the lanes together
+     * @param laneSizes ascending upper bounds in bytes (exclusive) of the weighted sizes of
+     *                  the resources in each lane but the last, which has the rest
+     */
+    @SuppressWarnings("unchecked")
+    public FileResourceLanes(int capacity, long[] laneSizes) {
+        for (int i = 1; i < laneSizes.length; i++) {
+            if (laneSizes[i] <= laneSizes[i - 1]) {
+                throw new IllegalArgumentException("lane sizes must be ascending: " +
+                        Arrays.toString(laneSizes));
+            }
+        }
+        this.capacity = capacity;
+        this.laneSizes = laneSizes.clone();
+        lanes = new ArrayDeque[laneSizes.length + 1];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new ArrayDeque<>();
+        }
+        maxConsumers = new int[lanes.length];
+        Arrays.fill(maxConsumers, -1);
+        activeConsumers = new int[lanes.length];
+    }
+
+    /**
+     * Limits the number of consumers that work on resources from a lane while
+     * other lanes have resources waiting.
+     *
+     * @param lane lane
+     * @param max maximum number of consumers, or &lt; 0 for no limit (default)
+     */
+    public void setMaxConsumers(int lane, int max) {
+        maxConsumers[lane] = max;
+    }
+
+    /**
+     * @param extension lowercased file extension
+     * @param weight number by which to multiply the length of resources with that extension
+     */
+    public void setTypeWeight(String extension, float weight) {
+        typeWeights.put(extension.toLowerCase(Locale.ROOT), weight);
+    }
+
+    public int getNumLanes() {
+        return lanes.length;
+    }
+
+    /**
+     * @param fileResource resource
+     * @return the lane that the resource goes in
+     */
+    public int getLane(FileResource fileResource) {
+        Metadata metadata = fileResource.getMetadata();
+        String lengthString = metadata.get(Metadata.CONTENT_LENGTH);
+        if (lengthString == null) {
+            return 0;
+        }
+        long length;
+        try {
+            length = Long.parseLong(lengthString);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        String extension = metadata.get(FileResource.FILE_EXTENSION);
+        if (extension != null) {
+            Float weight = typeWeights.get(extension);
+            if (weight != null) {
+                length = (long) (length * weight);
+            }
+        }
+        int lane = 0;
+        while (lane < laneSizes.length && length >= laneSizes[lane]) {
+            lane++;
+        }
+        return lane;
+    }
+
+    /**
+     * Adds a resource to its lane, waiting up to the timeout for space to become available.
+     *
+     * @return whether the resource was added
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean offer(FileResource fileResource, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size + poison.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (fileResource instanceof PoisonFileResource) {
+                poison.add(fileResource);
+            } else {
+                lanes[getLane(fileResource)].add(fileResource);
+                size++;
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next resource, waiting up to the timeout for one to become available.
+     * Unless this returns <code>null</code> or poison, the caller must call
+     * {@link #finished(FileResource)} when it is done with the resource.
+     *
+     * @return the next resource, or <code>null</code> if none became available
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public FileResource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            FileResource next = next();
+            while (next == null) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+                next = next();
+            }
+            notFull.signal();
+            return next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Call this when a consumer has finished with a resource that it got from {@link #poll}.
+     *
+     * @param fileResource resource
+     */
+    public void finished(FileResource fileResource) {
+        if (fileResource instanceof PoisonFileResource) {
+            return;
+        }
+        lock.lock();
+        try {
+            Integer lane = activeLanes.remove(fileResource);
+            if (lane != null) {
+                activeConsumers[lane]--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return number of resources, not counting poison, in all the lanes
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param lane lane
+     * @return number of resources in the lane
+     */
+    public int size(int lane) {
+        lock.lock();
+        try {
+            return lanes[lane].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether there are no resources, not counting poison, in any of the lanes
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    //largest lane with resources that isn't at its consumer limit,
+    //else the largest lane with resources, else poison
+    private FileResource next() {
+        int fallback = -1;
+        for (int lane = lanes.length - 1; lane >= 0; lane--) {
+            if (lanes[lane].isEmpty()) {
+                continue;
+            }
+            if (maxConsumers[lane] < 0 || activeConsumers[lane] < maxConsumers[lane]) {
+                return take(lane);
+            }
+            if (fallback < 0) {
+                fallback = lane;
+            }
+        }
+        if (fallback > -1) {
+            return take(fallback);
+        }
+        return poison.poll();
+    }
+
+    private FileResource take(int lane) {
+        size--;
+        activeConsumers[lane]++;
+        FileResource fileResource = lanes[lane].poll();
+        activeLanes.put(fileResource, lane);
+        return fileResource;
+    }
+}
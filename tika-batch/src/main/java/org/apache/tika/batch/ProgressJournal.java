@@ -0,0 +1,750 @@
+package org.apache.tika.batch;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only journal of what has happened to each resource in a batch run,
+ * so that a restarted {@link BatchProcess} (e.g. by {@link BatchProcessDriverCLI}
+ * after an OutOfMemoryError or a timeout) doesn't crawl, queue and process the
+ * resources that an earlier process already dealt with.
+ * <p>
+ * Each record is one line of UTF-8: the {@link STATUS}, the resourceId and a
+ * CRC32 of the two, separated by tabs. Records are written with a single
+ * write, so a process that dies can at worst leave a torn record at the end
+ * of the file; torn and corrupt records are ignored when the journal is
+ * opened.
+ * <p>
+ * A resource whose last record is {@link STATUS#STARTED} was being processed
+ * when its process died, e.g. because another resource caused an OutOfMemoryError.
+ * When the journal is opened, such a resource is recorded as {@link STATUS#INTERRUPTED},
+ * and it is then retried once: it is not {@link #contains(String) contained} in the
+ * journal, and the consumer that retries it records {@link STATUS#RETRIED} and
+ * overwrites whatever output the interrupted attempt left behind. If the process
+ * dies again while retrying it, it is recorded as {@link STATUS#FAILED} the next
+ * time the journal is opened.
+ * <p>
+ * The journal only keys on the resourceId. For the file system crawlers, that
+ * is the path relative to the input directory, so a run can be resumed on
+ * another host that mounts the input directory elsewhere by pointing it at a
+ * copy of the journal.
+ * <p>
+ * Records are superseded when a resource gets a new status; when enough of them
+ * have been, the journal is compacted on a background thread. The compaction reads
+ * the journal backwards up to where it ended when the compaction started, writes the
+ * latest record of each resource to a new file, and then appends whatever was recorded
+ * in the meantime and atomically replaces the journal with it. Recording only waits
+ * for that last step.
+ * <p>
+ * Only a 64 bit hash of each resourceId and its status are kept in memory, in an open
+ * addressing table of 9 bytes a slot that is at most three quarters full: 12 to 24 bytes
+ * per resource. With 50 million resources, that is about 600MB, and about 900MB for
+ * a moment while the table grows, so give the child process a large enough heap (-Xmx)
+ * for the number of resources in the run. Two resourceIds with the same hash are treated
+ * as the same resource; with 50 million resources, the chance of that happening at all
+ * is about one in 15,000.
+ */
+public class ProgressJournal implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProgressJournal.class);
+
+    public enum STATUS {
+        STARTED, //if this is the last status, the process died while processing the resource
+        COMPLETED,
+        SKIPPED, //the consumer chose not to process the resource, e.g. the output already exists
+        FAILED,
+        TIMED_OUT,
+        INTERRUPTED, //was STARTED when an earlier process died; will be retried
+        RETRIED //if this is the last status, the process died again while retrying the resource
+    }
+
+    private static final STATUS[] STATUSES = STATUS.values();
+
+    private static final String COMPACTION_SUFFIX = ".compacting";
+
+    private static final int DEFAULT_MIN_RECORDS_TO_COMPACT = 100000;
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final Path journalFile;
+
+    private final Index index = new Index();
+
+    private FileChannel channel;
+
+    //number of valid records in the journal file
+    private int records = 0;
+
+    private int minRecordsToCompact = DEFAULT_MIN_RECORDS_TO_COMPACT;
+
+    private boolean compacting = false;
+
+    private boolean closed = false;
+
+    /**
+     * Opens the journal, creating it if it doesn't exist yet.
+     *
+     * @param journalFile journal file
+     * @throws IOException if the journal can't be read or opened for writing
+     */
+    public ProgressJournal(Path journalFile) throws IOException {
+        this.journalFile = journalFile;
+        Path parent = journalFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        //left over from a compaction that didn't finish; the journal itself is intact
+        Files.deleteIfExists(getCompactionFile());
+
+        //resources that were being processed when the last process died
+        final Map<Long, String> inFlight = new HashMap<>();
+        int invalid = scan(new RecordHandler() {
+            @Override
+            public void handle(String resourceId, STATUS status) {
+                long hash = hash(resourceId);
+                index.put(hash, status);
+                if (status == STATUS.STARTED || status == STATUS.RETRIED) {
+                    inFlight.put(hash, resourceId);
+                } else {
+                    inFlight.remove(hash);
+                }
+            }
+        });
+        if (records > 0) {
+            LOG.info("Progress journal {} has {} resources", journalFile, index.size());
+        }
+        openChannel();
+        if (invalid > 0) {
+            LOG.warn("Ignoring {} torn or corrupt records in progress journal {}", invalid, journalFile);
+            compact();
+        }
+        for (Map.Entry<Long, String> e : inFlight.entrySet()) {
+            String resourceId = e.getValue();
+            if (index.getStatus(e.getKey()) == STATUS.RETRIED.ordinal()) {
+                LOG.warn("{} was being retried when an earlier process stopped; it will not be retried again",
+                        resourceId);
+                record(resourceId, STATUS.FAILED);
+            } else {
+                LOG.info("{} was being processed when an earlier process stopped; it will be retried",
+                        resourceId);
+                record(resourceId, STATUS.INTERRUPTED);
+            }
+        }
+    }
+
+    /**
+     * @param resourceId resourceId
+     * @return the last status recorded for the resource, or <code>null</code> if there is none
+     */
+    public synchronized STATUS getStatus(String resourceId) {
+        int status = index.getStatus(hash(resourceId));
+        return status < 0 ? null : STATUSES[status];
+    }
+
+    /**
+     * @param resourceId resourceId
+     * @return whether the resource has been dealt with, i.e. whether anything
+     * but {@link STATUS#INTERRUPTED} has been recorded for it
+     */
+    public boolean contains(String resourceId) {
+        STATUS status = getStatus(resourceId);
+        return status != null && status != STATUS.INTERRUPTED;
+    }
+
+    /**
+     * Appends a record. This is a no-op once the journal has been closed,
+     * as hung consumers can finish after their process has shut down.
+     *
+     * @param resourceId resourceId
+     * @param status status of the resource
+     * @throws IOException if the record can't be written
+     */
+    public void record(String resourceId, STATUS status) throws IOException {
+        Snapshot snapshot;
+        synchronized (this) {
+            if (closed) {
+                LOG.debug("Progress journal is closed, not recording {} for {}", status, resourceId);
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(toRecord(resourceId, status));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            index.put(hash(resourceId), status);
+            records++;
+            if (compacting || ! shouldCompact()) {
+                return;
+            }
+            snapshot = startCompaction();
+        }
+        compactInBackground(snapshot);
+    }
+
+    /**
+     * @return number of resources in the journal
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Rewrites the journal with only the latest record for each resource,
+     * after waiting for a compaction that is already running to finish.
+     *
+     * @throws IOException if the journal can't be rewritten
+     */
+    public void compact() throws IOException {
+        Snapshot snapshot;
+        synchronized (this) {
+            awaitCompaction();
+            if (closed) {
+                return;
+            }
+            snapshot = startCompaction();
+        }
+        compact(snapshot);
+    }
+
+    /**
+     * Compacts the journal if enough records have been superseded, and closes it.
+     *
+     * @throws IOException on an IO problem
+     */
+    @Override
+    public void close() throws IOException {
+        Snapshot snapshot = null;
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                awaitCompaction();
+                if (shouldCompact()) {
+                    snapshot = startCompaction();
+                }
+            }
+            if (snapshot != null) {
+                compact(snapshot);
+            }
+        } finally {
+            synchronized (this) {
+                if (! closed) {
+                    closed = true;
+                    try {
+                        channel.force(false);
+                    } finally {
+                        channel.close();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param minRecordsToCompact minimum number of superseded records before
+     *                            the journal is compacted automatically
+     */
+    public synchronized void setMinRecordsToCompact(int minRecordsToCompact) {
+        this.minRecordsToCompact = minRecordsToCompact;
+    }
+
+    //compact when the superseded records make up a third of the file,
+    //so that the cost of compaction is amortized over the records written
+    private boolean shouldCompact() {
+        int superseded = records - index.size();
+        return superseded > 0 && superseded >= minRecordsToCompact
+                && superseded >= index.size() / 2;
+    }
+
+    //must hold the lock
+    private Snapshot startCompaction() throws IOException {
+        compacting = true;
+        return new Snapshot(channel.size(), records);
+    }
+
+    //must hold the lock
+    private void awaitCompaction() throws IOException {
+        while (compacting) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the progress journal compaction");
+            }
+        }
+    }
+
+    private void compactInBackground(final Snapshot snapshot) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compact(snapshot);
+                } catch (IOException e) {
+                    LOG.warn("Failed to compact progress journal " + journalFile, e);
+                }
+            }
+        }, "progress-journal-compaction");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Compacts the part of the journal in the snapshot without holding the lock,
+     * then appends the records written since the snapshot and swaps the result in
+     * while holding it.
+     */
+    private void compact(Snapshot snapshot) throws IOException {
+        Path compactionFile = getCompactionFile();
+        boolean swapped = false;
+        try {
+            int written = writeLatestRecords(snapshot.length, compactionFile);
+            synchronized (this) {
+                int appended = records - snapshot.records;
+                try (FileChannel journal = FileChannel.open(journalFile, StandardOpenOption.READ);
+                     FileChannel compacted = FileChannel.open(compactionFile,
+                             StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    long end = journal.size();
+                    long position = snapshot.length;
+                    while (position < end) {
+                        position += journal.transferTo(position, end - position, compacted);
+                    }
+                    compacted.force(true);
+                }
+                channel.close();
+                Files.move(compactionFile, journalFile,
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                swapped = true;
+                LOG.debug("Compacted progress journal from {} to {} records", records, written + appended);
+                records = written + appended;
+                openChannel();
+            }
+        } finally {
+            synchronized (this) {
+                if (! swapped) {
+                    Files.deleteIfExists(compactionFile);
+                    if (channel != null && ! channel.isOpen() && ! closed) {
+                        openChannel();
+                    }
+                }
+                index.clearWritten();
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes the latest record of each resource in the first <code>length</code> bytes
+     * of the journal to the compaction file, newest first. The journal is read backwards
+     * a block at a time, and the lock is only held to check and mark the resources
+     * of a block in the index.
+     *
+     * @return number of records written
+     */
+    private int writeLatestRecords(long length, Path compactionFile) throws IOException {
+        int written = 0;
+        List<byte[]> lines = new ArrayList<>();
+        try (FileChannel journal = FileChannel.open(journalFile, StandardOpenOption.READ);
+             OutputStream os = new BufferedOutputStream(Files.newOutputStream(compactionFile), BLOCK_SIZE)) {
+            ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+            //start of the first line of the block after this one, which may begin in this one
+            byte[] carry = new byte[0];
+            long position = length;
+            while (position > 0) {
+                int n = (int) Math.min(BLOCK_SIZE, position);
+                position -= n;
+                block.clear();
+                block.limit(n);
+                while (block.hasRemaining()) {
+                    if (journal.read(block, position + block.position()) < 0) {
+                        throw new EOFException("progress journal was truncated during compaction");
+                    }
+                }
+                byte[] data = new byte[n + carry.length];
+                System.arraycopy(block.array(), 0, data, 0, n);
+                System.arraycopy(carry, 0, data, n, carry.length);
+                lines.clear();
+                int end = data.length;
+                for (int i = data.length - 1; i >= 0; i--) {
+                    if (data[i] == '\n') {
+                        if (i + 1 < end) {
+                            lines.add(Arrays.copyOfRange(data, i + 1, end));
+                        }
+                        end = i;
+                    }
+                }
+                carry = Arrays.copyOf(data, end);
+                written += writeLatest(lines, os);
+            }
+            if (carry.length > 0) {
+                lines.clear();
+                lines.add(carry);
+                written += writeLatest(lines, os);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * @param lines lines, newest first
+     * @return number of records written
+     */
+    private int writeLatest(List<byte[]> lines, OutputStream os) throws IOException {
+        long[] hashes = new long[lines.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            Record record = parse(lines.get(i));
+            hashes[i] = record == null ? 0 : hash(record.resourceId);
+        }
+        boolean[] latest = new boolean[hashes.length];
+        synchronized (this) {
+            for (int i = 0; i < hashes.length; i++) {
+                latest[i] = hashes[i] != 0 && index.markWritten(hashes[i]);
+            }
+        }
+        int written = 0;
+        for (int i = 0; i < hashes.length; i++) {
+            if (latest[i]) {
+                os.write(lines.get(i));
+                os.write('\n');
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path getCompactionFile() {
+        return Paths.get(journalFile.toString() + COMPACTION_SUFFIX);
+    }
+
+    /**
+     * Reads the valid records of the journal file in order, and sets
+     * {@link #records} to the number of them.
+     *
+     * @return number of torn or corrupt records
+     */
+    private int scan(RecordHandler handler) throws IOException {
+        records = 0;
+        if (! Files.exists(journalFile)) {
+            return 0;
+        }
+        int invalid = 0;
+        byte[] buffer = new byte[BLOCK_SIZE];
+        //a line that continues past the end of the buffer
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (InputStream is = Files.newInputStream(journalFile)) {
+            int n = is.read(buffer);
+            while (n != -1) {
+                int start = 0;
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] != '\n') {
+                        continue;
+                    }
+                    byte[] bytes;
+                    if (line.size() == 0) {
+                        bytes = Arrays.copyOfRange(buffer, start, i);
+                    } else {
+                        line.write(buffer, start, i - start);
+                        bytes = line.toByteArray();
+                        line.reset();
+                    }
+                    Record record = parse(bytes);
+                    if (record == null) {
+                        invalid++;
+                    } else {
+                        records++;
+                        handler.handle(record.resourceId, record.status);
+                    }
+                    start = i + 1;
+                }
+                line.write(buffer, start, n - start);
+                n = is.read(buffer);
+            }
+        }
+        if (line.size() > 0) {
+            //torn record at the end
+            invalid++;
+        }
+        return invalid;
+    }
+
+    /**
+     * @return the record, or <code>null</code> if it is torn or corrupt
+     */
+    private static Record parse(byte[] record) {
+        int crcStart = lastIndexOf(record, (byte) '\t');
+        int idStart = indexOf(record, (byte) '\t');
+        if (crcStart < 0 || idStart == crcStart) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, crcStart);
+        String crcString = new String(record, crcStart + 1, record.length - crcStart - 1, UTF_8);
+        if (! crcString.equals(Long.toHexString(crc.getValue()))) {
+            return null;
+        }
+        STATUS status;
+        try {
+            status = STATUS.valueOf(new String(record, 0, idStart, UTF_8));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String resourceId = unescape(new String(record, idStart + 1, crcStart - idStart - 1, UTF_8));
+        return new Record(resourceId, status);
+    }
+
+    private static byte[] toRecord(String resourceId, STATUS status) {
+        byte[] body = (status.name() + '\t' + escape(resourceId)).getBytes(UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body, 0, body.length);
+        byte[] suffix = ('\t' + Long.toHexString(crc.getValue()) + '\n').getBytes(UTF_8);
+        byte[] record = new byte[body.length + suffix.length];
+        System.arraycopy(body, 0, record, 0, body.length);
+        System.arraycopy(suffix, 0, record, body.length, suffix.length);
+        return record;
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                switch (next) {
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    default:
+                        sb.append(next);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static int indexOf(byte[] bytes, byte b) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(byte[] bytes, byte b) {
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //64 bit FNV-1a, followed by the murmur3 finalizer; 0 marks an empty slot in the index
+    private static long hash(String resourceId) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < resourceId.length(); i++) {
+            h ^= resourceId.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e63fe53cdL;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    private interface RecordHandler {
+        void handle(String resourceId, STATUS status) throws IOException;
+    }
+
+    private static class Record {
+        private final String resourceId;
+        private final STATUS status;
+
+        Record(String resourceId, STATUS status) {
+            this.resourceId = resourceId;
+            this.status = status;
+        }
+    }
+
+    /**
+     * Length and number of records of the journal when a compaction started
+     */
+    private static class Snapshot {
+        private final long length;
+        private final int records;
+
+        Snapshot(long length, int records) {
+            this.length = length;
+            this.records = records;
+        }
+    }
+
+    /**
+     * Open addressing table of resourceId hashes to the latest status. The status byte
+     * also has a flag for whether the latest record of the resource has been written
+     * by the compaction that is running.
+     */
+    private static class Index {
+
+        private static final int STATUS_MASK = 0x3f;
+
+        private static final int WRITTEN = 0x40;
+
+        private long[] keys = new long[1024];
+
+        private byte[] statuses = new byte[1024];
+
+        private int size = 0;
+
+        int size() {
+            return size;
+        }
+
+        int getStatus(long key) {
+            int slot = find(key);
+            return keys[slot] == 0 ? -1 : statuses[slot] & STATUS_MASK;
+        }
+
+        void put(long key, STATUS status) {
+            int slot = find(key);
+            if (keys[slot] == 0) {
+                //grow at a load factor of 3/4
+                if ((size + 1) * 4L > keys.length * 3L) {
+                    grow();
+                    slot = find(key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            //a newer record than the one the compaction wrote is appended after it,
+            //so the flag is kept
+            statuses[slot] = (byte) (status.ordinal() | (statuses[slot] & WRITTEN));
+        }
+
+        /**
+         * @return true if this is the first time the key has been marked since
+         * {@link #clearWritten()}
+         */
+        boolean markWritten(long key) {
+            int slot = find(key);
+            if (keys[slot] == 0 || (statuses[slot] & WRITTEN) != 0) {
+                return false;
+            }
+            statuses[slot] |= WRITTEN;
+            return true;
+        }
+
+        void clearWritten() {
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] &= STATUS_MASK;
+            }
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            byte[] oldStatuses = statuses;
+            keys = new long[oldKeys.length * 2];
+            statuses = new byte[keys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    statuses[slot] = oldStatuses[i];
+                }
+            }
+        }
+    }
+}
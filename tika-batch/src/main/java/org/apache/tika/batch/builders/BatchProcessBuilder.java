@@ -20,6 +20,7 @@ package org.apache.tika.batch.builders;
 import javax.xml.parsers.DocumentBuilder;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,13 +29,17 @@ import java.util.concurrent.ArrayBlockingQueue;
 import org.apache.tika.batch.BatchProcess;
 import org.apache.tika.batch.ConsumersManager;
 import org.apache.tika.batch.FileResource;
+import org.apache.tika.batch.FileResourceConsumer;
 import org.apache.tika.batch.FileResourceCrawler;
+import org.apache.tika.batch.FileResourceLanes;
 import org.apache.tika.batch.Interrupter;
+import org.apache.tika.batch.ProgressJournal;
 import org.apache.tika.batch.StatusReporter;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.IOExceptionWithCause;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.util.ClassLoaderUtil;
+import org.apache.tika.util.PropsUtil;
 import org.apache.tika.util.XMLDOMUtil;
 import org.apache.tika.utils.XMLReaderUtils;
 import org.w3c.dom.Document;
@@ -52,6 +57,10 @@ public class BatchProcessBuilder {
     public final static int DEFAULT_MAX_QUEUE_SIZE = 1000;
     public final static String MAX_QUEUE_SIZE_KEY = "maxQueueSize";
     public final static String NUM_CONSUMERS_KEY = "numConsumers";
+    public final static String PROGRESS_JOURNAL_KEY = "journal";
+    public final static String LANE_SIZES_KEY = "laneSizes";
+    public final static String LANE_MAX_CONSUMERS_KEY = "laneMaxConsumers";
+    public final static String LANE_TYPE_WEIGHTS_KEY = "laneTypeWeights";
 
     /**
      * Builds a BatchProcess from runtime arguments and a
@@ -141,6 +150,23 @@ public class BatchProcessBuilder {
         BatchProcess proc = new BatchProcess(
                 crawler, consumersManager, reporter, interrupter);
 
+        ProgressJournal progressJournal = buildProgressJournal(docElement, runtimeAttributes);
+        if (progressJournal != null) {
+            crawler.setProgressJournal(progressJournal);
+            for (FileResourceConsumer consumer : consumersManager.getConsumers()) {
+                consumer.setProgressJournal(progressJournal);
+            }
+            proc.setProgressJournal(progressJournal);
+        }
+
+        FileResourceLanes lanes = buildLanes(docElement, runtimeAttributes, queue.remainingCapacity());
+        if (lanes != null) {
+            crawler.setLanes(lanes);
+            for (FileResourceConsumer consumer : consumersManager.getConsumers()) {
+                consumer.setLanes(lanes);
+            }
+        }
+
         if (timeoutThresholdMillis > -1) {
             proc.setTimeoutThresholdMillis(timeoutThresholdMillis);
         }
@@ -156,6 +182,90 @@ public class BatchProcessBuilder {
         return proc;
     }
 
+    private ProgressJournal buildProgressJournal(Node docElement, Map<String, String> runtimeAttributes) {
+        String journalString = getAttribute(PROGRESS_JOURNAL_KEY, docElement, runtimeAttributes);
+        Path journalFile = PropsUtil.getPath(journalString, null);
+        if (journalFile == null) {
+            return null;
+        }
+        try {
+            return new ProgressJournal(journalFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Couldn't open progress journal: " + journalFile.toAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Lanes are built if laneSizes is set, e.g. laneSizes="1000000,50000000" for
+     * lanes of resources under 1MB, between 1MB and 50MB and over 50MB.
+     * laneMaxConsumers optionally limits the consumers on each lane, e.g. "-1,-1,2",
+     * and laneTypeWeights optionally weights the sizes by file extension, e.g. "pdf:4,zip:8".
+     */
+    private FileResourceLanes buildLanes(Node docElement, Map<String, String> runtimeAttributes,
+                                         int capacity) {
+        String laneSizesString = getAttribute(LANE_SIZES_KEY, docElement, runtimeAttributes);
+        if (laneSizesString == null || laneSizesString.trim().length() == 0) {
+            return null;
+        }
+        String[] sizes = laneSizesString.split(",");
+        long[] laneSizes = new long[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            laneSizes[i] = parseLong(LANE_SIZES_KEY, sizes[i]);
+        }
+        FileResourceLanes lanes = new FileResourceLanes(capacity, laneSizes);
+
+        String maxConsumersString = getAttribute(LANE_MAX_CONSUMERS_KEY, docElement, runtimeAttributes);
+        if (maxConsumersString != null && maxConsumersString.trim().length() > 0) {
+            String[] maxConsumers = maxConsumersString.split(",");
+            if (maxConsumers.length > lanes.getNumLanes()) {
+                throw new RuntimeException(LANE_MAX_CONSUMERS_KEY + " has more values than there are lanes: "
+                        + maxConsumersString);
+            }
+            for (int i = 0; i < maxConsumers.length; i++) {
+                lanes.setMaxConsumers(i, (int) parseLong(LANE_MAX_CONSUMERS_KEY, maxConsumers[i]));
+            }
+        }
+
+        String typeWeightsString = getAttribute(LANE_TYPE_WEIGHTS_KEY, docElement, runtimeAttributes);
+        if (typeWeightsString != null && typeWeightsString.trim().length() > 0) {
+            for (String typeWeight : typeWeightsString.split(",")) {
+                int i = typeWeight.indexOf(':');
+                if (i < 0) {
+                    throw new RuntimeException(LANE_TYPE_WEIGHTS_KEY + " must be a list of extension:weight, not: "
+                            + typeWeightsString);
+                }
+                try {
+                    lanes.setTypeWeight(typeWeight.substring(0, i).trim(),
+                            Float.parseFloat(typeWeight.substring(i + 1).trim()));
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException("Couldn't parse weight in " + LANE_TYPE_WEIGHTS_KEY + ": "
+                            + typeWeight);
+                }
+            }
+        }
+        return lanes;
+    }
+
+    private static long parseLong(String attrName, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Couldn't parse number in " + attrName + ": " + value);
+        }
+    }
+
+    //runtime attributes take precedence over the document element
+    private static String getAttribute(String attrName, Node docElement, Map<String, String> runtimeAttributes) {
+        String value = runtimeAttributes.get(attrName);
+        if (value == null) {
+            Node node = docElement.getAttributes().getNamedItem(attrName);
+            if (node != null) {
+                value = node.getNodeValue();
+            }
+        }
+        return value;
+    }
+
     private Interrupter buildInterrupter(Node node, long pauseOnEarlyTermination, Map<String, String> runtimeAttributes) {
         Map<String, String> attrs = XMLDOMUtil.mapifyAttrs(node, runtimeAttributes);
         String className = attrs.get("builderClass");
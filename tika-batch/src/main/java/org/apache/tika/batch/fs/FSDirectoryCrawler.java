@@ -108,6 +108,11 @@ public class FSDirectoryCrawler extends FileResourceCrawler {
             if (Thread.currentThread().isInterrupted()) {
                 throw new InterruptedException("file adder interrupted");
             }
+            //check before anything stats the file; the journal only has files,
+            //so a journaled path is never a directory that needs to be crawled
+            if (isJournaled(root.relativize(f).toString())) {
+                continue;
+            }
             if (!Files.isReadable(f)) {
                 LOG.warn("Skipping -- {} -- file/directory is not readable", f.toAbsolutePath());
                 continue;
@@ -91,6 +91,10 @@ public class FSListCrawler extends FileResourceCrawler {
                 throw new InterruptedException("file adder interrupted");
             }
             Path f = Paths.get(root.toString(), line);
+            if (isJournaled(root.relativize(f).toString())) {
+                line = nextLine();
+                continue;
+            }
             if (! Files.exists(f)) {
                 LOG.warn("File doesn't exist: {}", f.toAbsolutePath());
                 line = nextLine();
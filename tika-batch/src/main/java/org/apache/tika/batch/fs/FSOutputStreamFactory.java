@@ -27,6 +27,7 @@ import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.tika.batch.FileResource;
 import org.apache.tika.batch.OutputStreamFactory;
 import org.apache.tika.metadata.Metadata;
 
@@ -71,7 +72,8 @@ public class FSOutputStreamFactory implements OutputStreamFactory {
      * value that was passed in during initialization.
      * <p>
      * If {@link #handleExisting} is set to "SKIP" and the output file already exists,
-     * this will return null.
+     * this will return null. If {@link FileResource#OVERWRITE_OUTPUT} is set in the
+     * metadata, an existing output file is overwritten whatever {@link #handleExisting} is.
      * <p>
      * If an output file can be found, this will try to mkdirs for that output file.
      * If mkdirs() fails, this will throw an IOException.
@@ -85,7 +87,9 @@ public class FSOutputStreamFactory implements OutputStreamFactory {
     @Override
     public OutputStream getOutputStream(Metadata metadata) throws IOException {
         String initialRelativePath = metadata.get(FSProperties.FS_REL_PATH);
-        Path outputPath = FSUtil.getOutputPath(outputRoot, initialRelativePath, handleExisting, suffix);
+        FSUtil.HANDLE_EXISTING policy = "true".equals(metadata.get(FileResource.OVERWRITE_OUTPUT)) ?
+                FSUtil.HANDLE_EXISTING.OVERWRITE : handleExisting;
+        Path outputPath = FSUtil.getOutputPath(outputRoot, initialRelativePath, policy, suffix);
         if (outputPath == null) {
             return null;
         }
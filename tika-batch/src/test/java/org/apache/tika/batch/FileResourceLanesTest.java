@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.metadata.Metadata;
+import org.junit.Test;
+
+public class FileResourceLanesTest {
+
+    @Test
+    public void testGetLane() throws Exception {
+        FileResourceLanes lanes = new FileResourceLanes(10, new long[]{100, 1000});
+        lanes.setTypeWeight("pdf", 4.0f);
+        assertEquals(3, lanes.getNumLanes());
+        assertEquals(0, lanes.getLane(new MockResource("a.txt", null)));
+        assertEquals(0, lanes.getLane(new MockResource("a.txt", 99L)));
+        assertEquals(1, lanes.getLane(new MockResource("a.txt", 100L)));
+        assertEquals(1, lanes.getLane(new MockResource("a.txt", 999L)));
+        assertEquals(2, lanes.getLane(new MockResource("a.txt", 1000L)));
+        assertEquals(2, lanes.getLane(new MockResource("a.pdf", 250L)));
+    }
+
+    @Test
+    public void testLargestFirst() throws Exception {
+        FileResourceLanes lanes = new FileResourceLanes(10, new long[]{100, 1000});
+        offer(lanes, new MockResource("small0", 1L));
+        offer(lanes, new PoisonFileResource());
+        offer(lanes, new MockResource("small1", 2L));
+        offer(lanes, new MockResource("medium", 500L));
+        offer(lanes, new MockResource("large", 5000L));
+        assertEquals(4, lanes.size());
+
+        assertEquals("large", poll(lanes).getResourceId());
+        assertEquals("medium", poll(lanes).getResourceId());
+        assertEquals("small0", poll(lanes).getResourceId());
+        assertEquals("small1", poll(lanes).getResourceId());
+        assertTrue(lanes.isEmpty());
+        //poison only once the lanes are empty
+        assertTrue(poll(lanes) instanceof PoisonFileResource);
+        assertNull(poll(lanes));
+    }
+
+    @Test
+    public void testMaxConsumers() throws Exception {
+        FileResourceLanes lanes = new FileResourceLanes(10, new long[]{100});
+        lanes.setMaxConsumers(1, 1);
+        offer(lanes, new MockResource("large0", 5000L));
+        offer(lanes, new MockResource("large1", 5000L));
+        offer(lanes, new MockResource("small0", 1L));
+
+        FileResource large0 = poll(lanes);
+        assertEquals("large0", large0.getResourceId());
+        //one consumer is already working on a large resource
+        assertEquals("small0", poll(lanes).getResourceId());
+        //nothing else is waiting, so the limit doesn't apply
+        assertEquals("large1", poll(lanes).getResourceId());
+
+        offer(lanes, new MockResource("large2", 5000L));
+        offer(lanes, new MockResource("small1", 1L));
+        assertEquals("small1", poll(lanes).getResourceId());
+        lanes.finished(large0);
+        lanes.finished(lanes.poll(0, TimeUnit.SECONDS));
+        assertTrue(lanes.isEmpty());
+    }
+
+    @Test
+    public void testMetadataChangedWhileActive() throws Exception {
+        FileResourceLanes lanes = new FileResourceLanes(10, new long[]{100});
+        lanes.setMaxConsumers(1, 1);
+        offer(lanes, new MockResource("large0", 5000L));
+        FileResource large0 = poll(lanes);
+        //e.g. a parser that overwrites the Content-Length
+        large0.getMetadata().set(Metadata.CONTENT_LENGTH, "1");
+        lanes.finished(large0);
+
+        offer(lanes, new MockResource("large1", 5000L));
+        offer(lanes, new MockResource("small0", 1L));
+        //the large lane is free again, so it still goes first
+        assertEquals("large1", poll(lanes).getResourceId());
+        assertEquals("small0", poll(lanes).getResourceId());
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        FileResourceLanes lanes = new FileResourceLanes(2, new long[]{100});
+        assertTrue(lanes.offer(new MockResource("a", 1L), 0, TimeUnit.SECONDS));
+        assertTrue(lanes.offer(new MockResource("b", 1000L), 0, TimeUnit.SECONDS));
+        assertFalse(lanes.offer(new MockResource("c", 1L), 10, TimeUnit.MILLISECONDS));
+        assertFalse(lanes.offer(new PoisonFileResource(), 10, TimeUnit.MILLISECONDS));
+        poll(lanes);
+        assertTrue(lanes.offer(new MockResource("c", 1L), 0, TimeUnit.SECONDS));
+    }
+
+    private static void offer(FileResourceLanes lanes, FileResource fileResource) throws InterruptedException {
+        assertTrue(lanes.offer(fileResource, 1, TimeUnit.SECONDS));
+    }
+
+    private static FileResource poll(FileResourceLanes lanes) throws InterruptedException {
+        return lanes.poll(10, TimeUnit.MILLISECONDS);
+    }
+
+    private static class MockResource implements FileResource {
+
+        private final String resourceId;
+
+        private final Metadata metadata = new Metadata();
+
+        MockResource(String resourceId, Long length) {
+            this.resourceId = resourceId;
+            if (length != null) {
+                metadata.set(Metadata.CONTENT_LENGTH, Long.toString(length));
+            }
+            int i = resourceId.lastIndexOf('.');
+            if (i > -1) {
+                metadata.set(FileResource.FILE_EXTENSION, resourceId.substring(i + 1));
+            }
+        }
+
+        @Override
+        public String getResourceId() {
+            return resourceId;
+        }
+
+        @Override
+        public Metadata getMetadata() {
+            return metadata;
+        }
+
+        @Override
+        public InputStream openInputStream() throws IOException {
+            throw new IOException("no content");
+        }
+    }
+}
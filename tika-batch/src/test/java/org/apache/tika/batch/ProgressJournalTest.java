@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.batch;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProgressJournalTest {
+
+    private Path dir;
+
+    private Path journalFile;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("tika-batch-journal-");
+        journalFile = dir.resolve("progress.journal");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir.toFile());
+    }
+
+    @Test
+    public void testReopen() throws Exception {
+        String odd = "dir\\sub\tdir/file\nname\r.txt";
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            journal.record("a.pdf", ProgressJournal.STATUS.STARTED);
+            journal.record("a.pdf", ProgressJournal.STATUS.COMPLETED);
+            journal.record("b.doc", ProgressJournal.STATUS.STARTED);
+            journal.record("b.doc", ProgressJournal.STATUS.FAILED);
+            journal.record("c.xls", ProgressJournal.STATUS.STARTED);
+            journal.record(odd, ProgressJournal.STATUS.TIMED_OUT);
+            assertEquals(4, journal.size());
+        }
+        //nothing is written after closing
+        ProgressJournal closed = new ProgressJournal(journalFile);
+        closed.close();
+        closed.record("d.txt", ProgressJournal.STATUS.COMPLETED);
+
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(4, journal.size());
+            assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus("a.pdf"));
+            assertEquals(ProgressJournal.STATUS.FAILED, journal.getStatus("b.doc"));
+            //c.xls was in flight when the journal was last closed
+            assertEquals(ProgressJournal.STATUS.INTERRUPTED, journal.getStatus("c.xls"));
+            assertEquals(ProgressJournal.STATUS.TIMED_OUT, journal.getStatus(odd));
+            assertTrue(journal.contains("a.pdf"));
+            assertFalse(journal.contains("c.xls"));
+            assertFalse(journal.contains("d.txt"));
+            assertNull(journal.getStatus("dir"));
+        }
+    }
+
+    @Test
+    public void testRetryInterrupted() throws Exception {
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            journal.record("a.pdf", ProgressJournal.STATUS.STARTED);
+            journal.record("b.doc", ProgressJournal.STATUS.STARTED);
+        }
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(ProgressJournal.STATUS.INTERRUPTED, journal.getStatus("a.pdf"));
+            assertEquals(ProgressJournal.STATUS.INTERRUPTED, journal.getStatus("b.doc"));
+            journal.record("a.pdf", ProgressJournal.STATUS.RETRIED);
+            journal.record("a.pdf", ProgressJournal.STATUS.COMPLETED);
+            //the process dies again while b.doc is retried
+            journal.record("b.doc", ProgressJournal.STATUS.RETRIED);
+        }
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(2, journal.size());
+            assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus("a.pdf"));
+            assertEquals(ProgressJournal.STATUS.FAILED, journal.getStatus("b.doc"));
+            assertTrue(journal.contains("b.doc"));
+        }
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            journal.record("a.pdf", ProgressJournal.STATUS.COMPLETED);
+            journal.record("b.doc", ProgressJournal.STATUS.COMPLETED);
+        }
+        //a corrupt record, and a record torn by a crash
+        Files.write(journalFile, "COMPLETED\tx.pdf\t0\nCOMPLETED\tc.x".getBytes(UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(2, journal.size());
+            assertFalse(journal.contains("x.pdf"));
+            assertFalse(journal.contains("c.x"));
+            journal.record("c.xls", ProgressJournal.STATUS.COMPLETED);
+        }
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(3, journal.size());
+            assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus("c.xls"));
+        }
+        assertEquals(3, Files.readAllLines(journalFile, UTF_8).size());
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            journal.setMinRecordsToCompact(10);
+            for (int i = 0; i < 1000; i++) {
+                journal.record("file" + i, ProgressJournal.STATUS.STARTED);
+                journal.record("file" + i, ProgressJournal.STATUS.COMPLETED);
+            }
+            //waits for a compaction that was started in the background
+            journal.compact();
+            assertEquals(1000, Files.readAllLines(journalFile, UTF_8).size());
+            journal.record("file0", ProgressJournal.STATUS.FAILED);
+        }
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(1000, journal.size());
+            assertEquals(ProgressJournal.STATUS.FAILED, journal.getStatus("file0"));
+            assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus("file999"));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testRecordWhileCompacting() throws Exception {
+        final int numThreads = 4;
+        final int perThread = 2000;
+        try (final ProgressJournal journal = new ProgressJournal(journalFile)) {
+            journal.setMinRecordsToCompact(10);
+            Thread[] threads = new Thread[numThreads];
+            final Exception[] failures = new Exception[numThreads];
+            for (int t = 0; t < numThreads; t++) {
+                final int id = t;
+                threads[t] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            for (int i = 0; i < perThread; i++) {
+                                journal.record(id + "/file" + i, ProgressJournal.STATUS.STARTED);
+                                journal.record(id + "/file" + i, ProgressJournal.STATUS.COMPLETED);
+                            }
+                        } catch (Exception e) {
+                            failures[id] = e;
+                        }
+                    }
+                });
+                threads[t].start();
+            }
+            for (int i = 0; i < 5; i++) {
+                journal.compact();
+            }
+            for (int t = 0; t < numThreads; t++) {
+                threads[t].join();
+                assertNull(failures[t]);
+            }
+        }
+        //compacted along the way, or on close
+        assertTrue(Files.readAllLines(journalFile, UTF_8).size() < 2 * numThreads * perThread);
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(numThreads * perThread, journal.size());
+            for (int t = 0; t < numThreads; t++) {
+                for (int i = 0; i < perThread; i++) {
+                    assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus(t + "/file" + i));
+                }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.tika.batch.fs;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.file.Files;
@@ -28,6 +29,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.tika.batch.BatchProcessDriverCLI;
+import org.apache.tika.batch.ProgressJournal;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -115,6 +117,33 @@ public class BatchDriverTest extends FSBatchTestBase {
                 readFileToString(outputDir.resolve("test2_ok.xml.xml"), UTF_8));
     }
 
+    @Test(timeout = 30000)
+    public void restartOnOOMWithJournalTest() throws Exception {
+        //test0_sleep is still being processed when test1_oom takes the process down;
+        //it is retried after the restart, and its partial output is overwritten
+        Path outputDir = getNewOutputDir("daemon-");
+        Path journalFile = outputDir.resolveSibling(outputDir.getFileName() + ".journal");
+
+        Map<String, String> args = new HashMap<>();
+        args.put("-journal", journalFile.toAbsolutePath().toString());
+        args.put("-timeoutThresholdMillis", "20000");
+        String[] commandLine = getDefaultCommandLineArgsArr("oom_in_flight", outputDir, args);
+        BatchProcessDriverCLI driver = getNewDriver("/tika-batch-config-test.xml", commandLine);
+        driver.execute();
+        assertEquals(1, driver.getNumRestarts());
+        assertContains("first test file",
+                readFileToString(outputDir.resolve("test2_ok.xml.xml"), UTF_8));
+        assertContains("some content",
+                readFileToString(outputDir.resolve("test0_sleep.xml.xml"), UTF_8));
+
+        try (ProgressJournal journal = new ProgressJournal(journalFile)) {
+            assertEquals(3, journal.size());
+            assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus("test0_sleep.xml"));
+            assertEquals(ProgressJournal.STATUS.FAILED, journal.getStatus("test1_oom.xml"));
+            assertEquals(ProgressJournal.STATUS.COMPLETED, journal.getStatus("test2_ok.xml"));
+        }
+    }
+
     @Test(timeout = 60000)
     public void allHeavyHangsTestWithStarvedCrawler() throws Exception {
         //this tests that if all consumers are hung and the crawler is
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.batch.fs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.tika.batch.FileResource;
+import org.apache.tika.batch.FileResourceConsumer;
+import org.apache.tika.batch.FileResourceLanes;
+import org.junit.Test;
+
+public class SizeLanesTest extends FSBatchTestBase {
+
+    private static final int NUM_SMALL = 200;
+
+    private static final int NUM_CONSUMERS = 3;
+
+    private static final String LARGE = "z_large.bin";
+
+    @Test(timeout = 30000)
+    public void testSkewedInput() throws Exception {
+        //many small files, and one large file that is last in the (sorted) crawl
+        //order.  With a single queue, the large file is only picked up once the
+        //small files are done; with lanes, it is picked up as soon as it is crawled,
+        //while the small files are still waiting.
+        Path inputDir = getNewOutputDir("skewed-input-");
+        for (int i = 0; i < NUM_SMALL; i++) {
+            Files.write(inputDir.resolve(String.format(Locale.ROOT, "small%03d.bin", i)), new byte[10]);
+        }
+        Files.write(inputDir.resolve(LARGE), new byte[2000000]);
+
+        List<String> queueOrder = process(inputDir, null);
+        List<String> lanesOrder = process(inputDir, new FileResourceLanes(1000, new long[]{1000000}));
+
+        assertTrue("large file picked up after " + queueOrder.indexOf(LARGE) + " small files",
+                smallAfterLarge(queueOrder) < NUM_CONSUMERS);
+        assertTrue("large file picked up after " + lanesOrder.indexOf(LARGE) + " small files",
+                smallAfterLarge(lanesOrder) > NUM_SMALL / 2);
+    }
+
+    private static int smallAfterLarge(List<String> order) {
+        return order.size() - 1 - order.indexOf(LARGE);
+    }
+
+    /**
+     * @return resourceIds in the order in which the consumers picked them up
+     */
+    private List<String> process(Path inputDir, FileResourceLanes lanes) throws Exception {
+        ArrayBlockingQueue<FileResource> queue = new ArrayBlockingQueue<>(1000);
+        FSDirectoryCrawler crawler = new FSDirectoryCrawler(queue, NUM_CONSUMERS, inputDir,
+                FSDirectoryCrawler.CRAWL_ORDER.SORTED);
+        crawler.setDocumentSelector(new FSDocumentSelector(null, null, -1, -1));
+        List<String> order = Collections.synchronizedList(new ArrayList<String>());
+        List<FileResourceConsumer> consumers = new ArrayList<>();
+        for (int i = 0; i < NUM_CONSUMERS; i++) {
+            consumers.add(new OrderRecordingConsumer(queue, order));
+        }
+        if (lanes != null) {
+            crawler.setLanes(lanes);
+            for (FileResourceConsumer consumer : consumers) {
+                consumer.setLanes(lanes);
+            }
+        }
+        ExecutorService ex = Executors.newFixedThreadPool(NUM_CONSUMERS + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(ex.submit(crawler));
+            for (FileResourceConsumer consumer : consumers) {
+                futures.add(ex.submit(consumer));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            ex.shutdownNow();
+        }
+        assertEquals(NUM_SMALL + 1, order.size());
+        return order;
+    }
+
+    private static class OrderRecordingConsumer extends FileResourceConsumer {
+
+        private final List<String> order;
+
+        OrderRecordingConsumer(ArrayBlockingQueue<FileResource> queue, List<String> order) {
+            super(queue);
+            this.order = order;
+        }
+
+        @Override
+        public boolean processFileResource(FileResource fileResource) {
+            order.add(fileResource.getResourceId());
+            try {
+                //slow enough for the crawler to stay well ahead
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+    }
+}
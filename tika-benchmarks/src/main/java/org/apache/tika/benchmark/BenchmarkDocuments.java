@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Locates the documents used by the benchmarks. By default these are read
+ * from the tika-parsers test-documents corpus, relative to this module;
+ * set the {@value #DOCUMENTS_PROPERTY} system property to point elsewhere.
+ */
+final class BenchmarkDocuments {
+
+    static final String DOCUMENTS_PROPERTY = "tika.benchmark.documents";
+
+    private static final String DEFAULT_DOCUMENTS =
+            "../tika-parsers/src/test/resources/test-documents";
+
+    private BenchmarkDocuments() {
+    }
+
+    static Path getDirectory() {
+        return Paths.get(System.getProperty(DOCUMENTS_PROPERTY, DEFAULT_DOCUMENTS));
+    }
+
+    static byte[] read(String name) throws IOException {
+        Path path = getDirectory().resolve(name);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("Benchmark document not found: " + path.toAbsolutePath()
+                    + "; set -D" + DOCUMENTS_PROPERTY + " to the test-documents directory");
+        }
+        return Files.readAllBytes(path);
+    }
+
+}
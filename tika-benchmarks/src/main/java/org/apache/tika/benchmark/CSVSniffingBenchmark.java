@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parsing of large delimited files with the TextAndCSVParser, with the
+ * mark limit raised to the size of the file so that the sniffing of the
+ * delimiter covers all of it. The text is discarded, so the sniffing is
+ * a large share of the work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CSVSniffingBenchmark {
+
+    @Param({"1048576", "8388608"})
+    public int size;
+
+    @Param({"comma", "tab"})
+    public String delimiter;
+
+    private byte[] content;
+
+    private Parser parser;
+
+    @Setup
+    public void setUp() throws IOException, TikaException, SAXException {
+        content = generate(size, "tab".equals(delimiter) ? '\t' : ',');
+        String config =
+                "<properties><parsers>" +
+                "<parser class=\"org.apache.tika.parser.csv.TextAndCSVParser\">" +
+                "<params><param name=\"markLimit\" type=\"int\">" + (size + 1) +
+                "</param></params></parser>" +
+                "</parsers></properties>";
+        parser = new TikaConfig(new ByteArrayInputStream(
+                config.getBytes(StandardCharsets.UTF_8))).getParser();
+    }
+
+    @Benchmark
+    public Metadata textAndCSVParser() throws IOException, SAXException, TikaException {
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/csv; charset=UTF-8");
+        try (TikaInputStream stream = TikaInputStream.get(content)) {
+            parser.parse(stream, new DefaultHandler(), metadata, new ParseContext());
+        }
+        return metadata;
+    }
+
+    /**
+     * Rows of a few columns of numbers and words, some of them quoted.
+     */
+    private static byte[] generate(int size, char delimiter) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(size + 100);
+        while (builder.length() < size) {
+            for (int column = 0; column < 8; column++) {
+                if (column > 0) {
+                    builder.append(delimiter);
+                }
+                if (column % 3 == 0) {
+                    builder.append(random.nextInt(100000));
+                } else if (column % 3 == 1) {
+                    builder.append("\"quoted ").append(random.nextInt(1000))
+                            .append(", \"\"value\"\"\"");
+                } else {
+                    builder.append("word").append(random.nextInt(100));
+                }
+            }
+            builder.append('\n');
+        }
+        builder.setLength(size);
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.eval.langid.Language;
+import org.apache.tika.eval.textstats.CommonTokens;
+import org.apache.tika.eval.tokens.AlphaIdeographFilterFactory;
+import org.apache.tika.eval.tokens.CommonTokenCountManager;
+import org.apache.tika.eval.tokens.CommonTokenResult;
+import org.apache.tika.eval.tokens.LangModel;
+import org.apache.tika.eval.tokens.TokenCounts;
+import org.apache.tika.eval.tokens.TokenModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CommonTokens} on the tokens of a document against the English
+ * common tokens, compared with the same count against a model held in
+ * the maps of {@link LangModel}, which is how the common tokens used to
+ * be kept. Most of the tokens of the document are common tokens, the
+ * others are made up.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CommonTokensBenchmark {
+
+    @Param({"1000", "100000"})
+    public int tokens;
+
+    private final List<Language> languages =
+            Collections.singletonList(new Language("eng", 1.0));
+
+    private CommonTokens commonTokens;
+
+    private LangModel hashMapModel;
+
+    private TokenCounts tokenCounts;
+
+    @Setup
+    public void setUp() {
+        CommonTokenCountManager manager = new CommonTokenCountManager(null, "eng");
+        commonTokens = new CommonTokens(manager);
+
+        TokenModel model = manager.getLangTokens("eng").getValue();
+        hashMapModel = new LangModel(-1);
+        List<String> vocabulary = new ArrayList<>();
+        for (Map.Entry<String, Long> e : model.getCounts().entrySet()) {
+            hashMapModel.add(e.getKey(), e.getValue());
+            vocabulary.add(e.getKey());
+        }
+        Collections.sort(vocabulary);
+
+        Random random = new Random(42);
+        tokenCounts = new TokenCounts();
+        for (int i = 0; i < tokens; i++) {
+            if (random.nextInt(4) == 0) {
+                tokenCounts.increment("xq" + random.nextInt(tokens));
+            } else {
+                tokenCounts.increment(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+        }
+    }
+
+    @Benchmark
+    public CommonTokenResult compactModel() {
+        return commonTokens.calculate(languages, tokenCounts);
+    }
+
+    @Benchmark
+    public CommonTokenResult hashMapModel() {
+        int numUniqueCommonTokens = 0;
+        int numCommonTokens = 0;
+        int numUniqueAlphabeticTokens = 0;
+        int numAlphabeticTokens = 0;
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            String token = tokenCounts.getToken(i);
+            int count = tokenCounts.getCount(i);
+            if (AlphaIdeographFilterFactory.isAlphabetic(token.toCharArray(), token.length())) {
+                numAlphabeticTokens += count;
+                numUniqueAlphabeticTokens++;
+            }
+            if (hashMapModel.contains(token)) {
+                numCommonTokens += count;
+                numUniqueCommonTokens++;
+            }
+        }
+        return new CommonTokenResult("eng", numUniqueCommonTokens,
+                numCommonTokens, numUniqueAlphabeticTokens, numAlphabeticTokens);
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.tika.config.TikaConfig;
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaTypeRegistry;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.CompositeParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.SAXException;
+
+/**
+ * Cost of picking the component parser for a document in
+ * {@link CompositeParser}, both on its own and as part of parsing an
+ * archive with many small embedded documents. The "uncached" variants
+ * disable the precomputed dispatch table to show what every embedded
+ * document used to pay.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompositeParserBenchmark {
+
+    private static final String[] TYPES = {
+            "application/pdf", "text/plain; charset=UTF-8", "text/html",
+            "application/xml", "image/png", "text/x-java-source",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/x-unknown-type"
+    };
+
+    @Param({"1000"})
+    public int entries;
+
+    private DispatchingParser cached;
+
+    private DispatchingParser uncached;
+
+    private Metadata[] metadata;
+
+    private byte[] archive;
+
+    private Parser cachedAutoDetect;
+
+    private Parser uncachedAutoDetect;
+
+    @Setup
+    public void setUp() throws IOException {
+        TikaConfig config = TikaConfig.getDefaultConfig();
+        List<Parser> parsers =
+                ((CompositeParser) config.getParser()).getAllComponentParsers();
+        cached = new DispatchingParser(config.getMediaTypeRegistry(), parsers, true);
+        uncached = new DispatchingParser(config.getMediaTypeRegistry(), parsers, false);
+
+        metadata = new Metadata[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) {
+            metadata[i] = new Metadata();
+            metadata[i].set(Metadata.CONTENT_TYPE, TYPES[i]);
+        }
+
+        cachedAutoDetect = new AutoDetectParser(
+                config.getDetector(), cached);
+        uncachedAutoDetect = new AutoDetectParser(
+                config.getDetector(), uncached);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entries; i++) {
+                String name = i % 2 == 0 ? "entry" + i + ".txt" : "entry" + i + ".html";
+                zip.putNextEntry(new ZipEntry(name));
+                String content = i % 2 == 0
+                        ? "Entry number " + i
+                        : "<html><body><p>Entry number " + i + "</p></body></html>";
+                zip.write(content.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        archive = bytes.toByteArray();
+    }
+
+    @Benchmark
+    public void dispatchCached(Blackhole blackhole) {
+        for (Metadata m : metadata) {
+            blackhole.consume(cached.select(m));
+        }
+    }
+
+    @Benchmark
+    public void dispatchUncached(Blackhole blackhole) {
+        for (Metadata m : metadata) {
+            blackhole.consume(uncached.select(m));
+        }
+    }
+
+    @Benchmark
+    public String archiveCached() throws IOException, SAXException, TikaException {
+        return parse(cachedAutoDetect);
+    }
+
+    @Benchmark
+    public String archiveUncached() throws IOException, SAXException, TikaException {
+        return parse(uncachedAutoDetect);
+    }
+
+    private String parse(Parser parser) throws IOException, SAXException, TikaException {
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        ParseContext context = new ParseContext();
+        context.set(Parser.class, parser);
+        try (TikaInputStream stream = TikaInputStream.get(archive)) {
+            parser.parse(stream, handler, new Metadata(), context);
+        }
+        return handler.toString();
+    }
+
+    private static class DispatchingParser extends CompositeParser {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean cacheable;
+
+        DispatchingParser(MediaTypeRegistry registry, List<Parser> parsers, boolean cacheable) {
+            super(registry, parsers);
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        protected boolean isParserMapCacheable() {
+            return cacheable;
+        }
+
+        Parser select(Metadata metadata) {
+            return getParser(metadata, new ParseContext());
+        }
+    }
+
+}
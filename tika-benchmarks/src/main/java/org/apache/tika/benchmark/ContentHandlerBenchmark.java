@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.sax.ToTextContentHandler;
+import org.apache.tika.sax.ToXMLContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * SAX serialization throughput of {@link ToXMLContentHandler} and
+ * {@link ToTextContentHandler}, fed with a synthetic XHTML document of
+ * the given number of paragraphs. Output goes both to an in-memory
+ * string and to a discarding UTF-8 stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentHandlerBenchmark {
+
+    private static final OutputStream NULL_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Param({"100", "10000"})
+    public int paragraphs;
+
+    private char[] text;
+
+    private AttributesImpl attributes;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            builder.append("The quick brown fox jumps over the lazy dog & <friends>. ");
+        }
+        text = builder.toString().toCharArray();
+        attributes = new AttributesImpl();
+        attributes.addAttribute("", "class", "class", "CDATA", "body-text");
+    }
+
+    @Benchmark
+    public String toXMLString() throws SAXException {
+        ToXMLContentHandler handler = new ToXMLContentHandler();
+        replay(handler);
+        return handler.toString();
+    }
+
+    @Benchmark
+    public String toTextString() throws SAXException {
+        ToTextContentHandler handler = new ToTextContentHandler();
+        replay(handler);
+        return handler.toString();
+    }
+
+    @Benchmark
+    public void toXMLStream() throws Exception {
+        replay(new ToXMLContentHandler(NULL_STREAM, "UTF-8"));
+    }
+
+    @Benchmark
+    public void toTextStream() throws Exception {
+        replay(new ToTextContentHandler(NULL_STREAM, "UTF-8"));
+    }
+
+    private void replay(ContentHandler handler) throws SAXException {
+        String ns = XHTMLContentHandler.XHTML;
+        AttributesImpl empty = new AttributesImpl();
+        handler.startDocument();
+        handler.startPrefixMapping("", ns);
+        handler.startElement(ns, "html", "html", empty);
+        handler.startElement(ns, "body", "body", empty);
+        for (int i = 0; i < paragraphs; i++) {
+            handler.startElement(ns, "p", "p", attributes);
+            handler.characters(text, 0, text.length);
+            handler.endElement(ns, "p", "p");
+            handler.ignorableWhitespace(new char[] {'\n'}, 0, 1);
+        }
+        handler.endElement(ns, "body", "body");
+        handler.endElement(ns, "html", "html");
+        handler.endPrefixMapping("");
+        handler.endDocument();
+    }
+
+}
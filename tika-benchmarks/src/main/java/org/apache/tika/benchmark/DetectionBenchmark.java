@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.detect.DefaultDetector;
+import org.apache.tika.detect.Detector;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.mime.MimeTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Type detection throughput, both for the full {@link DefaultDetector}
+ * chain and for magic based detection with {@link MimeTypes} on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectionBenchmark {
+
+    @Param({"testPDF.pdf", "testWORD.docx", "testEXCEL.xlsx",
+            "testHTML.html", "testRTF.rtf", "test-documents.zip"})
+    public String document;
+
+    private byte[] content;
+
+    private Detector defaultDetector;
+
+    private MimeTypes mimeTypes;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = BenchmarkDocuments.read(document);
+        defaultDetector = new DefaultDetector();
+        mimeTypes = MimeTypes.getDefaultMimeTypes();
+    }
+
+    @Benchmark
+    public MediaType defaultDetector() throws IOException {
+        try (TikaInputStream stream = TikaInputStream.get(content)) {
+            return defaultDetector.detect(stream, new Metadata());
+        }
+    }
+
+    @Benchmark
+    public MediaType mimeTypes() throws IOException {
+        return mimeTypes.detect(new ByteArrayInputStream(content), new Metadata());
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link ForkParser} throughput compared to parsing in-process with the
+ * same {@link AutoDetectParser}. The forked process is started once per
+ * trial, so this measures the cost of proxying the input stream and the
+ * SAX events between the processes. Plain text documents are repeated
+ * to about 1MB to make the run text-heavy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForkParsingBenchmark {
+
+    private static final int TEXT_SIZE = 1024 * 1024;
+
+    @Param({"testPDF.pdf", "testWORD.docx", "multi-language.txt"})
+    public String document;
+
+    @Param({"in-process", "fork"})
+    public String mode;
+
+    private byte[] content;
+
+    private Parser parser;
+
+    @Setup
+    public void setUp() throws IOException {
+        content = BenchmarkDocuments.read(document);
+        if (document.endsWith(".txt")) {
+            ByteArrayOutputStream text = new ByteArrayOutputStream();
+            while (text.size() < TEXT_SIZE) {
+                text.write(content);
+            }
+            content = text.toByteArray();
+        }
+        if ("fork".equals(mode)) {
+            parser = new ForkParser(ForkParsingBenchmark.class.getClassLoader(), new AutoDetectParser());
+        } else {
+            parser = new AutoDetectParser();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (parser instanceof ForkParser) {
+            ((ForkParser) parser).close();
+        }
+    }
+
+    @Benchmark
+    public String parse() throws IOException, SAXException, TikaException {
+        BodyContentHandler handler = new BodyContentHandler(-1);
+        try (TikaInputStream stream = TikaInputStream.get(content)) {
+            parser.parse(stream, handler, new Metadata(), new ParseContext());
+        }
+        return handler.toString();
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.metadata.serialization.JsonMetadataList;
+import org.apache.tika.sax.AbstractRecursiveParserWrapperHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization throughput of a recursive metadata list, as produced by
+ * the RecursiveParserWrapper for a container with the given number of
+ * embedded documents.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonMetadataListBenchmark {
+
+    @Param({"1", "100"})
+    public int documents;
+
+    private List<Metadata> metadataList;
+
+    @Setup
+    public void setUp() {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            content.append("Lorem ipsum dolor sit amet, \"consectetur\" adipiscing elit.\n");
+        }
+        metadataList = new ArrayList<>();
+        for (int i = 0; i < documents; i++) {
+            Metadata metadata = new Metadata();
+            metadata.set(Metadata.CONTENT_TYPE, "application/pdf");
+            metadata.set(TikaCoreProperties.TITLE, "Document " + i);
+            metadata.set(TikaCoreProperties.CREATOR, "Benchmark");
+            metadata.add("custom:multi", "one");
+            metadata.add("custom:multi", "two");
+            metadata.set(AbstractRecursiveParserWrapperHandler.TIKA_CONTENT, content.toString());
+            metadataList.add(metadata);
+        }
+    }
+
+    @Benchmark
+    public String toJson() throws TikaException {
+        StringWriter writer = new StringWriter();
+        JsonMetadataList.toJson(metadataList, writer);
+        return writer.toString();
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.mime.MediaType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link MediaType#parse(String)} throughput with 1 to 64 threads parsing
+ * at the same time, over the kind of strings that come from detection,
+ * parser dispatch and Content-Type metadata. The total throughput should
+ * grow with the number of threads, up to the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaTypeParseBenchmark {
+
+    private static final String[] TYPES = {
+            "application/pdf",
+            "text/plain",
+            "text/html; charset=UTF-8",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "Text/HTML; Charset=\"ISO-8859-1\"",
+            "charset=UTF-8; text/html",
+            "image/jpeg",
+            "application/xml; charset=windows-1252; boundary=x"
+    };
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        String next() {
+            String type = TYPES[next];
+            next = (next + 1) % TYPES.length;
+            return type;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads01(Cursor cursor, Blackhole blackhole) {
+        blackhole.consume(MediaType.parse(cursor.next()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void threads04(Cursor cursor, Blackhole blackhole) {
+        blackhole.consume(MediaType.parse(cursor.next()));
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void threads16(Cursor cursor, Blackhole blackhole) {
+        blackhole.consume(MediaType.parse(cursor.next()));
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void threads64(Cursor cursor, Blackhole blackhole) {
+        blackhole.consume(MediaType.parse(cursor.next()));
+    }
+
+}
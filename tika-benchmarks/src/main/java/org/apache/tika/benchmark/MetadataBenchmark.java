@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of populating and reading a {@link Metadata} instance the way
+ * parsers and consumers typically do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetadataBenchmark {
+
+    private static final int KEYS = 50;
+
+    private String[] names;
+
+    private Metadata populated;
+
+    @Setup
+    public void setUp() {
+        names = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            names[i] = "custom:key-" + i;
+        }
+        populated = populate();
+    }
+
+    @Benchmark
+    public Metadata add() {
+        return populate();
+    }
+
+    @Benchmark
+    public void get(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(populated.get(name));
+            blackhole.consume(populated.getValues(name));
+        }
+        blackhole.consume(populated.get(TikaCoreProperties.TITLE));
+        blackhole.consume(populated.names());
+    }
+
+    private Metadata populate() {
+        Metadata metadata = new Metadata();
+        for (String name : names) {
+            metadata.add(name, "first value");
+            metadata.add(name, "second value");
+        }
+        metadata.set(TikaCoreProperties.TITLE, "Benchmark title");
+        metadata.set(Metadata.CONTENT_TYPE, "application/pdf");
+        return metadata;
+    }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedReader;
+import java.io.PipedWriter;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AbstractParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.ParsingReader;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Time to read all the text of a document through a {@link ParsingReader},
+ * compared with the {@link PipedReader} and new thread per document that
+ * it used to be built on. The document comes from a parser that writes
+ * the given number of paragraphs of about 1KB each, so that the handoff
+ * between the threads dominates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingReaderBenchmark {
+
+    @Param({"10", "10000"})
+    public int paragraphs;
+
+    private TextParser parser;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            builder.append("The quick brown fox jumps over the lazy dog. ");
+        }
+        parser = new TextParser(builder.toString(), paragraphs);
+    }
+
+    @Benchmark
+    public long parsingReader() throws IOException {
+        try (Reader reader = new ParsingReader(
+                parser, new ByteArrayInputStream(new byte[0]), new Metadata(), new ParseContext())) {
+            return drain(reader);
+        }
+    }
+
+    @Benchmark
+    public long pipedReader() throws IOException {
+        PipedReader pipedReader = new PipedReader();
+        final PipedWriter writer = new PipedWriter(pipedReader);
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    parser.parse(new ByteArrayInputStream(new byte[0]),
+                            new BodyContentHandler(writer), new Metadata(), new ParseContext());
+                } catch (Exception e) {
+                    // the reader sees the end of the text
+                }
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        try (Reader reader = new BufferedReader(pipedReader)) {
+            return drain(reader);
+        }
+    }
+
+    private static long drain(Reader reader) throws IOException {
+        char[] buffer = new char[8192];
+        long length = 0;
+        for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
+            length += n;
+        }
+        return length;
+    }
+
+    /**
+     * Parser that writes the same paragraph a number of times.
+     */
+    private static class TextParser extends AbstractParser {
+
+        private final String text;
+
+        private final int paragraphs;
+
+        TextParser(String text, int paragraphs) {
+            this.text = text;
+            this.paragraphs = paragraphs;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                ParseContext context) throws SAXException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            for (int i = 0; i < paragraphs; i++) {
+                xhtml.element("p", text);
+            }
+            xhtml.endDocument();
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.utils.XMLReaderUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Throughput of the pooled SAX parsers and DOM builders in
+ * {@link XMLReaderUtils} with 64 concurrent parses of a small
+ * document, where acquiring and releasing a parser is a
+ * significant part of the cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class XMLReaderUtilsBenchmark {
+
+    private static final byte[] XML = ("<?xml version=\"1.0\"?>" +
+            "<root xmlns=\"urn:tika:benchmark\">" +
+            "<item id=\"1\">one</item><item id=\"2\">two</item><item id=\"3\">three</item>" +
+            "</root>").getBytes(UTF_8);
+
+    /**
+     * Pool size; 0 keeps the default.
+     */
+    @Param({"0", "10"})
+    public int poolSize;
+
+    private int defaultPoolSize;
+
+    @Setup
+    public void setUp() throws Exception {
+        defaultPoolSize = XMLReaderUtils.getPoolSize();
+        if (poolSize > 0) {
+            XMLReaderUtils.setPoolSize(poolSize);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        XMLReaderUtils.setPoolSize(defaultPoolSize);
+    }
+
+    @Benchmark
+    public DefaultHandler parseSAX() throws Exception {
+        DefaultHandler handler = new DefaultHandler();
+        XMLReaderUtils.parseSAX(new ByteArrayInputStream(XML), handler, new ParseContext());
+        return handler;
+    }
+
+    @Benchmark
+    public Document buildDOM() throws Exception {
+        return XMLReaderUtils.buildDOM(new ByteArrayInputStream(XML));
+    }
+
+}
@@ -245,6 +245,13 @@ public class MagicDetector implements Detector {
      */
     private final int offsetRangeEnd;
 
+    /**
+     * The compiled regular expression, or <code>null</code> if this is
+     * not a {@link #isRegex regex} match. Compiled once up front so that
+     * repeated detection calls don't pay the compilation cost.
+     */
+    private final Pattern regex;
+
     /**
      * Creates a detector for input documents that have the exact given byte
      * pattern at the beginning of the document stream.
@@ -341,6 +348,16 @@ public class MagicDetector implements Detector {
 
         this.offsetRangeBegin = offsetRangeBegin;
         this.offsetRangeEnd = offsetRangeEnd;
+
+        if (this.isRegex) {
+            int flags = 0;
+            if (this.isStringIgnoreCase) {
+                flags = Pattern.CASE_INSENSITIVE;
+            }
+            this.regex = Pattern.compile(new String(this.pattern, UTF_8), flags);
+        } else {
+            this.regex = null;
+        }
     }
 
     /**
@@ -388,16 +405,9 @@ public class MagicDetector implements Detector {
             }
 
             if (this.isRegex) {
-                int flags = 0;
-                if (this.isStringIgnoreCase) {
-                    flags = Pattern.CASE_INSENSITIVE;
-                }
-                
-                Pattern p = Pattern.compile(new String(this.pattern, UTF_8), flags);
-
                 ByteBuffer bb = ByteBuffer.wrap(buffer);
                 CharBuffer result = ISO_8859_1.decode(bb);
-                Matcher m = p.matcher(result);
+                Matcher m = regex.matcher(result);
 
                 boolean match = false;
                 // Loop until we've covered the entire offset range
@@ -415,13 +425,8 @@ public class MagicDetector implements Detector {
                 // Loop until we've covered the entire offset range
                 for (int i = 0; i <= offsetRangeEnd - offsetRangeBegin; i++) {
                     boolean match = true;
-                    int masked;
                     for (int j = 0; match && j < length; j++) {
-                        masked = (buffer[i + j] & mask[j]);
-                        if (this.isStringIgnoreCase) {
-                            masked = Character.toLowerCase(masked);
-                        }
-                        match = (masked == pattern[j]);
+                        match = matchesByte(buffer[i + j], j);
                     }
                     if (match) {
                         return type;
@@ -435,6 +440,127 @@ public class MagicDetector implements Detector {
         }
     }
 
+    /**
+     * Checks whether the given document prefix matches this magic. The
+     * result is exactly the same as calling
+     * {@link #detect(InputStream, Metadata)} on a
+     * {@link java.io.ByteArrayInputStream} over the prefix and comparing the
+     * result against {@link MediaType#OCTET_STREAM}, but the prefix is
+     * inspected in place instead of being copied into a comparison buffer.
+     *
+     * @param data document prefix
+     * @return <code>true</code> if the magic matches, <code>false</code> otherwise
+     * @since Apache Tika 2.0
+     */
+    public boolean matches(byte[] data) {
+        if (data == null) {
+            return false;
+        }
+        if (data.length < offsetRangeBegin) {
+            // The stream based detection can't skip to the start of the window
+            return false;
+        }
+
+        if (this.isRegex) {
+            // The stream based detection zero-pads the comparison window
+            // up to its full size, so do the same here
+            int windowLength = length + (offsetRangeEnd - offsetRangeBegin);
+            Matcher m = regex.matcher(
+                    new PrefixCharSequence(data, offsetRangeBegin, windowLength));
+            for (int i = 0; i <= offsetRangeEnd - offsetRangeBegin; i++) {
+                m.region(i, length + i);
+                if (m.lookingAt()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        if (data.length < offsetRangeBegin + length) {
+            return false;
+        }
+
+        // Windows that lie entirely within the prefix
+        int lastInside = Math.min(offsetRangeEnd, data.length - length);
+        if (!isStringIgnoreCase && length > 0) {
+            // Tight scan on the first byte, as most windows fail right there
+            byte firstMask = mask[0];
+            byte firstPattern = pattern[0];
+            for (int i = offsetRangeBegin; i <= lastInside; i++) {
+                if ((byte) (data[i] & firstMask) == firstPattern
+                        && matchesAt(data, i, 1)) {
+                    return true;
+                }
+            }
+        } else {
+            for (int i = offsetRangeBegin; i <= lastInside; i++) {
+                if (matchesAt(data, i, 0)) {
+                    return true;
+                }
+            }
+        }
+
+        // Windows that run past the end of the prefix, where the missing
+        // bytes compare as zero just like in the zero-padded stream buffer
+        for (int i = Math.max(offsetRangeBegin, lastInside + 1); i <= offsetRangeEnd; i++) {
+            boolean match = true;
+            for (int j = 0; match && j < length; j++) {
+                byte b = i + j < data.length ? data[i + j] : 0;
+                match = matchesByte(b, j);
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesAt(byte[] data, int i, int from) {
+        for (int j = from; j < length; j++) {
+            if (!matchesByte(data[i + j], j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the single fixed offset at which this magic is evaluated, or
+     * -1 if the magic is a regular expression or covers a range of offsets.
+     * Together with {@link #acceptsFirstByte(byte)} this allows callers to
+     * index magics by their leading byte.
+     *
+     * @return fixed offset, or -1
+     * @since Apache Tika 2.0
+     */
+    public int getFixedOffset() {
+        if (isRegex || offsetRangeBegin != offsetRangeEnd || length == 0) {
+            return -1;
+        }
+        return offsetRangeBegin;
+    }
+
+    /**
+     * Checks whether the given byte, found at the start of the comparison
+     * window, is compatible with this magic. Only meaningful for magics with
+     * a {@link #getFixedOffset() fixed offset}.
+     *
+     * @param b first byte of the comparison window
+     * @return <code>false</code> if the magic can not match with this byte
+     * @since Apache Tika 2.0
+     */
+    public boolean acceptsFirstByte(byte b) {
+        return isRegex || length == 0 || matchesByte(b, 0);
+    }
+
+    private boolean matchesByte(byte b, int j) {
+        int masked = (b & mask[j]);
+        if (this.isStringIgnoreCase) {
+            masked = Character.toLowerCase(masked);
+        }
+        return masked == pattern[j];
+    }
+
     public int getLength() {
         return this.patternLength;
     }
@@ -451,4 +577,44 @@ public class MagicDetector implements Detector {
                 " bytes = " + this.pattern + 
                 " mask = " + this.mask;
     }
+
+    /**
+     * ISO-8859-1 view of a zero-padded window over a byte array, so that
+     * regex magics can be matched without decoding the window first.
+     */
+    private static class PrefixCharSequence implements CharSequence {
+
+        private final byte[] data;
+
+        private final int offset;
+
+        private final int length;
+
+        PrefixCharSequence(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int index) {
+            int i = offset + index;
+            return i < data.length ? (char) (data[i] & 0xFF) : 0;
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return new PrefixCharSequence(data, offset + start, end - start);
+        }
+
+        public String toString() {
+            StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                builder.append(charAt(i));
+            }
+            return builder.toString();
+        }
+    }
 }
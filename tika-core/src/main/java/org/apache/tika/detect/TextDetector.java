@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 
@@ -114,26 +115,31 @@ public class TextDetector implements Detector {
             return MediaType.OCTET_STREAM;
         }
 
-        input.mark(bytesToTest);
-        try {
-            TextStatistics stats = new TextStatistics();
-
-            byte[] buffer = new byte[1024];
-            int n = 0;
-            int m = input.read(buffer, 0, Math.min(bytesToTest, buffer.length));
-            while (m != -1 && n < bytesToTest) {
-                stats.addData(buffer, 0, m);
-                n += m;
-                m = input.read(buffer, 0, Math.min(bytesToTest - n, buffer.length));
+        TextStatistics stats = new TextStatistics();
+        if (TikaInputStream.isTikaInputStream(input)) {
+            //shared with the other detectors in the chain
+            byte[] prefix = TikaInputStream.cast(input).getPrefix(bytesToTest);
+            stats.addData(prefix, 0, Math.min(bytesToTest, prefix.length));
+        } else {
+            input.mark(bytesToTest);
+            try {
+                byte[] buffer = new byte[1024];
+                int n = 0;
+                int m = input.read(buffer, 0, Math.min(bytesToTest, buffer.length));
+                while (m != -1 && n < bytesToTest) {
+                    stats.addData(buffer, 0, m);
+                    n += m;
+                    m = input.read(buffer, 0, Math.min(bytesToTest - n, buffer.length));
+                }
+            } finally {
+                input.reset();
             }
+        }
 
-            if (stats.isMostlyAscii() || stats.looksLikeUTF8()) {
-                return MediaType.TEXT_PLAIN;
-            } else {
-                return MediaType.OCTET_STREAM;
-            }
-        } finally {
-            input.reset();
+        if (stats.isMostlyAscii() || stats.looksLikeUTF8()) {
+            return MediaType.TEXT_PLAIN;
+        } else {
+            return MediaType.OCTET_STREAM;
         }
     }
 
@@ -62,11 +62,13 @@ class ClassLoaderProxy extends ClassLoader implements ForkProxy {
         }
         try {
             // Send a request to load the resource data
-            output.write(ForkServer.RESOURCE);
-            output.write(resource);
-            output.write(1);
-            output.writeUTF(name);
-            output.flush();
+            synchronized (output) {
+                output.write(ForkServer.RESOURCE);
+                output.write(resource);
+                output.write(1);
+                output.writeUTF(name);
+                output.flush();
+            }
 
             // Receive the response
             if (input.readBoolean()) {
@@ -84,11 +86,13 @@ class ClassLoaderProxy extends ClassLoader implements ForkProxy {
     protected synchronized Enumeration<URL> findResources(String name)
             throws IOException {
         // Send a request to load the resources
-        output.write(ForkServer.RESOURCE);
-        output.write(resource);
-        output.write(2);
-        output.writeUTF(name);
-        output.flush();
+        synchronized (output) {
+            output.write(ForkServer.RESOURCE);
+            output.write(resource);
+            output.write(2);
+            output.writeUTF(name);
+            output.flush();
+        }
 
         // Receive the response
         List<URL> resources = new ArrayList<URL>();
@@ -103,11 +107,13 @@ class ClassLoaderProxy extends ClassLoader implements ForkProxy {
             throws ClassNotFoundException {
         try {
             // Send a request to load the class data
-            output.write(ForkServer.RESOURCE);
-            output.write(resource);
-            output.write(1);
-            output.writeUTF(name.replace('.', '/') + ".class");
-            output.flush();
+            synchronized (output) {
+                output.write(ForkServer.RESOURCE);
+                output.write(resource);
+                output.write(1);
+                output.writeUTF(name.replace('.', '/') + ".class");
+                output.flush();
+            }
 
             // Receive the response
             if (input.readBoolean()) {
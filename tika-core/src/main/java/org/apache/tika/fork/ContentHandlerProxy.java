@@ -18,6 +18,7 @@ package org.apache.tika.fork;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 
 import org.xml.sax.Attributes;
@@ -25,7 +26,23 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 
-class ContentHandlerProxy implements ContentHandler, ForkProxy {
+/**
+ * Forwards SAX events from the forked process to a
+ * {@link ContentHandlerResource} in the parent process.
+ * <p>
+ * Events are encoded into an in-memory batch and sent to the parent
+ * as a single {@link #BATCH} message once the batch reaches
+ * {@link #MAX_BATCH_BYTES}, once it is older than
+ * {@link #MAX_BATCH_DELAY_MILLIS}, at the end of the document, or
+ * when the {@link ForkServer} flushes the proxy at the end of a call.
+ * The age is checked on each event, and by a {@link ForkServer} timer
+ * for when the parser stops producing events for a while, e.g. during
+ * a long OCR step, so the proxy is synchronized, and holds the lock on
+ * the output stream while it writes a batch.
+ * Text is sent as bulk modified UTF-8 payloads, which round-trip any
+ * char sequence, including unpaired surrogates.
+ */
+class ContentHandlerProxy implements ContentHandler, ForkProxy, Flushable {
 
     public static final int START_DOCUMENT         =  1;
     public static final int END_DOCUMENT           =  2;
@@ -37,6 +54,21 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
     public static final int IGNORABLE_WHITESPACE   =  8;
     public static final int PROCESSING_INSTRUCTION =  9;
     public static final int SKIPPED_ENTITY         = 10;
+    /**
+     * A length-prefixed sequence of the above events
+     */
+    public static final int BATCH                  = 11;
+
+    /**
+     * Send the batch once it holds this many bytes
+     */
+    static final int MAX_BATCH_BYTES = 64 * 1024;
+
+    /**
+     * Send the batch once its first event is this old, so that
+     * the parent sees progress on slow parses
+     */
+    static final long MAX_BATCH_DELAY_MILLIS = 100;
 
     /** Serial version UID */
     private static final long serialVersionUID = 737511106054617524L;
@@ -45,54 +77,75 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
 
     private transient DataOutputStream output;
 
+    private transient EventBuffer batch;
+
+    private transient long batchStarted;
+
     public ContentHandlerProxy(int resource) {
         this.resource = resource;
     }
 
     public void init(DataInputStream input, DataOutputStream output) {
         this.output = output;
+        this.batch = new EventBuffer(MAX_BATCH_BYTES + 1024);
     }
 
-    private void sendRequest(int type) throws SAXException {
-        try {
-            output.writeByte(ForkServer.RESOURCE);
-            output.writeByte(resource);
-            output.writeByte(type);
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+    private void startEvent(int type) {
+        if (batch.size() == 0) {
+            batchStarted = System.nanoTime();
         }
+        batch.writeByte(type);
     }
 
-    private void sendString(String string) throws SAXException {
-        try {
-            if (string != null) {
-                output.writeBoolean(true);
-                output.writeUTF(string);
-            } else {
-                output.writeBoolean(false);
-            }
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+    private void sendString(String string) {
+        batch.writeString(string);
+    }
+
+    private void sendCharacters(char[] ch, int start, int length) {
+        batch.writeCharacters(ch, start, length);
+    }
+
+    private void doneSending() throws SAXException {
+        if (batch.size() >= MAX_BATCH_BYTES
+                || System.nanoTime() - batchStarted > MAX_BATCH_DELAY_MILLIS * 1000000L) {
+            sendBatch();
         }
     }
 
-    private void sendCharacters(char[] ch, int start, int length)
-            throws SAXException {
+    private void sendBatch() throws SAXException {
         try {
-            output.writeInt(length);
-            for (int i = 0; i < length; i++) {
-                output.writeChar(ch[start + i]);
-            }
+            flush();
         } catch (IOException e) {
             throw new SAXException("Unexpected fork proxy problem", e);
         }
     }
 
-    private void doneSending() throws SAXException {
-        try {
+    /**
+     * Sends any buffered events to the parent process.
+     */
+    public synchronized void flush() throws IOException {
+        if (batch == null || batch.size() == 0) {
+            return;
+        }
+        synchronized (output) {
+            output.writeByte(ForkServer.RESOURCE);
+            output.writeByte(resource);
+            output.writeByte(BATCH);
+            output.writeInt(batch.size());
+            batch.writeTo(output);
             output.flush();
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
+        }
+        batch.reset();
+    }
+
+    /**
+     * Sends any buffered events if the first of them is older than
+     * {@link #MAX_BATCH_DELAY_MILLIS}.
+     */
+    synchronized void flushIfStale() throws IOException {
+        if (batch != null && batch.size() > 0
+                && System.nanoTime() - batchStarted > MAX_BATCH_DELAY_MILLIS * 1000000L) {
+            flush();
         }
     }
 
@@ -100,34 +153,34 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
         // skip
     }
 
-    public void startDocument() throws SAXException {
-        sendRequest(START_DOCUMENT);
+    public synchronized void startDocument() throws SAXException {
+        startEvent(START_DOCUMENT);
         doneSending();
     }
 
-    public void endDocument() throws SAXException {
-        sendRequest(END_DOCUMENT);
-        doneSending();
+    public synchronized void endDocument() throws SAXException {
+        startEvent(END_DOCUMENT);
+        sendBatch();
     }
 
-    public void startPrefixMapping(String prefix, String uri)
+    public synchronized void startPrefixMapping(String prefix, String uri)
             throws SAXException {
-        sendRequest(START_PREFIX_MAPPING);
+        startEvent(START_PREFIX_MAPPING);
         sendString(prefix);
         sendString(uri);
         doneSending();
     }
 
-    public void endPrefixMapping(String prefix) throws SAXException {
-        sendRequest(END_PREFIX_MAPPING);
+    public synchronized void endPrefixMapping(String prefix) throws SAXException {
+        startEvent(END_PREFIX_MAPPING);
         sendString(prefix);
         doneSending();
     }
 
-    public void startElement(
+    public synchronized void startElement(
             String uri, String localName, String qName, Attributes atts)
             throws SAXException {
-        sendRequest(START_ELEMENT);
+        startEvent(START_ELEMENT);
         sendString(uri);
         sendString(localName);
         sendString(qName);
@@ -135,11 +188,7 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
         if (atts != null) {
             n = atts.getLength();
         }
-        try {
-            output.writeInt(n);
-        } catch (IOException e) {
-            throw new SAXException("Unexpected fork proxy problem", e);
-        }
+        batch.writeInt(n);
         for (int i = 0; i < n; i++) {
             sendString(atts.getURI(i));
             sendString(atts.getLocalName(i));
@@ -150,41 +199,135 @@ class ContentHandlerProxy implements ContentHandler, ForkProxy {
         doneSending();
     }
 
-    public void endElement(String uri, String localName, String qName)
+    public synchronized void endElement(String uri, String localName, String qName)
             throws SAXException {
-        sendRequest(END_ELEMENT);
+        startEvent(END_ELEMENT);
         sendString(uri);
         sendString(localName);
         sendString(qName);
         doneSending();
     }
 
-    public void characters(char[] ch, int start, int length)
+    public synchronized void characters(char[] ch, int start, int length)
             throws SAXException {
-        sendRequest(CHARACTERS);
+        startEvent(CHARACTERS);
         sendCharacters(ch, start, length);
         doneSending();
     }
 
-    public void ignorableWhitespace(char[] ch, int start, int length)
+    public synchronized void ignorableWhitespace(char[] ch, int start, int length)
             throws SAXException {
-        sendRequest(IGNORABLE_WHITESPACE);
+        startEvent(IGNORABLE_WHITESPACE);
         sendCharacters(ch, start, length);
         doneSending();
     }
 
-    public void processingInstruction(String target, String data)
+    public synchronized void processingInstruction(String target, String data)
             throws SAXException {
-        sendRequest(PROCESSING_INSTRUCTION);
+        startEvent(PROCESSING_INSTRUCTION);
         sendString(target);
         sendString(data);
         doneSending();
     }
 
-    public void skippedEntity(String name) throws SAXException {
-        sendRequest(SKIPPED_ENTITY);
+    public synchronized void skippedEntity(String name) throws SAXException {
+        startEvent(SKIPPED_ENTITY);
         sendString(name);
         doneSending();
     }
 
+    /**
+     * Growable byte buffer for encoding a batch of events.  Strings and
+     * character arrays are written as a char count (-1 for a
+     * <code>null</code> string) followed by the chars in modified
+     * UTF-8, as in {@link DataOutputStream#writeUTF(String)} but
+     * without the 64k limit.  See {@link ContentHandlerResource}
+     * for the decoder.
+     */
+    static class EventBuffer {
+
+        private final int capacity;
+
+        private byte[] buffer;
+
+        private int size;
+
+        EventBuffer(int capacity) {
+            this.capacity = capacity;
+            buffer = new byte[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+            //don't hold on to the space needed for a single huge event
+            if (buffer.length > 4 * capacity) {
+                buffer = new byte[capacity];
+            }
+        }
+
+        void writeTo(DataOutputStream output) throws IOException {
+            output.write(buffer, 0, size);
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) b;
+        }
+
+        void writeInt(int v) {
+            ensureCapacity(4);
+            buffer[size++] = (byte) (v >>> 24);
+            buffer[size++] = (byte) (v >>> 16);
+            buffer[size++] = (byte) (v >>> 8);
+            buffer[size++] = (byte) v;
+        }
+
+        void writeString(String string) {
+            if (string == null) {
+                writeInt(-1);
+                return;
+            }
+            int length = string.length();
+            writeInt(length);
+            ensureCapacity(3 * length);
+            for (int i = 0; i < length; i++) {
+                writeChar(string.charAt(i));
+            }
+        }
+
+        void writeCharacters(char[] ch, int start, int length) {
+            writeInt(length);
+            ensureCapacity(3 * length);
+            for (int i = start; i < start + length; i++) {
+                writeChar(ch[i]);
+            }
+        }
+
+        //caller must ensure capacity
+        private void writeChar(char c) {
+            if (c >= 0x0001 && c <= 0x007F) {
+                buffer[size++] = (byte) c;
+            } else if (c <= 0x07FF) {
+                buffer[size++] = (byte) (0xC0 | (c >> 6));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                buffer[size++] = (byte) (0xE0 | (c >> 12));
+                buffer[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > buffer.length) {
+                byte[] grown = new byte[Math.max(2 * buffer.length, size + extra)];
+                System.arraycopy(buffer, 0, grown, 0, size);
+                buffer = grown;
+            }
+        }
+    }
+
 }
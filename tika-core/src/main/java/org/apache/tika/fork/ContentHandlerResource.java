@@ -18,6 +18,7 @@ package org.apache.tika.fork;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 
 import org.xml.sax.ContentHandler;
@@ -34,74 +35,147 @@ class ContentHandlerResource implements ForkResource {
 
     public Throwable process(DataInputStream input, DataOutputStream output)
             throws IOException {
-        try {
-            internalProcess(input);
-            return null;
-        } catch (SAXException e) {
-            return e;
+        return internalProcess(input);
+    }
+
+    private SAXException internalProcess(DataInputStream input)
+            throws IOException {
+        int type = input.readUnsignedByte();
+        if (type != ContentHandlerProxy.BATCH) {
+            throw new IOException("Unexpected content handler message: " + type);
         }
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        EventReader reader = new EventReader(bytes);
+        //as when every event was sent on its own, a failing event
+        //doesn't stop the handler from receiving the following ones
+        SAXException exception = null;
+        while (reader.hasMore()) {
+            try {
+                processEvent(reader);
+            } catch (SAXException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+        return exception;
     }
 
-    private void internalProcess(DataInputStream input)
-            throws IOException, SAXException {
+    private void processEvent(EventReader input) throws IOException, SAXException {
         int type = input.readUnsignedByte();
         if (type == ContentHandlerProxy.START_DOCUMENT) {
             handler.startDocument();
         } else if (type == ContentHandlerProxy.END_DOCUMENT) {
             handler.endDocument();
         } else if (type == ContentHandlerProxy.START_PREFIX_MAPPING) {
-            handler.startPrefixMapping(readString(input), readString(input));
+            handler.startPrefixMapping(input.readString(), input.readString());
         } else if (type == ContentHandlerProxy.END_PREFIX_MAPPING) {
-            handler.endPrefixMapping(readString(input));
+            handler.endPrefixMapping(input.readString());
         } else if (type == ContentHandlerProxy.START_ELEMENT) {
-            String uri = readString(input);
-            String localName = readString(input);
-            String qName = readString(input);
+            String uri = input.readString();
+            String localName = input.readString();
+            String qName = input.readString();
             AttributesImpl atts = null;
             int n = input.readInt();
             if (n >= 0) {
                 atts = new AttributesImpl();
                 for (int i = 0; i < n; i++) {
                     atts.addAttribute(
-                            readString(input), readString(input),
-                            readString(input), readString(input),
-                            readString(input));
+                            input.readString(), input.readString(),
+                            input.readString(), input.readString(),
+                            input.readString());
                 }
             }
             handler.startElement(uri, localName, qName, atts);
         } else if (type == ContentHandlerProxy.END_ELEMENT) {
-            String uri = readString(input);
-            String localName = readString(input);
-            String qName = readString(input);
+            String uri = input.readString();
+            String localName = input.readString();
+            String qName = input.readString();
             handler.endElement(uri, localName, qName);
         } else if (type == ContentHandlerProxy.CHARACTERS) {
-            char[] ch = readCharacters(input);
+            char[] ch = input.readCharacters();
             handler.characters(ch, 0, ch.length);
         } else if (type == ContentHandlerProxy.IGNORABLE_WHITESPACE) {
-            char[] ch = readCharacters(input);
+            char[] ch = input.readCharacters();
             handler.characters(ch, 0, ch.length);
         } else if (type == ContentHandlerProxy.PROCESSING_INSTRUCTION) {
-            handler.processingInstruction(readString(input), readString(input));
+            handler.processingInstruction(input.readString(), input.readString());
         } else if (type == ContentHandlerProxy.SKIPPED_ENTITY) {
-            handler.skippedEntity(readString(input));
+            handler.skippedEntity(input.readString());
+        } else {
+            throw new IOException("Unexpected content handler event: " + type);
         }
     }
 
-    private String readString(DataInputStream input) throws IOException {
-        if (input.readBoolean()) {
-            return input.readUTF();
-        } else {
-            return null;
+    /**
+     * Decodes the events written by {@link ContentHandlerProxy.EventBuffer}.
+     */
+    private static class EventReader {
+
+        private final byte[] bytes;
+
+        private int position = 0;
+
+        EventReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean hasMore() {
+            return position < bytes.length;
         }
-    }
 
-    private char[] readCharacters(DataInputStream input) throws IOException {
-        int n = input.readInt();
-        char[] ch = new char[n];
-        for (int i = 0; i < n; i++) {
-            ch[i] = input.readChar();
+        int readUnsignedByte() throws IOException {
+            check(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        int readInt() throws IOException {
+            check(4);
+            int v = ((bytes[position] & 0xFF) << 24)
+                    | ((bytes[position + 1] & 0xFF) << 16)
+                    | ((bytes[position + 2] & 0xFF) << 8)
+                    | (bytes[position + 3] & 0xFF);
+            position += 4;
+            return v;
+        }
+
+        String readString() throws IOException {
+            int n = readInt();
+            if (n < 0) {
+                return null;
+            }
+            return new String(readChars(n));
+        }
+
+        char[] readCharacters() throws IOException {
+            return readChars(readInt());
+        }
+
+        private char[] readChars(int n) throws IOException {
+            //every char takes at least one byte
+            check(n);
+            char[] ch = new char[n];
+            for (int i = 0; i < n; i++) {
+                int b = readUnsignedByte();
+                if (b < 0x80) {
+                    ch[i] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    ch[i] = (char) (((b & 0x1F) << 6) | (readUnsignedByte() & 0x3F));
+                } else {
+                    int b2 = readUnsignedByte();
+                    ch[i] = (char) (((b & 0x0F) << 12) | ((b2 & 0x3F) << 6)
+                            | (readUnsignedByte() & 0x3F));
+                }
+            }
+            return ch;
+        }
+
+        private void check(int n) throws IOException {
+            if (n < 0 || position + n > bytes.length) {
+                throw new EOFException("Truncated content handler batch");
+            }
         }
-        return ch;
     }
 
 }
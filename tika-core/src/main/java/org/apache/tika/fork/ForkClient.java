@@ -196,6 +196,32 @@ class ForkClient {
         }
     }
 
+    /**
+     * Asks the server process for its memory usage.
+     *
+     * @param maxHeapBytes maximum heap in use after the most recent
+     *                     garbage collection, or -1 for no limit
+     * @param maxRssBytes maximum resident set size of the process,
+     *                    or -1 for no limit; ignored where the server
+     *                    can't determine it
+     * @return <code>false</code> if the server is over either limit,
+     *          or didn't respond
+     */
+    public synchronized boolean isWithinMemoryLimits(long maxHeapBytes, long maxRssBytes) {
+        try {
+            output.writeByte(ForkServer.MEMORY);
+            output.flush();
+            if (input.read() != ForkServer.MEMORY) {
+                return false;
+            }
+            long heap = input.readLong();
+            long rss = input.readLong();
+            return (maxHeapBytes <= 0 || heap <= maxHeapBytes)
+                    && (maxRssBytes <= 0 || rss < 0 || rss <= maxRssBytes);
+        } catch (IOException e) {
+            return false;
+        }
+    }
 
     public synchronized Throwable call(String method, Object... args)
             throws IOException, TikaException {
@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.fork;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.tika.exception.TikaException;
+
+/**
+ * Pool of forked server processes for a {@link ForkParser}.
+ * <p>
+ * Checking a client out and back in is lock-free: idle clients sit in a
+ * concurrent deque, and the number of open clients is reserved with
+ * compare-and-set. Only a caller that finds the pool at its maximum size
+ * blocks, until a client is released or evicted.
+ * <p>
+ * Clients are checked when they are returned, and are closed rather than
+ * reused if they died, have processed too many files or have grown past
+ * the memory limits. Idle clients beyond the minimum size are closed once
+ * they have been idle for longer than the idle timeout, checked whenever a
+ * client is returned and periodically from a timer, and the pool is
+ * refilled to its minimum size in the background.
+ */
+class ForkClientPool implements Closeable {
+
+    interface ClientFactory {
+        ForkClient newClient() throws IOException, TikaException;
+    }
+
+    private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+    /**
+     * Shortest interval between two runs of the idle timer
+     */
+    private static final long MIN_TRIM_PERIOD_MILLIS = 100;
+
+    private final ClientFactory factory;
+
+    private final String name = "tika-fork-pool-" + POOL_COUNTER.incrementAndGet();
+
+    /**
+     * Idle clients, most recently used first
+     */
+    private final ConcurrentLinkedDeque<IdleClient> idle = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Clients that are open or being opened, whether idle or in use
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = lock.newCondition();
+
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private volatile boolean closed = false;
+
+    private volatile int minSize = 0;
+
+    private volatile int maxSize;
+
+    private volatile long idleTimeoutMillis = -1;
+
+    /**
+     * Closes idle clients when no clients are being returned;
+     * guarded by this pool's monitor
+     */
+    private Timer trimTimer;
+
+    private volatile int maxFilesProcessedPerClient = -1;
+
+    private volatile long maxHeapBytesPerClient = -1;
+
+    private volatile long maxRssBytesPerClient = -1;
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder waits = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final LongAdder creates = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    ForkClientPool(ClientFactory factory, int maxSize) {
+        this.factory = factory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Checks out a live client, starting a new one if there is room
+     * in the pool, or waiting for one to be released if there isn't.
+     */
+    ForkClient acquire() throws IOException, TikaException {
+        long start = System.nanoTime();
+        boolean waited = false;
+        try {
+            while (true) {
+                if (closed) {
+                    throw new TikaException("ForkParser has been closed");
+                }
+                IdleClient idleClient;
+                while ((idleClient = idle.pollFirst()) != null) {
+                    // Ping the process, and get rid of it if it's inactive
+                    if (idleClient.client.ping()) {
+                        return idleClient.client;
+                    }
+                    evict(idleClient.client);
+                }
+                if (reserve()) {
+                    return create();
+                }
+                waited = true;
+                awaitAvailable();
+            }
+        } finally {
+            acquisitions.increment();
+            if (waited) {
+                waits.increment();
+                waitNanos.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Returns a client to the pool, or closes it if it is dead or
+     * unhealthy, or if the pool is closed or has shrunk.
+     *
+     * @param client client to return
+     * @param alive whether the client is still usable
+     */
+    void release(ForkClient client, boolean alive) {
+        if (!alive || closed || size.get() > maxSize || !isHealthy(client)) {
+            evict(client);
+            refill();
+        } else {
+            idle.offerFirst(new IdleClient(client, System.currentTimeMillis()));
+            if (closed) {
+                //close() may have drained the idle clients before the offer
+                evictIdle();
+                return;
+            }
+            signal();
+            trimIdle();
+        }
+    }
+
+    /**
+     * Starts clients until the pool holds at least its minimum size.
+     */
+    void warmUp() throws IOException, TikaException {
+        while (!closed && size.get() < minSize && reserve()) {
+            idle.offerLast(new IdleClient(create(), System.currentTimeMillis()));
+            signal();
+        }
+        if (closed) {
+            //close() may have drained the idle clients before the last offer
+            evictIdle();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            cancelTrimTimer();
+        }
+        evictIdle();
+        lock.lock();
+        try {
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes all the idle clients. Anything that adds an idle client checks
+     * {@link #closed} again afterwards and calls this if it is set, so that
+     * a client added while the pool is closing isn't left running.
+     */
+    private void evictIdle() {
+        IdleClient idleClient;
+        while ((idleClient = idle.pollFirst()) != null) {
+            evict(idleClient.client);
+        }
+    }
+
+    private boolean isHealthy(ForkClient client) {
+        if (maxFilesProcessedPerClient > 0
+                && client.getFilesProcessed() >= maxFilesProcessedPerClient) {
+            return false;
+        }
+        if (maxHeapBytesPerClient > 0 || maxRssBytesPerClient > 0) {
+            return client.isWithinMemoryLimits(maxHeapBytesPerClient, maxRssBytesPerClient);
+        }
+        return true;
+    }
+
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Starts a client in a slot that has already been reserved
+     */
+    private ForkClient create() throws IOException, TikaException {
+        boolean ok = false;
+        try {
+            ForkClient client = factory.newClient();
+            creates.increment();
+            ok = true;
+            return client;
+        } finally {
+            if (!ok) {
+                size.decrementAndGet();
+                signal();
+            }
+        }
+    }
+
+    private void evict(ForkClient client) {
+        client.close();
+        evictions.increment();
+        size.decrementAndGet();
+        signal();
+    }
+
+    private void awaitAvailable() throws TikaException {
+        waiting.incrementAndGet();
+        lock.lock();
+        try {
+            while (!closed && idle.isEmpty() && size.get() >= maxSize) {
+                //the timeout guards against a missed signal,
+                //e.g. after the pool has been resized
+                available.await(100, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            throw new TikaException(
+                    "Interrupted while waiting for a fork parser", e);
+        } finally {
+            lock.unlock();
+            waiting.decrementAndGet();
+        }
+    }
+
+    private void signal() {
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Closes the least recently used idle clients that have been
+     * idle for too long, as long as the pool stays at its minimum size
+     */
+    private void trimIdle() {
+        if (idleTimeoutMillis < 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        while (size.get() > minSize) {
+            IdleClient oldest = idle.pollLast();
+            if (oldest == null) {
+                return;
+            }
+            if (now - oldest.idleSince < idleTimeoutMillis) {
+                idle.offerLast(oldest);
+                return;
+            }
+            evict(oldest.client);
+        }
+    }
+
+    /**
+     * Starts clients in the background until the pool is back
+     * at its minimum size
+     */
+    private void refill() {
+        if (closed || size.get() >= minSize || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                warmUp();
+            } catch (IOException | TikaException e) {
+                //the next acquire will try again, and report the problem
+            } finally {
+                refilling.set(false);
+            }
+        }, name + "-refill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    int getSize() {
+        return size.get();
+    }
+
+    int getIdleCount() {
+        return idle.size();
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        signal();
+    }
+
+    void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        synchronized (this) {
+            cancelTrimTimer();
+            if (closed || idleTimeoutMillis < 0) {
+                return;
+            }
+            //clients are closed at most half a timeout late
+            long period = Math.max(idleTimeoutMillis / 2, MIN_TRIM_PERIOD_MILLIS);
+            trimTimer = new Timer(name + "-trim", true);
+            trimTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    trimIdle();
+                }
+            }, period, period);
+        }
+    }
+
+    private void cancelTrimTimer() {
+        if (trimTimer != null) {
+            trimTimer.cancel();
+            trimTimer = null;
+        }
+    }
+
+    void setMaxFilesProcessedPerClient(int maxFilesProcessedPerClient) {
+        this.maxFilesProcessedPerClient = maxFilesProcessedPerClient;
+    }
+
+    void setMaxHeapBytesPerClient(long maxHeapBytesPerClient) {
+        this.maxHeapBytesPerClient = maxHeapBytesPerClient;
+    }
+
+    void setMaxRssBytesPerClient(long maxRssBytesPerClient) {
+        this.maxRssBytesPerClient = maxRssBytesPerClient;
+    }
+
+    ForkParser.PoolStatistics getStatistics() {
+        return new ForkParser.PoolStatistics(
+                acquisitions.sum(), waits.sum(), waitNanos.sum(),
+                creates.sum(), evictions.sum(), size.get(), idle.size());
+    }
+
+    private static class IdleClient {
+        private final ForkClient client;
+        private final long idleSince;
+
+        IdleClient(ForkClient client, long idleSince) {
+            this.client = client;
+            this.idleSince = idleSince;
+        }
+    }
+}
@@ -23,9 +23,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
 
 import org.apache.tika.config.Field;
@@ -61,11 +59,22 @@ public class ForkParser extends AbstractParser implements Closeable
 
     /** Process pool size */
     @Field
-    private int poolSize = 5;
+    private volatile int poolSize = 5;
 
-    private int currentlyInUse = 0;
+    /** Number of processes to keep started, even when idle */
+    @Field
+    private int minPoolSize = 0;
+
+    @Field
+    private long poolIdleTimeoutMillis = -1;
+
+    @Field
+    private long maxServerHeapBytes = -1;
 
-    private final Queue<ForkClient> pool = new LinkedList<>();
+    @Field
+    private long maxServerRssBytes = -1;
+
+    private transient volatile ForkClientPool pool;
 
     @Field
     private long serverPulseMillis = 1000;
@@ -136,17 +145,111 @@ public class ForkParser extends AbstractParser implements Closeable
      *
      * @return process pool size
      */
-    public synchronized int getPoolSize() {
+    public int getPoolSize() {
         return poolSize;
     }
 
     /**
-     * Sets the size of the process pool.
+     * Sets the size of the process pool.  This is the maximum
+     * number of processes; the pool grows up to this size with load.
      *
      * @param poolSize process pool size
      */
-    public synchronized void setPoolSize(int poolSize) {
+    public void setPoolSize(int poolSize) {
         this.poolSize = poolSize;
+        ForkClientPool current = pool;
+        if (current != null) {
+            current.setMaxSize(poolSize);
+        }
+    }
+
+    /**
+     * Sets the number of processes that are started by {@link #warmUp()}
+     * and that are kept running even when idle.  When a process is
+     * closed because it died or hit one of the per-server limits, a
+     * replacement is started in the background.  Note that idle servers
+     * still shut themselves down after
+     * {@link #setServerWaitTimeoutMillis(long)}; set that to 0 to keep
+     * them running.  The default is 0.
+     *
+     * @param minPoolSize minimum number of processes
+     */
+    public void setMinPoolSize(int minPoolSize) {
+        this.minPoolSize = minPoolSize;
+        ForkClientPool current = pool;
+        if (current != null) {
+            current.setMinSize(minPoolSize);
+        }
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    /**
+     * Processes beyond the {@link #setMinPoolSize(int) minimum pool size}
+     * are shut down once they have been idle for this long.  The default
+     * is -1, which leaves idle processes in the pool.
+     *
+     * @param poolIdleTimeoutMillis idle time in milliseconds, or -1
+     */
+    public void setPoolIdleTimeoutMillis(long poolIdleTimeoutMillis) {
+        this.poolIdleTimeoutMillis = poolIdleTimeoutMillis;
+        ForkClientPool current = pool;
+        if (current != null) {
+            current.setIdleTimeoutMillis(poolIdleTimeoutMillis);
+        }
+    }
+
+    /**
+     * If a server uses more than this much heap after garbage collection
+     * when it has finished a file, it is shut down and a new one is
+     * started for the next file.  The default is -1, which disables
+     * the check.
+     *
+     * @param maxServerHeapBytes maximum heap in bytes, or -1
+     */
+    public void setMaxServerHeapBytes(long maxServerHeapBytes) {
+        this.maxServerHeapBytes = maxServerHeapBytes;
+        ForkClientPool current = pool;
+        if (current != null) {
+            current.setMaxHeapBytesPerClient(maxServerHeapBytes);
+        }
+    }
+
+    /**
+     * If a server's resident set size is larger than this when it has
+     * finished a file, it is shut down and a new one is started for the
+     * next file.  This is only checked where the server can determine
+     * its resident set size, currently on Linux.  The default is -1,
+     * which disables the check.
+     *
+     * @param maxServerRssBytes maximum resident set size in bytes, or -1
+     */
+    public void setMaxServerRssBytes(long maxServerRssBytes) {
+        this.maxServerRssBytes = maxServerRssBytes;
+        ForkClientPool current = pool;
+        if (current != null) {
+            current.setMaxRssBytesPerClient(maxServerRssBytes);
+        }
+    }
+
+    /**
+     * Starts the {@link #setMinPoolSize(int) minimum number} of server
+     * processes, so that the first parses don't wait for them to start.
+     *
+     * @throws IOException if a process could not be started
+     * @throws TikaException if a server could not be initialized
+     */
+    public void warmUp() throws IOException, TikaException {
+        getPool().warmUp();
+    }
+
+    /**
+     * @return a snapshot of the process pool's size and usage counters
+     */
+    public PoolStatistics getPoolStatistics() {
+        return getPool().getStatistics();
     }
 
     /**
@@ -259,7 +362,8 @@ public class ForkParser extends AbstractParser implements Closeable
         Throwable t;
 
         boolean alive = false;
-        ForkClient client = acquireClient();
+        ForkClientPool clientPool = getPool();
+        ForkClient client = clientPool.acquire();
         try {
             ContentHandler tee = (handler instanceof AbstractRecursiveParserWrapperHandler) ? handler :
                     new TeeContentHandler(
@@ -279,7 +383,7 @@ public class ForkParser extends AbstractParser implements Closeable
                     + " like running out of memory. A new process will be"
                     + " started for the next parsing request.", e);
         } finally {
-            releaseClient(client, alive);
+            clientPool.release(client, alive);
         }
 
         if (t instanceof IOException) {
@@ -295,41 +399,29 @@ public class ForkParser extends AbstractParser implements Closeable
     }
 
     public synchronized void close() {
-        for (ForkClient client : pool) {
-            client.close();
+        if (pool != null) {
+            pool.close();
+            pool = null;
         }
-        pool.clear();
-        poolSize = 0;
     }
 
-    private synchronized ForkClient acquireClient()
-            throws IOException, TikaException {
-        while (true) {
-            ForkClient client = pool.poll();
-
-            // Create a new process if there's room in the pool
-            if (client == null && currentlyInUse < poolSize) {
-                client = newClient();
-            }
-
-            // Ping the process, and get rid of it if it's inactive
-            if (client != null && !client.ping()) {
-                client.close();
-                client = null;
-            }
-
-            if (client != null) {
-                currentlyInUse++;
-                return client;
-            } else if (currentlyInUse >= poolSize) {
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    throw new TikaException(
-                            "Interrupted while waiting for a fork parser", e);
+    private ForkClientPool getPool() {
+        ForkClientPool current = pool;
+        if (current == null) {
+            synchronized (this) {
+                current = pool;
+                if (current == null) {
+                    current = new ForkClientPool(this::newClient, poolSize);
+                    current.setMinSize(minPoolSize);
+                    current.setIdleTimeoutMillis(poolIdleTimeoutMillis);
+                    current.setMaxFilesProcessedPerClient(maxFilesProcessedPerClient);
+                    current.setMaxHeapBytesPerClient(maxServerHeapBytes);
+                    current.setMaxRssBytesPerClient(maxServerRssBytes);
+                    pool = current;
                 }
             }
         }
+        return current;
     }
 
     private ForkClient newClient() throws IOException, TikaException {
@@ -346,20 +438,6 @@ public class ForkParser extends AbstractParser implements Closeable
         }
     }
 
-    private synchronized void releaseClient(ForkClient client, boolean alive) {
-        currentlyInUse--;
-        if (currentlyInUse + pool.size() < poolSize && alive) {
-            if (maxFilesProcessedPerClient > 0 && client.getFilesProcessed() >= maxFilesProcessedPerClient) {
-                client.close();
-            } else {
-                pool.offer(client);
-            }
-            notifyAll();
-        } else {
-            client.close();
-        }
-    }
-
     /**
      * The amount of time in milliseconds that the server
      * should wait before checking to see if the parse has timed out
@@ -405,6 +483,99 @@ public class ForkParser extends AbstractParser implements Closeable
      */
     public void setMaxFilesProcessedPerServer(int maxFilesProcessedPerClient) {
         this.maxFilesProcessedPerClient = maxFilesProcessedPerClient;
+        ForkClientPool current = pool;
+        if (current != null) {
+            current.setMaxFilesProcessedPerClient(maxFilesProcessedPerClient);
+        }
+    }
+
+    /**
+     * Size and usage counters of the process pool.  The counters
+     * are cumulative over the lifetime of the pool.
+     */
+    public static final class PoolStatistics {
+        private final long acquisitions;
+        private final long waits;
+        private final long waitNanos;
+        private final long creates;
+        private final long evictions;
+        private final int size;
+        private final int idle;
+
+        PoolStatistics(long acquisitions, long waits, long waitNanos,
+                       long creates, long evictions, int size, int idle) {
+            this.acquisitions = acquisitions;
+            this.waits = waits;
+            this.waitNanos = waitNanos;
+            this.creates = creates;
+            this.evictions = evictions;
+            this.size = size;
+            this.idle = idle;
+        }
+
+        /**
+         * @return number of times a process was checked out of the pool
+         */
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        /**
+         * @return number of checkouts that had to wait because the pool
+         * was at its maximum size
+         */
+        public long getWaits() {
+            return waits;
+        }
+
+        /**
+         * @return total time spent waiting for a process, in nanoseconds
+         */
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        /**
+         * @return number of processes started
+         */
+        public long getCreates() {
+            return creates;
+        }
+
+        /**
+         * @return number of processes shut down by the pool, because they
+         * died, hit a per-server limit or were idle for too long
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return number of processes currently running, idle or in use
+         */
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return number of idle processes
+         */
+        public int getIdle() {
+            return idle;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStatistics{" +
+                    "acquisitions=" + acquisitions +
+                    ", waits=" + waits +
+                    ", waitNanos=" + waitNanos +
+                    ", creates=" + creates +
+                    ", evictions=" + evictions +
+                    ", size=" + size +
+                    ", idle=" + idle +
+                    '}';
+        }
     }
 
 }
@@ -20,17 +20,29 @@ import org.apache.tika.exception.TikaException;
 import org.apache.tika.parser.ParserFactory;
 import org.xml.sax.SAXException;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.Flushable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.zip.CheckedInputStream;
 import java.util.zip.CheckedOutputStream;
 import java.util.zip.Checksum;
@@ -55,6 +67,8 @@ class ForkServer implements Runnable {
     public static final byte INIT_LOADER_PARSER = 7;
     public static final byte INIT_PARSER_FACTORY_FACTORY_LOADER = 8;
 
+    public static final byte MEMORY = 9;
+
     //milliseconds to sleep before checking to see if there has been any reading/writing
     //If no reading or writing in this time, shutdown the server.
     private long serverPulseMillis = 5000;
@@ -91,6 +105,13 @@ class ForkServer implements Runnable {
         server.processRequests();
     }
 
+    /**
+     * How often buffered proxy output is sent to the parent process; the same as
+     * {@link ContentHandlerProxy#MAX_BATCH_DELAY_MILLIS}, which can't be referenced
+     * here in legacy mode, as the proxies aren't in the bootstrap jar
+     */
+    private static final long FLUSH_PULSE_MILLIS = 100;
+
     /** Input stream for reading from the parent process */
     private final DataInputStream input;
 
@@ -107,6 +128,10 @@ class ForkServer implements Runnable {
     private boolean parsing = false;
     private long since;
 
+    //proxies received for the current call that may buffer output;
+    //also read by the flusher thread
+    private final List<Flushable> flushables = new CopyOnWriteArrayList<>();
+
     /**
      * Sets up a forked server instance using the given stdin/out
      * communication channel.
@@ -120,8 +145,10 @@ class ForkServer implements Runnable {
             throws IOException {
         this.input =
             new DataInputStream(input);
+        //every message is explicitly flushed; the buffer
+        //avoids a write to the pipe per primitive value
         this.output =
-            new DataOutputStream(output);
+            new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
         this.serverPulseMillis = serverPulseMillis;
         this.serverParserTimeoutMillis = serverParserTimeoutMillis;
         this.serverWaitTimeoutMillis = serverWaitTimeoutMillis;
@@ -163,6 +190,7 @@ class ForkServer implements Runnable {
             }
             return;
         }
+        startFlusher();
         //main loop
         try {
             while (true) {
@@ -171,6 +199,10 @@ class ForkServer implements Runnable {
                     break;
                 } else if (request == PING) {
                     output.writeByte(PING);
+                } else if (request == MEMORY) {
+                    output.writeByte(MEMORY);
+                    output.writeLong(getHeapUsed());
+                    output.writeLong(getResidentSetSize());
                 } else if (request == CALL) {
                     call(classLoader, parser);
                 } else {
@@ -184,6 +216,32 @@ class ForkServer implements Runnable {
         System.err.flush();
     }
 
+    /**
+     * Flushes the proxies of the current call every {@link #FLUSH_PULSE_MILLIS},
+     * so that what they have buffered reaches the parent process even when the
+     * parser stops producing output for a while, e.g. during a long OCR step,
+     * and isn't lost if the process is then killed on a timeout.  Proxies that
+     * write to {@link #output} while events may be buffered hold its lock.
+     */
+    private void startFlusher() {
+        //a lambda rather than a (nested) class, so that there's nothing
+        //more to add to the bootstrap jar
+        Thread flusher = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(FLUSH_PULSE_MILLIS);
+                    for (Flushable flushable : flushables) {
+                        flushable.flush();
+                    }
+                }
+            } catch (InterruptedException | IOException e) {
+                //the main loop sees the broken pipe too
+            }
+        }, "Tika Fork Flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
     private void initializeParserAndLoader() throws IOException, ClassNotFoundException,
             TikaException, SAXException {
         output.writeByte(READY);
@@ -247,8 +305,10 @@ class ForkServer implements Runnable {
             }
             try {
                 method.invoke(object, args);
+                flushProxies();
                 output.write(DONE);
             } catch (InvocationTargetException e) {
+                flushProxies();
                 output.write(ERROR);
                 // Try to send the underlying Exception itself
                 Throwable toSend = e.getCause();
@@ -263,6 +323,7 @@ class ForkServer implements Runnable {
 
             }
         } finally {
+            flushables.clear();
             synchronized (lock) {
                 parsing = false;
                 since = System.currentTimeMillis();
@@ -270,6 +331,59 @@ class ForkServer implements Runnable {
         }
     }
 
+    /**
+     * Sends anything the proxies of this call have buffered, so that
+     * the parent process has received it before the call's response.
+     */
+    private void flushProxies() throws IOException {
+        for (Flushable flushable : flushables) {
+            flushable.flush();
+        }
+    }
+
+    /**
+     * @return heap in use after the most recent garbage collection,
+     * or the heap currently in use if that isn't available
+     */
+    private static long getHeapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage usage = pool.getCollectionUsage();
+            if (pool.getType() != MemoryType.HEAP || usage == null) {
+                continue;
+            }
+            used += usage.getUsed();
+        }
+        if (used > 0) {
+            return used;
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * @return resident set size of this process in bytes, or -1 if
+     * it can't be determined (it is read from /proc on Linux)
+     */
+    private static long getResidentSetSize() {
+        Path status = Paths.get("/proc/self/status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        try {
+            for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("VmRSS:")) {
+                    //e.g. "VmRSS:     12345 kB"
+                    String kb = line.substring(6).replace("kB", "").trim();
+                    return Long.parseLong(kb) * 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            //fall through
+        }
+        return -1;
+    }
+
     private Method getMethod(Object object, String name) {
         Class<?> klass = object.getClass();
         while (klass != null) {
@@ -299,6 +413,9 @@ class ForkServer implements Runnable {
         Object object = ForkObjectInputStream.readObject(input, loader);
         if (object instanceof ForkProxy) {
             ((ForkProxy) object).init(input, output);
+            if (object instanceof Flushable) {
+                flushables.add((Flushable) object);
+            }
         }
 
         // Tell the parent process that we successfully received this object
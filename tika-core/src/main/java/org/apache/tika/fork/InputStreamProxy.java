@@ -21,8 +21,19 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Reads the document stream of the parent process from within the
+ * forked process.  Each round trip to the parent requests at least
+ * {@link #READ_AHEAD} bytes, so that small reads, e.g. byte by byte
+ * or through a small buffer, are served locally.
+ */
 class InputStreamProxy extends InputStream implements ForkProxy {
 
+    /**
+     * Minimum number of bytes to request from the parent process
+     */
+    static final int READ_AHEAD = 64 * 1024;
+
     /** Serial version UID */
     private static final long serialVersionUID = 4350939227765568438L;
 
@@ -32,6 +43,12 @@ class InputStreamProxy extends InputStream implements ForkProxy {
 
     private transient DataOutputStream output;
 
+    private transient byte[] buffer;
+
+    private transient int position;
+
+    private transient int limit;
+
     public InputStreamProxy(int resource) {
         this.resource = resource;
     }
@@ -43,24 +60,59 @@ class InputStreamProxy extends InputStream implements ForkProxy {
 
     @Override
     public int read() throws IOException {
-        output.writeByte(ForkServer.RESOURCE);
-        output.writeByte(resource);
-        output.writeInt(1);
-        output.flush();
-        int n = input.readInt();
-        if (n == 1) {
-            return input.readUnsignedByte();
-        } else {
-            return n;
+        if (position >= limit && fill() <= 0) {
+            return -1;
         }
+        return buffer[position++] & 0xFF;
     }
 
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
-        output.writeByte(ForkServer.RESOURCE);
-        output.writeByte(resource);
-        output.writeInt(len);
-        output.flush();
+        if (len == 0) {
+            return 0;
+        }
+        if (position < limit) {
+            int n = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+        if (len >= READ_AHEAD) {
+            //no point in copying large reads through the buffer
+            return request(b, off, len);
+        }
+        int n = fill();
+        if (n <= 0) {
+            return -1;
+        }
+        return read(b, off, len);
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    private int fill() throws IOException {
+        if (buffer == null) {
+            buffer = new byte[READ_AHEAD];
+        }
+        position = 0;
+        limit = 0;
+        int n = request(buffer, 0, buffer.length);
+        if (n > 0) {
+            limit = n;
+        }
+        return n;
+    }
+
+    private int request(byte[] b, int off, int len) throws IOException {
+        synchronized (output) {
+            output.writeByte(ForkServer.RESOURCE);
+            output.writeByte(resource);
+            output.writeInt(len);
+            output.flush();
+        }
         int n = input.readInt();
         if (n > 0) {
             input.readFully(b, off, n);
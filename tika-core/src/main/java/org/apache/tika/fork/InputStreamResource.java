@@ -21,10 +21,20 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+import org.apache.tika.io.IOUtils;
+
+/**
+ * Serves the read requests of an {@link InputStreamProxy}.  Each request
+ * is filled as far as the stream allows, so that a round trip to the
+ * forked process carries a full block rather than whatever a single
+ * {@link InputStream#read(byte[])} happened to return.
+ */
 class InputStreamResource implements ForkResource {
 
     private final InputStream stream;
 
+    private byte[] buffer = new byte[0];
+
     public InputStreamResource(InputStream stream) {
         this.stream = stream;
     }
@@ -32,10 +42,15 @@ class InputStreamResource implements ForkResource {
     public Throwable process(DataInputStream input, DataOutputStream output)
             throws IOException {
         int n = input.readInt();
-        byte[] buffer = new byte[n];
+        if (buffer.length < n) {
+            buffer = new byte[n];
+        }
         int m;
         try {
-            m = stream.read(buffer);
+            m = IOUtils.read(stream, buffer, 0, n);
+            if (m == 0 && n > 0) {
+                m = -1;
+            }
         } catch (IOException e) {
             // returning exception causes deadlock
             // return e;
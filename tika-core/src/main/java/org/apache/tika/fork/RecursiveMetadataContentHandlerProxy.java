@@ -77,39 +77,43 @@ class RecursiveMetadataContentHandlerProxy extends RecursiveParserWrapperHandler
 
     private void proxyBackToClient(int embeddedOrMainDocument,
                                    ContentHandler contentHandler, Metadata metadata) throws SAXException {
-        try {
-            output.write(ForkServer.RESOURCE);
-            output.writeByte(resource);
-            output.writeByte(embeddedOrMainDocument);
-            boolean success = false;
-            if (contentHandler instanceof Serializable) {
-                byte[] bytes = null;
-                try {
-                    bytes = serialize(contentHandler);
-                    success = true;
-                } catch (NotSerializableException e) {
-                    //object lied
-                }
-                if (success) {
-
-                    output.write(HANDLER_AND_METADATA);
-                    sendBytes(bytes);
-                    send(metadata);
-                    output.writeByte(COMPLETE);
-                    return;
+        //the message is written in pieces, and a timer in the ForkServer
+        //can flush the batched events of a ContentHandlerProxy at any time
+        synchronized (output) {
+            try {
+                output.write(ForkServer.RESOURCE);
+                output.writeByte(resource);
+                output.writeByte(embeddedOrMainDocument);
+                boolean success = false;
+                if (contentHandler instanceof Serializable) {
+                    byte[] bytes = null;
+                    try {
+                        bytes = serialize(contentHandler);
+                        success = true;
+                    } catch (NotSerializableException e) {
+                        //object lied
+                    }
+                    if (success) {
+
+                        output.write(HANDLER_AND_METADATA);
+                        sendBytes(bytes);
+                        send(metadata);
+                        output.writeByte(COMPLETE);
+                        return;
+                    }
                 }
+                //if contenthandler is not allegedly or actually Serializable
+                //fall back to adding contentHandler.toString() to the metadata object
+                //and send that.
+                metadata.set(RecursiveParserWrapperHandler.TIKA_CONTENT, contentHandler.toString());
+                output.writeByte(METADATA_ONLY);
+                send(metadata);
+                output.writeByte(COMPLETE);
+            } catch (IOException e) {
+                throw new SAXException(e);
+            } finally {
+                doneSending();
             }
-            //if contenthandler is not allegedly or actually Serializable
-            //fall back to adding contentHandler.toString() to the metadata object
-            //and send that.
-            metadata.set(RecursiveParserWrapperHandler.TIKA_CONTENT, contentHandler.toString());
-            output.writeByte(METADATA_ONLY);
-            send(metadata);
-            output.writeByte(COMPLETE);
-        } catch (IOException e) {
-            throw new SAXException(e);
-        } finally {
-            doneSending();
         }
     }
 
@@ -43,9 +43,17 @@ import java.io.InputStream;
  */
 public class LookaheadInputStream extends InputStream {
 
+    /**
+     * Initial size of the lookahead buffer, which then grows as needed
+     * up to the maximum number of bytes to look ahead.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
     private InputStream stream;
 
-    private final byte[] buffer;
+    private final int limit;
+
+    private byte[] buffer;
 
     private int buffered = 0;
 
@@ -65,7 +73,8 @@ public class LookaheadInputStream extends InputStream {
      */
     public LookaheadInputStream(InputStream stream, int n) {
         this.stream = stream;
-        this.buffer = new byte[n];
+        this.limit = n;
+        this.buffer = new byte[Math.min(n, INITIAL_BUFFER_SIZE)];
         if (stream != null) {
             stream.mark(n);
         }
@@ -80,7 +89,12 @@ public class LookaheadInputStream extends InputStream {
     }
 
     private void fill() throws IOException {
-        if (available() == 0 && buffered < buffer.length && stream != null) {
+        if (available() == 0 && buffered < limit && stream != null) {
+            if (buffered == buffer.length) {
+                byte[] grown = new byte[(int) Math.min(limit, 2L * buffer.length)];
+                System.arraycopy(buffer, 0, grown, 0, buffered);
+                buffer = grown;
+            }
             int n = stream.read(buffer, buffered, buffer.length - buffered);
             if (n != -1) {
                 buffered += n;
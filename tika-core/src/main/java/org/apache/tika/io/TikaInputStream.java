@@ -36,6 +36,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.Blob;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
@@ -73,6 +75,21 @@ public class TikaInputStream extends TaggedInputStream {
 
     private static final int MAX_CONSECUTIVE_EOFS = 1000;
 
+    /**
+     * Length of the prefix buffers that are recycled across streams: the
+     * magic header length of the default {@link org.apache.tika.mime.MimeTypes},
+     * which is the largest prefix asked for by the default detectors.
+     */
+    private static final int POOLED_PREFIX_LENGTH = 64 * 1024;
+
+    /**
+     * Prefix buffers of {@link #POOLED_PREFIX_LENGTH} bytes that are free
+     * for reuse, so that detecting the type of a document doesn't need to
+     * allocate one.
+     */
+    private static final AtomicReferenceArray<byte[]> PREFIX_POOL =
+            new AtomicReferenceArray<>(2 * Runtime.getRuntime().availableProcessors());
+
     /**
      * Checks whether the given stream is a TikaInputStream instance.
      * The given stream can be <code>null</code>, in which case the return
@@ -513,6 +530,21 @@ public class TikaInputStream extends TaggedInputStream {
     private int consecutiveEOFs = 0;
 
     private byte[] skipBuffer;
+
+    /**
+     * Upcoming bytes shared by {@link #getPrefix(int)}, or <code>null</code>.
+     */
+    private byte[] prefix;
+
+    /**
+     * Stream position at which {@link #prefix} was read.
+     */
+    private long prefixPosition = -1;
+
+    /**
+     * Whether the stream ended within {@link #prefix}.
+     */
+    private boolean prefixReachesEnd = false;
     /**
      * Creates a TikaInputStream instance. This private constructor is used
      * by the static factory methods based on the available information.
@@ -592,6 +624,64 @@ public class TikaInputStream extends TaggedInputStream {
 
         return n;
     }
+
+    /**
+     * Returns upcoming bytes from this stream without advancing the current
+     * stream position, like {@link #peek(byte[])}, except that the bytes are
+     * read only once. They are kept and handed to every later caller at the
+     * same position, so that the detectors in a chain share a single read
+     * of the document prefix instead of each marking, reading and resetting
+     * the stream with a buffer of their own.
+     * <p>
+     * The returned array holds <code>length</code> bytes, or fewer if the
+     * stream ends before that. It may hold more if an earlier caller asked
+     * for more. The array is shared, so callers must not modify it, and it
+     * may be recycled once this stream is closed or moves past it, so
+     * callers must not keep it either.
+     *
+     * @param length number of bytes needed
+     * @return upcoming bytes of this stream
+     * @throws IOException if the stream can not be read
+     */
+    public byte[] getPrefix(int length) throws IOException {
+        if (prefix != null && prefixPosition == position
+                && (prefix.length >= length || prefixReachesEnd)) {
+            return prefix;
+        }
+        byte[] buffer = length == POOLED_PREFIX_LENGTH ? takePrefixBuffer() : new byte[length];
+        int n = peek(buffer);
+        recyclePrefixBuffer(prefix);
+        if (n < length) {
+            prefix = Arrays.copyOf(buffer, n);
+            recyclePrefixBuffer(buffer);
+        } else {
+            prefix = buffer;
+        }
+        prefixPosition = position;
+        prefixReachesEnd = n < length;
+        return prefix;
+    }
+
+    private static byte[] takePrefixBuffer() {
+        for (int i = 0; i < PREFIX_POOL.length(); i++) {
+            byte[] buffer = PREFIX_POOL.get(i);
+            if (buffer != null && PREFIX_POOL.compareAndSet(i, buffer, null)) {
+                return buffer;
+            }
+        }
+        return new byte[POOLED_PREFIX_LENGTH];
+    }
+
+    private static void recyclePrefixBuffer(byte[] buffer) {
+        if (buffer == null || buffer.length != POOLED_PREFIX_LENGTH) {
+            return;
+        }
+        for (int i = 0; i < PREFIX_POOL.length(); i++) {
+            if (PREFIX_POOL.get(i) == null && PREFIX_POOL.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+    }
     
     /**
      * Returns the open container object if any, such as a
@@ -785,6 +875,8 @@ public class TikaInputStream extends TaggedInputStream {
     public void close() throws IOException {
         path = null;
         mark = -1;
+        recyclePrefixBuffer(prefix);
+        prefix = null;
 
         // The close method was explicitly called, so we indeed
         // are expected to close the input stream. Handle that
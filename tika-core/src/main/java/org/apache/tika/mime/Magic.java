@@ -30,13 +30,16 @@ class Magic implements Clause, Comparable<Magic> {
 
     private final Clause clause;
 
-    private final String string;
+    /**
+     * String form, built on demand as only ties in the
+     * sort order and the equality checks need it
+     */
+    private volatile String string;
 
     Magic(MimeType type, int priority, Clause clause) {
         this.type = type;
         this.priority = priority;
         this.clause = clause;
-        this.string = "[" + priority + "/" + clause + "]";
     }
 
     MimeType getType() {
@@ -47,6 +50,10 @@ class Magic implements Clause, Comparable<Magic> {
         return priority;
     }
 
+    Clause getClause() {
+        return clause;
+    }
+
     public boolean eval(byte[] data) {
         return clause.eval(data);
     }
@@ -56,7 +63,12 @@ class Magic implements Clause, Comparable<Magic> {
     }
 
     public String toString() {
-        return string;
+        String s = string;
+        if (s == null) {
+            s = "[" + priority + "/" + clause + "]";
+            string = s;
+        }
+        return s;
     }
 
     public int compareTo(Magic o) {
@@ -68,7 +80,7 @@ class Magic implements Clause, Comparable<Magic> {
             diff = o.type.compareTo(type);
         }
         if (diff == 0) {
-            diff = o.string.compareTo(string);
+            diff = o.toString().compareTo(toString());
         }
         return diff;
     }
@@ -76,13 +88,13 @@ class Magic implements Clause, Comparable<Magic> {
     public boolean equals(Object o) {
         if (o instanceof Magic) {
             Magic that = (Magic) o;
-            return type.equals(that.type) && string.equals(that.string);
+            return type.equals(that.type) && toString().equals(that.toString());
         }
         return false;
     }
 
     public int hashCode() {
-        return type.hashCode() ^ string.hashCode();
+        return type.hashCode() ^ toString().hashCode();
     }
 
 }
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.tika.detect.MagicDetector;
+
+/**
+ * Immutable, precompiled view of the sorted magics of a {@link MimeTypes}
+ * registry. Most magics require an exact byte at a fixed offset, so the
+ * magics are indexed on those (offset, byte) pairs and only the magics that
+ * can possibly match a given prefix are evaluated. Magics are still evaluated
+ * in their sorted order, so the priority semantics are exactly the same as
+ * walking the full list.
+ */
+final class MagicIndex implements Serializable {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 4526193011856235416L;
+
+    /** All the magics, in priority order */
+    private final Magic[] magics;
+
+    /** Bit set of the magics that can't be indexed and always get evaluated */
+    private final long[] unanchored;
+
+    /** Sorted offsets of the indexed bytes */
+    private final int[] offsets;
+
+    /**
+     * Positions of the candidate magics, by offset and byte value:
+     * <code>candidates[k][b]</code> lists the magics that may match when
+     * the byte at <code>offsets[k]</code> is <code>b</code>
+     */
+    private final int[][][] candidates;
+
+    MagicIndex(List<Magic> sortedMagics) {
+        this.magics = sortedMagics.toArray(new Magic[0]);
+        this.unanchored = new long[(magics.length + 63) >>> 6];
+
+        Map<Integer, List<Integer>[]> byOffset = new TreeMap<>();
+        for (int i = 0; i < magics.length; i++) {
+            List<Anchor> anchors = getAnchors(magics[i].getClause());
+            if (anchors == null) {
+                unanchored[i >>> 6] |= 1L << i;
+                continue;
+            }
+            for (Anchor anchor : anchors) {
+                List<Integer>[] lists = byOffset.get(anchor.offset);
+                if (lists == null) {
+                    @SuppressWarnings({"unchecked", "rawtypes"})
+                    List<Integer>[] empty = new List[256];
+                    lists = empty;
+                    byOffset.put(anchor.offset, lists);
+                }
+                for (int b = 0; b < 256; b++) {
+                    if (anchor.detector.acceptsFirstByte((byte) b)) {
+                        if (lists[b] == null) {
+                            lists[b] = new ArrayList<>();
+                        }
+                        List<Integer> list = lists[b];
+                        if (list.isEmpty() || list.get(list.size() - 1) != i) {
+                            list.add(i);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.offsets = new int[byOffset.size()];
+        this.candidates = new int[byOffset.size()][][];
+        int k = 0;
+        for (Map.Entry<Integer, List<Integer>[]> entry : byOffset.entrySet()) {
+            offsets[k] = entry.getKey();
+            candidates[k] = new int[256][];
+            for (int b = 0; b < 256; b++) {
+                List<Integer> list = entry.getValue()[b];
+                if (list != null) {
+                    int[] positions = new int[list.size()];
+                    for (int j = 0; j < positions.length; j++) {
+                        positions[j] = list.get(j);
+                    }
+                    candidates[k][b] = positions;
+                }
+            }
+            k++;
+        }
+    }
+
+    /**
+     * Returns the types of the best (highest priority) magics that match
+     * the given prefix, or an empty list if none match.
+     *
+     * @param data document prefix, not empty
+     * @return matching types
+     */
+    List<MimeType> eval(byte[] data) {
+        long[] bits = unanchored.clone();
+        for (int k = 0; k < offsets.length && offsets[k] < data.length; k++) {
+            int[] positions = candidates[k][data[offsets[k]] & 0xFF];
+            if (positions != null) {
+                for (int i : positions) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        List<MimeType> result = Collections.emptyList();
+        int currentPriority = -1;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+
+                Magic magic = magics[i];
+                if (currentPriority > 0 && currentPriority > magic.getPriority()) {
+                    return result;
+                }
+                if (magic.eval(data)) {
+                    if (result.isEmpty()) {
+                        result = new ArrayList<>(1);
+                    }
+                    result.add(magic.getType());
+                    currentPriority = magic.getPriority();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a set of (offset, first byte) conditions of which at least one
+     * must hold for the given clause to match, or <code>null</code> if no
+     * such conditions are known.
+     */
+    private static List<Anchor> getAnchors(Clause clause) {
+        if (clause instanceof Magic) {
+            return getAnchors(((Magic) clause).getClause());
+        } else if (clause instanceof MagicMatch) {
+            MagicDetector detector;
+            try {
+                detector = ((MagicMatch) clause).getDetector();
+            } catch (RuntimeException e) {
+                // Leave broken magics to fail at evaluation time, as before
+                return null;
+            }
+            int offset = detector.getFixedOffset();
+            if (offset < 0) {
+                return null;
+            }
+            return Collections.singletonList(new Anchor(offset, detector));
+        } else if (clause instanceof AndClause) {
+            // Any one of the nested clauses is a necessary condition,
+            // so pick the most selective one
+            List<Anchor> best = null;
+            for (Clause nested : ((AndClause) clause).getClauses()) {
+                List<Anchor> anchors = getAnchors(nested);
+                if (anchors != null && (best == null || anchors.size() < best.size())) {
+                    best = anchors;
+                }
+            }
+            return best;
+        } else if (clause instanceof OrClause) {
+            // Only usable if every alternative is anchored
+            List<Anchor> all = new ArrayList<>();
+            for (Clause nested : ((OrClause) clause).getClauses()) {
+                List<Anchor> anchors = getAnchors(nested);
+                if (anchors == null) {
+                    return null;
+                }
+                all.addAll(anchors);
+            }
+            return all.isEmpty() ? null : all;
+        }
+        return null;
+    }
+
+    private static class Anchor {
+
+        private final int offset;
+
+        private final MagicDetector detector;
+
+        Anchor(int offset, MagicDetector detector) {
+            this.offset = offset;
+            this.detector = detector;
+        }
+    }
+
+}
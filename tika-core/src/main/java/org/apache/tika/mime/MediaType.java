@@ -26,7 +26,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -46,27 +46,29 @@ public final class MediaType implements Comparable<MediaType>, Serializable {
         Pattern.compile("[\\(\\)<>@,;:\\\\\"/\\[\\]\\?=\\s]");
 
     /**
-     * See http://www.ietf.org/rfc/rfc2045.txt for valid mime-type characters.
+     * Maximum number of parsed strings in each generation of the
+     * parse cache.
      */
-    private static final String VALID_CHARS =
-            "([^\\c\\(\\)<>@,;:\\\\\"/\\[\\]\\?=\\s]+)";
-
-    private static final Pattern TYPE_PATTERN = Pattern.compile(
-                    "(?s)\\s*" + VALID_CHARS + "\\s*/\\s*" + VALID_CHARS
-                    + "\\s*($|;.*)");
+    private static final int MAX_CACHED_TYPES = 10000;
 
-    // TIKA-350: handle charset as first element in content-type
-    private static final Pattern CHARSET_FIRST_PATTERN = Pattern.compile(
-            "(?is)\\s*(charset\\s*=\\s*[^\\c;\\s]+)\\s*;\\s*"
-            + VALID_CHARS + "\\s*/\\s*" + VALID_CHARS + "\\s*");
+    /**
+     * Recently parsed media type strings. Used to optimize type lookup
+     * and to avoid having too many {@link MediaType} instances in memory.
+     * <p>
+     * Once this generation is full it becomes the {@link #OLD_TYPES}
+     * generation and a new one is started, so that the types that are
+     * still in use carry over while the rest is eventually dropped.
+     * Races between threads that parse at the same time may lose some
+     * entries or create duplicate instances, which is harmless.
+     */
+    private static volatile Map<String, MediaType> TYPES =
+            new ConcurrentHashMap<String, MediaType>();
 
     /**
-     * Set of basic types with normalized "type/subtype" names.
-     * Used to optimize type lookup and to avoid having too many
-     * {@link MediaType} instances in memory.
+     * Previous generation of {@link #TYPES}.
      */
-    private static final Map<String, MediaType> SIMPLE_TYPES =
-            new HashMap<String, MediaType>();
+    private static volatile Map<String, MediaType> OLD_TYPES =
+            new ConcurrentHashMap<String, MediaType>();
 
     public static final MediaType OCTET_STREAM =
             parse("application/octet-stream");
@@ -154,43 +156,171 @@ public final class MediaType implements Comparable<MediaType>, Serializable {
         }
 
         // Optimization for the common cases
-        synchronized (SIMPLE_TYPES) {
-            MediaType type = SIMPLE_TYPES.get(string);
+        Map<String, MediaType> types = TYPES;
+        MediaType type = types.get(string);
+        if (type != null) {
+            return type;
+        }
+        if (string.indexOf('/') == -1) {
+            return null;
+        }
+        type = OLD_TYPES.get(string);
+        if (type == null) {
+            type = parseUncached(string);
             if (type == null) {
-                int slash = string.indexOf('/');
-                if (slash == -1) {
-                    return null;
-                } else if (SIMPLE_TYPES.size() < 10000
-                        && isSimpleName(string.substring(0, slash))
-                        && isSimpleName(string.substring(slash + 1))) {
-                    type = new MediaType(string, slash);
-                    SIMPLE_TYPES.put(string, type);
-                }
+                return null;
             }
-            if (type != null) {
-                return type;
+        }
+        if (types.size() >= MAX_CACHED_TYPES) {
+            synchronized (MediaType.class) {
+                if (TYPES == types) {
+                    OLD_TYPES = types;
+                    TYPES = new ConcurrentHashMap<String, MediaType>();
+                }
+                types = TYPES;
             }
         }
+        types.put(string, type);
+        return type;
+    }
+
+    /**
+     * Parses the given string, which is either "type/subtype" followed
+     * by optional parameters, or "charset=xxx; type/subtype" (TIKA-350).
+     * The type and subtype consist of the characters allowed in RFC 2045
+     * tokens, and may be surrounded by whitespace.
+     */
+    private static MediaType parseUncached(String string) {
+        int length = string.length();
+        int slash = string.indexOf('/');
+        if (slash > 0 && slash < length - 1
+                && isSimpleName(string, 0, slash)
+                && isSimpleName(string, slash + 1, length)) {
+            return new MediaType(string, slash);
+        }
 
-        Matcher matcher;
-        matcher = TYPE_PATTERN.matcher(string);
-        if (matcher.matches()) {
-            return new MediaType(
-                    matcher.group(1), matcher.group(2),
-                    parseParameters(matcher.group(3)));
+        int typeStart = skipWhitespace(string, 0, length);
+        int typeEnd = skipToken(string, typeStart, length);
+        if (typeEnd > typeStart) {
+            int[] subtype = parseSubtype(string, typeEnd, length);
+            if (subtype != null) {
+                int end = skipWhitespace(string, subtype[1], length);
+                if (end == length || string.charAt(end) == ';') {
+                    return new MediaType(
+                            string.substring(typeStart, typeEnd),
+                            string.substring(subtype[0], subtype[1]),
+                            parseParameters(string.substring(end)));
+                }
+            }
         }
-        matcher = CHARSET_FIRST_PATTERN.matcher(string);
-        if (matcher.matches()) {
-            return new MediaType(
-                    matcher.group(2), matcher.group(3),
-                    parseParameters(matcher.group(1)));
+
+        // TIKA-350: handle charset as first element in content-type
+        int semicolon = string.lastIndexOf(';');
+        if (semicolon != -1) {
+            int charsetStart = skipWhitespace(string, 0, semicolon);
+            int charsetEnd = parseCharset(string, charsetStart, semicolon);
+            typeStart = skipWhitespace(string, semicolon + 1, length);
+            typeEnd = skipToken(string, typeStart, length);
+            if (charsetEnd != -1 && typeEnd > typeStart) {
+                int[] subtype = parseSubtype(string, typeEnd, length);
+                if (subtype != null
+                        && skipWhitespace(string, subtype[1], length) == length) {
+                    return new MediaType(
+                            string.substring(typeStart, typeEnd),
+                            string.substring(subtype[0], subtype[1]),
+                            parseParameters(string.substring(charsetStart, charsetEnd)));
+                }
+            }
         }
 
         return null;
     }
 
-    private static boolean isSimpleName(String name) {
-        for (int i = 0; i < name.length(); i++) {
+    /**
+     * Parses the "/subtype" part that follows a type ending at the
+     * given position.
+     *
+     * @return start and end of the subtype, or <code>null</code>
+     */
+    private static int[] parseSubtype(String string, int start, int end) {
+        int slash = skipWhitespace(string, start, end);
+        if (slash == end || string.charAt(slash) != '/') {
+            return null;
+        }
+        int subtypeStart = skipWhitespace(string, slash + 1, end);
+        int subtypeEnd = skipToken(string, subtypeStart, end);
+        if (subtypeEnd == subtypeStart) {
+            return null;
+        }
+        return new int[] { subtypeStart, subtypeEnd };
+    }
+
+    /**
+     * Parses "charset = xxx" followed by only whitespace up to the end.
+     *
+     * @return end of the charset value, or -1
+     */
+    private static int parseCharset(String string, int start, int end) {
+        if (!string.regionMatches(true, start, "charset", 0, 7)) {
+            return -1;
+        }
+        for (int i = start; i < start + 7; i++) {
+            // Only match ASCII letters, irrespective of case
+            if (string.charAt(i) > 0x7f) {
+                return -1;
+            }
+        }
+        int equals = skipWhitespace(string, start + 7, end);
+        if (equals == end || string.charAt(equals) != '=') {
+            return -1;
+        }
+        int valueStart = skipWhitespace(string, equals + 1, end);
+        int valueEnd = valueStart;
+        while (valueEnd < end && string.charAt(valueEnd) != '{'
+                && !isWhitespace(string.charAt(valueEnd))) {
+            valueEnd++;
+        }
+        if (valueEnd == valueStart || skipWhitespace(string, valueEnd, end) != end) {
+            return -1;
+        }
+        return valueEnd;
+    }
+
+    private static int skipWhitespace(String string, int start, int end) {
+        while (start < end && isWhitespace(string.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int skipToken(String string, int start, int end) {
+        while (start < end && isTokenChar(string.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0b
+                || c == '\f' || c == '\r';
+    }
+
+    /**
+     * See http://www.ietf.org/rfc/rfc2045.txt for valid mime-type characters.
+     */
+    private static boolean isTokenChar(char c) {
+        switch (c) {
+            case '(': case ')': case '<': case '>': case '@': case ',':
+            case ';': case ':': case '\\': case '"': case '/': case '[':
+            case ']': case '?': case '=': case 0x1c:
+                return false;
+            default:
+                return !isWhitespace(c);
+        }
+    }
+
+    private static boolean isSimpleName(String name, int start, int end) {
+        for (int i = start; i < end; i++) {
             char c = name.charAt(i);
             if (c != '-' && c != '+' && c != '.' && c != '_'
                     && !('0' <= c && c <= '9')
@@ -198,7 +328,11 @@ public final class MediaType implements Comparable<MediaType>, Serializable {
                 return false;
             }
         }
-        return name.length() > 0;
+        return end > start;
+    }
+
+    private static boolean isSimpleName(String name) {
+        return isSimpleName(name, 0, name.length());
     }
 
     private static Map<String, String> parseParameters(String string) {
@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -38,6 +39,7 @@ import org.apache.tika.Tika;
 import org.apache.tika.detect.Detector;
 import org.apache.tika.detect.TextDetector;
 import org.apache.tika.detect.XmlRootExtractor;
+import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 
@@ -112,6 +114,9 @@ public final class MimeTypes implements Detector, Serializable {
     /** Sorted list of all registered magics */
     private final List<Magic> magics = new ArrayList<Magic>();
 
+    /** Precompiled index of the sorted magics, built on demand */
+    private transient volatile MagicIndex magicIndex;
+
     /** Sorted list of all registered rootXML */
     private final List<MimeType> xmls = new ArrayList<MimeType>();
 
@@ -188,17 +193,7 @@ public final class MimeTypes implements Detector, Serializable {
         }
 
         // Then, check for magic bytes
-        List<MimeType> result = new ArrayList<MimeType>(1);
-        int currentPriority = -1;
-        for (Magic magic : magics) {
-            if (currentPriority > 0 && currentPriority > magic.getPriority()) {
-                break;
-            }
-            if (magic.eval(data)) {
-                result.add(magic.getType());
-                currentPriority = magic.getPriority();
-            }
-        }
+        List<MimeType> result = getMagicIndex().eval(data);
  
         if (!result.isEmpty()) {
             for (int i=0; i<result.size(); i++) {
@@ -446,6 +441,7 @@ public final class MimeTypes implements Detector, Serializable {
         // Update the magics index...
         if (type.hasMagic()) {
             magics.addAll(type.getMagics());
+            magicIndex = null;
         }
 
         // Update the xml (xmlRoot) index...
@@ -467,6 +463,20 @@ public final class MimeTypes implements Detector, Serializable {
         }
         Collections.sort(magics);
         Collections.sort(xmls);
+        magicIndex = new MagicIndex(magics);
+    }
+
+    /**
+     * Returns the precompiled index of the registered magics, (re)building
+     * it if needed.
+     */
+    private MagicIndex getMagicIndex() {
+        MagicIndex index = magicIndex;
+        if (index == null) {
+            index = new MagicIndex(magics);
+            magicIndex = index;
+        }
+        return index;
     }
 
     /**
@@ -488,12 +498,21 @@ public final class MimeTypes implements Detector, Serializable {
 
         // Get type based on magic prefix
         if (input != null) {
-            input.mark(getMinLength());
-            try {
-                byte[] prefix = readMagicHeader(input);
+            if (TikaInputStream.isTikaInputStream(input)) {
+                //shared with the other detectors in the chain
+                byte[] prefix = TikaInputStream.cast(input).getPrefix(getMinLength());
+                if (prefix.length > getMinLength()) {
+                    prefix = Arrays.copyOf(prefix, getMinLength());
+                }
                 possibleTypes = getMimeType(prefix);
-            } finally {
-                input.reset();
+            } else {
+                input.mark(getMinLength());
+                try {
+                    byte[] prefix = readMagicHeader(input);
+                    possibleTypes = getMimeType(prefix);
+                } finally {
+                    input.reset();
+                }
             }
         }
 
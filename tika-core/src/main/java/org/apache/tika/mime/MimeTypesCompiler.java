@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Compiles a media type registry XML file into a compact binary form, and
+ * loads that form back.
+ * <p>
+ * The compiled form is the sequence of SAX events of the XML file, with
+ * all names and values stored once in a string table. Loading it replays
+ * the events into a {@link MimeTypesReader}, so the resulting registry is
+ * exactly the one the XML file gives, but without the cost of creating an
+ * XML parser and scanning the (large) XML text. Elements are kept as is
+ * and only insignificant whitespace is dropped.
+ * <p>
+ * The build compiles <code>tika-mimetypes.xml</code> into
+ * <code>tika-mimetypes.bin</code>, next to it on the class path; see
+ * {@link MimeTypesFactory#create(String, String, ClassLoader)}. The compiled
+ * form records the length and CRC-32 of its XML file, and is ignored if
+ * the XML file on the class path is a different one.
+ */
+public final class MimeTypesCompiler {
+
+    /**
+     * "TKMT", followed by the format version
+     */
+    private static final int MAGIC = 0x544b4d54;
+
+    private static final int VERSION = 1;
+
+    private static final int END = 0;
+
+    private static final int START_ELEMENT = 1;
+
+    private static final int END_ELEMENT = 2;
+
+    private static final int CHARACTERS = 3;
+
+    private MimeTypesCompiler() {
+    }
+
+    /**
+     * Compiles the given XML file into the given output file.
+     *
+     * @param args the XML file and the output file
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: MimeTypesCompiler <registry.xml> <registry.bin>");
+            System.exit(1);
+        }
+        Path xml = Paths.get(args[0]);
+        Path bin = Paths.get(args[1]);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(bin))) {
+            compile(Files.readAllBytes(xml), out);
+        }
+    }
+
+    /**
+     * Returns the name of the compiled form of the given registry file,
+     * e.g. <code>tika-mimetypes.bin</code> for <code>tika-mimetypes.xml</code>.
+     */
+    static String getCompiledName(String xmlName) {
+        if (xmlName.endsWith(".xml")) {
+            xmlName = xmlName.substring(0, xmlName.length() - 4);
+        }
+        return xmlName + ".bin";
+    }
+
+    /**
+     * Writes the compiled form of the given registry XML.
+     *
+     * @param xml registry XML file content
+     * @param out output stream, not closed
+     * @throws IOException if the output can not be written
+     * @throws MimeTypeException if the XML can not be parsed
+     */
+    public static void compile(byte[] xml, OutputStream out)
+            throws IOException, MimeTypeException {
+        Recorder recorder = new Recorder();
+        try {
+            SAXParserFactory factory = SAXParserFactory.newInstance();
+            factory.setNamespaceAware(false);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.newSAXParser().parse(new ByteArrayInputStream(xml), recorder);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new MimeTypeException("Invalid type configuration", e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(xml);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(xml.length);
+        data.writeLong(crc.getValue());
+        data.writeInt(recorder.strings.size());
+        for (String string : recorder.strings) {
+            data.writeUTF(string);
+        }
+        data.write(recorder.events.toByteArray());
+        data.flush();
+    }
+
+    /**
+     * Replays the compiled form into the given reader, provided it was
+     * compiled from the given XML file.
+     *
+     * @param compiled compiled form
+     * @param xml XML file the compiled form should have been compiled from
+     * @param reader reader to replay the registry into
+     * @return <code>false</code> if the compiled form doesn't match the XML
+     *         file, in which case nothing has been replayed
+     * @throws IOException if either file can not be read, or the compiled
+     *         form is corrupt; the reader may have been partly fed then
+     * @throws MimeTypeException if the reader rejects the registry
+     */
+    static boolean replay(URL compiled, URL xml, MimeTypesReader reader)
+            throws IOException, MimeTypeException {
+        try (DataInputStream data = new DataInputStream(
+                new BufferedInputStream(compiled.openStream()))) {
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                return false;
+            }
+            int length = data.readInt();
+            long crc = data.readLong();
+            if (!matches(xml, length, crc)) {
+                return false;
+            }
+
+            int size = data.readInt();
+            if (size < 0 || size > 0x10000) {
+                //indexes are unsigned shorts, so anything else is corrupt
+                throw new IOException("Corrupt compiled type registry: " + compiled);
+            }
+            String[] strings = new String[size];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = data.readUTF();
+            }
+
+            AttributesImpl attributes = new AttributesImpl();
+            try {
+                int event = data.readUnsignedByte();
+                while (event != END) {
+                    if (event == START_ELEMENT) {
+                        String name = string(strings, data, compiled);
+                        attributes.clear();
+                        int count = data.readUnsignedByte();
+                        for (int i = 0; i < count; i++) {
+                            String attribute = string(strings, data, compiled);
+                            String value = string(strings, data, compiled);
+                            attributes.addAttribute("", "", attribute, "CDATA", value);
+                        }
+                        reader.startElement("", "", name, attributes);
+                    } else if (event == END_ELEMENT) {
+                        reader.endElement("", "", string(strings, data, compiled));
+                    } else if (event == CHARACTERS) {
+                        char[] text = string(strings, data, compiled).toCharArray();
+                        reader.characters(text, 0, text.length);
+                    } else {
+                        throw new IOException("Corrupt compiled type registry: " + compiled);
+                    }
+                    event = data.readUnsignedByte();
+                }
+                if (data.read() != -1) {
+                    throw new IOException("Corrupt compiled type registry: " + compiled);
+                }
+            } catch (SAXException e) {
+                throw new MimeTypeException("Invalid type configuration", e);
+            }
+            return true;
+        }
+    }
+
+    private static String string(String[] strings, DataInputStream data, URL compiled)
+            throws IOException {
+        int index = data.readUnsignedShort();
+        if (index >= strings.length) {
+            throw new IOException("Corrupt compiled type registry: " + compiled);
+        }
+        return strings[index];
+    }
+
+    private static boolean matches(URL xml, int length, long crc) throws IOException {
+        try (InputStream stream = xml.openStream()) {
+            CRC32 actual = new CRC32();
+            byte[] buffer = new byte[8192];
+            long total = 0;
+            int n = stream.read(buffer);
+            while (n != -1) {
+                actual.update(buffer, 0, n);
+                total += n;
+                n = stream.read(buffer);
+            }
+            return total == length && actual.getValue() == crc;
+        }
+    }
+
+    /**
+     * Records the SAX events of a registry XML file.
+     */
+    private static class Recorder extends DefaultHandler {
+
+        private final List<String> strings = new ArrayList<>();
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+
+        private final DataOutputStream out = new DataOutputStream(events);
+
+        private final StringBuilder text = new StringBuilder();
+
+        @Override
+        public InputSource resolveEntity(String publicId, String systemId) {
+            return new InputSource(new ByteArrayInputStream(new byte[0]));
+        }
+
+        @Override
+        public void startElement(
+                String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            try {
+                flushText();
+                if (attributes.getLength() > 255) {
+                    throw new SAXException("Too many attributes on " + qName);
+                }
+                out.writeByte(START_ELEMENT);
+                out.writeShort(index(qName));
+                out.writeByte(attributes.getLength());
+                for (int i = 0; i < attributes.getLength(); i++) {
+                    out.writeShort(index(attributes.getQName(i)));
+                    out.writeShort(index(attributes.getValue(i)));
+                }
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName)
+                throws SAXException {
+            try {
+                flushText();
+                out.writeByte(END_ELEMENT);
+                out.writeShort(index(qName));
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+        }
+
+        @Override
+        public void endDocument() throws SAXException {
+            try {
+                flushText();
+                out.writeByte(END);
+                out.flush();
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        private void flushText() throws IOException, SAXException {
+            // The reader trims all text it collects, so text that
+            // is only whitespace can safely be left out
+            if (text.toString().trim().length() > 0) {
+                out.writeByte(CHARACTERS);
+                out.writeShort(index(text.toString()));
+            }
+            text.setLength(0);
+        }
+
+        private int index(String string) throws SAXException {
+            Integer index = indexes.get(string);
+            if (index == null) {
+                index = strings.size();
+                if (index > 0xffff) {
+                    throw new SAXException("Too many distinct strings in the type registry");
+                }
+                strings.add(string);
+                indexes.put(string, index);
+            }
+            return index;
+        }
+    }
+}
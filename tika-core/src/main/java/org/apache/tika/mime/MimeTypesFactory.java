@@ -166,14 +166,15 @@ public class MimeTypesFactory {
         //  the classloader directly
         String classPrefix = MimeTypesReader.class.getPackage().getName().replace('.', '/') + "/";
        
-        // Get the core URL, and all the extensions URLs
+        // Get the core URL, its compiled form, and all the extensions URLs
         URL coreURL = classLoader.getResource(classPrefix+coreFilePath);
+        URL compiledURL = classLoader.getResource(
+                classPrefix+MimeTypesCompiler.getCompiledName(coreFilePath));
         List<URL> extensionURLs = Collections.list(
                 classLoader.getResources(classPrefix+extensionFilePath));
 
         // Swap that into an Array, and process
         List<URL> urls = new ArrayList<URL>();
-        urls.add(coreURL);
         urls.addAll(extensionURLs);
         
         String customMimesPath = System.getProperty(CUSTOM_MIMES_SYS_PROP);
@@ -185,7 +186,46 @@ public class MimeTypesFactory {
             URL externalURL = externalFile.toURI().toURL();
             urls.add(externalURL);
         }
-        
+
+        if (coreURL != null && compiledURL != null) {
+            MimeTypes mimeTypes = createFromCompiled(coreURL, compiledURL,
+                    urls.toArray(new URL[urls.size()]));
+            if (mimeTypes != null) {
+                return mimeTypes;
+            }
+        }
+
+        urls.add(0, coreURL);
         return create( urls.toArray(new URL[urls.size()]) );
     }
+
+    /**
+     * Loads the core types from their compiled form, and the extensions
+     * from XML as usual.
+     *
+     * @return <code>null</code> if the compiled form is unusable, e.g.
+     *         because it wasn't compiled from the given core XML
+     */
+    private static MimeTypes createFromCompiled(URL coreURL, URL compiledURL,
+            URL[] extensionURLs) throws IOException, MimeTypeException {
+        MimeTypes mimeTypes = new MimeTypes();
+        MimeTypesReader reader = new MimeTypesReader(mimeTypes);
+        try {
+            if (!MimeTypesCompiler.replay(compiledURL, coreURL, reader)) {
+                return null;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Corrupt or unreadable, so start over from the XML. replay
+            // bounds-checks what it reads, but events that are out of order
+            // can still trip up the reader.
+            return null;
+        }
+        for (URL url : extensionURLs) {
+            try (InputStream stream = url.openStream()) {
+                reader.read(stream);
+            }
+        }
+        mimeTypes.init();
+        return mimeTypes;
+    }
 }
@@ -112,13 +112,14 @@ public class MimeTypesReader extends DefaultHandler implements MimeTypesReaderMe
 
     private static ArrayBlockingQueue<SAXParser> SAX_PARSERS = new ArrayBlockingQueue<>(POOL_SIZE);
 
-    static {
-        try {
-            setPoolSize(POOL_SIZE);
-        } catch (TikaException e) {
-            throw new RuntimeException("problem initializing SAXParser pool", e);
-        }
-    }    protected final MimeTypes types;
+    /**
+     * Whether the parser pool has been filled.  This is done on first use
+     * rather than at class initialization, as a registry loaded from its
+     * compiled form doesn't need any XML parser.
+     */
+    private static volatile boolean POOL_INITIALIZED = false;
+
+    protected final MimeTypes types;
 
     /** Current type */
     protected MimeType type = null;
@@ -324,6 +325,13 @@ public class MimeTypesReader extends DefaultHandler implements MimeTypesReaderMe
      */
     private static SAXParser acquireSAXParser()
             throws TikaException {
+        if (!POOL_INITIALIZED) {
+            synchronized (MimeTypesReader.class) {
+                if (!POOL_INITIALIZED) {
+                    setPoolSize(POOL_SIZE);
+                }
+            }
+        }
         while (true) {
             SAXParser parser = null;
             try {
@@ -378,6 +386,7 @@ public class MimeTypesReader extends DefaultHandler implements MimeTypesReaderMe
                 SAX_PARSERS.offer(newSAXParser());
             }
             POOL_SIZE = poolSize;
+            POOL_INITIALIZED = true;
         } finally {
             READ_WRITE_LOCK.writeLock().unlock();
         }
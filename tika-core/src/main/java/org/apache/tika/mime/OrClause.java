@@ -26,6 +26,10 @@ class OrClause implements Clause {
         this.clauses = clauses;
     }
 
+    List<Clause> getClauses() {
+        return clauses;
+    }
+
     public boolean eval(byte[] data) {
         for (Clause clause : clauses) {
             if (clause.eval(data)) {
@@ -34,6 +34,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,6 +65,19 @@ public class CompositeParser extends AbstractParser {
      */
     private Parser fallback = new EmptyParser();
 
+    /**
+     * Cached dispatch table, built on first use and dropped whenever the
+     * component parsers or the media type registry change. Only used when
+     * {@link #isParserMapCacheable()}.
+     */
+    private transient volatile DispatchTable dispatchTable;
+
+    /**
+     * Memoized result of {@link #isParserMapCacheable()}, dropped
+     * together with the dispatch table.
+     */
+    private transient volatile Boolean parserMapCacheable;
+
     public CompositeParser(MediaTypeRegistry registry, List<Parser> parsers,
                            Collection<Class<? extends Parser>> excludeParsers) {
         if (excludeParsers == null || excludeParsers.isEmpty()) {
@@ -162,6 +176,8 @@ public class CompositeParser extends AbstractParser {
      */
     public void setMediaTypeRegistry(MediaTypeRegistry registry) {
         this.registry = registry;
+        this.dispatchTable = null;
+        this.parserMapCacheable = null;
     }
 
     /**
@@ -193,6 +209,8 @@ public class CompositeParser extends AbstractParser {
             this.parsers.add(ParserDecorator.withTypes(
                     entry.getValue(), Collections.singleton(entry.getKey())));
         }
+        this.dispatchTable = null;
+        this.parserMapCacheable = null;
     }
 
     /**
@@ -231,29 +249,269 @@ public class CompositeParser extends AbstractParser {
     }
 
     protected Parser getParser(Metadata metadata, ParseContext context) {
-        Map<MediaType, Parser> map = getParsers(context);
         MediaType type = MediaType.parse(metadata.get(Metadata.CONTENT_TYPE));
         if (type != null) {
            // We always work on the normalised, canonical form
            type = registry.normalize(type);
         }
+        Parser parser;
+        DispatchTable table = getDispatchTable();
+        if (table != null) {
+            parser = table.find(type, context);
+        } else {
+            parser = find(getParsers(context), type);
+        }
+        return parser != null ? parser : fallback;
+    }
+
+    private Parser find(Map<MediaType, Parser> map, MediaType type) {
         while (type != null) {
             // Try finding a parser for the type
             Parser parser = map.get(type);
             if (parser != null) {
                 return parser;
             }
-            
+
             // Failing that, try for the parent of the type
             type = registry.getSupertype(type);
         }
-        return fallback;
+        return null;
     }
 
     public Set<MediaType> getSupportedTypes(ParseContext context) {
+        DispatchTable table = getDispatchTable();
+        if (table != null) {
+            return table.getSupportedTypes(context);
+        }
         return getParsers(context).keySet();
     }
 
+    /**
+     * Returns whether the media type to parser mapping returned by
+     * {@link #getParsers(ParseContext)} can be precomputed into a dispatch
+     * table that is reused for all documents. Component parsers that are
+     * {@link ContextDependentParser}s are fine, as their supported types
+     * are still looked up for each document. However subclasses that
+     * override {@link #getParsers(ParseContext)} disable the dispatch table,
+     * unless they also override this method to re-enable it.
+     *
+     * @since Apache Tika 2.0
+     * @return <code>true</code> if the parser mapping can be cached
+     */
+    protected boolean isParserMapCacheable() {
+        try {
+            Class<?> declaringClass = getClass().getMethod(
+                    "getParsers", ParseContext.class).getDeclaringClass();
+            return declaringClass == CompositeParser.class
+                    || declaringClass == DefaultParser.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether this parser supports the given type directly, i.e.
+     * without looking at its supertypes.
+     *
+     * @param type media type, normalised with this parser's registry
+     * @param context parse context
+     */
+    private boolean supports(MediaType type, ParseContext context) {
+        DispatchTable table = getDispatchTable();
+        if (table != null) {
+            return table.supports(type, context);
+        }
+        return getParsers(context).containsKey(type);
+    }
+
+    /**
+     * Returns the cached dispatch table, building it if needed, or
+     * <code>null</code> if the parser mapping can't be cached.
+     */
+    private DispatchTable getDispatchTable() {
+        DispatchTable table = dispatchTable;
+        if (table != null) {
+            return table;
+        }
+        Boolean cacheable = parserMapCacheable;
+        if (cacheable == null) {
+            cacheable = isParserMapCacheable();
+            parserMapCacheable = cacheable;
+        }
+        if (!cacheable) {
+            return null;
+        }
+        // Racing threads at worst build identical tables
+        table = new DispatchTable(parsers, registry);
+        dispatchTable = table;
+        return table;
+    }
+
+    private static boolean isContextDependent(Parser parser) {
+        if (parser instanceof ContextDependentParser) {
+            return true;
+        } else if (parser instanceof ParserDecorator) {
+            return isContextDependent(((ParserDecorator) parser).getWrappedParser());
+        } else if (parser instanceof CompositeParser) {
+            DispatchTable table = ((CompositeParser) parser).getDispatchTable();
+            return table == null || table.dependents.length > 0;
+        }
+        return false;
+    }
+
+    /**
+     * Immutable mapping from normalised media types to component parsers.
+     * The supported types of the context independent components are
+     * computed once, and for all the types known to the media type
+     * registry the supertype chain walk is done up front too. The few
+     * {@link ContextDependentParser context dependent} components are
+     * consulted for each document, honouring the component order: like in
+     * {@link CompositeParser#getParsers(ParseContext)}, a later component
+     * wins over an earlier one for the same type.
+     */
+    private static class DispatchTable {
+
+        private static final ParseContext EMPTY_CONTEXT = new ParseContext();
+
+        private final MediaTypeRegistry registry;
+
+        /** Context independent components, by type */
+        private final Map<MediaType, Parser> parsers;
+
+        /** Position of the matching context independent component, by type */
+        private final Map<MediaType, Integer> positions;
+
+        /**
+         * Matching context independent component for each registered type,
+         * including supertypes, or <code>null</code> if there is none.
+         */
+        private final Map<MediaType, Parser> resolved;
+
+        /** Context dependent components, in order */
+        private final Parser[] dependents;
+
+        /** Positions of the context dependent components */
+        private final int[] dependentPositions;
+
+        DispatchTable(List<Parser> components, MediaTypeRegistry registry) {
+            this.registry = registry;
+            Map<MediaType, Parser> parsers = new HashMap<MediaType, Parser>();
+            Map<MediaType, Integer> positions = new HashMap<MediaType, Integer>();
+            List<Parser> dependents = new ArrayList<Parser>();
+            List<Integer> dependentPositions = new ArrayList<Integer>();
+            for (int i = 0; i < components.size(); i++) {
+                Parser parser = components.get(i);
+                if (isContextDependent(parser)) {
+                    dependents.add(parser);
+                    dependentPositions.add(i);
+                } else {
+                    for (MediaType type : parser.getSupportedTypes(EMPTY_CONTEXT)) {
+                        MediaType normalized = registry.normalize(type);
+                        parsers.put(normalized, parser);
+                        positions.put(normalized, i);
+                    }
+                }
+            }
+            this.parsers = Collections.unmodifiableMap(parsers);
+            this.positions = positions;
+            this.dependents = dependents.toArray(new Parser[0]);
+            this.dependentPositions = new int[dependentPositions.size()];
+            for (int k = 0; k < this.dependentPositions.length; k++) {
+                this.dependentPositions[k] = dependentPositions.get(k);
+            }
+
+            Map<MediaType, Parser> resolved = new HashMap<MediaType, Parser>();
+            for (MediaType type : registry.getTypes()) {
+                MediaType t = type;
+                Parser parser = null;
+                while (t != null && parser == null) {
+                    parser = parsers.get(t);
+                    t = registry.getSupertype(t);
+                }
+                resolved.put(type, parser);
+            }
+            this.resolved = resolved;
+        }
+
+        Parser find(MediaType type, ParseContext context) {
+            if (dependents.length == 0) {
+                Parser parser = resolved.get(type);
+                if (parser != null || type == null || resolved.containsKey(type)) {
+                    return parser;
+                }
+            }
+
+            Set<MediaType>[] dependentTypes = newDependentTypes();
+            while (type != null) {
+                Parser parser = parsers.get(type);
+                int position = parser != null ? positions.get(type) : -1;
+                for (int k = dependents.length - 1;
+                        k >= 0 && dependentPositions[k] > position; k--) {
+                    if (dependentSupports(k, type, context, dependentTypes)) {
+                        return dependents[k];
+                    }
+                }
+                if (parser != null) {
+                    return parser;
+                }
+                // Failing that, try for the parent of the type
+                type = registry.getSupertype(type);
+            }
+            return null;
+        }
+
+        boolean supports(MediaType type, ParseContext context) {
+            if (parsers.containsKey(type)) {
+                return true;
+            }
+            Set<MediaType>[] dependentTypes = newDependentTypes();
+            for (int k = 0; k < dependents.length; k++) {
+                if (dependentSupports(k, type, context, dependentTypes)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Set<MediaType> getSupportedTypes(ParseContext context) {
+            if (dependents.length == 0) {
+                return parsers.keySet();
+            }
+            Set<MediaType> types = new HashSet<MediaType>(parsers.keySet());
+            for (Parser parser : dependents) {
+                for (MediaType type : parser.getSupportedTypes(context)) {
+                    types.add(registry.normalize(type));
+                }
+            }
+            return types;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Set<MediaType>[] newDependentTypes() {
+            return dependents.length > 0 ? new Set[dependents.length] : null;
+        }
+
+        private boolean dependentSupports(
+                int k, MediaType type, ParseContext context,
+                Set<MediaType>[] dependentTypes) {
+            Parser parser = dependents[k];
+            if (parser instanceof CompositeParser
+                    && ((CompositeParser) parser).registry == registry) {
+                // Types are already normalised the same way, so
+                // avoid materialising the full set of nested types
+                return ((CompositeParser) parser).supports(type, context);
+            }
+            if (dependentTypes[k] == null) {
+                Set<MediaType> types = new HashSet<MediaType>();
+                for (MediaType t : parser.getSupportedTypes(context)) {
+                    types.add(registry.normalize(t));
+                }
+                dependentTypes[k] = types;
+            }
+            return dependentTypes[k].contains(type);
+        }
+    }
+
     /**
      * Delegates the call to the matching component parser.
      * <p>
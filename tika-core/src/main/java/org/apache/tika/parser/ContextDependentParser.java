@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+/**
+ * Marker interface for parsers whose
+ * {@link Parser#getSupportedTypes(ParseContext)} depends on the given
+ * parse context, for example on a configuration object or a delegate
+ * parser passed in the context.
+ * <p>
+ * A {@link CompositeParser} caches the mapping from media types to its
+ * component parsers, unless one of the components (or a parser decorated
+ * by one of them) implements this interface. Parsers whose supported types
+ * depend only on their own configuration don't need to implement it.
+ *
+ * @since Apache Tika 2.0
+ */
+public interface ContextDependentParser extends Parser {
+}
@@ -136,6 +136,13 @@ public class DefaultParser extends CompositeParser {
         return map;
     }
 
+    @Override
+    protected boolean isParserMapCacheable() {
+        // Dynamic (OSGi) parser services may come and go at any time
+        return super.isParserMapCacheable()
+                && (loader == null || !loader.isDynamic());
+    }
+
     @Override
     public List<Parser> getAllComponentParsers() {
         List<Parser> parsers = super.getAllComponentParsers();
@@ -18,6 +18,7 @@
 package org.apache.tika.parser;
 
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -55,6 +56,35 @@ public class DigestingParser extends ParserDecorator {
         void digest(InputStream is, Metadata m, ParseContext parseContext) throws IOException;
     };
 
+    /**
+     * Digester that can also be fed the bytes of a stream as they are
+     * read, so that all of its digests are computed in a single pass
+     * over the bytes that the parser itself consumes.
+     */
+    public interface StreamingDigester extends Digester {
+        /**
+         * Starts a new set of digests.
+         *
+         * @return digests to update with the bytes of the stream, or
+         * <code>null</code> if this digester can only digest whole streams
+         */
+        StreamDigest newStreamDigest();
+    }
+
+    /**
+     * Digests of a single stream, updated as its bytes are read.
+     */
+    public interface StreamDigest {
+        void update(byte[] bytes, int offset, int length);
+
+        /**
+         * Completes the digests and sets the appropriate value(s) in the metadata.
+         *
+         * @param metadata Metadata to set the values for
+         */
+        void finish(Metadata metadata);
+    }
+
     /**
      * Encodes byte array from a MessageDigest to String
      */
@@ -63,18 +93,57 @@ public class DigestingParser extends ParserDecorator {
     }
 
     private final Digester digester;
+
+    private final boolean digestWhileParsing;
+
     /**
      * Creates a decorator for the given parser.
      *
      * @param parser the parser instance to be decorated
      */
     public DigestingParser(Parser parser, Digester digester) {
+        this(parser, digester, false);
+    }
+
+    /**
+     * Creates a decorator for the given parser.
+     * <p>
+     * If <code>digestWhileParsing</code> is true and the digester is a
+     * {@link StreamingDigester}, the digests of a stream that is not
+     * already backed by a file, nor carrying an open container, are
+     * computed from the bytes as the parser
+     * reads them, instead of reading (and possibly spooling) the stream
+     * once more before the parse. Any bytes the parser leaves unread are
+     * digested after it returns. In that mode the digests are only set in
+     * the metadata at the end of the parse, so they are not available to
+     * the parser or to the content handler while the document is parsed.
+     *
+     * @param parser the parser instance to be decorated
+     * @param digester digester to apply to the streams
+     * @param digestWhileParsing whether to compute the digests while parsing
+     */
+    public DigestingParser(Parser parser, Digester digester, boolean digestWhileParsing) {
         super(parser);
         this.digester = digester;
+        this.digestWhileParsing = digestWhileParsing;
     }
 
     @Override
     public void parse(InputStream stream, ContentHandler handler, Metadata metadata, ParseContext context) throws IOException, SAXException, TikaException {
+        if (digestWhileParsing && digester instanceof StreamingDigester) {
+            TikaInputStream tis = TikaInputStream.cast(stream);
+            //a new stream around this one would lose the open container,
+            //which is all there is to e.g. embedded OLE2 documents
+            if (tis == null || (!tis.hasFile() && tis.getOpenContainer() == null)) {
+                StreamDigest streamDigest = ((StreamingDigester) digester).newStreamDigest();
+                if (streamDigest != null) {
+                    parse(new DigestingInputStream(stream, streamDigest),
+                            streamDigest, handler, metadata, context);
+                    return;
+                }
+            }
+        }
+
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tis = TikaInputStream.get(stream, tmp);
         try {
@@ -86,4 +155,121 @@ public class DigestingParser extends ParserDecorator {
             tmp.dispose();
         }
     }
+
+    private void parse(DigestingInputStream stream, StreamDigest streamDigest,
+                       ContentHandler handler, Metadata metadata, ParseContext context)
+            throws IOException, SAXException, TikaException {
+        TemporaryResources tmp = new TemporaryResources();
+        boolean parsed = false;
+        try {
+            super.parse(TikaInputStream.get(stream, tmp), handler, metadata, context);
+            parsed = true;
+        } finally {
+            try {
+                stream.drain();
+                streamDigest.finish(metadata);
+            } catch (IOException e) {
+                //don't hide the exception that stopped the parse
+                if (parsed) {
+                    throw e;
+                }
+            } finally {
+                tmp.dispose();
+            }
+        }
+    }
+
+    /**
+     * Stream that updates the digests with every byte read or skipped
+     * from the underlying stream. It doesn't support mark/reset, so that
+     * the {@link TikaInputStream} around it buffers any bytes that are
+     * read again instead of this stream seeing them twice.
+     */
+    private static class DigestingInputStream extends FilterInputStream {
+
+        private final StreamDigest streamDigest;
+
+        private final byte[] singleByte = new byte[1];
+
+        private final byte[] skipBuffer = new byte[4096];
+
+        private boolean finished = false;
+
+        DigestingInputStream(InputStream in, StreamDigest streamDigest) {
+            super(in);
+            this.streamDigest = streamDigest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (finished) {
+                return -1;
+            }
+            int b = in.read();
+            if (b == -1) {
+                finished = true;
+            } else {
+                singleByte[0] = (byte) b;
+                streamDigest.update(singleByte, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            int n = in.read(b, off, len);
+            if (n == -1) {
+                finished = true;
+            } else if (n > 0) {
+                streamDigest.update(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(skipBuffer, 0, (int) Math.min(skipBuffer.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+        }
+
+        @Override
+        public void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        /**
+         * Digests the rest of the stream. The underlying stream is left
+         * open, as the caller of the parser is responsible for closing it.
+         */
+        void drain() throws IOException {
+            while (read(skipBuffer, 0, skipBuffer.length) != -1) {
+                //digest what the parser didn't read
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            super.close();
+        }
+    }
 }
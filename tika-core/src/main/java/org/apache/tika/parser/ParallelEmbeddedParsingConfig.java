@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import java.io.Serializable;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Enables parallel parsing of embedded documents in the
+ * {@link RecursiveParserWrapper}. Set an instance of this class in the
+ * {@link ParseContext} to have the wrapper spool each embedded document as
+ * it is found and parse it on the given executor while the container
+ * document continues to be parsed.
+ * <p>
+ * Embedded documents that fit within the in-memory spool limit are buffered
+ * in memory, larger ones are written to a temporary file.
+ * <p>
+ * The order of the resulting metadata list, the embedded resource limit
+ * and the zip bomb checks are the same as for a sequential parse.
+ * The limit on embedded resources is applied in the order in which the
+ * documents are found, which may differ from the sequential order when
+ * the limit is hit within nested documents.
+ * <p>
+ * The executor is owned by the caller and may be shared between parses.
+ * It should not be the executor that runs the calling thread, because the
+ * wrapper waits for all of the embedded documents before it returns.
+ * The executor is not serialized; a deserialized configuration parses
+ * embedded documents sequentially.
+ */
+public class ParallelEmbeddedParsingConfig implements Serializable {
+
+    private static final long serialVersionUID = -4528437915320466127L;
+
+    /**
+     * Default maximum size of an embedded document that is spooled in memory.
+     */
+    public static final int DEFAULT_MAX_IN_MEMORY_SPOOL_BYTES = 1024 * 1024;
+
+    private transient ExecutorService executorService;
+
+    private int maxInMemorySpoolBytes = DEFAULT_MAX_IN_MEMORY_SPOOL_BYTES;
+
+    public ParallelEmbeddedParsingConfig() {
+    }
+
+    public ParallelEmbeddedParsingConfig(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * @return the executor that embedded documents are parsed on, or
+     * <code>null</code> if embedded documents are parsed sequentially
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * @return maximum size in bytes of an embedded document that is spooled
+     * in memory before it is written to a temporary file
+     */
+    public int getMaxInMemorySpoolBytes() {
+        return maxInMemorySpoolBytes;
+    }
+
+    /**
+     * Sets the maximum size of an embedded document that is spooled in
+     * memory. Larger embedded documents are spooled to a temporary file.
+     *
+     * @param maxInMemorySpoolBytes maximum size in bytes, or 0 to always
+     *                              spool to a temporary file
+     */
+    public void setMaxInMemorySpoolBytes(int maxInMemorySpoolBytes) {
+        if (maxInMemorySpoolBytes < 0) {
+            throw new IllegalArgumentException(
+                    "maxInMemorySpoolBytes must be >= 0: " + maxInMemorySpoolBytes);
+        }
+        this.maxInMemorySpoolBytes = maxInMemorySpoolBytes;
+    }
+}
@@ -96,6 +96,19 @@ public class ParseContext implements Serializable {
         }
     }
 
+    /**
+     * Returns a shallow copy of this context. The copy holds the same
+     * objects, but setting or removing an object in one context does not
+     * affect the other.
+     *
+     * @return copy of this context
+     */
+    ParseContext copy() {
+        ParseContext copy = new ParseContext();
+        copy.context.putAll(context);
+        return copy;
+    }
+
     /**
      * Returns the XMLReader specified in this parsing context. If a reader
      * is not explicitly specified, then one is created using the specified
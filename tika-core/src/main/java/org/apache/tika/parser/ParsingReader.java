@@ -16,19 +16,23 @@
  */
 package org.apache.tika.parser;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedReader;
-import java.io.PipedWriter;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.tika.exception.ZeroByteFileException;
 import org.apache.tika.metadata.Metadata;
@@ -40,28 +44,63 @@ import org.xml.sax.ContentHandler;
  * Reader for the text content from a given binary stream. This class
  * uses a background parsing task with a {@link Parser}
  * ({@link AutoDetectParser} by default) to parse the text content from
- * a given input stream. The {@link BodyContentHandler} class and a pipe
- * is used to convert the push-based SAX event stream to the pull-based
- * character stream defined by the {@link Reader} interface.
+ * a given input stream. The {@link BodyContentHandler} class and a bounded
+ * buffer handing the text over from the parsing thread are used to convert
+ * the push-based SAX event stream to the pull-based character stream
+ * defined by the {@link Reader} interface. The parsing thread blocks when
+ * the buffer is full, and stops with an exception once the reader is closed.
  *
  * @since Apache Tika 0.2
  */
 public class ParsingReader extends Reader {
 
+    /**
+     * Size of the buffer between the parsing thread and the reader,
+     * a power of two.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     /**
      * Parser instance used for parsing the given binary stream.
      */
     private final Parser parser;
 
     /**
-     * Buffered read end of the pipe.
+     * Text handed over from the parsing thread, as a ring buffer.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * Number of characters written to the buffer so far. Only updated
+     * by the parsing thread.
+     */
+    private volatile long charsWritten = 0;
+
+    /**
+     * Number of characters read from the buffer so far. Only updated
+     * by the reading thread.
+     */
+    private volatile long charsRead = 0;
+
+    /**
+     * Whether the parsing thread has finished writing.
+     */
+    private volatile boolean finished = false;
+
+    /**
+     * Whether this reader has been closed.
      */
-    private final Reader reader;
+    private volatile boolean closed = false;
 
     /**
-     * Write end of the pipe.
+     * The reading thread, while it waits for text.
      */
-    private final Writer writer;
+    private volatile Thread waitingReader;
+
+    /**
+     * The parsing thread, while it waits for space in the buffer.
+     */
+    private volatile Thread waitingWriter;
 
     /**
      * The binary stream being parsed.
@@ -81,7 +120,26 @@ public class ParsingReader extends Reader {
     /**
      * An exception (if any) thrown by the parsing thread.
      */
-    private transient Throwable throwable;
+    private volatile Throwable throwable;
+
+    /**
+     * Executor shared by the readers that are created without one,
+     * so that the parsing threads are reused.
+     */
+    private static class SharedExecutor {
+
+        private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "Apache Tika");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+
+    }
 
     /**
      * Utility method that returns a {@link Metadata} instance
@@ -148,7 +206,8 @@ public class ParsingReader extends Reader {
     /**
      * Creates a reader for the text content of the given binary stream
      * with the given document metadata. The given parser is used for
-     * parsing. A new background thread is started for the parsing task.
+     * parsing. The parsing task is run in a background thread from a
+     * shared pool, which starts new threads as needed and reuses idle ones.
      * <p>
      * The created reader will be responsible for closing the given stream.
      * The stream and any associated resources will be closed at or before
@@ -163,16 +222,25 @@ public class ParsingReader extends Reader {
             Parser parser, InputStream stream, final Metadata metadata,
             ParseContext context) throws IOException {
         this(parser, stream, metadata, context, new Executor() {
-            public void execute(Runnable command) {
+            public void execute(final Runnable command) {
                 String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
                 if (name != null) {
                     name = "Apache Tika: " + name;
                 } else {
                     name = "Apache Tika";
                 }
-                Thread thread = new Thread(command, name);
-                thread.setDaemon(true);
-                thread.start();
+                final String threadName = name;
+                SharedExecutor.EXECUTOR.execute(new Runnable() {
+                    public void run() {
+                        Thread thread = Thread.currentThread();
+                        thread.setName(threadName);
+                        try {
+                            command.run();
+                        } finally {
+                            thread.setName("Apache Tika");
+                        }
+                    }
+                });
             }
         });
     }
@@ -201,23 +269,14 @@ public class ParsingReader extends Reader {
             Parser parser, InputStream stream, Metadata metadata,
             ParseContext context, Executor executor) throws IOException {
         this.parser = parser;
-        PipedReader pipedReader = new PipedReader();
-        this.reader = new BufferedReader(pipedReader);
-        try {
-            this.writer = new PipedWriter(pipedReader);
-        } catch (IOException e) {
-            throw new IllegalStateException(e); // Should never happen
-        }
         this.stream = stream;
         this.metadata = metadata;
         this.context = context;
 
         executor.execute(new ParsingTask());
 
-        // TIKA-203: Buffer first character to force metadata extraction
-        reader.mark(1);
-        reader.read();
-        reader.reset();
+        // TIKA-203: Wait for the first character to force metadata extraction
+        waitForText();
     }
 
     /**
@@ -232,6 +291,7 @@ public class ParsingReader extends Reader {
          * stored before the input stream is closed and processing is stopped.
          */
         public void run() {
+            Writer writer = new HandoffWriter();
             try {
                 ContentHandler handler = new BodyContentHandler(writer);
                 parser.parse(stream, handler, metadata, context);
@@ -259,39 +319,178 @@ public class ParsingReader extends Reader {
     }
 
     /**
-     * Reads parsed text from the pipe connected to the parsing thread.
+     * Write end of the buffer, used by the parsing thread. Writes block
+     * while the buffer is full, and fail once the reader has been closed.
+     */
+    private class HandoffWriter extends Writer {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            while (len > 0) {
+                long w = charsWritten;
+                int n = Math.min(len, waitForSpace(w));
+                int start = (int) w & (BUFFER_SIZE - 1);
+                int first = Math.min(n, BUFFER_SIZE - start);
+                System.arraycopy(cbuf, off, buffer, start, first);
+                System.arraycopy(cbuf, off + first, buffer, 0, n - first);
+                charsWritten = w + n;
+                Thread reader = waitingReader;
+                if (reader != null) {
+                    LockSupport.unpark(reader);
+                }
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+            finished = true;
+            Thread reader = waitingReader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+        }
+
+        /**
+         * Waits until there's space in the buffer.
+         *
+         * @param w number of characters written so far
+         * @return the space available
+         * @throws IOException if the reader is closed or the thread is
+         *                     interrupted while waiting
+         */
+        private int waitForSpace(long w) throws IOException {
+            while (true) {
+                if (closed) {
+                    throw new IOException("Pipe closed");
+                }
+                int space = BUFFER_SIZE - (int) (w - charsRead);
+                if (space > 0) {
+                    return space;
+                }
+                waitingWriter = Thread.currentThread();
+                if (!closed && w - charsRead == BUFFER_SIZE) {
+                    LockSupport.park(this);
+                }
+                waitingWriter = null;
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Waits until there's text in the buffer, or the parsing thread
+     * has finished.
+     *
+     * @return the number of characters available, zero at the end
+     * @throws InterruptedIOException if the thread is interrupted
+     */
+    private long waitForText() throws InterruptedIOException {
+        while (true) {
+            boolean done = finished;
+            long available = charsWritten - charsRead;
+            if (available > 0 || done) {
+                return available;
+            }
+            waitingReader = Thread.currentThread();
+            if (!finished && charsWritten == charsRead) {
+                LockSupport.park(this);
+            }
+            waitingReader = null;
+            if (Thread.interrupted()) {
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    /**
      * Fails if the parsing thread has thrown an exception.
      *
+     * @return <code>true</code> if the document was empty
+     */
+    private boolean checkThrowable() throws IOException {
+        Throwable t = throwable;
+        if (t instanceof ZeroByteFileException) {
+            return true;
+        } else if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            IOException exception = new IOException("");
+            exception.initCause(t);
+            throw exception;
+        }
+        return false;
+    }
+
+    /**
+     * Reads parsed text handed over by the parsing thread, waiting for
+     * it if necessary. Fails if the parsing thread has thrown an exception.
+     *
      * @param cbuf character buffer
      * @param off start offset within the buffer
      * @param len maximum number of characters to read
-     * @throws IOException if the parsing thread has failed or
-     *                     if for some reason the pipe does not work properly
+     * @throws IOException if the parsing thread has failed, or if this
+     *                     reader is closed
      */
     @Override
     public int read(char[] cbuf, int off, int len) throws IOException {
-        if (throwable instanceof ZeroByteFileException) {
-            return -1;
-        } else if (throwable instanceof IOException) {
-            throw (IOException) throwable;
-        } else if (throwable != null) {
-            IOException exception = new IOException("");
-            exception.initCause(throwable);
-            throw exception;
+        synchronized (lock) {
+            if (checkThrowable()) {
+                return -1;
+            } else if (closed) {
+                throw new IOException("Stream closed");
+            } else if (len == 0) {
+                return 0;
+            }
+            long available = waitForText();
+            if (available == 0) {
+                // the parsing thread has finished, possibly with an exception
+                checkThrowable();
+                return -1;
+            }
+            long r = charsRead;
+            int n = (int) Math.min(len, available);
+            int start = (int) r & (BUFFER_SIZE - 1);
+            int first = Math.min(n, BUFFER_SIZE - start);
+            System.arraycopy(buffer, start, cbuf, off, first);
+            System.arraycopy(buffer, 0, cbuf, off + first, n - first);
+            charsRead = r + n;
+            Thread writer = waitingWriter;
+            if (writer != null) {
+                LockSupport.unpark(writer);
+            }
+            return n;
         }
-        return reader.read(cbuf, off, len);
     }
 
     /**
-     * Closes the read end of the pipe. If the parsing thread is still
-     * running, next write to the pipe will fail and cause the thread
-     * to stop. Thus there is no need to explicitly terminate the thread.
-     *
-     * @throws IOException if the pipe can not be closed
+     * Tells whether there is parsed text that can be read without waiting.
+     */
+    @Override
+    public boolean ready() throws IOException {
+        return charsWritten - charsRead > 0;
+    }
+
+    /**
+     * Closes the read end of the buffer. If the parsing thread is still
+     * running, its next write will fail and cause the thread to stop.
+     * Thus there is no need to explicitly terminate the thread.
      */
     @Override
     public void close() throws IOException {
-        reader.close();
+        closed = true;
+        Thread writer = waitingWriter;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+        }
     }
 
 }
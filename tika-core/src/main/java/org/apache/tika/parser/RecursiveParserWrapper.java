@@ -20,7 +20,11 @@ package org.apache.tika.parser;
 import org.apache.tika.exception.CorruptedFileException;
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.exception.ZeroByteFileException;
+import org.apache.tika.extractor.EmbeddedDocumentExtractor;
+import org.apache.tika.extractor.ParsingEmbeddedDocumentExtractor;
+import org.apache.tika.io.CloseShieldInputStream;
 import org.apache.tika.io.FilenameUtils;
+import org.apache.tika.io.IOUtils;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
@@ -37,10 +41,19 @@ import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is a helper class that wraps a parser in a recursive handler.
@@ -68,6 +81,14 @@ import java.util.Set;
  * Note that this wrapper holds all data in memory and is not appropriate
  * for files with content too large to be held in memory.
  * <p>
+ * Embedded documents can be parsed in parallel by setting a
+ * {@link ParallelEmbeddedParsingConfig} with an executor in the
+ * {@link ParseContext}. Each embedded document is then spooled as it is
+ * found and parsed on the executor, and the results are handed to the
+ * {@link AbstractRecursiveParserWrapperHandler} on the calling thread,
+ * in the same order as in a sequential parse, once the container document
+ * and all of its embedded documents have been parsed.
+ * <p>
  * Note, too, that this wrapper is not thread safe because it stores state.  
  * The client must initialize a new wrapper for each thread, and the client
  * is responsible for calling {@link #reset()} after each parse.
@@ -82,6 +103,12 @@ public class RecursiveParserWrapper extends ParserDecorator {
      */
     private static final long serialVersionUID = 9086536568120690938L;
 
+    /**
+     * Same as the maximum depth of the {@link AbstractRecursiveParserWrapperHandler},
+     * which only sees the embedded documents of a parallel parse afterwards
+     */
+    private static final int MAX_EMBEDDED_DEPTH = 100;
+
     /**
      * @deprecated use {@link org.apache.tika.sax.RecursiveParserWrapperHandler#TIKA_CONTENT}
      */
@@ -220,7 +247,12 @@ public class RecursiveParserWrapper extends ParserDecorator {
             parserState = new ParserState(new RecursiveParserWrapperHandler(contentHandlerFactory, maxEmbeddedResources));
             lastParseState = parserState;
         }
-        EmbeddedParserDecorator decorator = new EmbeddedParserDecorator(getWrappedParser(), "/", parserState);
+        ParallelEmbeddedParsingConfig parallelConfig = context.get(ParallelEmbeddedParsingConfig.class);
+        if (parallelConfig != null && parallelConfig.getExecutorService() != null) {
+            parserState.parallelState = new ParallelState(parallelConfig);
+        }
+        EmbeddedParserDecorator decorator = new EmbeddedParserDecorator(getWrappedParser(), "/", parserState,
+                parserState.parallelState == null ? null : parserState.parallelState.root);
         context.set(Parser.class, decorator);
         ContentHandler localHandler = parserState.recursiveParserWrapperHandler.getNewContentHandler();
         long started = System.currentTimeMillis();
@@ -231,7 +263,13 @@ public class RecursiveParserWrapper extends ParserDecorator {
             RecursivelySecureContentHandler secureContentHandler =
                         new RecursivelySecureContentHandler(localHandler, tis);
             context.set(RecursivelySecureContentHandler.class, secureContentHandler);
+            if (parserState.parallelState != null) {
+                parserState.parallelState.secureContentHandler = secureContentHandler;
+            }
             getWrappedParser().parse(tis, secureContentHandler, metadata, context);
+            if (parserState.parallelState != null) {
+                parserState.parallelState.finish(parserState.recursiveParserWrapperHandler);
+            }
         } catch (SAXException e) {
             boolean wlr = isWriteLimitReached(e);
             if (wlr == false) {
@@ -245,6 +283,16 @@ public class RecursiveParserWrapper extends ParserDecorator {
             metadata.add(RecursiveParserWrapperHandler.CONTAINER_EXCEPTION, stackTrace);
             throw e;
         } finally {
+            if (parserState.parallelState != null && ! parserState.parallelState.finished) {
+                //the container parse failed or hit the write limit;
+                //keep the embedded documents that were parsed, but let the
+                //container's exception win over theirs
+                try {
+                    parserState.parallelState.finish(parserState.recursiveParserWrapperHandler);
+                } catch (Exception e) {
+                    //swallow
+                }
+            }
             tmp.dispose();
             long elapsedMillis = System.currentTimeMillis() - started;
             metadata.set(RecursiveParserWrapperHandler.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
@@ -329,7 +377,7 @@ public class RecursiveParserWrapper extends ParserDecorator {
         } else if (metadata.get(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID) != null) {
             objectName = metadata.get(TikaCoreProperties.EMBEDDED_RELATIONSHIP_ID);
         } else {
-            objectName = "embedded-" + (++state.unknownCount);
+            objectName = "embedded-" + state.unknownCount.incrementAndGet();
         }
         //make sure that there isn't any path info in the objectName
         //some parsers can return paths, not just file names
@@ -344,21 +392,30 @@ public class RecursiveParserWrapper extends ParserDecorator {
         
         private String location = null;
         private final ParserState parserState;
+        //the document that this decorator parses the embedded documents of,
+        //or null when embedded documents are parsed sequentially
+        private final EmbeddedNode parent;
 
         
-        private EmbeddedParserDecorator(Parser parser, String location, ParserState parseState) {
+        private EmbeddedParserDecorator(Parser parser, String location, ParserState parseState,
+                                        EmbeddedNode parent) {
             super(parser);
             this.location = location;
             if (! this.location.endsWith("/")) {
                this.location += "/";
             }
             this.parserState = parseState;
+            this.parent = parent;
         }
 
         @Override
         public void parse(InputStream stream, ContentHandler ignore,
                 Metadata metadata, ParseContext context) throws IOException,
                 SAXException, TikaException {
+            if (parent != null) {
+                parseInParallel(stream, metadata, context);
+                return;
+            }
             //Test to see if we should avoid parsing
             if (parserState.recursiveParserWrapperHandler.hasHitMaximumEmbeddedResources()) {
                 return;
@@ -375,7 +432,7 @@ public class RecursiveParserWrapper extends ParserDecorator {
             parserState.recursiveParserWrapperHandler.startEmbeddedDocument(localHandler, metadata);
 
             Parser preContextParser = context.get(Parser.class);
-            context.set(Parser.class, new EmbeddedParserDecorator(getWrappedParser(), objectLocation, parserState));
+            context.set(Parser.class, new EmbeddedParserDecorator(getWrappedParser(), objectLocation, parserState, null));
             long started = System.currentTimeMillis();
             RecursivelySecureContentHandler secureContentHandler =
                     context.get(RecursivelySecureContentHandler.class);
@@ -384,7 +441,25 @@ public class RecursiveParserWrapper extends ParserDecorator {
             ContentHandler preContextHandler = secureContentHandler.handler;
             secureContentHandler.updateContentHandler(localHandler);
             try {
-                super.parse(stream, secureContentHandler, metadata, context);
+                parseEmbedded(stream, secureContentHandler, metadata, context);
+            } finally {
+                context.set(Parser.class, preContextParser);
+                secureContentHandler.updateContentHandler(preContextHandler);
+                long elapsedMillis = System.currentTimeMillis() - started;
+                metadata.set(RecursiveParserWrapperHandler.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
+                parserState.recursiveParserWrapperHandler.endEmbeddedDocument(localHandler, metadata);
+            }
+        }
+
+        /**
+         * Parses an embedded document, recording or rethrowing its
+         * exceptions as configured.
+         */
+        private void parseEmbedded(InputStream stream, ContentHandler handler,
+                Metadata metadata, ParseContext context) throws IOException,
+                SAXException, TikaException {
+            try {
+                super.parse(stream, handler, metadata, context);
             } catch (SAXException e) {
                 boolean wlr = isWriteLimitReached(e);
                 if (wlr == true) {
@@ -407,14 +482,119 @@ public class RecursiveParserWrapper extends ParserDecorator {
                 } else {
                     throw e;
                 }
+            }
+        }
+
+        /**
+         * Spools the embedded document and schedules it to be parsed on the
+         * executor. The handler is only notified once the whole parse
+         * has finished, see {@link ParallelState#finish}.
+         */
+        private void parseInParallel(InputStream stream, Metadata metadata, ParseContext context)
+                throws IOException, SAXException {
+            ParallelState parallelState = parserState.parallelState;
+            int depth = parent.depth + 1;
+            if (depth >= MAX_EMBEDDED_DEPTH) {
+                throw new SAXException("Max embedded depth reached: " + depth);
+            }
+            if (! parallelState.reserveEmbeddedResource(parserState.recursiveParserWrapperHandler)) {
+                return;
+            }
+            String objectName = getResourceName(metadata, parserState);
+            String objectLocation = this.location + objectName;
+
+            metadata.add(AbstractRecursiveParserWrapperHandler.EMBEDDED_RESOURCE_PATH, objectLocation);
+
+            //the parse works on its own copies, as the parent parser
+            //keeps going once this returns
+            final EmbeddedNode node = new EmbeddedNode(objectLocation, depth,
+                    ParserUtils.cloneMetadata(metadata),
+                    parserState.recursiveParserWrapperHandler.getNewContentHandler());
+            //the handler sets this again on replay, but parsers can see it
+            node.metadata.set(AbstractRecursiveParserWrapperHandler.EMBEDDED_DEPTH, depth);
+            final ParseContext nodeContext = context.copy();
+            nodeContext.set(Parser.class,
+                    new EmbeddedParserDecorator(getWrappedParser(), objectLocation, parserState, node));
+            EmbeddedDocumentExtractor extractor = context.get(EmbeddedDocumentExtractor.class);
+            if (extractor != null && extractor.getClass() == ParsingEmbeddedDocumentExtractor.class) {
+                //this one is bound to the parent's context
+                nodeContext.set(EmbeddedDocumentExtractor.class, new ParsingEmbeddedDocumentExtractor(nodeContext));
+            }
+            final RecursivelySecureContentHandler secureContentHandler =
+                    new RecursivelySecureContentHandler(node.handler, parallelState.secureContentHandler);
+            nodeContext.set(RecursivelySecureContentHandler.class, secureContentHandler);
+            parent.addChild(node);
+
+            if (stream instanceof TikaInputStream
+                    && ((TikaInputStream) stream).getOpenContainer() != null) {
+                //the open container belongs to the parent parser, so this
+                //can't be spooled and parsed later
+                parseNode(node, stream, secureContentHandler, nodeContext);
+                return;
+            }
+            node.stream = spool(stream, parallelState.maxInMemorySpoolBytes);
+            try {
+                node.future = parallelState.executorService.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        parseNode(node, node.stream, secureContentHandler, nodeContext);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                parseNode(node, node.stream, secureContentHandler, nodeContext);
+            }
+        }
+
+        private void parseNode(EmbeddedNode node, InputStream stream,
+                               ContentHandler handler, ParseContext context) {
+            long started = System.currentTimeMillis();
+            try {
+                parseEmbedded(stream, handler, node.metadata, context);
+            } catch (Throwable t) {
+                node.failure = t;
             } finally {
-                context.set(Parser.class, preContextParser);
-                secureContentHandler.updateContentHandler(preContextHandler);
+                if (node.stream != null) {
+                    IOUtils.closeQuietly(node.stream);
+                }
                 long elapsedMillis = System.currentTimeMillis() - started;
-                metadata.set(RecursiveParserWrapperHandler.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
-                parserState.recursiveParserWrapperHandler.endEmbeddedDocument(localHandler, metadata);
+                node.metadata.set(RecursiveParserWrapperHandler.PARSE_TIME_MILLIS, Long.toString(elapsedMillis));
+            }
+        }
+    }
+
+    /**
+     * Copies the embedded document so that it can be parsed after the
+     * parent parser has moved on: in memory if it is no larger than
+     * <code>maxInMemory</code> bytes, otherwise to a temporary file that
+     * is deleted when the returned stream is closed.
+     */
+    private static TikaInputStream spool(InputStream stream, int maxInMemory) throws IOException {
+        byte[] buffer = new byte[Math.min(maxInMemory, 8192) + 1];
+        int length = 0;
+        int n;
+        while ((n = stream.read(buffer, length, buffer.length - length)) != -1) {
+            length += n;
+            if (length == buffer.length) {
+                if (length > maxInMemory) {
+                    TikaInputStream tis = TikaInputStream.get(new SequenceInputStream(
+                            new ByteArrayInputStream(buffer, 0, length),
+                            new CloseShieldInputStream(stream)), new TemporaryResources());
+                    try {
+                        tis.getPath();
+                    } catch (IOException e) {
+                        IOUtils.closeQuietly(tis);
+                        throw e;
+                    }
+                    return tis;
+                }
+                byte[] larger = new byte[Math.min(maxInMemory, 2 * buffer.length) + 1];
+                System.arraycopy(buffer, 0, larger, 0, length);
+                buffer = larger;
             }
         }
+        byte[] data = new byte[length];
+        System.arraycopy(buffer, 0, data, 0, length);
+        return TikaInputStream.get(data);
     }
 
     /**
@@ -422,14 +602,171 @@ public class RecursiveParserWrapper extends ParserDecorator {
      * In future versions, this will allow the RecursiveParserWrapper to be thread safe.
      */
     private class ParserState {
-        private int unknownCount = 0;
+        private final AtomicInteger unknownCount = new AtomicInteger();
         private final AbstractRecursiveParserWrapperHandler recursiveParserWrapperHandler;
+        //null unless embedded documents are parsed in parallel
+        private ParallelState parallelState = null;
         private ParserState(AbstractRecursiveParserWrapperHandler handler) {
             this.recursiveParserWrapperHandler = handler;
         }
     }
 
-    private class RecursivelySecureContentHandler
+    /**
+     * This tracks the embedded documents of a parallel parse.
+     */
+    private static class ParallelState {
+        private final ExecutorService executorService;
+        private final int maxInMemorySpoolBytes;
+        private final EmbeddedNode root = new EmbeddedNode("/", 0, null, null);
+        private final AtomicInteger embeddedResources = new AtomicInteger();
+        private RecursivelySecureContentHandler secureContentHandler;
+        private boolean finished = false;
+
+        private ParallelState(ParallelEmbeddedParsingConfig config) {
+            this.executorService = config.getExecutorService();
+            this.maxInMemorySpoolBytes = config.getMaxInMemorySpoolBytes();
+        }
+
+        /**
+         * Counts an embedded document against the handler's maximum.
+         * The handler itself only sees the documents once they are replayed.
+         *
+         * @return false if the maximum has been hit
+         */
+        private boolean reserveEmbeddedResource(AbstractRecursiveParserWrapperHandler handler) {
+            int max = handler.getMaxEmbeddedResources();
+            if (max < 0) {
+                return true;
+            }
+            int reserved;
+            do {
+                reserved = embeddedResources.get();
+                if (reserved >= max) {
+                    return false;
+                }
+            } while (! embeddedResources.compareAndSet(reserved, reserved + 1));
+            return true;
+        }
+
+        /**
+         * Waits for all embedded documents, then replays them to the handler
+         * in the order of a sequential parse.
+         *
+         * @throws IOException, SAXException, TikaException the first
+         * exception in document order that the embedded parse didn't catch
+         */
+        private void finish(AbstractRecursiveParserWrapperHandler handler)
+                throws IOException, SAXException, TikaException {
+            finished = true;
+            try {
+                await(root);
+            } catch (InterruptedException e) {
+                cancel(root);
+                Thread.currentThread().interrupt();
+                throw new TikaException("Interrupted while parsing embedded documents", e);
+            }
+            replay(root, handler);
+            Throwable failure = getFirstFailure(root);
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof SAXException) {
+                throw (SAXException) failure;
+            } else if (failure instanceof TikaException) {
+                throw (TikaException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new TikaException("Unexpected exception in embedded document", failure);
+            }
+        }
+
+        //a document's children are all known once its own parse has finished
+        private void await(EmbeddedNode node) throws InterruptedException {
+            for (int i = 0; i < node.getChildCount(); i++) {
+                EmbeddedNode child = node.getChild(i);
+                if (child.future != null) {
+                    try {
+                        child.future.get();
+                    } catch (ExecutionException|CancellationException e) {
+                        //parseNode catches everything
+                    }
+                }
+                await(child);
+            }
+        }
+
+        private void cancel(EmbeddedNode node) {
+            for (int i = 0; i < node.getChildCount(); i++) {
+                EmbeddedNode child = node.getChild(i);
+                if (child.future != null && child.future.cancel(false)) {
+                    IOUtils.closeQuietly(child.stream);
+                }
+                cancel(child);
+            }
+        }
+
+        private void replay(EmbeddedNode node, AbstractRecursiveParserWrapperHandler handler)
+                throws SAXException {
+            for (int i = 0; i < node.getChildCount(); i++) {
+                EmbeddedNode child = node.getChild(i);
+                handler.startEmbeddedDocument(child.handler, child.metadata);
+                replay(child, handler);
+                handler.endEmbeddedDocument(child.handler, child.metadata);
+            }
+        }
+
+        private Throwable getFirstFailure(EmbeddedNode node) {
+            for (int i = 0; i < node.getChildCount(); i++) {
+                EmbeddedNode child = node.getChild(i);
+                if (child.failure != null) {
+                    return child.failure;
+                }
+                Throwable failure = getFirstFailure(child);
+                if (failure != null) {
+                    return failure;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * An embedded document of a parallel parse, with its embedded documents
+     * in the order they were found.
+     */
+    private static class EmbeddedNode {
+        private final String location;
+        private final int depth;
+        private final Metadata metadata;
+        private final ContentHandler handler;
+        private final List<EmbeddedNode> children = new ArrayList<>();
+        private TikaInputStream stream;
+        private volatile Future<?> future;
+        private volatile Throwable failure;
+
+        private EmbeddedNode(String location, int depth, Metadata metadata, ContentHandler handler) {
+            this.location = location;
+            this.depth = depth;
+            this.metadata = metadata;
+            this.handler = handler;
+        }
+
+        private synchronized void addChild(EmbeddedNode child) {
+            children.add(child);
+        }
+
+        private synchronized int getChildCount() {
+            return children.size();
+        }
+
+        private synchronized EmbeddedNode getChild(int i) {
+            return children.get(i);
+        }
+    }
+
+    private static class RecursivelySecureContentHandler
             extends SecureContentHandler {
         private ContentHandler handler;
         public RecursivelySecureContentHandler(ContentHandler handler, TikaInputStream stream) {
@@ -437,6 +774,15 @@ public class RecursiveParserWrapper extends ParserDecorator {
             this.handler = handler;
         }
 
+        /**
+         * Shares the zip bomb check of the container's handler with
+         * an embedded document that is parsed on another thread.
+         */
+        public RecursivelySecureContentHandler(ContentHandler handler, RecursivelySecureContentHandler shared) {
+            super(handler, shared);
+            this.handler = handler;
+        }
+
         public void updateContentHandler(ContentHandler handler) {
             setContentHandler(handler);
             this.handler = handler;
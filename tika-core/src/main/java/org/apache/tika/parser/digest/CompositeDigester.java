@@ -19,8 +19,10 @@ package org.apache.tika.parser.digest;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.BoundedInputStream;
 import org.apache.tika.io.IOExceptionWithCause;
 import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.io.TikaInputStream;
@@ -29,7 +31,7 @@ import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 
 
-public class CompositeDigester implements DigestingParser.Digester {
+public class CompositeDigester implements DigestingParser.StreamingDigester {
 
     private final DigestingParser.Digester[] digesters;
 
@@ -37,13 +39,23 @@ public class CompositeDigester implements DigestingParser.Digester {
         this.digesters = digesters;
     }
 
+    /**
+     * If all the digesters are {@link InputStreamDigester}s, their digests
+     * are computed in a single pass over the stream, with the largest of
+     * their mark limits. Otherwise each digester reads the stream in turn.
+     */
     @Override
     public void digest(InputStream is, Metadata m, ParseContext parseContext) throws IOException {
         TemporaryResources tmp = new TemporaryResources();
         TikaInputStream tis = TikaInputStream.get(is, tmp);
         try {
-            for (DigestingParser.Digester digester : digesters) {
-                digester.digest(tis, m, parseContext);
+            int markLimit = getMarkLimit();
+            if (markLimit > -1) {
+                digest(tis, markLimit, m);
+            } else {
+                for (DigestingParser.Digester digester : digesters) {
+                    digester.digest(tis, m, parseContext);
+                }
             }
         } finally {
             try {
@@ -53,4 +65,89 @@ public class CompositeDigester implements DigestingParser.Digester {
             }
         }
     }
+
+    @Override
+    public DigestingParser.StreamDigest newStreamDigest() {
+        final DigestingParser.StreamDigest[] streamDigests =
+                new DigestingParser.StreamDigest[digesters.length];
+        for (int i = 0; i < digesters.length; i++) {
+            if (! (digesters[i] instanceof DigestingParser.StreamingDigester)) {
+                return null;
+            }
+            streamDigests[i] = ((DigestingParser.StreamingDigester) digesters[i]).newStreamDigest();
+            if (streamDigests[i] == null) {
+                return null;
+            }
+        }
+        return new DigestingParser.StreamDigest() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                for (DigestingParser.StreamDigest streamDigest : streamDigests) {
+                    streamDigest.update(bytes, offset, length);
+                }
+            }
+
+            @Override
+            public void finish(Metadata metadata) {
+                for (DigestingParser.StreamDigest streamDigest : streamDigests) {
+                    streamDigest.finish(metadata);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the largest mark limit of the digesters, or -1 if they
+     * are not all {@link InputStreamDigester}s
+     */
+    private int getMarkLimit() {
+        int markLimit = -1;
+        for (DigestingParser.Digester digester : digesters) {
+            if (! (digester instanceof InputStreamDigester)) {
+                return -1;
+            }
+            markLimit = Math.max(markLimit, ((InputStreamDigester) digester).getMarkLimit());
+        }
+        return markLimit;
+    }
+
+    /**
+     * Same as {@link InputStreamDigester#digest(InputStream, Metadata, ParseContext)},
+     * but updating all the digests with each buffer read.
+     */
+    private void digest(TikaInputStream tis, int markLimit, Metadata m) throws IOException {
+        if (tis.hasFile() && tis.getLength() > markLimit) {
+            digestFile(tis, m);
+            return;
+        }
+        //try the usual mark/reset stuff,
+        //and spool to file if the bound is hit
+        DigestingParser.StreamDigest streamDigest = newStreamDigest();
+        BoundedInputStream bis = new BoundedInputStream(markLimit, tis);
+        bis.mark(markLimit + 1);
+        update(streamDigest, bis);
+        boolean hitBound = bis.hasHitBound();
+        bis.reset();
+        if (hitBound) {
+            digestFile(tis, m);
+        } else {
+            streamDigest.finish(m);
+        }
+    }
+
+    private void digestFile(TikaInputStream tis, Metadata m) throws IOException {
+        DigestingParser.StreamDigest streamDigest = newStreamDigest();
+        try (InputStream is = Files.newInputStream(tis.getPath())) {
+            update(streamDigest, is);
+        }
+        streamDigest.finish(m);
+    }
+
+    private static void update(DigestingParser.StreamDigest streamDigest, InputStream is)
+            throws IOException {
+        byte[] buffer = new byte[8192];
+        for (int read = is.read(buffer); read > -1; read = is.read(buffer)) {
+            streamDigest.update(buffer, 0, read);
+        }
+    }
 }
@@ -35,7 +35,7 @@ import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.DigestingParser;
 import org.apache.tika.parser.ParseContext;
 
-public class InputStreamDigester implements DigestingParser.Digester {
+public class InputStreamDigester implements DigestingParser.StreamingDigester {
 
     private final String algorithm;
     private final String algorithmKeyName;
@@ -70,6 +70,10 @@ public class InputStreamDigester implements DigestingParser.Digester {
         }
     }
 
+    int getMarkLimit() {
+        return markLimit;
+    }
+
     private MessageDigest newMessageDigest() {
         try {
             Provider provider = getProvider();
@@ -154,6 +158,22 @@ public class InputStreamDigester implements DigestingParser.Digester {
         }
     }
 
+    @Override
+    public DigestingParser.StreamDigest newStreamDigest() {
+        final MessageDigest messageDigest = newMessageDigest();
+        return new DigestingParser.StreamDigest() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                messageDigest.update(bytes, offset, length);
+            }
+
+            @Override
+            public void finish(Metadata metadata) {
+                metadata.set(getMetadataKey(), encoder.encode(messageDigest.digest()));
+            }
+        };
+    }
+
     private String getMetadataKey() {
         return TikaCoreProperties.TIKA_META_PREFIX +
                 "digest" + TikaCoreProperties.NAMESPACE_PREFIX_DELIMITER +
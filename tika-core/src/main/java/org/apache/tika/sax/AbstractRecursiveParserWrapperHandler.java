@@ -139,6 +139,14 @@ public abstract class AbstractRecursiveParserWrapperHandler extends DefaultHandl
         return false;
     }
 
+    /**
+     *
+     * @return the maximum number of embedded resources to process, or -1 if there is no limit
+     */
+    public int getMaxEmbeddedResources() {
+        return maxEmbeddedResources;
+    }
+
     public ContentHandlerFactory getContentHandlerFactory() {
         return contentHandlerFactory;
     }
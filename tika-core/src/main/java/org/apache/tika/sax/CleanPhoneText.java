@@ -21,6 +21,7 @@ import java.util.Locale;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Class to help de-obfuscate phone numbers in text.
@@ -32,19 +33,33 @@ public class CleanPhoneText {
     // Regex which attempts to ignore punctuation and other distractions.
     static final String phoneRegex = "([{(<]{0,3}[2-9][\\W_]{0,3}\\d[\\W_]{0,3}\\d[\\W_]{0,6}[2-9][\\W_]{0,3}\\d[\\W_]{0,3}\\d[\\W_]{0,6}\\d[\\W_]{0,3}\\d[\\W_]{0,3}\\d[\\W_]{0,3}\\d)";
 
+    private static final Pattern CLEAN_PHONE_PATTERN = Pattern.compile(cleanPhoneRegex);
+
     public static ArrayList<String> extractPhoneNumbers(String text) {
         text = clean(text);
-        int idx = 0;
-        Pattern p = Pattern.compile(cleanPhoneRegex);
-        Matcher m = p.matcher(text);
         ArrayList<String> phoneNumbers = new ArrayList<String>();
+        findPhoneNumbers(text, 0, phoneNumbers);
+        return phoneNumbers;
+    }
+
+    /**
+     * Finds the phone numbers in cleaned text, starting from the given
+     * position.
+     *
+     * @param text cleaned text
+     * @param idx position to start from
+     * @param phoneNumbers list to add the phone numbers to
+     * @return position to continue from if more text is appended
+     */
+    private static int findPhoneNumbers(CharSequence text, int idx, List<String> phoneNumbers) {
+        Matcher m = CLEAN_PHONE_PATTERN.matcher(text);
         while (m.find(idx)) {
             String digits = m.group(1);
             int start = m.start(1);
             int end = m.end(1);
             String prefix = "";
             if (start > 0) {
-                prefix = text.substring(start-1, start);
+                prefix = text.subSequence(start-1, start).toString();
             }
             if (digits.substring(0, 2).equals("82") && prefix.equals("*")) {
                 // this number overlaps with a *82 sequence
@@ -55,7 +70,7 @@ public class CleanPhoneText {
                 idx = end;
             }
         }
-        return phoneNumbers;
+        return idx;
     }
 
     public static String clean(String text) {
@@ -283,4 +298,98 @@ public class CleanPhoneText {
                     {"i", "1"},
                     {"l", "1"}}
     };
+
+    /**
+     * Whether the text can be cleaned in two parts either side of the given
+     * position with the same result as cleaning it whole. That is the case
+     * when the position is between a character that no substitution matches
+     * other than as a separator, and a letter, as no substitution can span
+     * such a pair.
+     */
+    private static boolean isSafeCut(CharSequence text, int pos) {
+        char before = Character.toLowerCase(text.charAt(pos - 1));
+        char after = Character.toLowerCase(text.charAt(pos));
+        return 'a' <= after && after <= 'z' && (before >= 128
+                || !(Character.isLetterOrDigit(before) || before == '&'
+                        || before == '#' || before == ';' || before == '-'));
+    }
+
+    /**
+     * Finds phone numbers in text that arrives in chunks, keeping no more
+     * than about a window of it in memory. The text is cleaned up to a
+     * position where it can be split without changing the result, and only
+     * the digits that may still begin a number are kept after that, so the
+     * numbers are the same as those from {@link #extractPhoneNumbers(String)}
+     * of the whole text, unless it goes on for two windows without a
+     * separator before a letter.
+     */
+    static class PhoneNumberScanner {
+
+        static final int DEFAULT_WINDOW = 65536;
+
+        private final int window;
+
+        /**
+         * Text that is yet to be cleaned
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        /**
+         * Position in the text up to which there's known to be no safe cut
+         */
+        private int checked = 0;
+
+        /**
+         * Cleaned text that may still hold the start of a phone number
+         */
+        private final StringBuilder digits = new StringBuilder();
+
+        private int idx = 0;
+
+        private final List<String> phoneNumbers = new ArrayList<String>();
+
+        PhoneNumberScanner() {
+            this(DEFAULT_WINDOW);
+        }
+
+        PhoneNumberScanner(int window) {
+            this.window = window;
+        }
+
+        void append(char[] ch, int start, int length) {
+            text.append(ch, start, length);
+            if (text.length() >= window) {
+                int cut = text.length() - 1;
+                while (cut > checked && !isSafeCut(text, cut)) {
+                    cut--;
+                }
+                checked = text.length() - 1;
+                if (cut > 0 && isSafeCut(text, cut)) {
+                    clean(cut);
+                } else if (text.length() >= 2 * window) {
+                    clean(text.length());
+                }
+            }
+        }
+
+        /**
+         * Cleans and scans the rest of the text.
+         *
+         * @return the phone numbers found in the whole text
+         */
+        List<String> finish() {
+            clean(text.length());
+            return phoneNumbers;
+        }
+
+        private void clean(int cut) {
+            digits.append(CleanPhoneText.clean(text.substring(0, cut)));
+            text.delete(0, cut);
+            checked = 0;
+            idx = findPhoneNumbers(digits, idx, phoneNumbers);
+            // Numbers can't start before idx, or where they were looked for
+            digits.delete(0, Math.max(idx, digits.length() - 9));
+            idx = 0;
+        }
+    }
 }
\ No newline at end of file
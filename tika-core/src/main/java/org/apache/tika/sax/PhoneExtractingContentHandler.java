@@ -24,7 +24,6 @@ import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -53,7 +52,7 @@ import java.util.List;
 public class PhoneExtractingContentHandler extends ContentHandlerDecorator {
     private Metadata metadata;
     private static final String PHONE_NUMBERS = "phonenumbers";
-    private StringBuilder stringBuilder;
+    private CleanPhoneText.PhoneNumberScanner scanner;
 
     /**
      * Creates a decorator for the given SAX event handler and Metadata object.
@@ -63,7 +62,7 @@ public class PhoneExtractingContentHandler extends ContentHandlerDecorator {
     public PhoneExtractingContentHandler(ContentHandler handler, Metadata metadata) {
         super(handler);
         this.metadata = metadata;
-        this.stringBuilder = new StringBuilder();
+        this.scanner = new CleanPhoneText.PhoneNumberScanner();
     }
 
     /**
@@ -81,14 +80,14 @@ public class PhoneExtractingContentHandler extends ContentHandlerDecorator {
      * The characters method is called whenever a Parser wants to pass raw...
      * characters to the ContentHandler. But, sometimes, phone numbers are split
      * accross different calls to characters, depending on the specific Parser
-     * used. So, we simply add all characters to a StringBuilder and analyze it
-     * once the document is finished.
+     * used. So, we pass all characters to a scanner that cleans and analyzes
+     * them a window at a time, keeping whatever may still be part of a phone
+     * number for the next window.
      */
     @Override
     public void characters(char[] ch, int start, int length) throws SAXException {
         try {
-            String text = new String(Arrays.copyOfRange(ch, start, start + length));
-            stringBuilder.append(text);
+            scanner.append(ch, start, length);
             super.characters(ch, start, length);
         } catch (SAXException e) {
             handleException(e);
@@ -98,12 +97,12 @@ public class PhoneExtractingContentHandler extends ContentHandlerDecorator {
 
     /**
      * This method is called whenever the Parser is done parsing the file. So,
-     * we check the output for any phone numbers.
+     * we check the rest of the output for any phone numbers.
      */
     @Override
     public void endDocument() throws SAXException {
         super.endDocument();
-        List<String> numbers = CleanPhoneText.extractPhoneNumbers(stringBuilder.toString());
+        List<String> numbers = scanner.finish();
         for (String number : numbers) {
             metadata.add(PHONE_NUMBERS, number);
         }
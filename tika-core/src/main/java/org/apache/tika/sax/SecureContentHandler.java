@@ -18,6 +18,7 @@ package org.apache.tika.sax;
 
 import java.io.IOException;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TikaInputStream;
@@ -49,6 +50,13 @@ public class SecureContentHandler extends ContentHandlerDecorator {
      */
     private long characterCount = 0;
 
+    /**
+     * Output character count shared with other handlers that write output
+     * for the same input stream, or <code>null</code> if the count
+     * is private to this handler.
+     */
+    private AtomicLong sharedCharacterCount = null;
+
     /**
      * The current XML element depth.
      */
@@ -94,6 +102,39 @@ public class SecureContentHandler extends ContentHandlerDecorator {
         this.stream = stream;
     }
 
+    /**
+     * Decorates the given content handler with the zip bomb prevention
+     * of the given secure handler. The output characters counted by the
+     * two handlers are added together and checked against the input
+     * stream of the given handler, so the check still covers the whole
+     * document when parts of it are handled concurrently, for example
+     * embedded documents parsed on other threads.
+     * <p>
+     * The output character count of the given handler becomes thread safe
+     * once this constructor returns. The thresholds are copied, so they
+     * should be configured on the given handler beforehand.
+     *
+     * @param handler the content handler to be decorated
+     * @param shared the secure handler whose output count is shared
+     */
+    protected SecureContentHandler(
+            ContentHandler handler, SecureContentHandler shared) {
+        super(handler);
+        this.stream = shared.stream;
+        this.sharedCharacterCount = shared.getSharedCharacterCount();
+        this.threshold = shared.threshold;
+        this.ratio = shared.ratio;
+        this.maxDepth = shared.maxDepth;
+        this.maxPackageEntryDepth = shared.maxPackageEntryDepth;
+    }
+
+    private synchronized AtomicLong getSharedCharacterCount() {
+        if (sharedCharacterCount == null) {
+            sharedCharacterCount = new AtomicLong(characterCount);
+        }
+        return sharedCharacterCount;
+    }
+
     /**
      * Returns the configured output threshold.
      *
@@ -214,14 +255,19 @@ public class SecureContentHandler extends ContentHandlerDecorator {
      * @throws SAXException if a zip bomb is detected
      */
     private void advance(int length) throws SAXException {
-        characterCount += length;
+        long count;
+        if (sharedCharacterCount == null) {
+            count = characterCount += length;
+        } else {
+            count = sharedCharacterCount.addAndGet(length);
+        }
         long byteCount = getByteCount();
-        if (characterCount > threshold
-                && characterCount > byteCount * ratio) {
+        if (count > threshold
+                && count > byteCount * ratio) {
             throw new SecureSAXException(
                     "Suspected zip bomb: "
                     + byteCount + " input bytes produced "
-                    + characterCount + " output characters");
+                    + count + " output characters");
         }
     }
 
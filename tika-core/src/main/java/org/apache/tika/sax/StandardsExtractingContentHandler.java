@@ -17,7 +17,6 @@
 
 package org.apache.tika.sax;
 
-import java.util.Arrays;
 import java.util.List;
 
 import org.apache.tika.metadata.Metadata;
@@ -33,7 +32,7 @@ import org.xml.sax.helpers.DefaultHandler;
 public class StandardsExtractingContentHandler extends ContentHandlerDecorator {
 	public static final String STANDARD_REFERENCES = "standard_references";
 	private Metadata metadata;
-	private StringBuilder stringBuilder;
+	private StandardsText.ReferenceScanner scanner;
 	private double threshold = 0;
 
 	/**
@@ -47,7 +46,7 @@ public class StandardsExtractingContentHandler extends ContentHandlerDecorator {
 	public StandardsExtractingContentHandler(ContentHandler handler, Metadata metadata) {
 		super(handler);
 		this.metadata = metadata;
-		this.stringBuilder = new StringBuilder();
+		this.scanner = new StandardsText.ReferenceScanner();
 	}
 
 	/**
@@ -86,14 +85,14 @@ public class StandardsExtractingContentHandler extends ContentHandlerDecorator {
 	 * The characters method is called whenever a Parser wants to pass raw
 	 * characters to the ContentHandler. However, standard references are often
 	 * split across different calls to characters, depending on the specific
-	 * Parser used. Therefore, we simply add all characters to a StringBuilder
-	 * and analyze it once the document is finished.
+	 * Parser used. Therefore, we pass all characters to a scanner that
+	 * analyzes them a window at a time, carrying over enough of each window to
+	 * find the references that span into the next one.
 	 */
 	@Override
 	public void characters(char[] ch, int start, int length) throws SAXException {
 		try {
-			String text = new String(Arrays.copyOfRange(ch, start, start + length));
-			stringBuilder.append(text);
+			scanner.append(ch, start, length);
 			super.characters(ch, start, length);
 		} catch (SAXException e) {
 			handleException(e);
@@ -102,15 +101,16 @@ public class StandardsExtractingContentHandler extends ContentHandlerDecorator {
 
 	/**
 	 * This method is called whenever the Parser is done parsing the file. So,
-	 * we check the output for any standard references.
+	 * we check the rest of the output for any standard references.
 	 */
 	@Override
 	public void endDocument() throws SAXException {
 		super.endDocument();
-		List<StandardReference> standards = StandardsText.extractStandardReferences(stringBuilder.toString(),
-				threshold);
+		List<StandardReference> standards = scanner.finish();
 		for (StandardReference standardReference : standards) {
-			metadata.add(STANDARD_REFERENCES, standardReference.toString());
+			if (standardReference.getScore() >= threshold) {
+				metadata.add(STANDARD_REFERENCES, standardReference.toString());
+			}
 		}
 	}
 }
\ No newline at end of file
@@ -17,8 +17,10 @@
 
 package org.apache.tika.sax;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
@@ -79,6 +81,16 @@ public class StandardsText {
 	// that is supposed to be a standard reference
 	private static final String REGEX_STANDARD = ".*" + REGEX_ORGANIZATION + ".+" + REGEX_ORGANIZATION + "?.*";
 
+	private static final Pattern HEADER_PATTERN = Pattern.compile(REGEX_HEADER);
+
+	private static final Pattern APPLICABLE_DOCUMENTS_PATTERN = Pattern.compile(REGEX_APPLICABLE_DOCUMENTS);
+
+	private static final Pattern FALLBACK_PATTERN = Pattern.compile(REGEX_FALLBACK);
+
+	private static final Pattern STANDARD_PATTERN = Pattern.compile(REGEX_STANDARD);
+
+	private static final Pattern STANDARD_TYPE_PATTERN = Pattern.compile(".*" + REGEX_STANDARD_TYPE + ".*");
+
 	/**
 	 * Extracts the standard references found within the given text.
 	 * 
@@ -110,8 +122,7 @@ public class StandardsText {
 	private static Map<Integer, String> findHeaders(String text) {
 		Map<Integer, String> headers = new TreeMap<Integer, String>();
 
-		Pattern pattern = Pattern.compile(REGEX_HEADER);
-		Matcher matcher = pattern.matcher(text);
+		Matcher matcher = HEADER_PATTERN.matcher(text);
 
 		while (matcher.find()) {
 			headers.put(matcher.start(), matcher.group());
@@ -138,24 +149,11 @@ public class StandardsText {
 		ArrayList<StandardReference> standards = new ArrayList<StandardReference>();
 		double score = 0;
 
-		Pattern pattern = Pattern.compile(REGEX_FALLBACK);
-		Matcher matcher = pattern.matcher(text);
+		Matcher matcher = FALLBACK_PATTERN.matcher(text);
 
 		while (matcher.find()) {
-			StandardReferenceBuilder builder = new StandardReference.StandardReferenceBuilder(
-					matcher.group("mainOrganization"), matcher.group("identifier"))
-							.setSecondOrganization(matcher.group("separator"), matcher.group("secondOrganization"));
-			score = 0.25;
-
-			// increases by 0.25 the score of references which include the name of a known standard organization
-			if (matcher.group().matches(REGEX_STANDARD)) {
-				score += 0.25;
-			}
-			
-			// increases by 0.25 the score of references which include the word "Publication" or "Standard"
-			if (matcher.group().matches(".*" + REGEX_STANDARD_TYPE + ".*")) {
-				score += 0.25;
-			}
+			StandardReference reference = newReference(matcher);
+			score = reference.getScore();
 
 			int startHeader = 0;
 			int endHeader = 0;
@@ -172,17 +170,197 @@ public class StandardsText {
 			String header = headers.get(startHeader);
 			
 			// increases by 0.25 the score of references which have been found within "Applicable Documents" and equivalent sections
-			if (header != null && headers.get(startHeader).matches(REGEX_APPLICABLE_DOCUMENTS)) {
+			if (header != null && isApplicableDocuments(header)) {
 				score += 0.25;
 			}
 
-			builder.setScore(score);
+			reference.setScore(score);
 			
 			if (score >= threshold) {
-				standards.add(builder.build());
+				standards.add(reference);
 			}
 		}
 
 		return standards;
 	}
+
+	/**
+	 * Creates a standard reference from a match of the fallback pattern,
+	 * scored on everything but the section it was found in.
+	 */
+	private static StandardReference newReference(Matcher matcher) {
+		StandardReferenceBuilder builder = new StandardReference.StandardReferenceBuilder(
+				matcher.group("mainOrganization"), matcher.group("identifier"))
+						.setSecondOrganization(matcher.group("separator"), matcher.group("secondOrganization"));
+		double score = 0.25;
+
+		// increases by 0.25 the score of references which include the name of a known standard organization
+		if (STANDARD_PATTERN.matcher(matcher.group()).matches()) {
+			score += 0.25;
+		}
+
+		// increases by 0.25 the score of references which include the word "Publication" or "Standard"
+		if (STANDARD_TYPE_PATTERN.matcher(matcher.group()).matches()) {
+			score += 0.25;
+		}
+
+		return builder.setScore(score).build();
+	}
+
+	private static boolean isApplicableDocuments(String header) {
+		return APPLICABLE_DOCUMENTS_PATTERN.matcher(header).matches();
+	}
+
+	/**
+	 * Finds the standard references in text that arrives in chunks, keeping
+	 * no more than a window of it in memory. Headers and references are
+	 * matched as far as there's still enough text after them to be sure of
+	 * the match, and the rest is carried over to the next window, so the
+	 * references are the same as those from
+	 * {@link StandardsText#extractStandardReferences(String, double)} of the
+	 * whole text, unless a header or reference is longer than the overlap.
+	 * <p>
+	 * A reference is only scored on its section once the next header is
+	 * found, or the text ends, as that's when the section is known.
+	 */
+	static class ReferenceScanner {
+
+		static final int DEFAULT_WINDOW = 65536;
+
+		static final int DEFAULT_OVERLAP = 1024;
+
+		private final int window;
+
+		private final int overlap;
+
+		private final StringBuilder text = new StringBuilder();
+
+		/**
+		 * Position in the whole text of the start of the window
+		 */
+		private long offset = 0;
+
+		/**
+		 * Start of the text that is yet to be searched for headers
+		 */
+		private int headersFrom = 0;
+
+		/**
+		 * Start of the text that is yet to be searched for references
+		 */
+		private int referencesFrom = 0;
+
+		/**
+		 * The headers found in the current window, along with the last one
+		 * before it, and whether they are "Applicable Documents" sections
+		 */
+		private final TreeMap<Long, Boolean> headers = new TreeMap<Long, Boolean>();
+
+		private long headerCount = 0;
+
+		private long lastHeader = -1;
+
+		private boolean lastApplicable = false;
+
+		private boolean previousApplicable = false;
+
+		/**
+		 * References found after the last header so far
+		 */
+		private final ArrayDeque<StandardReference> pending = new ArrayDeque<StandardReference>();
+
+		private final List<StandardReference> references = new ArrayList<StandardReference>();
+
+		ReferenceScanner() {
+			this(DEFAULT_WINDOW, DEFAULT_OVERLAP);
+		}
+
+		ReferenceScanner(int window, int overlap) {
+			this.window = window;
+			this.overlap = overlap;
+		}
+
+		void append(char[] ch, int start, int length) {
+			text.append(ch, start, length);
+			if (text.length() >= window + overlap) {
+				int to = text.length() - overlap;
+				scan(to);
+				int drop = Math.min(headersFrom, referencesFrom);
+				text.delete(0, drop);
+				offset += drop;
+				headersFrom -= drop;
+				referencesFrom -= drop;
+			}
+		}
+
+		/**
+		 * Scans the rest of the text.
+		 *
+		 * @return the standard references found in the whole text, with
+		 *         their scores
+		 */
+		List<StandardReference> finish() {
+			scan(text.length());
+			// references after the last header are scored on the one
+			// before it, if any
+			boolean applicable = headerCount > 1 ? previousApplicable : headerCount == 1 && lastHeader == 0 && lastApplicable;
+			resolve(applicable);
+			text.setLength(0);
+			headersFrom = 0;
+			referencesFrom = 0;
+			return references;
+		}
+
+		/**
+		 * Finds the headers and references that start before the given
+		 * position in the window.
+		 */
+		private void scan(int to) {
+			Matcher matcher = HEADER_PATTERN.matcher(text);
+			while (headersFrom < to && matcher.find(headersFrom) && matcher.start() < to) {
+				// the references so far are in the section of the previous header
+				resolve(lastApplicable);
+				boolean applicable = isApplicableDocuments(matcher.group());
+				lastHeader = offset + matcher.start();
+				headers.put(lastHeader, applicable);
+				headerCount++;
+				previousApplicable = lastApplicable;
+				lastApplicable = applicable;
+				headersFrom = matcher.end();
+			}
+			headersFrom = Math.max(headersFrom, to);
+
+			matcher = FALLBACK_PATTERN.matcher(text);
+			while (referencesFrom < to && matcher.find(referencesFrom) && matcher.start() < to) {
+				StandardReference reference = newReference(matcher);
+				long start = offset + matcher.start();
+				if (headers.higherKey(start) != null) {
+					Entry<Long, Boolean> header = headers.floorEntry(start);
+					resolve(reference, header != null && header.getValue());
+				} else {
+					pending.add(reference);
+				}
+				referencesFrom = matcher.end();
+			}
+			referencesFrom = Math.max(referencesFrom, to);
+
+			// later references all start after the last header so far
+			if (headers.size() > 1) {
+				headers.headMap(lastHeader).clear();
+			}
+		}
+
+		private void resolve(boolean applicable) {
+			while (!pending.isEmpty()) {
+				resolve(pending.remove(), applicable);
+			}
+		}
+
+		private void resolve(StandardReference reference, boolean applicable) {
+			if (applicable) {
+				reference.setScore(reference.getScore() + 0.25);
+			}
+			references.add(reference);
+		}
+	}
 }
\ No newline at end of file
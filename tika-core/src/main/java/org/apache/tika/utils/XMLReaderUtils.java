@@ -54,10 +54,10 @@ import java.io.StringReader;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Utility functions for reading XML.  If you are doing SAX parsing, make sure
@@ -110,14 +110,17 @@ public class XMLReaderUtils implements Serializable {
 
     /**
      * Default size for the pool of SAX Parsers
-     * and the pool of DOM builders
+     * and the pool of DOM builders.  The pool is sized to
+     * at least this or twice the number of available processors,
+     * whichever is larger.
      */
     public static final int DEFAULT_POOL_SIZE = 10;
 
     /**
      * Parser pool size
      */
-    private static int POOL_SIZE = DEFAULT_POOL_SIZE;
+    private static volatile int POOL_SIZE =
+            Math.max(DEFAULT_POOL_SIZE, 2 * Runtime.getRuntime().availableProcessors());
 
     private static long LAST_LOG = -1;
 
@@ -139,13 +142,12 @@ public class XMLReaderUtils implements Serializable {
         return DEFAULT_MAX_ENTITY_EXPANSIONS;
     }
 
-    //TODO: figure out if the rw lock is any better than a simple lock
-    private static final ReentrantReadWriteLock SAX_READ_WRITE_LOCK = new ReentrantReadWriteLock();
-    private static final ReentrantReadWriteLock DOM_READ_WRITE_LOCK = new ReentrantReadWriteLock();
-
-    private static ArrayBlockingQueue<PoolSAXParser> SAX_PARSERS = new ArrayBlockingQueue<>(POOL_SIZE);
-    private static ArrayBlockingQueue<PoolDOMBuilder> DOM_BUILDERS = new ArrayBlockingQueue<>(POOL_SIZE);
     private static final AtomicInteger POOL_GENERATION = new AtomicInteger();
+    private static final PoolCounters SAX_POOL_STATISTICS = new PoolCounters();
+    private static final PoolCounters DOM_POOL_STATISTICS = new PoolCounters();
+
+    private static volatile ParserPool<PoolSAXParser> SAX_PARSERS;
+    private static volatile ParserPool<PoolDOMBuilder> DOM_BUILDERS;
     static {
         try {
             setPoolSize(POOL_SIZE);
@@ -511,47 +513,31 @@ public class XMLReaderUtils implements Serializable {
     }
 
     /**
-     * Acquire a SAXParser from the pool.  Make sure to
+     * Acquire a DocumentBuilder from the pool.  Make sure to
      * {@link #releaseDOMBuilder(PoolDOMBuilder)} in
      * a <code>finally</code> block every time you call this.
+     * <p>
+     * This never blocks: if every pooled builder is in use,
+     * a new one is created and counted as a miss in the
+     * {@link #getDOMBuilderPoolStatistics() pool statistics}.
      *
      * @return a DocumentBuilder
      * @throws TikaException
      */
     private static PoolDOMBuilder acquireDOMBuilder()
             throws TikaException {
-        int waiting = 0;
-        long lastWarn = -1;
-        while (true) {
-            PoolDOMBuilder builder = null;
-            DOM_READ_WRITE_LOCK.readLock().lock();
-            try {
-                builder = DOM_BUILDERS.poll(100, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                throw new TikaException("interrupted while waiting for DOMBuilder", e);
-            } finally {
-                DOM_READ_WRITE_LOCK.readLock().unlock();
-            }
-            if (builder != null) {
-                return builder;
-            }
-            if (lastWarn < 0 || System.currentTimeMillis() - lastWarn > 1000) {
-                //avoid spamming logs
-                LOG.warn("Contention waiting for a DOMParser. " +
-                        "Consider increasing the XMLReaderUtils.POOL_SIZE");
-                lastWarn = System.currentTimeMillis();
-            }
-            waiting++;
-
-            if (waiting > 3000) {
-                //freshen the pool.  Something went very wrong...
-                setPoolSize(POOL_SIZE);
-                //better to get an exception than have permahang by a bug in one of our parsers
-                throw new TikaException("Waited more than 5 minutes for a DocumentBuilder; " +
-                        "This could indicate that a parser has not correctly released its DocumentBuilder. " +
-                        "Please report this to the Tika team: dev@tika.apache.org");
-
+        long start = System.nanoTime();
+        ParserPool<PoolDOMBuilder> pool = DOM_BUILDERS;
+        PoolDOMBuilder builder = pool.poll();
+        try {
+            if (builder == null) {
+                DOM_POOL_STATISTICS.misses.increment();
+                builder = buildPoolDOMBuilder(pool.generation);
             }
+            return builder;
+        } finally {
+            DOM_POOL_STATISTICS.acquisitions.increment();
+            DOM_POOL_STATISTICS.acquireNanos.add(System.nanoTime() - start);
         }
     }
 
@@ -561,25 +547,28 @@ public class XMLReaderUtils implements Serializable {
      * @param builder builder to return
      */
     private static void releaseDOMBuilder(PoolDOMBuilder builder) {
-        if (builder.getPoolGeneration() != POOL_GENERATION.get()) {
+        ParserPool<PoolDOMBuilder> pool = DOM_BUILDERS;
+        //if this is a different generation, don't put it back
+        //in the pool
+        if (builder.getPoolGeneration() != pool.generation) {
+            DOM_POOL_STATISTICS.discards.increment();
             return;
         }
         try {
             builder.reset();
         } catch (UnsupportedOperationException e) {
             //ignore
+        } catch (RuntimeException e) {
+            //a builder that can't be reset is not safe to reuse;
+            //the pool will create a replacement on the next miss
+            LOG.warn("couldn't reset DocumentBuilder; discarding it", e);
+            DOM_POOL_STATISTICS.discards.increment();
+            return;
         }
-        DOM_READ_WRITE_LOCK.readLock().lock();
-        try {
-            //if there are extra parsers (e.g. after a reset of the pool to a smaller size),
-            // this parser will not be added and will then be gc'd
-            boolean success = DOM_BUILDERS.offer(builder);
-            if (!success) {
-                LOG.warn("DocumentBuilder not taken back into pool.  If you haven't resized the pool, this could " +
-                        "be a sign that there are more calls to 'acquire' than to 'release'");
-            }
-        } finally {
-            DOM_READ_WRITE_LOCK.readLock().unlock();
+        //if there are extra builders (e.g. created on a miss),
+        // this builder will not be added and will then be gc'd
+        if (!pool.offer(builder)) {
+            DOM_POOL_STATISTICS.discards.increment();
         }
     }
 
@@ -588,43 +577,28 @@ public class XMLReaderUtils implements Serializable {
      * Acquire a SAXParser from the pool.  Make sure to
      * {@link #releaseParser(PoolSAXParser)} in
      * a <code>finally</code> block every time you call this.
+     * <p>
+     * This never blocks: if every pooled parser is in use,
+     * a new one is created and counted as a miss in the
+     * {@link #getSAXParserPoolStatistics() pool statistics}.
      *
      * @return a SAXParser
      * @throws TikaException
      */
     private static PoolSAXParser acquireSAXParser()
             throws TikaException {
-        int waiting = 0;
-        long lastWarn = -1;
-        while (true) {
-            PoolSAXParser parser = null;
-            SAX_READ_WRITE_LOCK.readLock().lock();
-            try {
-                parser = SAX_PARSERS.poll(100, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                throw new TikaException("interrupted while waiting for SAXParser", e);
-            } finally {
-                SAX_READ_WRITE_LOCK.readLock().unlock();
-            }
-            if (parser != null) {
-                return parser;
-            }
-            if (lastWarn < 0 || System.currentTimeMillis() - lastWarn > 1000) {
-                //avoid spamming logs
-                LOG.warn("Contention waiting for a SAXParser. " +
-                        "Consider increasing the XMLReaderUtils.POOL_SIZE");
-                lastWarn = System.currentTimeMillis();
-            }
-            waiting++;
-            if (waiting > 3000) {
-                //freshen the pool.  Something went very wrong...
-                setPoolSize(POOL_SIZE);
-                //better to get an exception than have permahang by a bug in one of our parsers
-                throw new TikaException("Waited more than 5 minutes for a SAXParser; " +
-                        "This could indicate that a parser has not correctly released its SAXParser. " +
-                        "Please report this to the Tika team: dev@tika.apache.org");
-
+        long start = System.nanoTime();
+        ParserPool<PoolSAXParser> pool = SAX_PARSERS;
+        PoolSAXParser parser = pool.poll();
+        try {
+            if (parser == null) {
+                SAX_POOL_STATISTICS.misses.increment();
+                parser = buildPoolSAXParser(pool.generation);
             }
+            return parser;
+        } finally {
+            SAX_POOL_STATISTICS.acquisitions.increment();
+            SAX_POOL_STATISTICS.acquireNanos.add(System.nanoTime() - start);
         }
     }
 
@@ -634,72 +608,74 @@ public class XMLReaderUtils implements Serializable {
      * @param parser parser to return
      */
     private static void releaseParser(PoolSAXParser parser) {
-        parser.reset();
+        ParserPool<PoolSAXParser> pool = SAX_PARSERS;
         //if this is a different generation, don't put it back
         //in the pool
-        if (parser.getGeneration() != POOL_GENERATION.get()) {
+        if (parser.getGeneration() != pool.generation) {
+            SAX_POOL_STATISTICS.discards.increment();
             return;
         }
-        SAX_READ_WRITE_LOCK.readLock().lock();
         try {
-            //if there are extra parsers (e.g. after a reset of the pool to a smaller size),
-            // this parser will not be added and will then be gc'd
-            boolean success = SAX_PARSERS.offer(parser);
-            if (!success) {
-                LOG.warn("SAXParser not taken back into pool.  If you haven't resized the pool, this could " +
-                        "be a sign that there are more calls to 'acquire' than to 'release'");
-            }
-        } finally {
-            SAX_READ_WRITE_LOCK.readLock().unlock();
+            parser.reset();
+        } catch (RuntimeException e) {
+            //a parser that can't be reset is not safe to reuse;
+            //the pool will create a replacement on the next miss
+            LOG.warn("couldn't reset SAXParser; discarding it", e);
+            SAX_POOL_STATISTICS.discards.increment();
+            return;
+        }
+        //if there are extra parsers (e.g. created on a miss),
+        // this parser will not be added and will then be gc'd
+        if (!pool.offer(parser)) {
+            SAX_POOL_STATISTICS.discards.increment();
+        }
+    }
+
+    private static PoolSAXParser buildPoolSAXParser(int generation) throws TikaException {
+        try {
+            PoolSAXParser parser = buildPoolParser(generation, getSAXParserFactory().newSAXParser());
+            SAX_POOL_STATISTICS.creates.increment();
+            return parser;
+        } catch (SAXException|ParserConfigurationException e) {
+            throw new TikaException("problem creating sax parser", e);
         }
     }
 
+    private static PoolDOMBuilder buildPoolDOMBuilder(int generation) throws TikaException {
+        PoolDOMBuilder builder = new PoolDOMBuilder(generation, getDocumentBuilder());
+        DOM_POOL_STATISTICS.creates.increment();
+        return builder;
+    }
+
     /**
      * Set the pool size for cached XML parsers.  This has a side
-     * effect of locking the pool, and rebuilding the pool from
-     * scratch with the most recent settings, such as {@link #MAX_ENTITY_EXPANSIONS}
+     * effect of rebuilding the pool from scratch with the most
+     * recent settings, such as {@link #MAX_ENTITY_EXPANSIONS}.
+     * Parsers and builders that are in use when the pool is rebuilt
+     * are discarded when they are released.
+     * <p>
+     * The pool size is the number of idle parsers and builders that
+     * are kept for reuse; it does not limit the number of concurrent
+     * parses.  Callers never wait for a parser: when the pool is
+     * empty, a new one is created.
      *
      * @since Apache Tika 1.19
      * @param poolSize
      */
-    public static void setPoolSize(int poolSize) throws TikaException {
-        //stop the world with a write lock.
-        //parsers that are currently in use will be offered later (once the lock is released),
-        //but not accepted and will be gc'd.  We have to do this locking and
-        //the read locking in case one thread resizes the pool when the
-        //parsers have already started.  We could have an NPE on SAX_PARSERS
-        //if we didn't lock.
-        SAX_READ_WRITE_LOCK.writeLock().lock();
-        try {
-            //free up any resources before emptying SAX_PARSERS
-            for (PoolSAXParser parser : SAX_PARSERS) {
-                parser.reset();
-            }
-            SAX_PARSERS.clear();
-            SAX_PARSERS = new ArrayBlockingQueue<>(poolSize);
-            int generation = POOL_GENERATION.incrementAndGet();
-            for (int i = 0; i < poolSize; i++) {
-                try {
-                    SAX_PARSERS.offer(buildPoolParser(generation, getSAXParserFactory().newSAXParser()));
-                } catch (SAXException|ParserConfigurationException e) {
-                    throw new TikaException("problem creating sax parser", e);
-                }
-            }
-        } finally {
-            SAX_READ_WRITE_LOCK.writeLock().unlock();
-        }
-
-        DOM_READ_WRITE_LOCK.writeLock().lock();
-        try {
-            DOM_BUILDERS.clear();
-            DOM_BUILDERS = new ArrayBlockingQueue<>(poolSize);
-            for (int i = 0; i < poolSize; i++) {
-                DOM_BUILDERS.offer(
-                        new PoolDOMBuilder(POOL_GENERATION.get(), getDocumentBuilder()));
-            }
-        } finally {
-            DOM_READ_WRITE_LOCK.writeLock().unlock();
+    public static synchronized void setPoolSize(int poolSize) throws TikaException {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("poolSize must be > 0: " + poolSize);
         }
+        int generation = POOL_GENERATION.incrementAndGet();
+        ParserPool<PoolSAXParser> saxParsers = new ParserPool<>(generation, poolSize);
+        ParserPool<PoolDOMBuilder> domBuilders = new ParserPool<>(generation, poolSize);
+        //build one of each eagerly so that configuration problems
+        //surface here rather than on the first parse; the rest
+        //are created lazily on demand
+        saxParsers.offer(buildPoolSAXParser(generation));
+        domBuilders.offer(buildPoolDOMBuilder(generation));
+        SAX_PARSERS = saxParsers;
+        DOM_BUILDERS = domBuilders;
         POOL_SIZE = poolSize;
     }
 
@@ -795,6 +771,20 @@ public class XMLReaderUtils implements Serializable {
         return POOL_SIZE;
     }
 
+    /**
+     * @return a snapshot of the SAXParser pool's usage counters
+     */
+    public static PoolStatistics getSAXParserPoolStatistics() {
+        return SAX_POOL_STATISTICS.snapshot();
+    }
+
+    /**
+     * @return a snapshot of the DocumentBuilder pool's usage counters
+     */
+    public static PoolStatistics getDOMBuilderPoolStatistics() {
+        return DOM_POOL_STATISTICS.snapshot();
+    }
+
     public static int getMaxEntityExpansions() {
         return MAX_ENTITY_EXPANSIONS;
     }
@@ -814,6 +804,158 @@ public class XMLReaderUtils implements Serializable {
         return null;
     }
 
+    /**
+     * Usage counters for one of the parser pools.
+     * These are cumulative over the lifetime of the JVM and
+     * are not reset when the pool is resized.
+     */
+    public static final class PoolStatistics {
+        private final long acquisitions;
+        private final long misses;
+        private final long creates;
+        private final long discards;
+        private final long acquireNanos;
+
+        PoolStatistics(long acquisitions, long misses, long creates,
+                       long discards, long acquireNanos) {
+            this.acquisitions = acquisitions;
+            this.misses = misses;
+            this.creates = creates;
+            this.discards = discards;
+            this.acquireNanos = acquireNanos;
+        }
+
+        /**
+         * @return number of times a parser was acquired from the pool
+         */
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        /**
+         * @return number of acquisitions that found the pool empty
+         * and had to create a new parser
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return number of parsers created, including those
+         * created when the pool was (re)built
+         */
+        public long getCreates() {
+            return creates;
+        }
+
+        /**
+         * @return number of parsers that were not taken back into
+         * the pool, because the pool was full, had been rebuilt or
+         * the parser could not be reset
+         */
+        public long getDiscards() {
+            return discards;
+        }
+
+        /**
+         * @return total time spent acquiring parsers, in nanoseconds,
+         * including the time to create parsers on a miss
+         */
+        public long getAcquireNanos() {
+            return acquireNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStatistics{" +
+                    "acquisitions=" + acquisitions +
+                    ", misses=" + misses +
+                    ", creates=" + creates +
+                    ", discards=" + discards +
+                    ", acquireNanos=" + acquireNanos +
+                    '}';
+        }
+    }
+
+    private static final class PoolCounters {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder creates = new LongAdder();
+        private final LongAdder discards = new LongAdder();
+        private final LongAdder acquireNanos = new LongAdder();
+
+        PoolStatistics snapshot() {
+            return new PoolStatistics(acquisitions.sum(), misses.sum(),
+                    creates.sum(), discards.sum(), acquireNanos.sum());
+        }
+    }
+
+    /**
+     * Lock-free pool of idle parsers.  Idle parsers live in a fixed
+     * array of slots that are claimed and filled with compare-and-set.
+     * Each thread starts its search at a slot derived from its id, so
+     * that threads mostly touch different slots and a thread usually
+     * gets back the parser it released last.  Slots are spaced apart
+     * to keep neighbouring slots off the same cache line.
+     */
+    private static final class ParserPool<T> {
+        //references are at most 8 bytes; 8 * 8 = one 64 byte cache line
+        private static final int SPACING = 8;
+
+        private final int generation;
+        private final int size;
+        private final AtomicReferenceArray<T> slots;
+
+        ParserPool(int generation, int size) {
+            this.generation = generation;
+            this.size = size;
+            this.slots = new AtomicReferenceArray<>(size * SPACING);
+        }
+
+        /**
+         * @return an idle parser, or <code>null</code> if there is none
+         */
+        T poll() {
+            int home = home();
+            for (int i = 0; i < size; i++) {
+                int slot = slot(home, i);
+                T item = slots.get(slot);
+                if (item != null && slots.compareAndSet(slot, item, null)) {
+                    return item;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @param item parser to return to the pool
+         * @return <code>false</code> if the pool is full
+         */
+        boolean offer(T item) {
+            int home = home();
+            for (int i = 0; i < size; i++) {
+                int slot = slot(home, i);
+                if (slots.get(slot) == null && slots.compareAndSet(slot, null, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int home() {
+            long id = Thread.currentThread().getId();
+            return (int) Math.floorMod(id * 0x9E3779B97F4A7C15L, (long) size);
+        }
+
+        private int slot(int home, int i) {
+            int index = home + i;
+            if (index >= size) {
+                index -= size;
+            }
+            return index * SPACING;
+        }
+    }
+
     private static class PoolDOMBuilder {
         private final int poolGeneration;
         private final DocumentBuilder documentBuilder;
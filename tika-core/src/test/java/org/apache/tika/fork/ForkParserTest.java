@@ -184,6 +184,118 @@ public class ForkParserTest extends TikaTest {
 
             blocked.join();
             assertEquals("Hello, World!", o.toString().trim());
+            ForkParser.PoolStatistics statistics = parser.getPoolStatistics();
+            assertEquals(threads.length + 1, statistics.getAcquisitions());
+            assertEquals(1, statistics.getWaits());
+            assertTrue(statistics.getWaitNanos() > 0);
+            assertEquals(threads.length, statistics.getCreates());
+        }
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(), new ForkTestParser())) {
+            parser.setMinPoolSize(2);
+            parser.warmUp();
+            ForkParser.PoolStatistics statistics = parser.getPoolStatistics();
+            assertEquals(2, statistics.getSize());
+            assertEquals(2, statistics.getIdle());
+            assertEquals(2, statistics.getCreates());
+
+            for (int i = 0; i < 3; i++) {
+                ContentHandler output = new BodyContentHandler();
+                parser.parse(new ByteArrayInputStream(new byte[0]), output, new Metadata(), new ParseContext());
+                assertEquals("Hello, World!", output.toString().trim());
+            }
+            statistics = parser.getPoolStatistics();
+            assertEquals(2, statistics.getCreates());
+            assertEquals(3, statistics.getAcquisitions());
+            assertEquals(0, statistics.getWaits());
+        }
+    }
+
+    @Test
+    public void testEvictionAfterMaxFiles() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(), new ForkTestParser())) {
+            parser.setMaxFilesProcessedPerServer(2);
+            for (int i = 0; i < 4; i++) {
+                ContentHandler output = new BodyContentHandler();
+                parser.parse(new ByteArrayInputStream(new byte[0]), output, new Metadata(), new ParseContext());
+                assertEquals("Hello, World!", output.toString().trim());
+            }
+            ForkParser.PoolStatistics statistics = parser.getPoolStatistics();
+            assertEquals(2, statistics.getCreates());
+            assertEquals(2, statistics.getEvictions());
+            assertEquals(0, statistics.getSize());
+        }
+    }
+
+    @Test
+    public void testEvictionOverMemoryLimit() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(), new ForkTestParser())) {
+            parser.setMaxServerHeapBytes(1);
+            for (int i = 0; i < 2; i++) {
+                ContentHandler output = new BodyContentHandler();
+                parser.parse(new ByteArrayInputStream(new byte[0]), output, new Metadata(), new ParseContext());
+                assertEquals("Hello, World!", output.toString().trim());
+            }
+            ForkParser.PoolStatistics statistics = parser.getPoolStatistics();
+            assertEquals(2, statistics.getCreates());
+            assertEquals(2, statistics.getEvictions());
+
+            //a generous limit keeps the server
+            parser.setMaxServerHeapBytes(Long.MAX_VALUE);
+            parser.setMaxServerRssBytes(Long.MAX_VALUE);
+            for (int i = 0; i < 2; i++) {
+                parser.parse(new ByteArrayInputStream(new byte[0]), new DefaultHandler(),
+                        new Metadata(), new ParseContext());
+            }
+            statistics = parser.getPoolStatistics();
+            assertEquals(3, statistics.getCreates());
+            assertEquals(1, statistics.getSize());
+        }
+    }
+
+    @Test
+    public void testIdleProcessesShrinkToMinimum() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(), new ForkTestParser())) {
+            parser.setMinPoolSize(1);
+            parser.setPoolIdleTimeoutMillis(0);
+            parser.warmUp();
+            parser.parse(new ByteArrayInputStream(new byte[0]), new DefaultHandler(),
+                    new Metadata(), new ParseContext());
+            ForkParser.PoolStatistics statistics = parser.getPoolStatistics();
+            assertEquals(1, statistics.getSize());
+            assertEquals(0, statistics.getEvictions());
+
+            parser.setMinPoolSize(0);
+            parser.parse(new ByteArrayInputStream(new byte[0]), new DefaultHandler(),
+                    new Metadata(), new ParseContext());
+            statistics = parser.getPoolStatistics();
+            assertEquals(0, statistics.getSize());
+            //the idle timer may have closed the first process before the parse
+            assertEquals(statistics.getCreates(), statistics.getEvictions());
+        }
+    }
+
+    @Test
+    public void testIdleProcessesClosedWithoutReleases() throws Exception {
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(), new ForkTestParser())) {
+            parser.setMinPoolSize(2);
+            parser.warmUp();
+            assertEquals(2, parser.getPoolStatistics().getIdle());
+
+            //nothing is released after this, so only the timer can close them
+            parser.setMinPoolSize(0);
+            parser.setPoolIdleTimeoutMillis(200);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (parser.getPoolStatistics().getSize() > 0
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            ForkParser.PoolStatistics statistics = parser.getPoolStatistics();
+            assertEquals(0, statistics.getSize());
+            assertEquals(2, statistics.getEvictions());
         }
     }
 
@@ -490,6 +602,134 @@ public class ForkParserTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testProxiedEventsMatchInProcessParsing() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append("line ").append(i).append(" caf\u00e9 \u4e2d\u6587 \uD83D\uDE00\n");
+        }
+        assertSameEvents(text.toString());
+    }
+
+    @Test
+    public void testProxiedEventsBeforeException() throws Exception {
+        assertSameEvents("fail\nafter the first line");
+    }
+
+    @Test
+    public void testBufferedTextSentDuringPause() throws Exception {
+        final long[] received = new long[1];
+        ContentHandler handler = new DefaultHandler() {
+            @Override
+            public void characters(char[] ch, int start, int length) {
+                if (received[0] == 0 && new String(ch, start, length).contains("before the pause")) {
+                    received[0] = System.nanoTime();
+                }
+            }
+        };
+        try (ForkParser parser = new ForkParser(ForkParserTest.class.getClassLoader(),
+                new ForkTestParser.ForkTestPausingParser())) {
+            parser.parse(new ByteArrayInputStream(new byte[0]), handler, new Metadata(), new ParseContext());
+        }
+        long sentBeforeEnd = (System.nanoTime() - received[0]) / 1000000L;
+        assertTrue(received[0] > 0);
+        //the text is sent within ContentHandlerProxy.MAX_BATCH_DELAY_MILLIS,
+        //not when the parser produces its next event
+        assertTrue("text arrived " + sentBeforeEnd + "ms before the end of the parse",
+                sentBeforeEnd > ForkTestParser.ForkTestPausingParser.PAUSE_MILLIS / 2);
+    }
+
+    private void assertSameEvents(String text) throws Exception {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        Parser parser = new ForkTestParser.ForkTestEchoParser();
+        EventRecordingHandler expected = new EventRecordingHandler();
+        Exception expectedException = null;
+        try {
+            parser.parse(new ByteArrayInputStream(bytes), expected, new Metadata(), new ParseContext());
+        } catch (TikaException e) {
+            expectedException = e;
+        }
+        EventRecordingHandler actual = new EventRecordingHandler();
+        Exception actualException = null;
+        try (ForkParser forkParser = new ForkParser(ForkParserTest.class.getClassLoader(), parser)) {
+            forkParser.parse(new ByteArrayInputStream(bytes), actual, new Metadata(), new ParseContext());
+        } catch (TikaException e) {
+            actualException = e;
+        }
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(expectedException == null, actualException == null);
+    }
+
+    /**
+     * Records every event, with chars escaped, so that
+     * lone surrogates survive the comparison
+     */
+    private static class EventRecordingHandler extends DefaultHandler {
+        private final StringBuilder events = new StringBuilder();
+
+        @Override
+        public void startDocument() {
+            events.append("startDocument\n");
+        }
+
+        @Override
+        public void endDocument() {
+            events.append("endDocument\n");
+        }
+
+        @Override
+        public void startPrefixMapping(String prefix, String uri) {
+            events.append("startPrefixMapping ").append(prefix).append(' ').append(uri).append('\n');
+        }
+
+        @Override
+        public void endPrefixMapping(String prefix) {
+            events.append("endPrefixMapping ").append(prefix).append('\n');
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName,
+                                 org.xml.sax.Attributes atts) {
+            events.append("startElement ").append(uri).append(' ').append(localName)
+                    .append(' ').append(qName);
+            for (int i = 0; i < atts.getLength(); i++) {
+                events.append(' ').append(atts.getQName(i)).append('=')
+                        .append(atts.getValue(i));
+            }
+            events.append('\n');
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            events.append("endElement ").append(qName).append('\n');
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            events.append("characters");
+            for (int i = start; i < start + length; i++) {
+                events.append(' ').append(Integer.toHexString(ch[i]));
+            }
+            events.append('\n');
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) {
+            //ContentHandlerResource reports these as characters
+            characters(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) {
+            events.append("processingInstruction ").append(target).append(' ').append(data).append('\n');
+        }
+
+        @Override
+        public String toString() {
+            return events.toString();
+        }
+    }
+
     private static class SBContentHandler extends DefaultHandler implements Serializable {
         StringBuilder sb = new StringBuilder();
 
@@ -16,6 +16,9 @@
  */
 package org.apache.tika.fork;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
@@ -31,6 +34,7 @@ import org.apache.tika.sax.XHTMLContentHandler;
 import org.junit.Assert;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
 class ForkTestParser extends AbstractParser {
 
@@ -64,4 +68,69 @@ class ForkTestParser extends AbstractParser {
             super.parse(stream, handler, metadata, context);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the stream byte by byte and echoes it as SAX events, including
+     * unpaired surrogates and an attribute value too long for writeUTF,
+     * then fails if the document asks for it.
+     */
+    static class ForkTestEchoParser extends ForkTestParser {
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                ParseContext context) throws IOException, SAXException, TikaException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (int b = stream.read(); b != -1; b = stream.read()) {
+                bytes.write(b);
+            }
+            String text = new String(bytes.toByteArray(), UTF_8);
+            StringBuilder longValue = new StringBuilder();
+            for (int i = 0; i < 70000; i++) {
+                longValue.append((char) ('a' + i % 26));
+            }
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            int i = 0;
+            for (String line : text.split("\n")) {
+                AttributesImpl atts = new AttributesImpl();
+                atts.addAttribute("", "n", "n", "CDATA", Integer.toString(i++));
+                xhtml.startElement("p", atts);
+                xhtml.characters(line);
+                xhtml.endElement("p");
+            }
+            char[] surrogates = {'x', '\uD83D', 'y', '\uDE00', '\u0000', '\uFFFF'};
+            AttributesImpl atts = new AttributesImpl();
+            atts.addAttribute("", "long", "long", "CDATA", longValue.toString());
+            xhtml.startElement("div", atts);
+            handler.characters(surrogates, 0, surrogates.length);
+            handler.ignorableWhitespace(new char[] {' ', '\t'}, 0, 2);
+            handler.processingInstruction("target", null);
+            xhtml.endElement("div");
+            if (text.startsWith("fail")) {
+                throw new TikaException("echo failure");
+            }
+            xhtml.endDocument();
+        }
+    }
+
+    /**
+     * Writes some text, then pauses before ending the document,
+     * like a parser in a long OCR step.
+     */
+    static class ForkTestPausingParser extends ForkTestParser {
+        static final long PAUSE_MILLIS = 1500;
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                ParseContext context) throws IOException, SAXException, TikaException {
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+            xhtml.startDocument();
+            xhtml.element("p", "before the pause");
+            try {
+                Thread.sleep(PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+                throw new TikaException("interrupted", e);
+            }
+            xhtml.endDocument();
+        }
+    }
+}
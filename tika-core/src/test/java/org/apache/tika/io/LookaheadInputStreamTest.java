@@ -110,4 +110,20 @@ public class LookaheadInputStreamTest {
         assertEquals(-1, stream.read());
     }
 
+    @Test
+    public void testLongLookahead() throws IOException {
+        byte[] bytes = new byte[100000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        InputStream stream = new ByteArrayInputStream(bytes);
+        InputStream lookahead = new LookaheadInputStream(stream, 50000);
+        for (int i = 0; i < 50000; i++) {
+            assertEquals(bytes[i] & 0xff, lookahead.read());
+        }
+        assertEquals(-1, lookahead.read());
+        lookahead.close();
+        assertEquals(0, stream.read());
+    }
+
 }
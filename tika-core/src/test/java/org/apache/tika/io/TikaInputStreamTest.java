@@ -22,6 +22,8 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -94,6 +96,34 @@ public class TikaInputStreamTest {
                 Files.exists(file));
     }
     
+    @Test
+    public void testGetPrefix() throws IOException {
+        TikaInputStream stream = TikaInputStream.get("Hello, World!".getBytes(UTF_8));
+
+        byte[] prefix = stream.getPrefix(5);
+        assertEquals("Hello", new String(prefix, UTF_8));
+        assertEquals(0, stream.getPosition());
+
+        // shorter requests share the bytes already read
+        assertSame(prefix, stream.getPrefix(1));
+
+        // longer ones read again, up to the end of the stream
+        byte[] all = stream.getPrefix(100);
+        assertEquals("Hello, World!", new String(all, UTF_8));
+        assertSame(all, stream.getPrefix(50));
+        assertEquals(0, stream.getPosition());
+
+        // the prefix moves with the stream
+        assertEquals('H', stream.read());
+        byte[] moved = stream.getPrefix(4);
+        assertNotSame(all, moved);
+        assertEquals("ello", new String(moved, 0, 4, UTF_8));
+
+        assertEquals("ello, World!", readStream(stream));
+        assertEquals(0, stream.getPrefix(10).length);
+        stream.close();
+    }
+
     @Test
     public void testInputStreamFactoryBased() throws IOException {
         TikaInputStream stream = TikaInputStream.get(new InputStreamFactory() {
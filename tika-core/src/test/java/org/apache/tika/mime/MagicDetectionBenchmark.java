@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the magic detection throughput of the precompiled
+ * {@link MagicIndex} against the previous approach of evaluating every
+ * magic in turn through a stream based MagicDetector.
+ */
+public class MagicDetectionBenchmark {
+
+    private static final int ITERATIONS = 200;
+
+    public static void main(String[] args) throws Exception {
+        List<byte[]> prefixes = new ArrayList<>();
+        if (args.length > 0) {
+            for (String arg : args) {
+                collect(new File(arg), prefixes);
+            }
+        } else {
+            collect(new File(
+                    "../tika-parsers/src/test/resources/test-documents"), prefixes);
+        }
+
+        List<Magic> magics = MagicIndexTest.getSortedMagics(
+                MimeTypes.getDefaultMimeTypes());
+        MagicIndex index = new MagicIndex(magics);
+
+        // Warm up both paths
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            runLinear(magics, prefixes);
+            runIndexed(index, prefixes);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runLinear(magics, prefixes);
+        }
+        long linear = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runIndexed(index, prefixes);
+        }
+        long indexed = System.nanoTime() - start;
+
+        long detections = (long) ITERATIONS * prefixes.size();
+        System.out.printf(Locale.ROOT,
+                "%d prefixes, %d magics%n", prefixes.size(), magics.size());
+        System.out.printf(Locale.ROOT,
+                "%8dns per detection (linear stream based)%n", linear / detections);
+        System.out.printf(Locale.ROOT,
+                "%8dns per detection (precompiled index)%n", indexed / detections);
+    }
+
+    private static int runLinear(List<Magic> magics, List<byte[]> prefixes)
+            throws Exception {
+        int matches = 0;
+        for (byte[] prefix : prefixes) {
+            matches += MagicIndexTest.linearEval(magics, prefix).size();
+        }
+        return matches;
+    }
+
+    private static int runIndexed(MagicIndex index, List<byte[]> prefixes) {
+        int matches = 0;
+        for (byte[] prefix : prefixes) {
+            matches += index.eval(prefix).size();
+        }
+        return matches;
+    }
+
+    private static void collect(File file, List<byte[]> prefixes) throws Exception {
+        if (file.isHidden()) {
+            // ignore
+        } else if (file.isFile()) {
+            byte[] data = Files.readAllBytes(file.toPath());
+            if (data.length > 0) {
+                prefixes.add(data.length > 64 * 1024 ? Arrays.copyOf(data, 64 * 1024) : data);
+            }
+        } else if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                collect(child, prefixes);
+            }
+        }
+    }
+
+}
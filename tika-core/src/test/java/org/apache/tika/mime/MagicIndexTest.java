@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.tika.metadata.Metadata;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the precompiled {@link MagicIndex} gives exactly the same
+ * results as evaluating every magic in turn with the stream based
+ * {@link org.apache.tika.detect.MagicDetector}.
+ */
+public class MagicIndexTest {
+
+    private List<Magic> magics;
+
+    private MagicIndex index;
+
+    @Before
+    public void setUp() throws MimeTypeException {
+        magics = getSortedMagics(MimeTypes.getDefaultMimeTypes());
+        index = new MagicIndex(magics);
+    }
+
+    @Test
+    public void testTestDocuments() throws Exception {
+        File dir = new File(MagicIndexTest.class.getResource("/test-documents").toURI());
+        for (File file : dir.listFiles()) {
+            if (file.isFile()) {
+                byte[] data = Files.readAllBytes(file.toPath());
+                assertSameMatches(file.getName(), prefix(data, 64 * 1024));
+                // Truncated prefixes exercise the zero-padding semantics
+                for (int length : new int[] {1, 2, 4, 8, 16, 100, 513}) {
+                    assertSameMatches(file.getName() + "/" + length, prefix(data, length));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMimeResources() throws Exception {
+        File dir = new File(MagicIndexTest.class.getResource(
+                "/org/apache/tika/mime").toURI());
+        for (File file : dir.listFiles()) {
+            if (file.isFile()) {
+                byte[] data = Files.readAllBytes(file.toPath());
+                assertSameMatches(file.getName(), prefix(data, 64 * 1024));
+            }
+        }
+    }
+
+    @Test
+    public void testMagicPrefixes() throws Exception {
+        // Feed every magic's own leading bytes, followed by noise
+        Random random = new Random(42);
+        for (String header : Arrays.asList(
+                "%PDF-1.4", "PK\u0003\u0004", "<?xml version=\"1.0\"?><html",
+                "<!DOCTYPE html>", "\u00d0\u00cf\u0011\u00e0\u00a1\u00b1\u001a\u00e1",
+                "GIF89a", "\u0089PNG\r\n\u001a\n", "{\\rtf1", "From: a@b.c\r\n")) {
+            byte[] bytes = header.getBytes(ISO_8859_1);
+            for (int i = 0; i < 20; i++) {
+                byte[] data = Arrays.copyOf(bytes, bytes.length + random.nextInt(2048));
+                for (int j = bytes.length; j < data.length; j++) {
+                    data[j] = (byte) random.nextInt(256);
+                }
+                assertSameMatches(header, data);
+            }
+        }
+    }
+
+    @Test
+    public void testRandomBytes() throws Exception {
+        Random random = new Random(1234);
+        for (int i = 0; i < 2000; i++) {
+            byte[] data = new byte[1 + random.nextInt(4096)];
+            random.nextBytes(data);
+            assertSameMatches("random " + i, data);
+        }
+    }
+
+    private void assertSameMatches(String name, byte[] data) throws IOException {
+        if (data.length == 0) {
+            return;
+        }
+        assertEquals(name, linearEval(magics, data), index.eval(data));
+    }
+
+    private static byte[] prefix(byte[] data, int length) {
+        return data.length <= length ? data : Arrays.copyOf(data, length);
+    }
+
+    /**
+     * Returns all the magics of the given registry, in priority order.
+     */
+    static List<Magic> getSortedMagics(MimeTypes mimeTypes) throws MimeTypeException {
+        List<Magic> magics = new ArrayList<>();
+        for (MediaType type : mimeTypes.getMediaTypeRegistry().getTypes()) {
+            magics.addAll(mimeTypes.forName(type.toString()).getMagics());
+        }
+        Collections.sort(magics);
+        return magics;
+    }
+
+    /**
+     * Walks all the given magics in order, evaluating each magic match
+     * against a fresh stream over the data like MimeTypes used to do.
+     */
+    static List<MimeType> linearEval(List<Magic> magics, byte[] data) throws IOException {
+        List<MimeType> result = new ArrayList<>(1);
+        int currentPriority = -1;
+        for (Magic magic : magics) {
+            if (currentPriority > 0 && currentPriority > magic.getPriority()) {
+                break;
+            }
+            if (streamEval(magic.getClause(), data)) {
+                result.add(magic.getType());
+                currentPriority = magic.getPriority();
+            }
+        }
+        return result;
+    }
+
+    private static boolean streamEval(Clause clause, byte[] data) throws IOException {
+        if (clause instanceof AndClause) {
+            for (Clause nested : ((AndClause) clause).getClauses()) {
+                if (!streamEval(nested, data)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (clause instanceof OrClause) {
+            for (Clause nested : ((OrClause) clause).getClauses()) {
+                if (streamEval(nested, data)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (clause instanceof MagicMatch) {
+            InputStream stream = new ByteArrayInputStream(data);
+            return ((MagicMatch) clause).getDetector().detect(stream, new Metadata())
+                    != MediaType.OCTET_STREAM;
+        }
+        return clause.eval(data);
+    }
+
+}
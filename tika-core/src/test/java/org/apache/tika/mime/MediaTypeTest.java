@@ -23,6 +23,8 @@ import static java.util.Collections.singletonMap;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
@@ -210,4 +212,33 @@ public class MediaTypeTest {
                 MediaType.parse("text/html;; charset=\"UTF-8").toString());
     }
 
+    /**
+     * TIKA-350
+     */
+    @Test
+    public void testCharsetFirst() {
+        assertEquals(
+                "text/html; charset=UTF-8",
+                MediaType.parse("charset=UTF-8; text/html").toString());
+        assertEquals(
+                "text/plain; charset=utf-8",
+                MediaType.parse(" Charset = utf-8 ; TEXT/Plain ").toString());
+        assertNull(MediaType.parse("charset=UTF-8; text/html; a=b"));
+        assertNull(MediaType.parse("charset=UTF-8"));
+    }
+
+    @Test
+    public void testParseCache() {
+        MediaType type = MediaType.parse("text/html; charset=UTF-8");
+        assertSame(type, MediaType.parse("text/html; charset=UTF-8"));
+
+        // The cache is bounded, but keeps working once full
+        for (int i = 0; i < 25000; i++) {
+            String string = "application/x-test-" + i;
+            assertEquals(string, MediaType.parse(string).toString());
+        }
+        assertEquals(type, MediaType.parse("text/html; charset=UTF-8"));
+        assertEquals(MediaType.TEXT_PLAIN, MediaType.parse("text/plain"));
+    }
+
 }
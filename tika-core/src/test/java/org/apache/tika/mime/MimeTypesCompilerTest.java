@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.mime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.tika.io.IOUtils;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the compiled form of the registry loads into exactly
+ * the same types as the XML file it was compiled from.
+ */
+public class MimeTypesCompilerTest {
+
+    private URL xml;
+
+    private Path compiled;
+
+    @Before
+    public void setUp() throws Exception {
+        xml = MimeTypesReader.class.getResource("tika-mimetypes.xml");
+        compiled = Files.createTempFile("tika-mimetypes", ".bin");
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (InputStream stream = xml.openStream()) {
+            MimeTypesCompiler.compile(IOUtils.toByteArray(stream), buffer);
+        }
+        Files.write(compiled, buffer.toByteArray());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(compiled);
+    }
+
+    @Test
+    public void testSameRegistry() throws Exception {
+        MimeTypes expected = MimeTypesFactory.create(xml);
+        MimeTypes actual = load(xml);
+
+        MediaTypeRegistry expectedRegistry = expected.getMediaTypeRegistry();
+        MediaTypeRegistry actualRegistry = actual.getMediaTypeRegistry();
+        assertEquals(expectedRegistry.getTypes(), actualRegistry.getTypes());
+        for (MediaType type : expectedRegistry.getTypes()) {
+            assertEquals(expectedRegistry.getAliases(type), actualRegistry.getAliases(type));
+            assertEquals(expectedRegistry.getSupertype(type), actualRegistry.getSupertype(type));
+
+            MimeType e = expected.forName(type.toString());
+            MimeType a = actual.forName(type.toString());
+            assertEquals(e.getDescription(), a.getDescription());
+            assertEquals(e.getAcronym(), a.getAcronym());
+            assertEquals(e.getUniformTypeIdentifier(), a.getUniformTypeIdentifier());
+            assertEquals(e.getLinks(), a.getLinks());
+            assertEquals(e.getExtensions(), a.getExtensions());
+            assertEquals(e.hasRootXML(), a.hasRootXML());
+            assertEquals(toStrings(e.getMagics()), toStrings(a.getMagics()));
+        }
+
+        assertEquals(toStrings(getMagics(expected)), toStrings(getMagics(actual)));
+        assertEquals(expected.getMinLength(), actual.getMinLength());
+    }
+
+    @Test
+    public void testSameDetection() throws Exception {
+        MimeTypes expected = MimeTypesFactory.create(xml);
+        MimeTypes actual = load(xml);
+
+        String[] names = {
+                "test.pdf", "test.doc", "test.xlsx", "test.tar.gz", "test.html",
+                "TEST.TXT", "test.svg", "Makefile", "test.unknown" };
+        for (String name : names) {
+            assertEquals(name,
+                    expected.getMimeType(name).toString(),
+                    actual.getMimeType(name).toString());
+        }
+
+        String[] documents = {
+                "%PDF-1.4\n", "<html><body>", "<?xml version=\"1.0\"?><svg xmlns=\"http://www.w3.org/2000/svg\"/>",
+                "PK\u0003\u0004", "{\\rtf1", "plain text" };
+        for (String document : documents) {
+            byte[] bytes = document.getBytes("ISO-8859-1");
+            Metadata metadata = new Metadata();
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, "file");
+            assertEquals(document,
+                    expected.detect(new ByteArrayInputStream(bytes), metadata),
+                    actual.detect(new ByteArrayInputStream(bytes), metadata));
+        }
+    }
+
+    @Test
+    public void testStaleCompiledForm() throws Exception {
+        URL other = MimeTypesCompilerTest.class.getResource("custom-mimetypes.xml");
+        MimeTypesReader reader = new MimeTypesReader(new MimeTypes());
+        assertFalse(MimeTypesCompiler.replay(compiled.toUri().toURL(), other, reader));
+    }
+
+    @Test
+    public void testCorruptCompiledForm() throws Exception {
+        byte[] bytes = Files.readAllBytes(compiled);
+        //the string table size follows the magic, version, length and crc
+        for (int size : new int[] { -1, Integer.MAX_VALUE, 1 }) {
+            ByteBuffer.wrap(bytes).putInt(20, size);
+            Files.write(compiled, bytes);
+            try {
+                MimeTypesCompiler.replay(compiled.toUri().toURL(), xml,
+                        new MimeTypesReader(new MimeTypes()));
+                fail("corrupt string table size " + size + " was not detected");
+            } catch (IOException e) {
+                //expected
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledName() {
+        assertEquals("tika-mimetypes.bin", MimeTypesCompiler.getCompiledName("tika-mimetypes.xml"));
+        assertEquals("registry.bin", MimeTypesCompiler.getCompiledName("registry"));
+    }
+
+    private MimeTypes load(URL source) throws Exception {
+        MimeTypes types = new MimeTypes();
+        assertTrue(MimeTypesCompiler.replay(
+                compiled.toUri().toURL(), source, new MimeTypesReader(types)));
+        types.init();
+        return types;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Magic> getMagics(MimeTypes types) throws Exception {
+        Field field = MimeTypes.class.getDeclaredField("magics");
+        field.setAccessible(true);
+        return (List<Magic>) field.get(types);
+    }
+
+    private static List<String> toStrings(List<?> list) {
+        List<String> strings = new ArrayList<>();
+        for (Object o : list) {
+            strings.add(o.toString());
+        }
+        return strings;
+    }
+}
@@ -18,6 +18,8 @@ package org.apache.tika.parser;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
@@ -153,4 +155,78 @@ public class CompositeParserTest {
        assertEquals("True", metadata.get("BMP"));
        assertEquals("True", metadata.get("Alias"));
     }
+
+    @Test
+    public void testContextDependentParser() throws Exception {
+        Parser plain = new DummyParser(
+                Collections.singleton(MediaType.TEXT_PLAIN),
+                Collections.<String, String>emptyMap(), null);
+        Parser html = new DummyParser(
+                Collections.singleton(MediaType.TEXT_HTML),
+                Collections.<String, String>emptyMap(), null);
+        Parser dependent = new OptInParser(MediaType.TEXT_PLAIN);
+
+        CompositeParser composite = new CompositeParser(
+                MediaTypeRegistry.getDefaultRegistry(), plain, dependent, html);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/x-java-source");
+
+        // The context dependent parser only wins when it opts in
+        assertSame(plain, composite.getParser(metadata, new ParseContext()));
+        ParseContext optIn = new ParseContext();
+        optIn.set(OptInParser.class, (OptInParser) dependent);
+        assertSame(dependent, composite.getParser(metadata, optIn));
+        assertTrue(composite.getSupportedTypes(optIn).contains(MediaType.TEXT_PLAIN));
+
+        // Also when nested inside another composite parser
+        CompositeParser outer = new CompositeParser(
+                MediaTypeRegistry.getDefaultRegistry(), composite);
+        assertSame(composite, outer.getParser(metadata, new ParseContext()));
+        assertEquals(2, outer.getSupportedTypes(new ParseContext()).size());
+        metadata.set(Metadata.CONTENT_TYPE, "image/png");
+        assertTrue(outer.getParser(metadata, optIn) instanceof EmptyParser);
+    }
+
+    @Test
+    public void testSetParsersResetsDispatch() throws Exception {
+        Parser plain = new DummyParser(
+                Collections.singleton(MediaType.TEXT_PLAIN),
+                Collections.<String, String>emptyMap(), null);
+        CompositeParser composite = new CompositeParser(
+                MediaTypeRegistry.getDefaultRegistry(), plain);
+        Metadata metadata = new Metadata();
+        metadata.set(Metadata.CONTENT_TYPE, "text/html");
+        assertSame(plain, composite.getParser(metadata, new ParseContext()));
+
+        Parser html = new DummyParser(
+                Collections.singleton(MediaType.TEXT_HTML),
+                Collections.<String, String>emptyMap(), null);
+        Map<MediaType, Parser> parsers = new HashMap<MediaType, Parser>();
+        parsers.put(MediaType.TEXT_PLAIN, plain);
+        parsers.put(MediaType.TEXT_HTML, html);
+        composite.setParsers(parsers);
+        assertSame(html, ((ParserDecorator) composite.getParser(
+                metadata, new ParseContext())).getWrappedParser());
+    }
+
+    /**
+     * Only supports its type when it is itself found in the parse context.
+     */
+    @SuppressWarnings("serial")
+    private static class OptInParser extends EmptyParser implements ContextDependentParser {
+
+        private final MediaType type;
+
+        OptInParser(MediaType type) {
+            this.type = type;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            if (context.get(OptInParser.class) == this) {
+                return Collections.singleton(type);
+            }
+            return Collections.emptySet();
+        }
+    }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.mock.MockParser;
+import org.apache.tika.sax.AbstractRecursiveParserWrapperHandler;
+import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.sax.RecursiveParserWrapperHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the parallel embedded parsing of the {@link RecursiveParserWrapper}.
+ * The other tests for the wrapper are in the tika-parsers module.
+ */
+public class RecursiveParserWrapperTest {
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        executorService = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws Exception {
+        String doc = getNestedDocument();
+        List<Metadata> sequential = parse(doc, new ParseContext(), -1);
+        assertEquals(1 + 20 + 20 * 3 + 1, sequential.size());
+
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedParsingConfig.class,
+                new ParallelEmbeddedParsingConfig(executorService));
+        assertSameDocuments(sequential, parse(doc, context, -1));
+
+        ParallelEmbeddedParsingConfig spoolToFile = new ParallelEmbeddedParsingConfig(executorService);
+        spoolToFile.setMaxInMemorySpoolBytes(0);
+        context.set(ParallelEmbeddedParsingConfig.class, spoolToFile);
+        assertSameDocuments(sequential, parse(doc, context, -1));
+    }
+
+    @Test
+    public void testParallelEmbeddedException() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedParsingConfig.class,
+                new ParallelEmbeddedParsingConfig(executorService));
+        List<Metadata> metadataList = parse(getNestedDocument(), context, -1);
+        Metadata failed = metadataList.get(metadataList.size() - 1);
+        assertEquals("/broken.xml",
+                failed.get(AbstractRecursiveParserWrapperHandler.EMBEDDED_RESOURCE_PATH));
+        assertNotNull(failed.get(AbstractRecursiveParserWrapperHandler.EMBEDDED_EXCEPTION));
+        assertNull(metadataList.get(1).get(AbstractRecursiveParserWrapperHandler.EMBEDDED_EXCEPTION));
+    }
+
+    @Test
+    public void testParallelMaxEmbeddedResources() throws Exception {
+        ParseContext context = new ParseContext();
+        context.set(ParallelEmbeddedParsingConfig.class,
+                new ParallelEmbeddedParsingConfig(executorService));
+        List<Metadata> metadataList = parse(getNestedDocument(), context, 10);
+        assertEquals(11, metadataList.size());
+        assertEquals("true", metadataList.get(0).get(
+                AbstractRecursiveParserWrapperHandler.EMBEDDED_RESOURCE_LIMIT_REACHED));
+    }
+
+    private List<Metadata> parse(String doc, ParseContext context, int maxEmbeddedResources)
+            throws Exception {
+        RecursiveParserWrapper wrapper = new RecursiveParserWrapper(new MockParser());
+        RecursiveParserWrapperHandler handler = new RecursiveParserWrapperHandler(
+                new BasicContentHandlerFactory(BasicContentHandlerFactory.HANDLER_TYPE.TEXT, -1),
+                maxEmbeddedResources);
+        try (InputStream is = new ByteArrayInputStream(doc.getBytes(UTF_8))) {
+            wrapper.parse(is, handler, new Metadata(), context);
+        }
+        return handler.getMetadataList();
+    }
+
+    private static void assertSameDocuments(List<Metadata> expected, List<Metadata> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            for (String name : new String[]{
+                    AbstractRecursiveParserWrapperHandler.EMBEDDED_RESOURCE_PATH.getName(),
+                    AbstractRecursiveParserWrapperHandler.EMBEDDED_DEPTH.getName(),
+                    AbstractRecursiveParserWrapperHandler.TIKA_CONTENT.getName()}) {
+                assertEquals(name + " of document " + i,
+                        expected.get(i).get(name), actual.get(i).get(name));
+            }
+        }
+    }
+
+    /**
+     * Twenty embedded documents with three embedded documents each,
+     * followed by one that fails to parse.
+     */
+    private static String getNestedDocument() {
+        StringBuilder container = new StringBuilder("<mock><write element=\"p\">container</write>");
+        for (int i = 0; i < 20; i++) {
+            StringBuilder embedded = new StringBuilder("<mock><write element=\"p\">embedded " + i + "</write>");
+            for (int j = 0; j < 3; j++) {
+                addEmbedded(embedded, "nested" + j + ".xml",
+                        "<mock><write element=\"p\">nested " + i + "." + j + "</write></mock>");
+            }
+            embedded.append("</mock>");
+            addEmbedded(container, "embedded" + i + ".xml", embedded.toString());
+        }
+        addEmbedded(container, "broken.xml",
+                "<mock><throw class=\"org.apache.tika.exception.TikaException\">broken</throw></mock>");
+        return container.append("</mock>").toString();
+    }
+
+    private static void addEmbedded(StringBuilder sb, String fileName, String content) {
+        sb.append("<embedded filename=\"").append(fileName).append("\">");
+        sb.append(content.replace("&", "&amp;").replace("<", "&lt;")
+                .replace(">", "&gt;").replace("\"", "&quot;"));
+        sb.append("</embedded>");
+    }
+}
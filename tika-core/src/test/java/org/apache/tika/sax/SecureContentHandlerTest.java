@@ -124,6 +124,24 @@ public class SecureContentHandlerTest {
         }
     }
 
+    @Test
+    public void testSharedCharacterCount() throws IOException {
+        SecureContentHandler shared =
+                new SecureContentHandler(new DefaultHandler(), handler) {};
+        char[] ch = new char[100];
+        try {
+            for (int i = 0; i < 6000; i++) {
+                handler.characters(ch, 0, ch.length);
+            }
+            for (int i = 0; i < 6000; i++) {
+                shared.characters(ch, 0, ch.length);
+            }
+            fail("Expected SAXException not thrown");
+        } catch (SAXException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testNestedElements() throws SAXException {
         for (int i = 1; i < handler.getMaximumDepth(); i++) {
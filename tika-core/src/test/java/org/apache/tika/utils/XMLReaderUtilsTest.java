@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.tika.parser.ParseContext;
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+public class XMLReaderUtilsTest {
+
+    private static final byte[] XML = "<root><a>1</a><b>2</b></root>".getBytes(UTF_8);
+
+    private final int initialPoolSize = XMLReaderUtils.getPoolSize();
+
+    @After
+    public void tearDown() throws Exception {
+        XMLReaderUtils.setPoolSize(initialPoolSize);
+    }
+
+    @Test
+    public void testDefaultPoolSize() {
+        assertTrue(XMLReaderUtils.getPoolSize() >= XMLReaderUtils.DEFAULT_POOL_SIZE);
+        assertTrue(XMLReaderUtils.getPoolSize() >= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        XMLReaderUtils.setPoolSize(2);
+        XMLReaderUtils.PoolStatistics before = XMLReaderUtils.getSAXParserPoolStatistics();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(3, countElements());
+        }
+        XMLReaderUtils.PoolStatistics after = XMLReaderUtils.getSAXParserPoolStatistics();
+        assertEquals(10, after.getAcquisitions() - before.getAcquisitions());
+        assertEquals(0, after.getMisses() - before.getMisses());
+        assertEquals(0, after.getCreates() - before.getCreates());
+    }
+
+    @Test
+    public void testNoParserLostOnException() throws Exception {
+        XMLReaderUtils.setPoolSize(1);
+        XMLReaderUtils.PoolStatistics before = XMLReaderUtils.getSAXParserPoolStatistics();
+        for (int i = 0; i < 5; i++) {
+            try {
+                XMLReaderUtils.parseSAX(new ByteArrayInputStream(XML), new DefaultHandler() {
+                    @Override
+                    public void startElement(String uri, String localName, String qName,
+                                             Attributes atts) throws SAXException {
+                        throw new SAXException("fail");
+                    }
+                }, new ParseContext());
+                fail("should have thrown");
+            } catch (SAXException e) {
+                //expected
+            }
+        }
+        assertEquals(3, countElements());
+        XMLReaderUtils.PoolStatistics after = XMLReaderUtils.getSAXParserPoolStatistics();
+        assertEquals(0, after.getMisses() - before.getMisses());
+        assertEquals(0, after.getDiscards() - before.getDiscards());
+    }
+
+    @Test
+    public void testMoreConcurrentParsesThanPoolSize() throws Exception {
+        XMLReaderUtils.setPoolSize(2);
+        int threads = 8;
+        CountDownLatch inParse = new CountDownLatch(threads);
+        XMLReaderUtils.PoolStatistics before = XMLReaderUtils.getSAXParserPoolStatistics();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executorService.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        final int[] count = new int[1];
+                        //hold every parser until all threads are parsing
+                        XMLReaderUtils.parseSAX(new ByteArrayInputStream(XML), new DefaultHandler() {
+                            @Override
+                            public void startDocument() throws SAXException {
+                                inParse.countDown();
+                                try {
+                                    inParse.await(30, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    throw new SAXException(e);
+                                }
+                            }
+
+                            @Override
+                            public void startElement(String uri, String localName, String qName,
+                                                     Attributes atts) {
+                                count[0]++;
+                            }
+                        }, new ParseContext());
+                        return count[0];
+                    }
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(3, (int) result.get(1, TimeUnit.MINUTES));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        XMLReaderUtils.PoolStatistics after = XMLReaderUtils.getSAXParserPoolStatistics();
+        assertEquals(threads, after.getAcquisitions() - before.getAcquisitions());
+        //two parsers are pooled, at most one of them eagerly built
+        assertTrue(after.getMisses() - before.getMisses() >= threads - 2);
+        //only two can be taken back
+        assertEquals(after.getCreates() - before.getCreates() - 1,
+                after.getDiscards() - before.getDiscards());
+    }
+
+    @Test
+    public void testResize() throws Exception {
+        XMLReaderUtils.setPoolSize(3);
+        assertEquals(3, XMLReaderUtils.getPoolSize());
+        Document document = XMLReaderUtils.buildDOM(new ByteArrayInputStream(XML));
+        assertEquals("root", document.getDocumentElement().getNodeName());
+        try {
+            XMLReaderUtils.setPoolSize(0);
+            fail("pool size must be positive");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+        assertEquals(3, XMLReaderUtils.getPoolSize());
+    }
+
+    private static int countElements() throws Exception {
+        final int[] count = new int[1];
+        XMLReaderUtils.parseSAX(new ByteArrayInputStream(XML), new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes atts) {
+                count[0]++;
+            }
+        }, new ParseContext());
+        return count[0];
+    }
+}
@@ -17,17 +17,14 @@
 package org.apache.tika.eval.textstats;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.tika.eval.langid.Language;
 import org.apache.tika.eval.tokens.AlphaIdeographFilterFactory;
 import org.apache.tika.eval.tokens.CommonTokenCountManager;
 import org.apache.tika.eval.tokens.CommonTokenResult;
-import org.apache.tika.eval.tokens.LangModel;
 import org.apache.tika.eval.tokens.TokenCounts;
+import org.apache.tika.eval.tokens.TokenModel;
 
 public class CommonTokens implements LanguageAwareTokenCountStats<CommonTokenResult> {
 
@@ -42,21 +39,21 @@ public class CommonTokens implements LanguageAwareTokenCountStats<CommonTokenRes
 
     @Override
     public CommonTokenResult calculate(List<Language> languages, TokenCounts tokenCounts) {
-        Pair<String, LangModel> pair = commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
+        Pair<String, TokenModel> pair = commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
         String actualLangCode = pair.getKey();
-        Set<String> commonTokens = pair.getValue().getTokens();
+        TokenModel commonTokens = pair.getValue();
         int numUniqueCommonTokens = 0;
         int numCommonTokens = 0;
         int numUniqueAlphabeticTokens = 0;
         int numAlphabeticTokens = 0;
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
-            int count = e.getValue().intValue();
-            if (AlphaIdeographFilterFactory.isAlphabetic(token.toCharArray(), token.length())) {
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            char[] token = tokenCounts.getTokenChars(i);
+            int count = tokenCounts.getCount(i);
+            if (AlphaIdeographFilterFactory.isAlphabetic(token, token.length)) {
                 numAlphabeticTokens += count;
                 numUniqueAlphabeticTokens++;
             }
-            if (commonTokens.contains(token)) {
+            if (commonTokens.contains(token, 0, token.length)) {
                 numCommonTokens += count;
                 numUniqueCommonTokens++;
             }
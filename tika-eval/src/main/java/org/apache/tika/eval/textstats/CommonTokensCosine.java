@@ -25,8 +25,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.tika.eval.langid.Language;
 import org.apache.tika.eval.tokens.CommonTokenCountManager;
-import org.apache.tika.eval.tokens.LangModel;
 import org.apache.tika.eval.tokens.TokenCounts;
+import org.apache.tika.eval.tokens.TokenModel;
 
 public class CommonTokensCosine implements LanguageAwareTokenCountStats<Double> {
 
@@ -38,8 +38,8 @@ public class CommonTokensCosine implements LanguageAwareTokenCountStats<Double>
 
     @Override
     public Double calculate(List<Language> languages, TokenCounts tokenCounts) {
-        Pair<String, LangModel> pair = commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
-        LangModel model = pair.getValue();
+        Pair<String, TokenModel> pair = commonTokenCountManager.getLangTokens(languages.get(0).getLanguage());
+        TokenModel model = pair.getValue();
         double kl = 0.0;
         if (tokenCounts.getTokens().entrySet().size() == 0) {
             return 1.0;
@@ -113,8 +113,7 @@ public class CompositeTextStatsCalculator {
             CharTermAttribute termAtt = ts.getAttribute(CharTermAttribute.class);
             ts.reset();
             while (ts.incrementToken()) {
-                String token = termAtt.toString();
-                counts.increment(token);
+                counts.increment(termAtt.buffer(), 0, termAtt.length());
             }
         } finally {
             ts.close();
@@ -16,7 +16,6 @@
  */
 package org.apache.tika.eval.textstats;
 
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.math3.util.FastMath;
 import org.apache.tika.eval.tokens.TokenCounts;
 
@@ -28,8 +27,8 @@ public class TokenEntropy implements TokenCountStatsCalculator<Double> {
         double p = 0.0d;
         double base = 2.0;
         double totalTokens = (double)tokenCounts.getTotalTokens();
-        for (MutableInt i : tokenCounts.getTokens().values()) {
-            int termFreq = i.intValue();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            int termFreq = tokenCounts.getCount(i);
 
             p = (double) termFreq / totalTokens;
             ent += p * FastMath.log(base, p);
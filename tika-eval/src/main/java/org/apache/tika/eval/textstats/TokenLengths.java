@@ -16,23 +16,17 @@
  */
 package org.apache.tika.eval.textstats;
 
-import java.util.Map;
-
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.tika.eval.tokens.TokenCounts;
+import org.apache.tika.eval.tokens.WeightedSummaryStatistics;
 
 public class TokenLengths implements TokenCountStatsCalculator<SummaryStatistics> {
 
     @Override
     public SummaryStatistics calculate(TokenCounts tokenCounts) {
-        SummaryStatistics summaryStatistics = new SummaryStatistics();
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
-            int cp = token.codePointCount(0, token.length());
-            for (int i = 0; i < e.getValue().intValue(); i++) {
-                summaryStatistics.addValue(cp);
-            }
+        WeightedSummaryStatistics summaryStatistics = new WeightedSummaryStatistics();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            summaryStatistics.addValue(tokenCounts.getCodePointCount(i), tokenCounts.getCount(i));
         }
         return summaryStatistics;
     }
@@ -16,10 +16,6 @@
  */
 package org.apache.tika.eval.textstats;
 
-import java.util.Map;
-
-import org.apache.commons.lang3.mutable.MutableInt;
-import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.tika.eval.tokens.TokenCounts;
 import org.apache.tika.eval.tokens.TokenIntPair;
 
@@ -32,15 +28,12 @@ public class TopNTokens implements TokenCountStatsCalculator<TokenIntPair[]> {
     @Override
     public TokenIntPair[] calculate(TokenCounts tokenCounts) {
         TokenCountPriorityQueue queue = new TokenCountPriorityQueue(topN);
-
-        SummaryStatistics summaryStatistics = new SummaryStatistics();
-        for (Map.Entry<String, MutableInt> e : tokenCounts.getTokens().entrySet()) {
-            String token = e.getKey();
-            int termFreq = e.getValue().intValue();
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            int termFreq = tokenCounts.getCount(i);
 
             if (queue.top() == null || queue.size() < topN ||
                     termFreq >= queue.top().getValue()) {
-                queue.insertWithOverflow(new TokenIntPair(token, termFreq));
+                queue.insertWithOverflow(new TokenIntPair(tokenCounts.getToken(i), termFreq));
             }
 
         }
@@ -17,40 +17,59 @@
 
 package org.apache.tika.eval.tokens;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.tika.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Loads the common tokens of a language the first time they are asked
+ * for, as a {@link CompactLangModel}. For each language, a model compiled
+ * by {@link org.apache.tika.eval.tools.CommonTokensCompiler}
+ * (<code>&lt;lang&gt;.bin</code>) is memory mapped if there is one,
+ * and the text model (<code>&lt;lang&gt;</code>) is read otherwise;
+ * models in the common tokens directory win over those on the class path.
+ * <p>
+ * Languages are loaded independently of each other, and a language
+ * without a model is only looked for once. The models are shared, so
+ * they are handed out as read-only {@link TokenModel}s.
+ */
 public class CommonTokenCountManager {
     private static final Logger LOG = LoggerFactory.getLogger(CommonTokenCountManager.class);
 
-    private static final Charset COMMON_TOKENS_CHARSET = StandardCharsets.UTF_8;
-    private static final String TERM_FREQS = "#SUM_TERM_FREQS\t";
+    static final String COMPILED_SUFFIX = ".bin";
+
+    //marks languages for which there is no model
+    private static final TokenModel NO_MODEL = new LangModel(-1);
 
-    private Matcher digitsMatcher = Pattern.compile("(\\d+)").matcher("");
+    private static final TokenModel EMPTY_MODEL =
+            CompactLangModel.build(-1, Collections.<String, Long>emptyMap());
 
     private final Path commonTokensDir;
 
-    Map<String, LangModel> commonTokenMap = new ConcurrentHashMap<>();
-    Set<String> alreadyTriedToLoad = new HashSet<>();
+    Map<String, TokenModel> commonTokenMap = new ConcurrentHashMap<>();
+
+    private final Function<String, TokenModel> loader = new Function<String, TokenModel>() {
+        @Override
+        public TokenModel apply(String langCode) {
+            TokenModel model = load(langCode);
+            return model == null ? NO_MODEL : model;
+        }
+    };
 
     //if we have no model or if no langid is passed in
     //make this configurable
@@ -66,16 +85,15 @@ public class CommonTokenCountManager {
         this.defaultLangCode = defaultLangCode;
         this.commonTokensDir = commonTokensDir;
         if (! "".equals(defaultLangCode)) {
-            tryToLoad(defaultLangCode);
             //if you couldn't load it, make sure to add an empty
             //set to prevent npes later
-            LangModel langModel = commonTokenMap.get(defaultLangCode);
-            if (langModel == null) {
+            TokenModel langModel = commonTokenMap.computeIfAbsent(defaultLangCode, loader);
+            if (langModel == NO_MODEL) {
                 LOG.warn("No common tokens for default language: '" + defaultLangCode + "'");
-                commonTokenMap.put(defaultLangCode, LangModel.EMPTY_MODEL);
+                commonTokenMap.put(defaultLangCode, EMPTY_MODEL);
             }
         } else {
-            commonTokenMap.put(defaultLangCode, LangModel.EMPTY_MODEL);
+            commonTokenMap.put(defaultLangCode, EMPTY_MODEL);
 
         }
     }
@@ -91,7 +109,7 @@ public class CommonTokenCountManager {
         int numCommonTokens = 0;
         int numUniqueAlphabeticTokens = 0;
         int numAlphabeticTokens = 0;
-        LangModel model = commonTokenMap.get(actualLangCode);
+        TokenModel model = commonTokenMap.get(actualLangCode);
         for (Map.Entry<String, MutableInt> e : tokens.entrySet()) {
             String token = e.getKey();
             int count = e.getValue().intValue();
@@ -117,10 +135,10 @@ public class CommonTokenCountManager {
 
     /**
      * @param lang
-     * @return pair of actual language code used and a set of common
+     * @return pair of actual language code used and the read-only common
      * tokens for that language
      */
-    public Pair<String, LangModel> getLangTokens(String lang) {
+    public Pair<String, TokenModel> getLangTokens(String lang) {
         String actualLangCode = getActualLangCode(lang);
         return Pair.of(actualLangCode, commonTokenMap.get(actualLangCode));
     }
@@ -130,12 +148,11 @@ public class CommonTokenCountManager {
         if (langCode == null || "".equals(langCode)) {
             return defaultLangCode;
         }
-        if (commonTokenMap.containsKey(langCode)) {
-            return langCode;
-        }
-        tryToLoad(langCode);
-        LangModel model = commonTokenMap.get(langCode);
+        TokenModel model = commonTokenMap.get(langCode);
         if (model == null) {
+            model = commonTokenMap.computeIfAbsent(langCode, loader);
+        }
+        if (model == NO_MODEL) {
             return defaultLangCode;
         }
         return langCode;
@@ -146,80 +163,43 @@ public class CommonTokenCountManager {
         commonTokenMap.clear();
     }
 
-    private synchronized void tryToLoad(String langCode) {
-        if (alreadyTriedToLoad.contains(langCode)) {
-            return;
-        }
-        //check once more now that we're in a
-        //synchronized block
-        if (commonTokenMap.get(langCode) != null) {
-            return;
-        }
-        InputStream is = null;
-        Path p = null;
-        if (commonTokensDir != null) {
-            p = commonTokensDir.resolve(langCode);
-        }
-
+    private TokenModel load(String langCode) {
         try {
-            if (p == null || !Files.isRegularFile(p)) {
-                is = this.getClass().getResourceAsStream("/common_tokens/" + langCode);
-            } else {
-                is = Files.newInputStream(p);
+            if (commonTokensDir != null) {
+                Path compiled = commonTokensDir.resolve(langCode + COMPILED_SUFFIX);
+                if (Files.isRegularFile(compiled)) {
+                    return CompactLangModel.map(compiled);
+                }
+                Path p = commonTokensDir.resolve(langCode);
+                if (Files.isRegularFile(p)) {
+                    try (InputStream is = Files.newInputStream(p)) {
+                        return CompactLangModel.readText(is);
+                    }
+                }
             }
-
-
-            if (is == null) {
-                String path = (p == null) ? "resource on class path: /common_tokens/"+langCode
-                        : p.toAbsolutePath().toString();
-                LOG.warn("Couldn't find common tokens file for: '" + langCode + "' tried here: " +
-                        path);
-                alreadyTriedToLoad.add(langCode);
-                return;
+            URL compiled = getClass().getResource("/common_tokens/" + langCode + COMPILED_SUFFIX);
+            if (compiled != null) {
+                if ("file".equals(compiled.getProtocol())) {
+                    return CompactLangModel.map(Paths.get(compiled.toURI()));
+                }
+                try (InputStream is = compiled.openStream()) {
+                    return CompactLangModel.read(is);
+                }
             }
-
-            LangModel model = null;
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(is, COMMON_TOKENS_CHARSET))) {
-                alreadyTriedToLoad.add(langCode);
-                String line = reader.readLine();
-                while (line != null) {
-                    line = line.trim();
-                    if (line.startsWith("#")) {
-                        if (line.startsWith(TERM_FREQS)) {
-                            digitsMatcher.reset(line);
-                            if (digitsMatcher.find()) {
-                                model = new LangModel(Long.parseLong(digitsMatcher.group(1)));
-                            }
-                        }
-                        line = reader.readLine();
-                        continue;
-                    }
-                    //allow language models with, e.g. tab-delimited counts after the term
-                    String[] cols = line.split("\t");
-                    String t = cols[0].trim();
-                    if (t.length() > 0 && cols.length > 2) {
-                        if (model == null) {
-                            throw new IllegalArgumentException(
-                                    "Common tokens file must have included comment line "+
-                                            " with "+TERM_FREQS);
-                        }
-                        //document frequency
-                        String df = cols[1];
-                        //token frequency
-                        long tf = Long.parseLong(cols[2]);
-                        model.add(t, tf);
-                    }
-
-                    line = reader.readLine();
+            try (InputStream is = getClass().getResourceAsStream("/common_tokens/" + langCode)) {
+                if (is != null) {
+                    return CompactLangModel.readText(is);
                 }
             }
-            commonTokenMap.put(langCode, model);
-        } catch (IOException e) {
-            LOG.warn("IOException trying to read: '" + langCode + "'");
-        } finally {
-            IOUtils.closeQuietly(is);
+        } catch (IOException|URISyntaxException e) {
+            LOG.warn("IOException trying to read: '" + langCode + "'", e);
+            return null;
         }
+        String path = (commonTokensDir == null) ? "resource on class path: /common_tokens/"+langCode
+                : commonTokensDir.resolve(langCode).toAbsolutePath().toString();
+        LOG.warn("Couldn't find common tokens file for: '" + langCode + "' tried here: " +
+                path);
+        return null;
     }
 
 }
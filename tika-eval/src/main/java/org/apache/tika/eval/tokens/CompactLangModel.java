@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.tokens;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only {@link TokenModel} that keeps all of its tokens and counts in a
+ * single {@link ByteBuffer}: an open addressing table of token numbers,
+ * the offsets of the tokens in a block of characters, the counts and the
+ * characters themselves. This takes a fraction of the memory of the maps
+ * in {@link LangModel}, and tokens can be looked up straight from a
+ * character buffer without creating any objects.
+ * <p>
+ * The same layout is used in memory, when the model is read from the
+ * common tokens text format with {@link #readText(InputStream)}, and on
+ * disk, where {@link #write(OutputStream)} stores it and
+ * {@link #map(Path)} memory maps it. Lookups only use absolute reads, so
+ * a model can be shared by any number of threads.
+ * <p>
+ * {@link #getTokens()} and {@link #getCounts()} build their collections
+ * on the first call; prefer the lookups where possible.
+ */
+public class CompactLangModel implements TokenModel {
+
+    /**
+     * "TKCT", followed by the format version
+     */
+    private static final int MAGIC = 0x544b4354;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_LENGTH = 28;
+
+    private static final String TERM_FREQS = "#SUM_TERM_FREQS\t";
+
+    private static final Pattern DIGITS = Pattern.compile("(\\d+)");
+
+    private final ByteBuffer buffer;
+
+    private final long totalTokens;
+
+    private final int numTokens;
+
+    private final int tableMask;
+
+    private final int tablePosition;
+
+    private final int offsetsPosition;
+
+    private final int countsPosition;
+
+    private final int charsPosition;
+
+    private volatile Set<String> tokens;
+
+    private volatile Map<String, Long> counts;
+
+    private CompactLangModel(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        totalTokens = readTotalTokens(buffer);
+        numTokens = buffer.getInt(16);
+        int tableSize = buffer.getInt(20);
+        int charsLength = buffer.getInt(24);
+        if (numTokens < 0 || tableSize <= numTokens || Integer.bitCount(tableSize) != 1
+                || charsLength < 0) {
+            throw new IOException("Corrupt common tokens model");
+        }
+        tableMask = tableSize - 1;
+        tablePosition = HEADER_LENGTH;
+        offsetsPosition = tablePosition + 4 * tableSize;
+        countsPosition = offsetsPosition + 4 * (numTokens + 1);
+        charsPosition = countsPosition + 8 * numTokens;
+        if ((long) charsPosition + 2L * charsLength != buffer.limit()) {
+            throw new IOException("Corrupt common tokens model: unexpected length");
+        }
+    }
+
+    private static long readTotalTokens(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_LENGTH || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a compiled common tokens model");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported common tokens model version: " + buffer.getInt(4));
+        }
+        return buffer.getLong(8);
+    }
+
+    /**
+     * Builds a model from tokens and their counts.
+     *
+     * @param totalTokens sum of the term frequencies of the corpus the
+     *                    counts come from
+     * @param tokenCounts counts of the tokens
+     * @return the model
+     */
+    public static CompactLangModel build(long totalTokens, Map<String, Long> tokenCounts) {
+        int numTokens = tokenCounts.size();
+        int tableSize = Integer.highestOneBit(Math.max(numTokens, 1)) * 4;
+        int charsLength = 0;
+        for (String token : tokenCounts.keySet()) {
+            charsLength += token.length();
+        }
+        long length = HEADER_LENGTH + 4L * tableSize + 4L * (numTokens + 1)
+                + 8L * numTokens + 2L * charsLength;
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many common tokens: " + numTokens);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, totalTokens);
+        buffer.putInt(16, numTokens);
+        buffer.putInt(20, tableSize);
+        buffer.putInt(24, charsLength);
+
+        int tablePosition = HEADER_LENGTH;
+        int offsetsPosition = tablePosition + 4 * tableSize;
+        int countsPosition = offsetsPosition + 4 * (numTokens + 1);
+        int charsPosition = countsPosition + 8 * numTokens;
+        int id = 0;
+        int offset = 0;
+        for (Map.Entry<String, Long> e : tokenCounts.entrySet()) {
+            String token = e.getKey();
+            int slot = mix(token.hashCode()) & (tableSize - 1);
+            while (buffer.getInt(tablePosition + 4 * slot) != 0) {
+                slot = (slot + 1) & (tableSize - 1);
+            }
+            buffer.putInt(tablePosition + 4 * slot, id + 1);
+            buffer.putInt(offsetsPosition + 4 * id, offset);
+            buffer.putLong(countsPosition + 8 * id, e.getValue());
+            for (int i = 0; i < token.length(); i++) {
+                buffer.putChar(charsPosition + 2 * (offset + i), token.charAt(i));
+            }
+            offset += token.length();
+            id++;
+        }
+        buffer.putInt(offsetsPosition + 4 * numTokens, offset);
+        try {
+            return new CompactLangModel(buffer);
+        } catch (IOException e) {
+            //can't happen, we've just written it
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads a model in the common tokens text format: comment lines
+     * starting with '#', one of which must give the
+     * <code>#SUM_TERM_FREQS</code>, followed by lines with a token, its
+     * document frequency and its term frequency, separated by tabs.
+     *
+     * @param is stream of the text model, not closed by this method
+     * @return the model
+     * @throws IOException on an IO problem
+     * @throws IllegalArgumentException if the sum of the term frequencies
+     *                                  is missing
+     */
+    public static CompactLangModel readText(InputStream is) throws IOException {
+        long totalTokens = -1;
+        Map<String, Long> tokenCounts = new LinkedHashMap<>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(is, StandardCharsets.UTF_8));
+        Matcher digitsMatcher = DIGITS.matcher("");
+        String line = reader.readLine();
+        while (line != null) {
+            line = line.trim();
+            if (line.startsWith("#")) {
+                if (line.startsWith(TERM_FREQS)) {
+                    digitsMatcher.reset(line);
+                    if (digitsMatcher.find()) {
+                        totalTokens = Long.parseLong(digitsMatcher.group(1));
+                    }
+                }
+                line = reader.readLine();
+                continue;
+            }
+            //allow language models with, e.g. tab-delimited counts after the term
+            String[] cols = line.split("\t");
+            String t = cols[0].trim();
+            if (t.length() > 0 && cols.length > 2) {
+                if (totalTokens < 0) {
+                    throw new IllegalArgumentException(
+                            "Common tokens file must have included comment line "+
+                                    " with "+TERM_FREQS);
+                }
+                //cols[1] is the document frequency, cols[2] the token frequency
+                tokenCounts.put(t, Long.parseLong(cols[2]));
+            }
+            line = reader.readLine();
+        }
+        return build(totalTokens, tokenCounts);
+    }
+
+    /**
+     * Reads a model written by {@link #write(OutputStream)}.
+     *
+     * @param is stream of the model, not closed by this method
+     * @return the model
+     * @throws IOException if the stream can't be read or doesn't hold a model
+     */
+    public static CompactLangModel read(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] bytes = new byte[8192];
+        for (int n = is.read(bytes); n != -1; n = is.read(bytes)) {
+            bos.write(bytes, 0, n);
+        }
+        return new CompactLangModel(ByteBuffer.wrap(bos.toByteArray()));
+    }
+
+    /**
+     * Memory maps a model written by {@link #write(OutputStream)}. The
+     * mapping stays valid after the file has been closed.
+     *
+     * @param path file of the model
+     * @return the model
+     * @throws IOException if the file can't be read or doesn't hold a model
+     */
+    public static CompactLangModel map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CompactLangModel(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the model in the form read by {@link #map(Path)} and
+     * {@link #read(InputStream)}.
+     *
+     * @param os stream to write to, not closed by this method
+     * @throws IOException on an IO problem
+     */
+    public void write(OutputStream os) throws IOException {
+        ByteBuffer copy = buffer.duplicate();
+        copy.clear();
+        byte[] bytes = new byte[8192];
+        while (copy.hasRemaining()) {
+            int n = Math.min(bytes.length, copy.remaining());
+            copy.get(bytes, 0, n);
+            os.write(bytes, 0, n);
+        }
+    }
+
+    @Override
+    public boolean contains(String token) {
+        return find(token) > -1;
+    }
+
+    @Override
+    public boolean contains(char[] token, int offset, int length) {
+        return find(token, offset, length) > -1;
+    }
+
+    @Override
+    public double getProbability(String token) {
+        int id = find(token);
+        if (id < 0) {
+            return getUnseenProbability();
+        }
+        return (double) getCount(id) / (double) totalTokens;
+    }
+
+    @Override
+    public long getCount(String token) {
+        int id = find(token);
+        return id < 0 ? 0 : getCount(id);
+    }
+
+    @Override
+    public long getCount(char[] token, int offset, int length) {
+        int id = find(token, offset, length);
+        return id < 0 ? 0 : getCount(id);
+    }
+
+    @Override
+    public double getUnseenProbability() {
+        return (double) 1 / (double) totalTokens;
+    }
+
+    @Override
+    public Set<String> getTokens() {
+        Set<String> set = tokens;
+        if (set == null) {
+            set = new HashSet<>(getCounts().keySet());
+            set = Collections.unmodifiableSet(set);
+            tokens = set;
+        }
+        return set;
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        Map<String, Long> map = counts;
+        if (map == null) {
+            map = new HashMap<>();
+            for (int id = 0; id < numTokens; id++) {
+                int start = buffer.getInt(offsetsPosition + 4 * id);
+                int end = buffer.getInt(offsetsPosition + 4 * (id + 1));
+                char[] chars = new char[end - start];
+                for (int i = 0; i < chars.length; i++) {
+                    chars[i] = buffer.getChar(charsPosition + 2 * (start + i));
+                }
+                map.put(new String(chars), getCount(id));
+            }
+            map = Collections.unmodifiableMap(map);
+            counts = map;
+        }
+        return map;
+    }
+
+    private long getCount(int id) {
+        return buffer.getLong(countsPosition + 8 * id);
+    }
+
+    private int find(String token) {
+        int hash = token.hashCode();
+        int length = token.length();
+        int slot = mix(hash) & tableMask;
+        for (int probes = 0; probes <= tableMask; probes++, slot = (slot + 1) & tableMask) {
+            int id = buffer.getInt(tablePosition + 4 * slot) - 1;
+            if (id < 0) {
+                return -1;
+            }
+            int start = buffer.getInt(offsetsPosition + 4 * id);
+            if (buffer.getInt(offsetsPosition + 4 * (id + 1)) - start != length) {
+                continue;
+            }
+            int position = charsPosition + 2 * start;
+            int i = 0;
+            while (i < length && buffer.getChar(position + 2 * i) == token.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private int find(char[] token, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + token[i];
+        }
+        int slot = mix(hash) & tableMask;
+        for (int probes = 0; probes <= tableMask; probes++, slot = (slot + 1) & tableMask) {
+            int id = buffer.getInt(tablePosition + 4 * slot) - 1;
+            if (id < 0) {
+                return -1;
+            }
+            int start = buffer.getInt(offsetsPosition + 4 * id);
+            if (buffer.getInt(offsetsPosition + 4 * (id + 1)) - start != length) {
+                continue;
+            }
+            int position = charsPosition + 2 * start;
+            int i = 0;
+            while (i < length && buffer.getChar(position + 2 * i) == token[offset + i]) {
+                i++;
+            }
+            if (i == length) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
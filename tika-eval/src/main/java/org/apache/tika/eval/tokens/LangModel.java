@@ -20,7 +20,10 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
-public class LangModel {
+/**
+ * Mutable {@link TokenModel} backed by maps.
+ */
+public class LangModel implements TokenModel {
     public static LangModel EMPTY_MODEL = new LangModel(-1);
 
     private final long totalTokens;
@@ -36,14 +39,29 @@ public class LangModel {
     }
 
 
+    @Override
     public boolean contains(String token) {
         return (percentages.containsKey(token));
     }
 
+    /**
+     * @return whether the token made up of the given characters is in
+     * the model
+     */
+    @Override
+    public boolean contains(char[] token, int offset, int length) {
+        if (percentages.isEmpty()) {
+            return false;
+        }
+        return contains(new String(token, offset, length));
+    }
+
+    @Override
     public Set<String> getTokens() {
         return percentages.keySet();
     }
 
+    @Override
     public double getProbability(String token) {
         Double p = percentages.get(token);
         if (p != null) {
@@ -59,10 +77,12 @@ public class LangModel {
         counts.put(t, tf);
     }
 
+    @Override
     public double getUnseenProbability() {
         return unseenPercentage;
     }
 
+    @Override
     public long getCount(String token) {
         Long cnt = counts.get(token);
         if (cnt == null) {
@@ -72,6 +92,19 @@ public class LangModel {
         }
     }
 
+    /**
+     * @return the count of the token made up of the given characters,
+     * or 0 if it isn't in the model
+     */
+    @Override
+    public long getCount(char[] token, int offset, int length) {
+        if (counts.isEmpty()) {
+            return 0;
+        }
+        return getCount(new String(token, offset, length));
+    }
+
+    @Override
     public Map<String, Long> getCounts() {
         return counts;
     }
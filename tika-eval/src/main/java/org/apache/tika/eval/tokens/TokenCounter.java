@@ -38,7 +38,7 @@ import org.apache.tika.eval.textstats.TokenCountPriorityQueue;
 public class TokenCounter {
 
 
-    Map<String, Map<String, MutableInt>> map = new HashMap<>(); //Map<field, Map<token, count>>
+    Map<String, TokenCounts> map = new HashMap<>(); //Map<field, token counts>
     Map<String, TokenStatistics> tokenStatistics = new HashMap<>();
 
     private final TokenStatistics NULL_TOKEN_STAT = new TokenStatistics(
@@ -62,26 +62,19 @@ public class TokenCounter {
         TokenStream ts = analyzer.tokenStream(field, content);
         CharTermAttribute termAtt = ts.getAttribute(CharTermAttribute.class);
         ts.reset();
-        Map<String, MutableInt> tokenMap = map.get(field);
-        if (tokenMap == null) {
-            tokenMap = new HashMap<>();
-            map.put(field, tokenMap);
+        TokenCounts tokenCounts = map.get(field);
+        if (tokenCounts == null) {
+            tokenCounts = new TokenCounts();
+            map.put(field, tokenCounts);
         }
         while (ts.incrementToken()) {
-            String token = termAtt.toString();
-            MutableInt cnt = tokenMap.get(token);
-            if (cnt == null) {
-                cnt = new MutableInt(1);
-                tokenMap.put(token, cnt);
-            } else {
-                cnt.increment();
-            }
+            tokenCounts.increment(termAtt.buffer(), 0, termAtt.length());
             totalTokens++;
         }
         ts.close();
         ts.end();
 
-        int totalUniqueTokens = tokenMap.size();
+        int totalUniqueTokens = tokenCounts.getTotalUniqueTokens();
 
         double ent = 0.0d;
         double p = 0.0d;
@@ -89,20 +82,16 @@ public class TokenCounter {
 
         TokenCountPriorityQueue queue = new TokenCountPriorityQueue(topN);
 
-        SummaryStatistics summaryStatistics = new SummaryStatistics();
-        for (Map.Entry<String, MutableInt> e : tokenMap.entrySet()) {
-            String token = e.getKey();
-            int termFreq = e.getValue().intValue();
+        WeightedSummaryStatistics summaryStatistics = new WeightedSummaryStatistics();
+        for (int i = 0; i < totalUniqueTokens; i++) {
+            int termFreq = tokenCounts.getCount(i);
 
             p = (double) termFreq / (double) totalTokens;
             ent += p * FastMath.log(base, p);
-            int len = token.codePointCount(0, token.length());
-            for (int i = 0; i < e.getValue().intValue(); i++) {
-                summaryStatistics.addValue(len);
-            }
+            summaryStatistics.addValue(tokenCounts.getCodePointCount(i), termFreq);
             if (queue.top() == null || queue.size() < topN ||
                     termFreq >= queue.top().getValue()) {
-                queue.insertWithOverflow(new TokenIntPair(token, termFreq));
+                queue.insertWithOverflow(new TokenIntPair(tokenCounts.getToken(i), termFreq));
             }
 
         }
@@ -134,19 +123,16 @@ public class TokenCounter {
     }
 
     public void clear(String field) {
-        Map<String, MutableInt> tokenMap = map.get(field);
-        if (tokenMap != null) {
-            tokenMap.clear();
-        }
+        map.remove(field);
 
         tokenStatistics.put(field, NULL_TOKEN_STAT);
     }
 
     public Map<String, MutableInt> getTokens(String field) {
-        Map<String, MutableInt> ret = map.get(field);
-        if (ret == null) {
+        TokenCounts tokenCounts = map.get(field);
+        if (tokenCounts == null) {
             return Collections.emptyMap();
         }
-        return ret;
+        return tokenCounts.getTokens();
     }
 }
@@ -16,28 +16,112 @@
  */
 package org.apache.tika.eval.tokens;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.apache.commons.lang3.mutable.MutableInt;
 
+/**
+ * Counts of tokens, keyed by their characters.
+ * <p>
+ * Tokens can be counted straight from a term buffer, such as a
+ * Lucene <code>CharTermAttribute</code>; the characters are only
+ * copied the first time a token is seen, and Strings are only
+ * created when a caller asks for them. The unique tokens are numbered
+ * from 0 to {@link #getTotalUniqueTokens()} - 1 in the order in which
+ * they were first seen, and can be read by that number with
+ * {@link #getToken(int)}, {@link #getCount(int)} and friends.
+ */
 public class TokenCounts {
 
+    private static final int INITIAL_CAPACITY = 16;
+
     private int totalTokens = 0;
-    private Map<String, MutableInt> tokens = new HashMap<>();
+
+    private int size = 0;
+
+    //open addressing table of token ids + 1, 0 marks an empty slot
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    private char[][] chars = new char[INITIAL_CAPACITY][];
+
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    private int[] counts = new int[INITIAL_CAPACITY];
+
+    private int[] codePoints = new int[INITIAL_CAPACITY];
+
+    private String[] strings = new String[INITIAL_CAPACITY];
+
+    private Map<String, MutableInt> tokens = null;
 
     public void increment(String token) {
-        MutableInt i = tokens.get(token);
-        if (i == null) {
-            i = new MutableInt(1);
-            tokens.put(token, i);
-        } else {
-            i.increment();
+        increment(token.toCharArray(), 0, token.length());
+    }
+
+    /**
+     * Counts one occurrence of the token made up of the given characters.
+     *
+     * @param buffer buffer holding the token, which is copied if the
+     *               token hasn't been seen before
+     * @param offset start of the token in the buffer
+     * @param length length of the token
+     */
+    public void increment(char[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
         }
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(chars[id], buffer, offset, length)) {
+                counts[id]++;
+                totalTokens++;
+                if (tokens != null) {
+                    tokens.get(getToken(id)).increment();
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == chars.length) {
+            grow();
+            //the table has been rebuilt, so look for a free slot again
+            mask = table.length - 1;
+            slot = mix(hash) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        int id = size++;
+        chars[id] = Arrays.copyOfRange(buffer, offset, offset + length);
+        hashes[id] = hash;
+        counts[id] = 1;
+        codePoints[id] = Character.codePointCount(buffer, offset, length);
+        table[slot] = id + 1;
         totalTokens++;
+        if (tokens != null) {
+            tokens.put(getToken(id), new MutableInt(1));
+        }
     }
 
+    /**
+     * @return a map of each token to its count. This is built on the first
+     * call and kept up to date afterwards; prefer the accessors by token
+     * number where possible.
+     */
     public Map<String, MutableInt> getTokens() {
+        if (tokens == null) {
+            Map<String, MutableInt> map = new HashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+            for (int i = 0; i < size; i++) {
+                map.put(getToken(i), new MutableInt(counts[i]));
+            }
+            tokens = map;
+        }
         return tokens;
     }
 
@@ -46,6 +130,79 @@ public class TokenCounts {
     }
 
     public int getTotalUniqueTokens() {
-        return tokens.size();
+        return size;
+    }
+
+    /**
+     * @param i number of the token, from 0 to {@link #getTotalUniqueTokens()} - 1
+     * @return the token
+     */
+    public String getToken(int i) {
+        String token = strings[i];
+        if (token == null) {
+            token = new String(chars[i]);
+            strings[i] = token;
+        }
+        return token;
+    }
+
+    /**
+     * @param i number of the token
+     * @return the characters of the token; the array must not be modified
+     */
+    public char[] getTokenChars(int i) {
+        return chars[i];
+    }
+
+    /**
+     * @param i number of the token
+     * @return the number of times the token was counted
+     */
+    public int getCount(int i) {
+        return counts[i];
+    }
+
+    /**
+     * @param i number of the token
+     * @return the length of the token in code points
+     */
+    public int getCodePointCount(int i) {
+        return codePoints[i];
+    }
+
+    private void grow() {
+        int capacity = chars.length * 2;
+        chars = Arrays.copyOf(chars, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        counts = Arrays.copyOf(counts, capacity);
+        codePoints = Arrays.copyOf(codePoints, capacity);
+        strings = Arrays.copyOf(strings, capacity);
+
+        table = new int[capacity * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(char[] token, char[] buffer, int offset, int length) {
+        if (token.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (token[i] != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
     }
 }
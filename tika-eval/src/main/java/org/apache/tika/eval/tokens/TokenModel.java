@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.tokens;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of the common tokens of a language and their counts.
+ * {@link CommonTokenCountManager} hands out models of this type, which are
+ * shared by all threads and must not be changed; build a {@link LangModel}
+ * to count tokens yourself.
+ */
+public interface TokenModel {
+
+    boolean contains(String token);
+
+    /**
+     * @return whether the token made up of the given characters is in
+     * the model
+     */
+    boolean contains(char[] token, int offset, int length);
+
+    Set<String> getTokens();
+
+    /**
+     * @return the probability of the token, or the
+     * {@link #getUnseenProbability() unseen probability} if it isn't in the model
+     */
+    double getProbability(String token);
+
+    double getUnseenProbability();
+
+    long getCount(String token);
+
+    /**
+     * @return the count of the token made up of the given characters,
+     * or 0 if it isn't in the model
+     */
+    long getCount(char[] token, int offset, int length);
+
+    Map<String, Long> getCounts();
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.tokens;
+
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.apache.commons.math3.util.FastMath;
+
+/**
+ * {@link SummaryStatistics} that can add a value a number of times
+ * in one go, as if {@link #addValue(double)} had been called that
+ * many times. This is used to summarize token lengths from the counts
+ * of the unique tokens rather than from every occurrence.
+ * <p>
+ * The implementations of the individual statistics can't be changed.
+ */
+public class WeightedSummaryStatistics extends SummaryStatistics {
+
+    private static final long serialVersionUID = -4532389154312789431L;
+
+    private long n = 0;
+
+    private double mean = Double.NaN;
+
+    private double m2 = Double.NaN;
+
+    private double sum = 0.0d;
+
+    private double sumsq = 0.0d;
+
+    private double sumLog = 0.0d;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    @Override
+    public void addValue(double value) {
+        addValue(value, 1);
+    }
+
+    /**
+     * Adds a value <code>weight</code> times.
+     *
+     * @param value value to add
+     * @param weight number of times to add it, must not be negative
+     */
+    public void addValue(double value, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must not be negative: " + weight);
+        }
+        if (weight == 0) {
+            return;
+        }
+        if (n == 0) {
+            mean = value;
+            m2 = 0.0d;
+            min = value;
+            max = value;
+        } else {
+            //combine the moments of the two groups
+            double delta = value - mean;
+            long total = n + weight;
+            mean += delta * weight / total;
+            m2 += delta * delta * ((double) n * weight / total);
+            min = FastMath.min(min, value);
+            max = FastMath.max(max, value);
+        }
+        n += weight;
+        sum += value * weight;
+        sumsq += value * value * weight;
+        sumLog += FastMath.log(value) * weight;
+    }
+
+    @Override
+    public long getN() {
+        return n;
+    }
+
+    @Override
+    public double getSum() {
+        return sum;
+    }
+
+    @Override
+    public double getSumsq() {
+        return sumsq;
+    }
+
+    @Override
+    public double getMean() {
+        return mean;
+    }
+
+    @Override
+    public double getVariance() {
+        if (n == 0) {
+            return Double.NaN;
+        } else if (n == 1) {
+            return 0.0d;
+        }
+        return m2 / (n - 1);
+    }
+
+    @Override
+    public double getPopulationVariance() {
+        if (n == 0) {
+            return Double.NaN;
+        } else if (n == 1) {
+            return 0.0d;
+        }
+        return m2 / n;
+    }
+
+    @Override
+    public double getStandardDeviation() {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        return FastMath.sqrt(getVariance());
+    }
+
+    @Override
+    public double getQuadraticMean() {
+        return n > 0 ? FastMath.sqrt(sumsq / n) : Double.NaN;
+    }
+
+    @Override
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public double getMin() {
+        return min;
+    }
+
+    @Override
+    public double getGeometricMean() {
+        return n > 0 ? FastMath.exp(sumLog / n) : Double.NaN;
+    }
+
+    @Override
+    public double getSumOfLogs() {
+        return sumLog;
+    }
+
+    @Override
+    public double getSecondMoment() {
+        return m2;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        n = 0;
+        mean = Double.NaN;
+        m2 = Double.NaN;
+        sum = 0.0d;
+        sumsq = 0.0d;
+        sumLog = 0.0d;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+
+    @Override
+    public WeightedSummaryStatistics copy() {
+        WeightedSummaryStatistics copy = new WeightedSummaryStatistics();
+        copy.n = n;
+        copy.mean = mean;
+        copy.m2 = m2;
+        copy.sum = sum;
+        copy.sumsq = sumsq;
+        copy.sumLog = sumLog;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+}
@@ -38,7 +38,12 @@ public class CommonTokenOverlapCounter {
     private void execute(Path commonTokensDir) throws IOException {
         List<String> langs = new ArrayList<>();
         for (File f : commonTokensDir.toFile().listFiles()) {
-            langs.add(f.getName());
+            //compiled models sit next to the text models
+            String lang = f.getName().endsWith(".bin") ?
+                    f.getName().substring(0, f.getName().length() - 4) : f.getName();
+            if (! langs.contains(lang)) {
+                langs.add(lang);
+            }
         }
         CommonTokenCountManager mgr = new CommonTokenCountManager(commonTokensDir, "");
         for (int i = 0; i < langs.size()-1; i++) {
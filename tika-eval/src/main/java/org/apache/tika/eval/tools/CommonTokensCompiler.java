@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.tools;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.tika.eval.tokens.CompactLangModel;
+
+/**
+ * Compiles the common tokens text files in a directory into the binary
+ * form of {@link CompactLangModel}, which
+ * {@link org.apache.tika.eval.tokens.CommonTokenCountManager} memory maps
+ * instead of reading the text files. Each file <code>&lt;lang&gt;</code>
+ * is compiled into <code>&lt;lang&gt;.bin</code> in the output directory,
+ * which can be the input directory.
+ * <p>
+ * Usage: CommonTokensCompiler &lt;inputDir&gt; [outputDir]
+ */
+public class CommonTokensCompiler {
+
+    private static final String COMPILED_SUFFIX = ".bin";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: CommonTokensCompiler <inputDir> [outputDir]");
+            return;
+        }
+        Path inputDir = Paths.get(args[0]);
+        Path outputDir = args.length > 1 ? Paths.get(args[1]) : inputDir;
+        Files.createDirectories(outputDir);
+        int compiled = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inputDir)) {
+            for (Path textModel : files) {
+                String name = textModel.getFileName().toString();
+                if (! Files.isRegularFile(textModel) || name.endsWith(COMPILED_SUFFIX)) {
+                    continue;
+                }
+                compile(textModel, outputDir.resolve(name + COMPILED_SUFFIX));
+                compiled++;
+            }
+        }
+        System.out.println("Compiled " + compiled + " common tokens files into " + outputDir);
+    }
+
+    /**
+     * Compiles a single common tokens text file.
+     *
+     * @param textModel common tokens text file
+     * @param compiledModel file to write the compiled model to
+     * @throws IOException on an IO problem
+     */
+    public static void compile(Path textModel, Path compiledModel) throws IOException {
+        CompactLangModel model;
+        try (InputStream is = Files.newInputStream(textModel)) {
+            model = CompactLangModel.readText(is);
+        }
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(compiledModel))) {
+            model.write(os);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.eval.tokens;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.apache.tika.eval.tools.CommonTokensCompiler;
+import org.junit.Test;
+
+public class CompactLangModelTest {
+
+    private static final String MODEL = "#SUM_TERM_FREQS\t1000\n" +
+            "#TOKEN\tDOCFREQ\tTERMFREQ\n" +
+            "___url___\n" +
+            "the\t50\t100\n" +
+            "and\t40\t50\n" +
+            "\uD83D\uDE00\t1\t2\n";
+
+    @Test
+    public void testText() throws Exception {
+        CompactLangModel model = CompactLangModel.readText(
+                new ByteArrayInputStream(MODEL.getBytes(StandardCharsets.UTF_8)));
+        assertModel(model);
+    }
+
+    @Test
+    public void testCompiled() throws Exception {
+        Path dir = Files.createTempDirectory("tika-eval-common-tokens");
+        Path text = dir.resolve("xyz");
+        Path compiled = dir.resolve("xyz.bin");
+        try {
+            Files.write(text, MODEL.getBytes(StandardCharsets.UTF_8));
+            CommonTokensCompiler.compile(text, compiled);
+            assertModel(CompactLangModel.map(compiled));
+            try (InputStream is = Files.newInputStream(compiled)) {
+                assertModel(CompactLangModel.read(is));
+            }
+
+            //the compiled model wins over the text model
+            try (OutputStream os = Files.newOutputStream(text)) {
+                os.write("#SUM_TERM_FREQS\t10\n".getBytes(StandardCharsets.UTF_8));
+            }
+            CommonTokenCountManager manager = new CommonTokenCountManager(dir, "");
+            assertEquals("xyz", manager.getLangTokens("xyz").getKey());
+            assertModel(manager.getLangTokens("xyz").getValue());
+            assertEquals("", manager.getLangTokens("abc").getKey());
+        } finally {
+            try {
+                Files.deleteIfExists(compiled);
+                Files.deleteIfExists(text);
+                Files.delete(dir);
+            } catch (IOException e) {
+                //some platforms don't delete files that are still mapped
+            }
+        }
+    }
+
+    @Test
+    public void testCommonTokensResource() throws Exception {
+        TokenModel model = new CommonTokenCountManager(null, "eng").getLangTokens("eng").getValue();
+        assertTrue(model instanceof CompactLangModel);
+        //languages without a model get a shared empty model, which can't be changed either
+        assertFalse(new CommonTokenCountManager(null, "").getLangTokens("xx").getValue()
+                instanceof LangModel);
+        Map<String, Long> counts = model.getCounts();
+        assertTrue(counts.size() > 10000);
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            char[] token = e.getKey().toCharArray();
+            assertTrue(model.contains(token, 0, token.length));
+            assertEquals((long) e.getValue(), model.getCount(token, 0, token.length));
+        }
+    }
+
+    private static void assertModel(TokenModel model) {
+        assertEquals(3, model.getTokens().size());
+        assertTrue(model.contains("the"));
+        assertTrue(model.contains("xtheandx".toCharArray(), 4, 3));
+        assertFalse(model.contains("th"));
+        assertFalse(model.contains("___url___"));
+        assertEquals(2, model.getCount("\uD83D\uDE00"));
+        assertEquals(50, model.getCount("xtheandx".toCharArray(), 4, 3));
+        assertEquals(0, model.getCount("theand".toCharArray(), 0, 6));
+        assertEquals(0.1, model.getProbability("the"), 0.0000001);
+        assertEquals(0.001, model.getProbability("unseen"), 0.0000001);
+        assertEquals(0.001, model.getUnseenProbability(), 0.0000001);
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.tika.eval.tokens;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.IOException;
 import java.util.Date;
@@ -27,6 +28,7 @@ import java.util.Map;
 import java.util.Random;
 
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
@@ -109,6 +111,62 @@ public class TokenCounterTest {
         assertEquals(new Integer(1), tokens.get("林斯"));
     }
 
+    @Test
+    public void testTokenCounts() throws Exception {
+        TokenCounts tokenCounts = new TokenCounts();
+        Map<String, MutableInt> expected = new HashMap<>();
+        char[] buffer = new char[20];
+        Random r = new Random();
+        for (int i = 0; i < 1000; i++) {
+            //include a supplementary character to check the code point counts
+            String token = (i % 3 == 0 ? "\uD83D\uDE00" : "t") + r.nextInt(200);
+            int offset = r.nextInt(5);
+            token.getChars(0, token.length(), buffer, offset);
+            tokenCounts.increment(buffer, offset, token.length());
+            MutableInt cnt = expected.get(token);
+            if (cnt == null) {
+                expected.put(token, new MutableInt(1));
+            } else {
+                cnt.increment();
+            }
+            if (i == 500) {
+                //the map must be kept up to date once it has been built
+                assertEquals(expected, tokenCounts.getTokens());
+            }
+        }
+        assertEquals(1000, tokenCounts.getTotalTokens());
+        assertEquals(expected.size(), tokenCounts.getTotalUniqueTokens());
+        assertEquals(expected, tokenCounts.getTokens());
+        for (int i = 0; i < tokenCounts.getTotalUniqueTokens(); i++) {
+            String token = tokenCounts.getToken(i);
+            assertSame(token, tokenCounts.getToken(i));
+            assertEquals(expected.get(token).intValue(), tokenCounts.getCount(i));
+            assertEquals(token.codePointCount(0, token.length()), tokenCounts.getCodePointCount(i));
+        }
+    }
+
+    @Test
+    public void testWeightedSummaryStatistics() throws Exception {
+        SummaryStatistics expected = new SummaryStatistics();
+        WeightedSummaryStatistics weighted = new WeightedSummaryStatistics();
+        Random r = new Random();
+        for (int i = 0; i < 100; i++) {
+            int value = 1 + r.nextInt(20);
+            int weight = r.nextInt(10);
+            for (int j = 0; j < weight; j++) {
+                expected.addValue(value);
+            }
+            weighted.addValue(value, weight);
+        }
+        assertEquals(expected.getN(), weighted.getN());
+        assertEquals(expected.getSum(), weighted.getSum(), 0.0000001);
+        assertEquals(expected.getMin(), weighted.getMin(), 0.0000001);
+        assertEquals(expected.getMax(), weighted.getMax(), 0.0000001);
+        assertEquals(expected.getMean(), weighted.getMean(), 0.0000001);
+        assertEquals(expected.getStandardDeviation(), weighted.getStandardDeviation(), 0.0000001);
+        assertEquals(expected.getGeometricMean(), weighted.getGeometricMean(), 0.0000001);
+    }
+
     private String generateString() {
 
         Random r = new Random();
@@ -18,25 +18,20 @@
 package org.apache.tika.parser.csv;
 
 import java.io.BufferedReader;
-import java.io.EOFException;
 import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import org.apache.commons.io.input.ProxyReader;
-import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 
 class CSVSniffer {
     private static final int DEFAULT_MARK_LIMIT = 10000;
     private static final double DEFAULT_MIN_CONFIDENCE = 0.50;
-    private static final int PUSH_BACK = 2;
+    private static final int BUFFER_SIZE = 4096;
     static final int EOF = -1;
     static final int NEW_LINE = '\n';
     static final int CARRIAGE_RETURN = '\r';
@@ -56,19 +51,48 @@ class CSVSniffer {
         this.minConfidence = minConfidence;
     }
 
+    /**
+     * Tests all the delimiters in a single pass over at most
+     * markLimit - 1 characters (not bytes!) of the reader, which
+     * is reset to where it was before returning.
+     */
     List<CSVResult> sniff(Reader reader) throws IOException {
         if (! reader.markSupported()) {
             reader = new BufferedReader(reader);
         }
-        List<CSVResult> ret = new ArrayList<>();
-        for (char delimiter : delimiters) {
-            reader.mark(markLimit);
-            try {
-                CSVResult result = new Snifflet(delimiter).sniff(reader);
-                ret.add(result);
-            } finally {
-                reader.reset();
+        Snifflet[] snifflets = new Snifflet[delimiters.length];
+        for (int i = 0; i < delimiters.length; i++) {
+            snifflets[i] = new Snifflet(delimiters[i]);
+        }
+
+        int limit = Math.max(markLimit - 1, 0);
+        int charsRead = 0;
+        boolean hitMarkLimit = true;
+        reader.mark(markLimit);
+        try {
+            char[] buffer = new char[Math.min(limit, BUFFER_SIZE)];
+            int active = snifflets.length;
+            while (charsRead < limit && active > 0) {
+                int n = reader.read(buffer, 0, Math.min(buffer.length, limit - charsRead));
+                if (n == EOF) {
+                    hitMarkLimit = false;
+                    break;
+                }
+                charsRead += n;
+                active = 0;
+                for (Snifflet snifflet : snifflets) {
+                    if (snifflet.update(buffer, 0, n)) {
+                        active++;
+                    }
+                }
             }
+        } finally {
+            reader.reset();
+        }
+
+        List<CSVResult> ret = new ArrayList<>();
+        for (Snifflet snifflet : snifflets) {
+            ret.add(snifflet.finish(hitMarkLimit));
         }
         Collections.sort(ret);
         return ret;
@@ -97,217 +121,216 @@ class CSVSniffer {
 
 
     //inner class that tests a single hypothesis/combination
-    //of parameters for delimiter and quote character
-    //this will throw an EOF before reading beyond the
-    //markLimit number of characters (not bytes!)
+    //of parameters for delimiter and quote character.
+    //It is fed the characters chunk by chunk, so that all
+    //hypotheses are tested in the same pass over the reader,
+    //and keeps track of where it is within a cell in state
     private class Snifflet {
 
+        //in between cells, or in an unquoted cell
+        private static final int CELL = 0;
+        //skipping spaces after a delimiter
+        private static final int AFTER_DELIMITER = 1;
+        //within an encapsulated cell
+        private static final int QUOTED = 2;
+        //just read a quote within an encapsulated cell; either
+        //an escaped quote or the end of the cell follows
+        private static final int QUOTE = 3;
+        //skipping spaces after an encapsulated cell, which must
+        //then be followed by a delimiter or a new line
+        private static final int AFTER_QUOTED = 4;
+        //skipping consecutive '\r\n' in any order
+        private static final int NEW_LINES = 5;
+        //parse exception, nothing more to learn
+        private static final int DONE = 6;
+
         private final char delimiter;
 
         //hardcode this for now
         private final char quoteCharacter = '"';
 
-        Map<Integer, MutableInt> rowLengthCounts = new HashMap<>();
-        int charsRead = 0;
+        //number of rows by number of columns
+        int[] rowLengthCounts = new int[16];
+        int totalRows = 0;
+        //count of the most common row length with more than one column
+        int maxRowLengthCount = -1;
         int colCount = 0;
         int encapsulated = 0; //number of cells that are encapsulated in dquotes (for now)
         boolean parseException = false;
 
+        int state = CELL;
+        boolean unquoted = false;
+        //the character that started the last completed step in CELL state
+        int lastC = -1;
+        //the character that left the CELL state, it becomes lastC
+        //once the cell, delimiter or new lines are over
+        int pendingC = -1;
+
         public Snifflet(char delimiter) {
             this.delimiter = delimiter;
         }
 
-        CSVResult sniff(Reader r) throws IOException {
-            boolean eof = false;
-            boolean hitMarkLimit = false;
-            int lastC = -1;
-            StringBuilder unquoted = new StringBuilder();
-            try (PushbackReader reader = new PushbackReader(new CloseShieldReader(r), PUSH_BACK)) {
-                int c = read(reader);
-                while (c != EOF) {
+        /**
+         * @return <code>false</code> if the result is already known
+         */
+        boolean update(char[] chars, int offset, int length) {
+            for (int i = offset; i < offset + length && state != DONE; i++) {
+                update(chars[i]);
+            }
+            return state != DONE;
+        }
+
+        private void update(char c) {
+            switch (state) {
+                case AFTER_DELIMITER:
+                    if (c == SPACE) {
+                        return;
+                    }
+                    endStep();
+                    break;
+                case QUOTED:
                     if (c == quoteCharacter) {
-                        handleUnquoted(unquoted);
-                        //test to make sure there isn't an unencapsulated quote character in the middle of a cell
-                        if (lastC > -1 && lastC != delimiter && lastC != NEW_LINE && lastC != CARRIAGE_RETURN) {
-                            parseException = true;
-                            return calcResult();
-                        }
-                        //TODO: test to make sure cell doesn't start with escaped ""the quick brown cat"
-                        boolean correctlyEncapsulated = consumeQuoted(reader, quoteCharacter);
-                        if (! correctlyEncapsulated) {
-                            parseException = true;
-                            return calcResult();
-                        }
-                    } else if (c == delimiter) {
-                        handleUnquoted(unquoted);
-                        endColumn();
-                        consumeSpaceCharacters(reader);
-                    } else if (c == NEW_LINE || c == CARRIAGE_RETURN) {
-                        if (unquoted.length() > 0) {
-                            endColumn();
-                        }
-                        handleUnquoted(unquoted);
-                        endRow();
-                        consumeNewLines(reader);
-                    } else {
-                        unquoted.append((char) c);
+                        state = QUOTE;
                     }
-                    lastC = c;
-                    c = read(reader);
-                }
-            } catch (HitMarkLimitException e) {
-                hitMarkLimit = true;
-            } catch (UnsurprisingEOF e) {
-                //totally ignore
-            } catch (EOFException e) {
-                //the consume* throw this to avoid
-                //having to check -1 every time and
-                //having to rely on potentially wonky
-                //inputstreams not consistently returning -1
-                //after hitting EOF and returning the first -1.
-                //Yes.  That's a thing.
-                eof = true;
-            } finally {
-                r.reset();
+                    return;
+                case QUOTE:
+                    //this currently assumes excel "escaping" of double quotes:
+                    //'the " quick' -> "the "" quick"
+                    //we can make this more interesting later with other
+                    //escaping options
+                    if (c == quoteCharacter) {
+                        state = QUOTED;
+                        return;
+                    }
+                    encapsulated++;
+                    endColumn();
+                    state = AFTER_QUOTED;
+                    //fall through
+                case AFTER_QUOTED:
+                    if (c == SPACE) {
+                        return;
+                    }
+                    //make sure that the next character is a
+                    //delimiter or a new line
+                    if (c != delimiter && c != NEW_LINE && c != CARRIAGE_RETURN) {
+                        parseException = true;
+                        state = DONE;
+                        return;
+                    }
+                    endStep();
+                    break;
+                case NEW_LINES:
+                    if (c == NEW_LINE || c == CARRIAGE_RETURN) {
+                        return;
+                    }
+                    endStep();
+                    break;
+                case DONE:
+                    return;
+                default:
+                    break;
             }
-            //if you've hit the marklimit or an eof on a truncated file
-            //don't add the last row's info
-            if (!hitMarkLimit && !eof && lastC != NEW_LINE && lastC != CARRIAGE_RETURN) {
-                handleUnquoted(unquoted);
+
+            if (c == quoteCharacter) {
+                unquoted = false;
+                //test to make sure there isn't an unencapsulated quote character in the middle of a cell
+                if (lastC > -1 && lastC != delimiter && lastC != NEW_LINE && lastC != CARRIAGE_RETURN) {
+                    parseException = true;
+                    state = DONE;
+                    return;
+                }
+                //TODO: test to make sure cell doesn't start with escaped ""the quick brown cat"
+                startStep(c, QUOTED);
+            } else if (c == delimiter) {
+                unquoted = false;
                 endColumn();
+                startStep(c, AFTER_DELIMITER);
+            } else if (c == NEW_LINE || c == CARRIAGE_RETURN) {
+                if (unquoted) {
+                    endColumn();
+                }
+                unquoted = false;
                 endRow();
+                startStep(c, NEW_LINES);
+            } else {
+                unquoted = true;
+                lastC = c;
             }
-            return calcResult();
-        }
-
-        private CSVResult calcResult() {
-            double confidence = getConfidence();
-            MediaType mediaType = TextAndCSVParser.CSV;
-            if (delimiter == '\t') {
-                mediaType = TextAndCSVParser.TSV;
-            }
-            return new CSVResult(confidence, mediaType, delimiter);
         }
 
-        private void handleUnquoted(StringBuilder unquoted) {
-            if (unquoted.length() > 0) {
-                unquoted(unquoted.toString());
-                unquoted.setLength(0);
-            }
+        private void startStep(int c, int state) {
+            pendingC = c;
+            this.state = state;
         }
 
-        void consumeSpaceCharacters(PushbackReader reader) throws IOException {
-            int c = read(reader);
-            while (c == SPACE) {
-                c = read(reader);
-            }
-            if (c == EOF) {
-                throw new UnsurprisingEOF();
-            }
-            unread(reader, c);
+        private void endStep() {
+            lastC = pendingC;
+            state = CELL;
         }
 
-
         /**
-         *
-         * @param reader
-         * @param quoteCharacter
-         * @return whether or not this was a correctly encapsulated cell
-         * @throws UnsurprisingEOF if the file ended immediately after the close quote
-         * @throws EOFException if the file ended in the middle of the encapsulated section
-         * @throws IOException on other IOExceptions
+         * @param hitMarkLimit whether the characters ended at the mark
+         *                     limit rather than at the end of the reader
          */
-        boolean consumeQuoted(PushbackReader reader, int quoteCharacter) throws IOException {
-            //this currently assumes excel "escaping" of double quotes:
-            //'the " quick' -> "the "" quick"
-            //we can make this more interesting later with other
-            //escaping options
-            int c = read(reader);
-            while (c != -1) {
-                if (c == quoteCharacter) {
-                    int nextC = read(reader);
-                    if (nextC == EOF) {
-                        encapsulated++;
-                        endColumn();
-                        throw new UnsurprisingEOF();
-                    } else if (nextC != quoteCharacter) {
+        CSVResult finish(boolean hitMarkLimit) {
+            //if you've hit the marklimit or an eof on a truncated file
+            //don't add the last row's info
+            if (!hitMarkLimit) {
+                boolean addLastRow;
+                switch (state) {
+                    case QUOTE:
+                        //the file ended immediately after the close quote
                         encapsulated++;
                         endColumn();
-                        unread(reader, nextC);
-                        consumeSpaceCharacters(reader);
-                        //now make sure that the next character is eof, \r\n
-                        //or a delimiter
-                        nextC = read(reader);
-                        if (nextC == EOF) {
-                            throw new UnsurprisingEOF();
-                        } else if (nextC == NEW_LINE || nextC == CARRIAGE_RETURN) {
-                            unread(reader, nextC);
-                            return true;
-                        } else if (nextC != delimiter) {
-                            unread(reader, nextC);
-                            return false;
-                        }
-                        unread(reader, nextC);
-                        return true;
-                    }
+                        addLastRow = true;
+                        break;
+                    case CELL:
+                    case AFTER_DELIMITER:
+                    case AFTER_QUOTED:
+                        addLastRow = true;
+                        break;
+                    default:
+                        //truncated in the middle of an encapsulated
+                        //cell or after the last new line
+                        addLastRow = false;
+                        break;
+                }
+                if (addLastRow && lastC != NEW_LINE && lastC != CARRIAGE_RETURN) {
+                    endColumn();
+                    endRow();
                 }
-                c = read(reader);
-            }
-            throw new EOFException();
-        }
-
-        private int read(PushbackReader reader) throws IOException {
-            if (charsRead >= markLimit -1) {
-                throw new HitMarkLimitException();
-            }
-            int c = reader.read();
-            if (c == EOF) {
-                return EOF;
             }
-            charsRead++;
-            return c;
+            return calcResult();
         }
 
-        private void unread(PushbackReader reader, int c) throws IOException {
-            if (c != EOF) {
-                reader.unread(c);
-                charsRead--;
-            }
-        }
-        //consume all consecutive '\r\n' in any order
-        void consumeNewLines(PushbackReader reader) throws IOException {
-            int c = read(reader);
-            while (c == NEW_LINE || c == CARRIAGE_RETURN) {
-                c = read(reader);
-            }
-            if (c == EOF) {
-                throw new EOFException();
+        private CSVResult calcResult() {
+            double confidence = getConfidence();
+            MediaType mediaType = TextAndCSVParser.CSV;
+            if (delimiter == '\t') {
+                mediaType = TextAndCSVParser.TSV;
             }
-            unread(reader, c);
-            return;
+            return new CSVResult(confidence, mediaType, delimiter);
         }
 
-
         void endColumn() {
             colCount++;
         }
 
         void endRow() {
-            MutableInt cnt = rowLengthCounts.get(colCount);
-            if (cnt == null) {
-                cnt = new MutableInt(1);
-                rowLengthCounts.put(colCount, cnt);
-            } else {
-                cnt.increment();
+            if (colCount >= rowLengthCounts.length) {
+                rowLengthCounts = Arrays.copyOf(rowLengthCounts,
+                        Math.max(colCount + 1, 2 * rowLengthCounts.length));
+            }
+            int count = ++rowLengthCounts[colCount];
+            //require that numCols > 1 so that you had at least
+            //one delimiter in that row
+            if (colCount > 1 && count > maxRowLengthCount) {
+                maxRowLengthCount = count;
             }
+            totalRows++;
             colCount = 0;
         }
 
-        void unquoted(String string) {
-            //TODO -- do some analysis to make sure you don't have
-            //large tokens like 2,3,2,3,2,3,
-        }
-
         double getConfidence() {
             double confidence = 0.0f;
 
@@ -333,19 +356,7 @@ class CSVSniffer {
         }
 
         private double calculateColumnCountConsistency() {
-            int max = -1;
-            int totalRows = 0;
-            //find the most common row
-            for (Map.Entry<Integer, MutableInt> e : rowLengthCounts.entrySet()) {
-                int numCols = e.getKey();
-                int count = e.getValue().intValue();
-                //require that numCols > 1 so that you had at least
-                //one delimiter in that row
-                if (numCols > 1 && count > max) {
-                    max = count;
-                }
-                totalRows += count;
-            }
+            int max = maxRowLengthCount;
             //if there's not enough info
             if (max < 0 || totalRows < 3) {
                 return 0.0;
@@ -357,23 +368,4 @@ class CSVSniffer {
         }
 
     }
-
-    private static class UnsurprisingEOF extends EOFException {
-
-    }
-
-    private static class HitMarkLimitException extends EOFException {
-
-    }
-
-    private class CloseShieldReader extends ProxyReader {
-        public CloseShieldReader(Reader r) {
-            super(r);
-        }
-
-        @Override
-        public void close() throws IOException {
-            //do nothing
-        }
-    }
 }
@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.microsoft;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the names of the top level entries of an OLE2 file, and the
+ * contents of small top level streams, straight from a stream. Only the
+ * header, the FAT, DIFAT and directory sectors, and the sectors of the
+ * streams that are asked for are looked at, and the stream is buffered
+ * only as far as the furthest of those sectors, so detection doesn't need
+ * to spool the whole file to disk first.
+ * <p>
+ * The caller is responsible for marking and resetting the stream.
+ */
+class OLE2DirectoryReader {
+
+    private static final int END_OF_CHAIN = -2;
+
+    private static final int NO_STREAM = -1;
+
+    private static final int HEADER_DIFAT_ENTRIES = 109;
+
+    private static final int DIRECTORY_ENTRY_SIZE = 128;
+
+    private static final int TYPE_STREAM = 2;
+
+    private static final int TYPE_ROOT = 5;
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final InputStream stream;
+
+    private final int limit;
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+
+    private int buffered = 0;
+
+    private int sectorShift;
+
+    private int sectorSize;
+
+    private int miniSectorShift;
+
+    private long miniStreamCutoff;
+
+    private int entriesPerSector;
+
+    private final List<Integer> difatSectors = new ArrayList<>();
+
+    private Chain directory;
+
+    private Chain miniFat;
+
+    private Chain miniStream;
+
+    private Map<String, Entry> topLevel;
+
+    /**
+     * @param stream stream positioned at the start of the OLE2 file
+     * @param limit maximum number of bytes to read from the stream
+     */
+    OLE2DirectoryReader(InputStream stream, int limit) {
+        this.stream = stream;
+        this.limit = limit;
+    }
+
+    /**
+     * @return names of the entries in the root directory
+     * @throws LimitReachedException if the directory is beyond the limit
+     * @throws IOException if the file is not a valid OLE2 file
+     */
+    Set<String> getTopLevelNames() throws IOException {
+        if (topLevel == null) {
+            readHeader();
+            topLevel = readTopLevelEntries();
+        }
+        return topLevel.keySet();
+    }
+
+    /**
+     * @param name name of a stream in the root directory
+     * @param maxLength maximum number of bytes to read
+     * @return up to maxLength bytes of the stream, or <code>null</code>
+     *         if there is no such stream
+     * @throws IOException if the stream can't be read within the limit
+     */
+    byte[] readTopLevelStream(String name, int maxLength) throws IOException {
+        getTopLevelNames();
+        Entry entry = topLevel.get(name);
+        if (entry == null || entry.type != TYPE_STREAM) {
+            return null;
+        }
+        int length = (int) Math.min(entry.size, maxLength);
+        byte[] bytes = new byte[length];
+        boolean mini = entry.size < miniStreamCutoff;
+        int unit = mini ? 1 << miniSectorShift : sectorSize;
+        int sector = entry.start;
+        for (int pos = 0; pos < length; pos += unit) {
+            if (sector < 0) {
+                throw new IOException("Stream " + name + " ends early");
+            }
+            long offset = mini ? miniSectorOffset(sector) : sectorOffset(sector);
+            int n = Math.min(unit, length - pos);
+            ensure(offset + n);
+            System.arraycopy(buffer, (int) offset, bytes, pos, n);
+            if (pos + n < length) {
+                sector = mini ? miniFat.next(sector) : nextSector(sector);
+            }
+        }
+        return bytes;
+    }
+
+    private void readHeader() throws IOException {
+        ensure(512);
+        if (getLong(0) != 0xe11ab1a1e011cfd0L) {
+            throw new IOException("Not an OLE2 file");
+        }
+        sectorShift = getUShort(0x1e);
+        miniSectorShift = getUShort(0x20);
+        if ((sectorShift != 9 && sectorShift != 12) || miniSectorShift != 6) {
+            throw new IOException("Unsupported sector sizes");
+        }
+        sectorSize = 1 << sectorShift;
+        entriesPerSector = sectorSize / 4;
+        miniStreamCutoff = getInt(0x38) & 0xffffffffL;
+
+        directory = new Chain(getInt(0x30));
+        miniFat = new Chain(getInt(0x3c));
+
+        int difatSector = getInt(0x44);
+        int difatCount = getInt(0x48);
+        for (int i = 0; i < difatCount && difatSector >= 0; i++) {
+            if (difatSectors.contains(difatSector)) {
+                throw new IOException("Loop in the DIFAT");
+            }
+            difatSectors.add(difatSector);
+            long offset = sectorOffset(difatSector);
+            ensure(offset + sectorSize);
+            difatSector = getInt(offset + sectorSize - 4);
+        }
+    }
+
+    private Map<String, Entry> readTopLevelEntries() throws IOException {
+        Entry root = readEntry(0);
+        if (root.type != TYPE_ROOT) {
+            throw new IOException("No root entry");
+        }
+        miniStream = new Chain(root.start);
+
+        //the entries of a directory form a tree through their siblings
+        Map<String, Entry> entries = new HashMap<>();
+        Set<Integer> seen = new HashSet<>();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.add(root.child);
+        while (! pending.isEmpty()) {
+            int id = pending.pop();
+            if (id == NO_STREAM) {
+                continue;
+            }
+            if (! seen.add(id)) {
+                throw new IOException("Loop in the directory");
+            }
+            Entry entry = readEntry(id);
+            entries.put(entry.name, entry);
+            pending.push(entry.right);
+            pending.push(entry.left);
+        }
+        return entries;
+    }
+
+    private Entry readEntry(int id) throws IOException {
+        if (id < 0) {
+            throw new IOException("Invalid directory entry " + id);
+        }
+        if ((long) id * DIRECTORY_ENTRY_SIZE >= limit) {
+            throw new LimitReachedException("Directory entry " + id + " is beyond the limit");
+        }
+        long position = (long) id * DIRECTORY_ENTRY_SIZE;
+        long offset = sectorOffset(directory.get((int) (position / sectorSize)))
+                + position % sectorSize;
+        ensure(offset + DIRECTORY_ENTRY_SIZE);
+
+        Entry entry = new Entry();
+        int nameLength = Math.min(getUShort(offset + 0x40), 64);
+        //the length includes the terminating null character
+        entry.name = new String(buffer, (int) offset, Math.max(nameLength - 2, 0),
+                StandardCharsets.UTF_16LE);
+        entry.type = buffer[(int) offset + 0x42];
+        entry.left = getInt(offset + 0x44);
+        entry.right = getInt(offset + 0x48);
+        entry.child = getInt(offset + 0x4c);
+        entry.start = getInt(offset + 0x74);
+        entry.size = getInt(offset + 0x78) & 0xffffffffL;
+        return entry;
+    }
+
+    private long sectorOffset(int sector) throws IOException {
+        if (sector < 0) {
+            throw new IOException("Invalid sector " + sector);
+        }
+        long offset = ((long) sector + 1) << sectorShift;
+        if (offset + sectorSize > limit) {
+            throw new LimitReachedException("Sector " + sector + " is beyond the limit");
+        }
+        return offset;
+    }
+
+    private long miniSectorOffset(int miniSector) throws IOException {
+        long position = (long) miniSector << miniSectorShift;
+        return sectorOffset(miniStream.get((int) (position / sectorSize)))
+                + position % sectorSize;
+    }
+
+    private int nextSector(int sector) throws IOException {
+        return getEntry(fatSector(sector / entriesPerSector), sector % entriesPerSector);
+    }
+
+    private int fatSector(int index) throws IOException {
+        if (index < HEADER_DIFAT_ENTRIES) {
+            return getInt(0x4c + 4 * index);
+        }
+        //the last entry of a DIFAT sector points to the next one
+        index -= HEADER_DIFAT_ENTRIES;
+        int difatIndex = index / (entriesPerSector - 1);
+        if (difatIndex >= difatSectors.size()) {
+            throw new IOException("FAT sector " + index + " missing from the DIFAT");
+        }
+        return getEntry(difatSectors.get(difatIndex), index % (entriesPerSector - 1));
+    }
+
+    private int getEntry(int sector, int index) throws IOException {
+        long offset = sectorOffset(sector) + 4L * index;
+        ensure(offset + 4);
+        return getInt(offset);
+    }
+
+    /**
+     * Makes sure that the first <code>end</code> bytes of the stream are
+     * in the buffer.
+     */
+    private void ensure(long end) throws IOException {
+        if (end > limit) {
+            throw new LimitReachedException("Reading beyond the limit of " + limit + " bytes");
+        }
+        if (end > buffer.length) {
+            long length = buffer.length;
+            while (length < end) {
+                length *= 2;
+            }
+            byte[] grown = new byte[(int) Math.min(length, limit)];
+            System.arraycopy(buffer, 0, grown, 0, buffered);
+            buffer = grown;
+        }
+        while (buffered < end) {
+            int n = stream.read(buffer, buffered, buffer.length - buffered);
+            if (n == -1) {
+                throw new EOFException("Truncated OLE2 file");
+            }
+            buffered += n;
+        }
+    }
+
+    private int getUShort(long offset) {
+        int i = (int) offset;
+        return (buffer[i] & 0xff) | (buffer[i + 1] & 0xff) << 8;
+    }
+
+    private int getInt(long offset) {
+        int i = (int) offset;
+        return (buffer[i] & 0xff) | (buffer[i + 1] & 0xff) << 8
+                | (buffer[i + 2] & 0xff) << 16 | (buffer[i + 3] & 0xff) << 24;
+    }
+
+    private long getLong(long offset) {
+        return (getInt(offset) & 0xffffffffL) | ((long) getInt(offset + 4)) << 32;
+    }
+
+    /**
+     * Thrown when the file may well be valid, but the part of it that is
+     * needed is beyond the limit.
+     */
+    static class LimitReachedException extends IOException {
+
+        LimitReachedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Sectors of a chain in the FAT (or in the mini FAT), found as far as
+     * they are needed.
+     */
+    private class Chain {
+
+        private final List<Integer> sectors = new ArrayList<>();
+
+        Chain(int start) {
+            sectors.add(start);
+        }
+
+        /**
+         * @return the index-th sector of the chain
+         */
+        int get(int index) throws IOException {
+            if (index > limit >> sectorShift) {
+                throw new LimitReachedException("Chain is longer than the limit");
+            }
+            while (sectors.size() <= index) {
+                int last = sectors.get(sectors.size() - 1);
+                if (last < 0) {
+                    throw new IOException("Chain ends early");
+                }
+                sectors.add(nextSector(last));
+            }
+            int sector = sectors.get(index);
+            if (sector == END_OF_CHAIN || sector < 0) {
+                throw new IOException("Chain ends early");
+            }
+            return sector;
+        }
+
+        /**
+         * Returns the sector following the given one in the chain that this
+         * chain is the allocation table of, used for the mini FAT.
+         */
+        int next(int sector) throws IOException {
+            if (sector < 0) {
+                throw new IOException("Invalid sector " + sector);
+            }
+            return getEntry(get(sector / entriesPerSector), sector % entriesPerSector);
+        }
+    }
+
+    private static class Entry {
+        String name;
+        int type;
+        int left;
+        int right;
+        int child;
+        int start;
+        long size;
+    }
+}
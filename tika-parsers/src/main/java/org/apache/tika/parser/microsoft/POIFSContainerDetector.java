@@ -152,6 +152,14 @@ public class POIFSContainerDetector implements Detector {
      * Serial version UID
      */
     private static final long serialVersionUID = -3028021741663605293L;
+    /**
+     * The OLE2 header signature
+     */
+    private static final byte[] OLE_HEADER = new byte[]{
+            (byte) 0xd0, (byte) 0xcf, (byte) 0x11, (byte) 0xe0,
+            (byte) 0xa1, (byte) 0xb1, (byte) 0x1a, (byte) 0xe1
+    };
+
     /**
      * An ASCII String "StarImpress"
      */
@@ -178,9 +186,30 @@ public class POIFSContainerDetector implements Detector {
      */
     private static final Pattern mppDataMatch = Pattern.compile("\\s\\s\\s\\d+");
 
+    /**
+     * Name of the CompObj stream
+     */
+    private static final String COMP_OBJ_NAME = "\u0001CompObj";
+
+    /**
+     * Maximum number of bytes of the CompObj stream to look at
+     * in incremental detection
+     */
+    private static final int MAX_COMP_OBJ_LENGTH = 64 * 1024;
+
+    /**
+     * Maximum number of bytes to buffer in memory in incremental detection.
+     * Files whose directory is further in are spooled to disk as usual,
+     * up to {@link #markLimit} bytes.
+     */
+    private static final int MAX_INCREMENTAL_READ_AHEAD = 8 * 1024 * 1024;
+
     @Field
     private int markLimit = 16 * 1024 * 1024;
 
+    @Field
+    private boolean incrementalDetection = false;
+
     /**
      * If a TikaInputStream is passed in to {@link #detect(InputStream, Metadata)},
      * and there is not an underlying file, this detector will spool up to {@link #markLimit}
@@ -198,6 +227,25 @@ public class POIFSContainerDetector implements Detector {
         this.markLimit = markLimit;
     }
 
+    /**
+     * If this is true and a TikaInputStream without an underlying file is
+     * passed in to {@link #detect(InputStream, Metadata)}, this detector
+     * reads only the header, the allocation tables and the directory of
+     * the OLE2 file (and the CompObj stream, when it's needed) from the
+     * stream, up to {@link #markLimit} bytes or 8MB, whichever is less,
+     * instead of spooling the stream to disk and opening it with POI.
+     * The stream is then left without an open container, so a parser that
+     * needs the whole file will spool it itself. If the directory is beyond
+     * 8MB (and within the markLimit), the stream is spooled as usual.
+     * <p>
+     * The default is false.
+     *
+     * @param incrementalDetection whether to detect without spooling to disk
+     */
+    public void setIncrementalDetection(boolean incrementalDetection) {
+        this.incrementalDetection = incrementalDetection;
+    }
+
     /**
      * Internal detection of the specific kind of OLE2 document, based on the
      * names of the top level streams within the file.
@@ -220,13 +268,39 @@ public class POIFSContainerDetector implements Detector {
      * @param root
      * @return
      */
-    protected static MediaType detect(Set<String> names, DirectoryEntry root) {
+    protected static MediaType detect(Set<String> names, final DirectoryEntry root) {
+        if (root == null) {
+            return detect(names, (CompObjSource) null);
+        }
+        return detect(names, new CompObjSource() {
+            @Override
+            byte[] read() throws IOException {
+                if (! root.hasEntry(COMP_OBJ_NAME)) {
+                    return null;
+                }
+                Entry e = root.getEntry(COMP_OBJ_NAME);
+                if (e != null && e.isDocumentEntry()) {
+                    DocumentNode dn = (DocumentNode) e;
+                    DocumentInputStream stream = new DocumentInputStream(dn);
+                    return IOUtils.toByteArray(stream);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Same as {@link #detect(Set, DirectoryEntry)}, with the contents of
+     * the CompObj stream read from the given source, if any, when the
+     * names alone are not enough.
+     */
+    private static MediaType detect(Set<String> names, CompObjSource compObj) {
         if (names == null || names.size() == 0) {
             return OLE;
         }
         for (String workbookEntryName : InternalWorkbook.WORKBOOK_DIR_ENTRY_NAMES) {
             if (names.contains(workbookEntryName)) {
-                MediaType tmp = processCompObjFormatType(root);
+                MediaType tmp = processCompObjFormatType(compObj);
                 if (tmp.equals(MS_GRAPH_CHART)) {
                     return MS_GRAPH_CHART;
                 }
@@ -241,7 +315,7 @@ public class POIFSContainerDetector implements Detector {
         } else if (names.contains("StarWriterDocument")) {
             return SDW;
         } else if (names.contains("StarDrawDocument3")) {
-            if (root == null) {
+            if (compObj == null) {
                 /*
                  * This is either StarOfficeDraw or StarOfficeImpress, we have
                  * to consult the CompObj to distinguish them, if this method is
@@ -252,7 +326,7 @@ public class POIFSContainerDetector implements Detector {
                  */
                 return OLE;
             } else {
-                return processCompObjFormatType(root);
+                return processCompObjFormatType(compObj);
             }
         } else if (names.contains("\u0005HwpSummaryInformation")) {
             // Hangul Word Processor v5+ (previous aren't OLE2-based)
@@ -299,8 +373,8 @@ public class POIFSContainerDetector implements Detector {
         } else if (names.contains("CONTENTS") && names.contains("\u0001CompObj")) {
             // CompObj is a general kind of OLE2 embedding, but this may be an old Works file
             // If we have the Directory, check
-            if (root != null) {
-                MediaType type = processCompObjFormatType(root);
+            if (compObj != null) {
+                MediaType type = processCompObjFormatType(compObj);
                 if (type == WPS) {
                     return WPS;
                 } else {
@@ -353,17 +427,13 @@ public class POIFSContainerDetector implements Detector {
      * (older) Works?
      * If not, it's likely an embedded resource
      */
-    private static MediaType processCompObjFormatType(DirectoryEntry root) {
+    private static MediaType processCompObjFormatType(CompObjSource compObj) {
+        if (compObj == null) {
+            return OLE;
+        }
         try {
-
-            if (! root.hasEntry("\u0001CompObj")) {
-                return OLE;
-            }
-            Entry e = root.getEntry("\u0001CompObj");
-            if (e != null && e.isDocumentEntry()) {
-                DocumentNode dn = (DocumentNode) e;
-                DocumentInputStream stream = new DocumentInputStream(dn);
-                byte[] bytes = IOUtils.toByteArray(stream);
+            byte[] bytes = compObj.read();
+            if (bytes != null) {
                 /*
                  * This array contains a string with a normal ASCII name of the
                  * application used to create this file. We want to search for that
@@ -383,9 +453,9 @@ public class POIFSContainerDetector implements Detector {
             throw e;
         } catch (Exception e) {
             /*
-             * "root.getEntry" can throw FileNotFoundException. The code inside
-             * "if" can throw IOExceptions. Theoretically. Practically no
-             * exceptions will likely ever appear.
+             * "root.read" can throw FileNotFoundException or other
+             * IOExceptions. Theoretically. Practically no exceptions will
+             * likely ever appear.
              *
              * Swallow all of them. If any occur, we just assume that we can't
              * distinguish between Draw and Impress and return something safe:
@@ -415,6 +485,19 @@ public class POIFSContainerDetector implements Detector {
         return false;
     }
 
+    // whether the array starts with all the bytes of the prefix
+    private static boolean arrayStartsWith(byte[] larger, byte[] prefix) {
+        if (larger.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (larger[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private Set<String> getTopLevelNames(TikaInputStream stream)
             throws IOException {
         // Force the document stream to a (possibly temporary) file
@@ -445,6 +528,42 @@ public class POIFSContainerDetector implements Detector {
         }
     }
 
+    /**
+     * Detects the type from the names of the top level entries read
+     * straight from the stream, without spooling it to disk.
+     *
+     * @return <code>null</code> if the directory is beyond the read-ahead
+     *         but within the markLimit, so the stream should be spooled
+     */
+    private MediaType detectIncrementally(TikaInputStream stream) throws IOException {
+        boolean capped = markLimit < 0 || markLimit > MAX_INCREMENTAL_READ_AHEAD;
+        int limit = capped ? MAX_INCREMENTAL_READ_AHEAD : markLimit;
+        final OLE2DirectoryReader reader = new OLE2DirectoryReader(stream, limit);
+        stream.mark(limit);
+        try {
+            Set<String> names;
+            try {
+                names = reader.getTopLevelNames();
+            } catch (OLE2DirectoryReader.LimitReachedException e) {
+                // The directory is beyond the read-ahead; spool the stream
+                // if the markLimit allows more, otherwise we don't know
+                // the file type
+                return capped ? null : OLE;
+            } catch (IOException e) {
+                // Broken or truncated file, so we don't know the file type
+                return OLE;
+            }
+            return detect(names, new CompObjSource() {
+                @Override
+                byte[] read() throws IOException {
+                    return reader.readTopLevelStream(COMP_OBJ_NAME, MAX_COMP_OBJ_LENGTH);
+                }
+            });
+        } finally {
+            stream.reset();
+        }
+    }
+
     private static Set<String> getTopLevelNames(DirectoryNode root) {
         Set<String> names = new HashSet<String>();
         for (Entry entry : root) {
@@ -474,7 +593,18 @@ public class POIFSContainerDetector implements Detector {
             }
         }
 
-        if (names == null) {
+        if (names == null && tis != null) {
+            // Check if the document starts with the OLE header,
+            // using the prefix shared with the other detectors
+            try {
+                byte[] prefix = tis.getPrefix(OLE_HEADER.length);
+                if (!arrayStartsWith(prefix, OLE_HEADER)) {
+                    return MediaType.OCTET_STREAM;
+                }
+            } catch (IOException e) {
+                return MediaType.OCTET_STREAM;
+            }
+        } else if (names == null) {
             // Check if the document starts with the OLE header
             input.mark(8);
             try {
@@ -492,6 +622,12 @@ public class POIFSContainerDetector implements Detector {
         }
 
         // We can only detect the exact type when given a TikaInputStream
+        if (names == null && tis != null && incrementalDetection && !tis.hasFile()) {
+            MediaType type = detectIncrementally(tis);
+            if (type != null) {
+                return type;
+            }
+        }
         if (names == null && tis != null) {
             // Look for known top level entry names to detect the document type
             names = getTopLevelNames(tis);
@@ -506,4 +642,16 @@ public class POIFSContainerDetector implements Detector {
             return detect(names, null);
         }
     }
+
+    /**
+     * Source of the contents of the CompObj stream, which is only read
+     * when the names of the top level entries are not enough.
+     */
+    private abstract static class CompObjSource {
+        /**
+         * @return the contents of the CompObj stream, or <code>null</code>
+         * if there is no such stream
+         */
+        abstract byte[] read() throws IOException;
+    }
 }
@@ -19,8 +19,10 @@ package org.apache.tika.parser.ner;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.tika.Tika;
+import org.apache.tika.config.Field;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.tika.parser.AbstractParser;
@@ -37,9 +39,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,6 +59,12 @@ import java.util.Set;
  * <p>The Named Entity recogniser implementation can be changed by setting the
  * system property {@value #SYS_PROP_NER_IMPL} value to a name of class that
  * implements {@link NERecogniser} contract</p>
+ * <p>The text is given to the recognisers in windows of at most
+ * {@link #setWindowSize(int) windowSize} characters, cut at sentence
+ * ends where possible, and the names found in all windows are merged.
+ * This keeps the memory use bounded for large documents; text beyond
+ * the first window is kept in a temporary file until it is written
+ * out after the names.</p>
  * @see OpenNLPNERecogniser
  * @see NERecogniser
  *
@@ -63,6 +76,7 @@ public class NamedEntityParser extends AbstractParser {
     public static final String DEFAULT_NER_IMPL =
             OpenNLPNERecogniser.class.getName() + "," + RegexNERecogniser.class.getName();
     public static final String SYS_PROP_NER_IMPL = "ner.impl.class";
+    public static final int DEFAULT_WINDOW_SIZE = 100000;
 
     public Tika secondaryParser;
 
@@ -74,6 +88,12 @@ public class NamedEntityParser extends AbstractParser {
     private volatile boolean initialized = false;
     private volatile boolean available = false;
 
+    /**
+     * Maximum number of characters given to a recogniser at once
+     */
+    @Field
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+
     private synchronized void initialize(ParseContext context) {
         if (initialized) {
             return;
@@ -133,24 +153,180 @@ public class NamedEntityParser extends AbstractParser {
                 ? new InputStreamReader(inputStream, StandardCharsets.UTF_8)
                 : secondaryParser.parse(inputStream);
 
-        String text = IOUtils.toString(reader);
-        IOUtils.closeQuietly(reader);
+        List<Map<String, Set<String>>> names = new ArrayList<>(nerChain.size());
+        for (int i = 0; i < nerChain.size(); i++) {
+            names.add(new HashMap<String, Set<String>>());
+        }
 
-        for (NERecogniser ner : nerChain) {
-            Map<String, Set<String>> names = ner.recognise(text);
-            if (names != null) {
-                for (Map.Entry<String, Set<String>> entry : names.entrySet()) {
+        int size = Math.max(windowSize, 1);
+        TemporaryResources tmp = new TemporaryResources();
+        try {
+            StringBuilder window = new StringBuilder();
+            Path spool = null;
+            Writer spoolWriter = null;
+            try {
+                char[] buffer = new char[8192];
+                int n = reader.read(buffer);
+                while (n != -1) {
+                    window.append(buffer, 0, n);
+                    while (window.length() >= size) {
+                        int end = getWindowEnd(window, size);
+                        String text = window.substring(0, end);
+                        window.delete(0, end);
+                        recognise(text, names);
+                        if (spoolWriter == null) {
+                            spool = tmp.createTempFile();
+                            spoolWriter = Files.newBufferedWriter(spool, StandardCharsets.UTF_8);
+                        }
+                        spoolWriter.write(text);
+                    }
+                    n = reader.read(buffer);
+                }
+            } finally {
+                IOUtils.closeQuietly(reader);
+                IOUtils.closeQuietly(spoolWriter);
+            }
+
+            String text = window.toString();
+            if (spool == null || text.length() > 0) {
+                recognise(text, names);
+            }
+            for (Map<String, Set<String>> typeNames : names) {
+                for (Map.Entry<String, Set<String>> entry : typeNames.entrySet()) {
+                    String mdKey = MD_KEY_PREFIX + entry.getKey();
+                    for (String name : entry.getValue()) {
+                        metadata.add(mdKey, name);
+                    }
+                }
+            }
+
+            XHTMLContentHandler xhtml = new XHTMLContentHandler(contentHandler, metadata);
+            if (spool == null) {
+                extractOutput(text.trim(), xhtml);
+            } else {
+                xhtml.startDocument();
+                xhtml.startElement("div");
+                try (Reader spooled = Files.newBufferedReader(spool, StandardCharsets.UTF_8)) {
+                    TrimmedOutput output = new TrimmedOutput(xhtml);
+                    char[] buffer = new char[8192];
+                    int n = spooled.read(buffer);
+                    while (n != -1) {
+                        output.write(buffer, n);
+                        n = spooled.read(buffer);
+                    }
+                    char[] rest = text.toCharArray();
+                    output.write(rest, rest.length);
+                }
+                xhtml.endElement("div");
+                xhtml.endDocument();
+            }
+        } finally {
+            tmp.dispose();
+        }
+    }
+
+    /**
+     * Runs the recognisers over the given text, and adds the names they
+     * find to the names found so far by each of them.
+     */
+    private void recognise(String text, List<Map<String, Set<String>>> names) {
+        for (int i = 0; i < nerChain.size(); i++) {
+            Map<String, Set<String>> found = nerChain.get(i).recognise(text);
+            if (found != null) {
+                Map<String, Set<String>> typeNames = names.get(i);
+                for (Map.Entry<String, Set<String>> entry : found.entrySet()) {
                     if (entry.getValue() != null) {
-                        String mdKey = MD_KEY_PREFIX + entry.getKey();
-                        for (String name : entry.getValue()) {
-                            metadata.add(mdKey, name);
+                        Set<String> set = typeNames.get(entry.getKey());
+                        if (set == null) {
+                            set = new LinkedHashSet<>();
+                            typeNames.put(entry.getKey(), set);
                         }
+                        set.addAll(entry.getValue());
                     }
                 }
             }
         }
-        XHTMLContentHandler xhtml = new XHTMLContentHandler(contentHandler, metadata);
-        extractOutput(text.trim(), xhtml);
+    }
+
+    /**
+     * Finds where to cut the next window of text: after the last sentence
+     * or line in the window, or otherwise at the last whitespace, so that
+     * names are not split between windows. Only the second half of the
+     * window is searched, so that windows don't get too small.
+     *
+     * @return end of the window, at most windowSize
+     */
+    static int getWindowEnd(CharSequence text, int windowSize) {
+        int whitespace = -1;
+        for (int i = windowSize - 1; i > windowSize / 2; i--) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                char previous = text.charAt(i - 1);
+                if (previous == '.' || previous == '!' || previous == '?'
+                        || previous == '\n') {
+                    return i;
+                }
+                if (whitespace == -1) {
+                    whitespace = i;
+                }
+            }
+        }
+        return whitespace != -1 ? whitespace : windowSize;
+    }
+
+    /**
+     * Writes text to the XHTML output with leading and trailing
+     * whitespace trimmed off, like {@link String#trim()} does.
+     */
+    private static class TrimmedOutput {
+
+        private final XHTMLContentHandler xhtml;
+
+        private final StringBuilder whitespace = new StringBuilder();
+
+        private boolean started = false;
+
+        TrimmedOutput(XHTMLContentHandler xhtml) {
+            this.xhtml = xhtml;
+        }
+
+        void write(char[] text, int length) throws SAXException {
+            int start = 0;
+            if (!started) {
+                while (start < length && text[start] <= ' ') {
+                    start++;
+                }
+                if (start == length) {
+                    return;
+                }
+            }
+            int end = length;
+            while (end > start && text[end - 1] <= ' ') {
+                end--;
+            }
+            if (end > start) {
+                if (whitespace.length() > 0) {
+                    xhtml.characters(whitespace.toString());
+                    whitespace.setLength(0);
+                }
+                xhtml.characters(text, start, end - start);
+                started = true;
+            }
+            whitespace.append(text, end, length - end);
+        }
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Sets the maximum number of characters given to a recogniser at once.
+     *
+     * @param windowSize window size in characters
+     */
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
     }
 
     /**
@@ -32,19 +32,29 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
 
 /**
  * An implementation of {@link NERecogniser} that finds names in text using Open NLP Model.
  * This implementation works with only one entity type. For chain this name finder instances,
  * see {@link OpenNLPNERecogniser}
+ * <p>
+ * The model is shared, but each thread that is finding names at the same
+ * time gets its own {@link NameFinderME}, as those are not thread safe.
+ * The name finders are reused from a pool.</p>
  */
 public class OpenNLPNameFinder implements NERecogniser {
 
     private static final Logger LOG = LoggerFactory.getLogger(OpenNLPNameFinder.class);
+    private static final Pattern MULTIPLE_SPACES = Pattern.compile("(\\s\\s+)");
+    private static final Pattern SPACE = Pattern.compile("\\s");
     private final String nameType;
     private final Set<String> nameTypes;
-    private NameFinderME nameFinder;
+    private TokenNameFinderModel model;
+    private final Queue<NameFinderME> nameFinders = new ConcurrentLinkedQueue<>();
     private boolean available;
 
     /**
@@ -58,8 +68,8 @@ public class OpenNLPNameFinder implements NERecogniser {
         InputStream nerModelStream  = getClass().getClassLoader().getResourceAsStream(nerModelPath);
         try {
             if (nerModelStream != null){
-                TokenNameFinderModel model = new TokenNameFinderModel(nerModelStream);
-                this.nameFinder = new NameFinderME(model);
+                this.model = new TokenNameFinderModel(nerModelStream);
+                this.nameFinders.add(new NameFinderME(model));
                 this.available = true;
             } else {
                 LOG.warn("Couldn't find model from {} using class loader", nerModelPath);
@@ -85,11 +95,11 @@ public class OpenNLPNameFinder implements NERecogniser {
     public static String[] tokenize(String text){
         //NOTE: replace this with a NLP tokenizer tool
         //clean + split
-        return text.trim().replaceAll("(\\s\\s+)", " ").split("\\s");
+        return SPACE.split(MULTIPLE_SPACES.matcher(text.trim()).replaceAll(" "));
     }
 
     @Override
-    public synchronized Map<String, Set<String>> recognise(String text) {
+    public Map<String, Set<String>> recognise(String text) {
         String[] tokens = tokenize(text);
         return findNames(tokens);
     }
@@ -100,13 +110,21 @@ public class OpenNLPNameFinder implements NERecogniser {
      * @return map of EntityType -&gt; set of entity names
      */
     public Map<String, Set<String>> findNames(String[] tokens) {
-        Span[] nameSpans = nameFinder.find(tokens);
-        String[] names = Span.spansToStrings(nameSpans, tokens);
-        Map<String, Set<String>> result = new HashMap<>();
-        if (names != null && names.length > 0) {
-            result.put(nameType, new HashSet<>(Arrays.asList(names)));
+        NameFinderME nameFinder = nameFinders.poll();
+        if (nameFinder == null) {
+            nameFinder = new NameFinderME(model);
+        }
+        try {
+            Span[] nameSpans = nameFinder.find(tokens);
+            String[] names = Span.spansToStrings(nameSpans, tokens);
+            Map<String, Set<String>> result = new HashMap<>();
+            if (names != null && names.length > 0) {
+                result.put(nameType, new HashSet<>(Arrays.asList(names)));
+            }
+            return result;
+        } finally {
+            nameFinder.clearAdaptiveData();
+            nameFinders.offer(nameFinder);
         }
-        nameFinder.clearAdaptiveData();
-        return result;
     }
 }
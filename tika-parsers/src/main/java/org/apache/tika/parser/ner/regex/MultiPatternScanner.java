@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.parser.ner.regex;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the matches of several regular expressions in a single pass over
+ * the text, with exactly the same results as running
+ * {@link Matcher#find()} over the text with each of them in turn.
+ * <p>
+ * For every character, a table tells which of the patterns can possibly
+ * start a match with that character. Only those are tried at a position,
+ * anchored there, so most positions try none or only a few of the
+ * patterns. The table is filled in lazily, a page of characters at a time,
+ * by probing each pattern with the character in a few contexts: a match
+ * is possible if the pattern matches, or needs more input to tell
+ * ({@link Matcher#hitEnd()}).
+ * <p>
+ * That probing can't account for lookbehinds and <code>\G</code>, so
+ * patterns that use these are still searched for with their own
+ * {@link Matcher#find()}.
+ */
+class MultiPatternScanner {
+
+    private static final int PAGE_BITS = 8;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /**
+     * Text that may come before a character, to probe the patterns
+     * for what word boundaries and line anchors do there.
+     */
+    private static final String[] CONTEXTS = { "", "a", " ", "\n" };
+
+    private final String[] types;
+
+    private final Pattern[] patterns;
+
+    /**
+     * Whether the pattern needs to be searched for on its own
+     */
+    private final boolean[] separate;
+
+    /**
+     * Number of longs in the bit set of patterns for a character
+     */
+    private final int words;
+
+    /**
+     * Per page of characters, the bit sets of the patterns that can
+     * start a match with each of the characters
+     */
+    private final AtomicReferenceArray<long[]> pages =
+            new AtomicReferenceArray<>((Character.MAX_VALUE + 1) >> PAGE_BITS);
+
+    MultiPatternScanner(Map<String, Pattern> patterns) {
+        int count = patterns.size();
+        this.types = new String[count];
+        this.patterns = new Pattern[count];
+        this.separate = new boolean[count];
+        this.words = Math.max((count + 63) / 64, 1);
+        int i = 0;
+        for (Map.Entry<String, Pattern> entry : patterns.entrySet()) {
+            types[i] = entry.getKey();
+            this.patterns[i] = entry.getValue();
+            String regex = entry.getValue().pattern();
+            separate[i] = regex.contains("(?<=") || regex.contains("(?<!")
+                    || regex.contains("\\G");
+            i++;
+        }
+    }
+
+    /**
+     * Starts finding matches in a text, which may be given in parts.
+     */
+    Scan newScan() {
+        return new Scan();
+    }
+
+    private long[] getPage(int index) {
+        long[] page = pages.get(index);
+        if (page == null) {
+            page = probe(index);
+            pages.set(index, page);
+        }
+        return page;
+    }
+
+    private long[] probe(int index) {
+        long[] page = new long[PAGE_SIZE * words];
+        int first = index << PAGE_BITS;
+        boolean surrogates = Character.isSurrogate((char) first);
+        for (int i = 0; i < patterns.length; i++) {
+            if (separate[i]) {
+                continue;
+            }
+            Matcher matcher = patterns[i].matcher("");
+            for (int c = 0; c < PAGE_SIZE; c++) {
+                // Code points beyond the BMP are not probed, just tried
+                if (surrogates || canStart(matcher, (char) (first + c))) {
+                    page[c * words + (i >> 6)] |= 1L << (i & 63);
+                }
+            }
+        }
+        return page;
+    }
+
+    private static boolean canStart(Matcher matcher, char c) {
+        for (String context : CONTEXTS) {
+            String text = context + c;
+            matcher.reset(text);
+            matcher.useTransparentBounds(true);
+            matcher.useAnchoringBounds(false);
+            matcher.region(context.length(), text.length());
+            if (matcher.lookingAt() || matcher.hitEnd()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The state of finding matches in one text. Not thread safe.
+     */
+    class Scan {
+
+        private final Matcher[] matchers = new Matcher[patterns.length];
+
+        /**
+         * Per pattern, the first position where the next match may start,
+         * like {@link Matcher#find()} continues after the previous match
+         */
+        private final int[] next = new int[patterns.length];
+
+        private final Set<String>[] names;
+
+        @SuppressWarnings("unchecked")
+        private Scan() {
+            names = new Set[patterns.length];
+            for (int i = 0; i < patterns.length; i++) {
+                matchers[i] = patterns[i].matcher("");
+            }
+        }
+
+        /**
+         * Finds the matches that start in the given range of the text.
+         * They may extend beyond the end of the range.
+         *
+         * @param text the text, or the part of it that's known yet
+         * @param from start of the range, where the previous range ended
+         * @param to end of the range
+         * @param end whether the text ends here, so that matches
+         *            of the empty string at the very end count too
+         */
+        void find(CharSequence text, int from, int to, boolean end) {
+            int length = text.length();
+            for (int i = 0; i < matchers.length; i++) {
+                matchers[i].reset(text);
+                matchers[i].useTransparentBounds(true);
+                matchers[i].useAnchoringBounds(false);
+                if (separate[i]) {
+                    findSeparately(i, from, to, end);
+                }
+            }
+
+            for (int p = from; p < to; p++) {
+                char c = text.charAt(p);
+                long[] page = getPage(c >> PAGE_BITS);
+                int base = (c & (PAGE_SIZE - 1)) * words;
+                for (int w = 0; w < words; w++) {
+                    long bits = page[base + w];
+                    while (bits != 0) {
+                        int i = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        if (next[i] <= p) {
+                            Matcher matcher = matchers[i];
+                            matcher.region(p, length);
+                            if (matcher.lookingAt()) {
+                                add(i, matcher);
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (end) {
+                for (int i = 0; i < matchers.length; i++) {
+                    if (!separate[i] && next[i] <= length) {
+                        Matcher matcher = matchers[i];
+                        matcher.region(length, length);
+                        if (matcher.lookingAt()) {
+                            add(i, matcher);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void findSeparately(int i, int from, int to, boolean end) {
+            Matcher matcher = matchers[i];
+            int length = matcher.regionEnd();
+            matcher.region(Math.max(from, Math.min(next[i], length)), length);
+            while (matcher.find()) {
+                if (matcher.start() >= to && !(end && matcher.start() == length)) {
+                    break;
+                }
+                add(i, matcher);
+            }
+        }
+
+        private void add(int i, Matcher matcher) {
+            if (names[i] == null) {
+                names[i] = new HashSet<>();
+            }
+            names[i].add(matcher.group(0));
+            next[i] = matcher.end() == matcher.start() ? matcher.end() + 1 : matcher.end();
+        }
+
+        /**
+         * Moves the positions back by the given number of characters,
+         * after those have been removed from the start of the text.
+         */
+        void shift(int count) {
+            for (int i = 0; i < next.length; i++) {
+                next[i] = Math.max(next[i] - count, 0);
+            }
+        }
+
+        /**
+         * @return map of entity type -&gt; set of names found so far
+         */
+        Map<String, Set<String>> getNames() {
+            Map<String, Set<String>> result = new HashMap<>();
+            for (int i = 0; i < names.length; i++) {
+                if (names[i] != null) {
+                    result.put(types[i], names[i]);
+                }
+            }
+            return result;
+        }
+    }
+}
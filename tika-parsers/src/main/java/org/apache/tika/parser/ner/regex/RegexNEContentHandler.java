@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.parser.ner.regex;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+/**
+ * Content handler decorator that finds the names of a
+ * {@link RegexNERecogniser} in the character content as it streams
+ * through, in a single pass and with bounded memory. The names are
+ * available from {@link #getNames()} once the document has ended.
+ * <p>
+ * The text is scanned in windows that overlap by {@value #OVERLAP}
+ * characters, so the names are the same as those found by
+ * {@link RegexNERecogniser#recognise(String)} in the whole text, unless
+ * a match or a lookbehind is longer than that, or a pattern uses
+ * <code>\G</code>.
+ */
+public class RegexNEContentHandler extends ContentHandlerDecorator {
+
+    private static final int WINDOW = 65536;
+
+    private static final int OVERLAP = 1024;
+
+    private final MultiPatternScanner.Scan scan;
+
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Start of the text that is yet to be scanned
+     */
+    private int scanned = 0;
+
+    private boolean ended = false;
+
+    public RegexNEContentHandler(ContentHandler handler, RegexNERecogniser recogniser) {
+        super(handler);
+        this.scan = recogniser.getScanner().newScan();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        append(ch, start, length);
+        super.characters(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        append(ch, start, length);
+        super.ignorableWhitespace(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        finish();
+        super.endDocument();
+    }
+
+    /**
+     * Returns the names found in the text, including the text not yet
+     * scanned if the document hasn't ended.
+     *
+     * @return map of entity type -&gt; set of names
+     */
+    public Map<String, Set<String>> getNames() {
+        finish();
+        return scan.getNames();
+    }
+
+    private void append(char[] ch, int start, int length) {
+        if (ended) {
+            return;
+        }
+        text.append(ch, start, length);
+        if (text.length() >= WINDOW + OVERLAP) {
+            // Scan up to where there's still enough text after each
+            // position, and keep enough before for the lookbehinds
+            int to = text.length() - OVERLAP;
+            scan.find(text, scanned, to, false);
+            int drop = to - OVERLAP;
+            text.delete(0, drop);
+            scan.shift(drop);
+            scanned = to - drop;
+        }
+    }
+
+    private void finish() {
+        if (!ended) {
+            ended = true;
+            scan.find(text, scanned, text.length(), true);
+            text.setLength(0);
+            scanned = 0;
+        }
+    }
+}
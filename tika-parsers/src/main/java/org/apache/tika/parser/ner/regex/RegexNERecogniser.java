@@ -24,6 +24,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -50,6 +51,9 @@ import java.util.regex.Pattern;
  * <i>For example, to extract week day from text:</i>
  * <pre>WEEK_DAY=(?i)((sun)|(mon)|(tues)|(thurs)|(fri)|((sat)(ur)?))(day)?
  * </pre>
+ * All the patterns are matched in a single pass over the text, see
+ * {@link MultiPatternScanner}. Use {@link RegexNEContentHandler} to find
+ * names in text as it is being parsed.
  * @since Nov. 7, 2015
  */
 public class RegexNERecogniser implements NERecogniser {
@@ -60,6 +64,7 @@ public class RegexNERecogniser implements NERecogniser {
     public Set<String> entityTypes = new HashSet<>();
     public Map<String, Pattern> patterns;
     private boolean available = false;
+    private MultiPatternScanner scanner;
 
     private static RegexNERecogniser INSTANCE;
 
@@ -93,6 +98,8 @@ public class RegexNERecogniser implements NERecogniser {
             LOG.error(e.getMessage(), e);
         }
         available = !entityTypes.isEmpty();
+        scanner = new MultiPatternScanner(patterns != null
+                ? patterns : Collections.<String, Pattern>emptyMap());
     }
 
     public synchronized static RegexNERecogniser getInstance() {
@@ -133,13 +140,12 @@ public class RegexNERecogniser implements NERecogniser {
 
     @Override
     public Map<String, Set<String>> recognise(String text) {
-        Map<String, Set<String>> result = new HashMap<>();
-        for (Map.Entry<String, Pattern> entry : patterns.entrySet()) {
-            Set<String> names = findMatches(text, entry.getValue());
-            if (names != null) {
-                result.put(entry.getKey(), names);
-            }
-        }
-        return result;
+        MultiPatternScanner.Scan scan = scanner.newScan();
+        scan.find(text, 0, text.length(), true);
+        return scan.getNames();
+    }
+
+    MultiPatternScanner getScanner() {
+        return scanner;
     }
 }
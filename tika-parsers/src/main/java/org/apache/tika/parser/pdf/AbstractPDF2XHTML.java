@@ -174,6 +174,9 @@ class AbstractPDF2XHTML extends PDFTextStripper {
 
     private final Set<String> fontNames = new HashSet<>();
 
+    //lazily created, see #renderPageForOCR
+    private PDFRenderer renderer = null;
+
     AbstractPDF2XHTML(PDDocument pdDocument, ContentHandler handler, ParseContext context, Metadata metadata,
                       PDFParserConfig config) throws IOException {
         this.pdDocument = pdDocument;
@@ -430,26 +433,12 @@ class AbstractPDF2XHTML extends PDFTextStripper {
         if (config.getOcrStrategy().equals(NO_OCR)) {
             return;
         }
-        TesseractOCRConfig tesseractConfig =
-                context.get(TesseractOCRConfig.class, tesseractOCRParser.getDefaultConfig());
-
-        if (! tesseractOCRParser.hasTesseract(tesseractConfig)) {
-            throw new TikaException("Tesseract is not available. "+
-                    "Please set the OCR_STRATEGY to NO_OCR or configure Tesseract correctly");
-        }
+        TesseractOCRConfig tesseractConfig = getTesseractConfig();
 
-        PDFRenderer renderer = new PDFRenderer(pdDocument);
         TemporaryResources tmp = new TemporaryResources();
         try {
-
-            int dpi = config.getOcrDPI();
-            BufferedImage image = renderer.renderImageWithDPI(pageIndex, dpi, config.getOcrImageType());
             Path tmpFile = tmp.createTempFile();
-            try (OutputStream os = Files.newOutputStream(tmpFile)) {
-                //TODO: get output format from TesseractConfig
-                ImageIOUtil.writeImage(image, config.getOcrImageFormatName(),
-                        os, dpi, config.getOcrImageQuality());
-            }
+            renderPageForOCR(pageIndex, tmpFile);
             try (InputStream is = TikaInputStream.get(tmpFile)) {
                 tesseractOCRParser.parseInline(is, xhtml, tesseractConfig);
             }
@@ -462,6 +451,34 @@ class AbstractPDF2XHTML extends PDFTextStripper {
         }
     }
 
+    TesseractOCRConfig getTesseractConfig() throws TikaException {
+        TesseractOCRConfig tesseractConfig =
+                context.get(TesseractOCRConfig.class, tesseractOCRParser.getDefaultConfig());
+
+        if (! tesseractOCRParser.hasTesseract(tesseractConfig)) {
+            throw new TikaException("Tesseract is not available. "+
+                    "Please set the OCR_STRATEGY to NO_OCR or configure Tesseract correctly");
+        }
+        return tesseractConfig;
+    }
+
+    /**
+     * Renders a page to an image file for OCR, with one renderer
+     * for all of the pages of the document.
+     */
+    void renderPageForOCR(int pageIndex, Path file) throws IOException {
+        if (renderer == null) {
+            renderer = new PDFRenderer(pdDocument);
+        }
+        int dpi = config.getOcrDPI();
+        BufferedImage image = renderer.renderImageWithDPI(pageIndex, dpi, config.getOcrImageType());
+        try (OutputStream os = Files.newOutputStream(file)) {
+            //TODO: get output format from TesseractConfig
+            ImageIOUtil.writeImage(image, config.getOcrImageFormatName(),
+                    os, dpi, config.getOcrImageQuality());
+        }
+    }
+
     @Override
     protected void endPage(PDPage page) throws IOException {
         metadata.add(PDF.CHARACTERS_PER_PAGE, totalCharsPerPage);
@@ -18,6 +18,7 @@ package org.apache.tika.parser.pdf;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.Path;
 
 import org.apache.commons.io.IOExceptionWithCause;
 import org.apache.pdfbox.pdmodel.PDDocument;
@@ -25,6 +26,7 @@ import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.text.TextPosition;
 import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ParseContext;
 import org.xml.sax.ContentHandler;
@@ -40,6 +42,11 @@ import java.io.IOException;
  */
 class OCR2XHTML extends AbstractPDF2XHTML {
 
+    //null unless pages are OCR'd concurrently
+    private OCRPipeline ocrPipeline = null;
+    //index of the next page to render for the ocrPipeline
+    private int nextPageToRender = -1;
+
     private OCR2XHTML(PDDocument document, ContentHandler handler, ParseContext context, Metadata metadata,
                       PDFParserConfig config)
             throws IOException {
@@ -82,6 +89,10 @@ class OCR2XHTML extends AbstractPDF2XHTML {
             } else {
                 throw new TikaException("Unable to extract PDF content", e);
             }
+        } finally {
+            if (ocr2XHTML != null && ocr2XHTML.ocrPipeline != null) {
+                ocr2XHTML.ocrPipeline.close();
+            }
         }
         if (ocr2XHTML.exceptions.size() > 0) {
             //throw the first
@@ -94,7 +105,11 @@ class OCR2XHTML extends AbstractPDF2XHTML {
     public void processPage(PDPage pdPage) throws IOException {
         try {
             startPage(pdPage);
-            doOCROnCurrentPage();
+            if (config.getOcrConcurrency() > 1) {
+                doPipelinedOCROnCurrentPage();
+            } else {
+                doOCROnCurrentPage();
+            }
             endPage(pdPage);
         } catch (TikaException|SAXException e) {
             throw new IOExceptionWithCause(e);
@@ -103,6 +118,46 @@ class OCR2XHTML extends AbstractPDF2XHTML {
         }
     }
 
+    /**
+     * Renders the pages ahead of the current one, up to the configured
+     * queue size, while Tesseract runs on the pages before them. The
+     * rendering stays on this thread, only Tesseract runs concurrently.
+     */
+    private void doPipelinedOCROnCurrentPage() throws IOException, TikaException, SAXException {
+        if (ocrPipeline == null) {
+            ocrPipeline = new OCRPipeline(tesseractOCRParser, getTesseractConfig(),
+                    config.getOcrConcurrency());
+            nextPageToRender = pageIndex;
+        }
+        int queueSize = config.getOcrRenderQueueSize() > 0 ?
+                config.getOcrRenderQueueSize() : 2 * config.getOcrConcurrency();
+        int numberOfPages = pdDocument.getNumberOfPages();
+        while (nextPageToRender < numberOfPages
+                && ocrPipeline.getPendingCount() < queueSize) {
+            //same page range as processPages
+            int pageNo = nextPageToRender + 1;
+            if (pageNo >= getStartPage() && pageNo <= getEndPage()) {
+                TemporaryResources tmp = new TemporaryResources();
+                try {
+                    Path image = tmp.createTempFile();
+                    renderPageForOCR(nextPageToRender, image);
+                    ocrPipeline.submit(nextPageToRender, image, tmp);
+                } catch (IOException e) {
+                    tmp.dispose();
+                    ocrPipeline.submitFailure(nextPageToRender, e);
+                }
+            }
+            nextPageToRender++;
+        }
+        try {
+            ocrPipeline.write(pageIndex, xhtml);
+        } catch (IOException e) {
+            handleCatchableIOE(e);
+        } catch (SAXException e) {
+            throw new IOExceptionWithCause("error writing OCR content from PDF", e);
+        }
+    }
+
     @Override
     protected void writeString(String text) throws IOException {
         //no-op
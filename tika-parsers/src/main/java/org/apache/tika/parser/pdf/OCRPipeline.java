@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.parser.pdf;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tika.exception.TikaException;
+import org.apache.tika.io.TemporaryResources;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ocr.TesseractOCRConfig;
+import org.apache.tika.parser.ocr.TesseractOCRParser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.XHTMLContentHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Runs Tesseract on rendered page images on a pool of threads, and hands
+ * back the OCR output of each page in the order that the pages are
+ * written. The page images are rendered by the caller, because a
+ * PDDocument can't be used from several threads.
+ * <p>
+ * There is a single pool for all the documents, sized by the largest
+ * concurrency asked for so far, so that the number of Tesseract processes
+ * stays bounded however many documents are parsed at the same time. Idle
+ * threads exit after a while, so the pool costs nothing when it isn't used.
+ */
+class OCRPipeline implements Closeable {
+
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private static final ThreadPoolExecutor EXECUTOR = newExecutor();
+
+    private final TesseractOCRParser tesseractOCRParser;
+    private final TesseractOCRConfig tesseractConfig;
+    private final Map<Integer, Page> pending = new HashMap<>();
+
+    OCRPipeline(TesseractOCRParser tesseractOCRParser, TesseractOCRConfig tesseractConfig,
+                int concurrency) {
+        this.tesseractOCRParser = tesseractOCRParser;
+        this.tesseractConfig = tesseractConfig;
+        ensurePoolSize(concurrency);
+    }
+
+    private static ThreadPoolExecutor newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger threadNumber = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "tika-pdf-ocr-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static synchronized void ensurePoolSize(int concurrency) {
+        if (concurrency > EXECUTOR.getMaximumPoolSize()) {
+            //grow the maximum first, the core size can't exceed it
+            EXECUTOR.setMaximumPoolSize(concurrency);
+            EXECUTOR.setCorePoolSize(concurrency);
+        }
+    }
+
+    /**
+     * @return number of pages that have been submitted but not written yet
+     */
+    int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Queues the rendered image of a page for OCR.
+     *
+     * @param pageIndex zero-based page index
+     * @param image rendered page image
+     * @param tmp temporary resources that hold the image; disposed once the page is OCR'd
+     */
+    void submit(int pageIndex, Path image, TemporaryResources tmp) {
+        Page page = new Page(image, tmp);
+        page.future = EXECUTOR.submit(page);
+        pending.put(pageIndex, page);
+    }
+
+    /**
+     * Records that a page couldn't be rendered. The exception is thrown
+     * when the page is written, as if the page had been OCR'd then.
+     */
+    void submitFailure(int pageIndex, IOException e) {
+        Page page = new Page(null, null);
+        page.failure = e;
+        pending.put(pageIndex, page);
+    }
+
+    /**
+     * Waits for the OCR output of the given page and writes it.
+     * Does nothing if the page hasn't been submitted.
+     */
+    void write(int pageIndex, XHTMLContentHandler xhtml)
+            throws IOException, SAXException, TikaException {
+        Page page = pending.remove(pageIndex);
+        if (page == null) {
+            return;
+        }
+        if (page.failure != null) {
+            throw page.failure;
+        }
+        PageContent content;
+        try {
+            content = page.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TikaException("Interrupted while waiting for OCR", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if (cause instanceof TikaException) {
+                throw (TikaException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new TikaException("Unexpected exception during OCR", cause);
+        }
+        content.replay(xhtml);
+    }
+
+    /**
+     * Cancels the pages that are still waiting, and deletes their images.
+     * The shared pool keeps running.
+     */
+    @Override
+    public void close() {
+        for (Page page : pending.values()) {
+            if (page.future != null) {
+                page.future.cancel(true);
+            }
+            if (page.tmp != null && page.claim()) {
+                try {
+                    page.tmp.close();
+                } catch (IOException e) {
+                    //swallow, the parse is over
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * A page image waiting for or in OCR. Whoever claims the page first,
+     * the Tesseract thread or {@link #close()}, deletes its image.
+     */
+    private class Page implements Callable<PageContent> {
+
+        private final Path image;
+        private final TemporaryResources tmp;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<PageContent> future;
+        private IOException failure;
+
+        private Page(Path image, TemporaryResources tmp) {
+            this.image = image;
+            this.tmp = tmp;
+        }
+
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public PageContent call() throws Exception {
+            if (! claim()) {
+                return null;
+            }
+            try (InputStream is = TikaInputStream.get(image)) {
+                PageContent content = new PageContent();
+                XHTMLContentHandler xhtml =
+                        new XHTMLContentHandler(new BodyContentHandler(content), new Metadata());
+                xhtml.startDocument();
+                tesseractOCRParser.parseInline(is, xhtml, tesseractConfig);
+                xhtml.endDocument();
+                return content;
+            } finally {
+                tmp.dispose();
+            }
+        }
+    }
+
+    /**
+     * Records the content of the body of an OCR'd page, so that it can be
+     * written once the pages before it have been written. Whitespace is
+     * left out, the {@link XHTMLContentHandler} adds it again.
+     */
+    private static class PageContent extends DefaultHandler {
+
+        private final List<Object[]> events = new ArrayList<>();
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) {
+            events.add(new Object[]{uri, localName, qName, new AttributesImpl(atts)});
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            events.add(new Object[]{uri, localName, qName});
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            char[] chars = new char[length];
+            System.arraycopy(ch, start, chars, 0, length);
+            events.add(new Object[]{chars});
+        }
+
+        private void replay(ContentHandler handler) throws SAXException {
+            for (Object[] event : events) {
+                if (event.length == 4) {
+                    handler.startElement((String) event[0], (String) event[1],
+                            (String) event[2], (Attributes) event[3]);
+                } else if (event.length == 3) {
+                    handler.endElement((String) event[0], (String) event[1], (String) event[2]);
+                } else {
+                    char[] chars = (char[]) event[0];
+                    handler.characters(chars, 0, chars.length);
+                }
+            }
+        }
+    }
+}
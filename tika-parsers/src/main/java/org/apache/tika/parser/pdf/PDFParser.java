@@ -493,6 +493,16 @@ public class PDFParser extends AbstractParser implements Initializable {
         defaultConfig.setOcrImageFormatName(formatName);
     }
 
+    @Field
+    void setOcrConcurrency(int ocrConcurrency) {
+        defaultConfig.setOcrConcurrency(ocrConcurrency);
+    }
+
+    @Field
+    void setOcrRenderQueueSize(int ocrRenderQueueSize) {
+        defaultConfig.setOcrRenderQueueSize(ocrRenderQueueSize);
+    }
+
 	@Field
 	void setExtractBookmarksText(boolean extractBookmarksText) {
 		defaultConfig.setExtractBookmarksText(extractBookmarksText);
@@ -139,6 +139,8 @@ public class PDFParserConfig implements Serializable {
     private ImageType ocrImageType = ImageType.GRAY;
     private String ocrImageFormatName = "png";
     private float ocrImageQuality = 1.0f;
+    private int ocrConcurrency = 1;
+    private int ocrRenderQueueSize = -1;
 
     private AccessChecker accessChecker;
 
@@ -240,6 +242,10 @@ public class PDFParserConfig implements Serializable {
 
         setOcrImageType(parseImageType(props.getProperty("ocrImageType")));
 
+        setOcrConcurrency(getIntProp(props.getProperty("ocrConcurrency"), getOcrConcurrency()));
+
+        setOcrRenderQueueSize(getIntProp(props.getProperty("ocrRenderQueueSize"), getOcrRenderQueueSize()));
+
         setExtractActions(getBooleanProp(props.getProperty("extractActions"), false));
 
         setExtractMarkedContent(getBooleanProp(props.getProperty("extractMarkedContent"), false));
@@ -744,6 +750,57 @@ public class PDFParserConfig implements Serializable {
         this.ocrImageQuality = ocrImageQuality;
     }
 
+    /**
+     * Number of pages that are run through Tesseract at the same time
+     * with the {@link OCR_STRATEGY#OCR_ONLY} strategy.
+     * @return number of concurrent Tesseract processes
+     */
+    public int getOcrConcurrency() {
+        return ocrConcurrency;
+    }
+
+    /**
+     * Number of pages that are run through Tesseract at the same time
+     * with the {@link OCR_STRATEGY#OCR_ONLY} strategy. If this is greater
+     * than 1, pages are rendered ahead while earlier pages are being OCR'd,
+     * and the OCR output is still written in page order. The other
+     * strategies always OCR one page at a time.
+     * <p>
+     * The Tesseract processes run on a single pool shared by all the documents,
+     * with as many threads as the largest value in use, so this also bounds
+     * the number of Tesseract processes when documents are parsed concurrently.
+     *
+     * @param ocrConcurrency number of concurrent Tesseract processes, default 1
+     */
+    public void setOcrConcurrency(int ocrConcurrency) {
+        if (ocrConcurrency < 1) {
+            throw new IllegalArgumentException("ocrConcurrency must be >= 1");
+        }
+        this.ocrConcurrency = ocrConcurrency;
+    }
+
+    /**
+     * Maximum number of rendered pages waiting for or in OCR when
+     * {@link #getOcrConcurrency()} is greater than 1.
+     * @return maximum number of pages rendered ahead, or -1 for twice
+     * the OCR concurrency
+     */
+    public int getOcrRenderQueueSize() {
+        return ocrRenderQueueSize;
+    }
+
+    /**
+     * Maximum number of rendered pages waiting for or in OCR when
+     * {@link #getOcrConcurrency()} is greater than 1.  Rendered pages are
+     * held in temporary files, so this bounds the disk used for a parse.
+     *
+     * @param ocrRenderQueueSize maximum number of pages rendered ahead,
+     *                           or -1 (the default) for twice the OCR concurrency
+     */
+    public void setOcrRenderQueueSize(int ocrRenderQueueSize) {
+        this.ocrRenderQueueSize = ocrRenderQueueSize;
+    }
+
     /**
      * Whether or not to extract PDActions from the file.
      * Most Action types are handled inline; javascript macros
@@ -861,6 +918,8 @@ public class PDFParserConfig implements Serializable {
         if (!getDropThreshold().equals(config.getDropThreshold())) return false;
         if (!getOcrStrategy().equals(config.getOcrStrategy())) return false;
         if (getOcrImageType() != config.getOcrImageType()) return false;
+        if (getOcrConcurrency() != config.getOcrConcurrency()) return false;
+        if (getOcrRenderQueueSize() != config.getOcrRenderQueueSize()) return false;
         if (!getOcrImageFormatName().equals(config.getOcrImageFormatName())) return false;
         if (getExtractActions() != config.getExtractActions()) return false;
         if (!getAccessChecker().equals(config.getAccessChecker())) return false;
@@ -885,6 +944,8 @@ public class PDFParserConfig implements Serializable {
         result = 31 * result + getOcrDPI();
         result = 31 * result + getOcrImageType().hashCode();
         result = 31 * result + getOcrImageFormatName().hashCode();
+        result = 31 * result + getOcrConcurrency();
+        result = 31 * result + getOcrRenderQueueSize();
         result = 31 * result + getAccessChecker().hashCode();
         result = 31 * result + (getCatchIntermediateIOExceptions() ? 1 : 0);
         result = 31 * result + (getExtractActions() ? 1 : 0);
@@ -911,6 +972,8 @@ public class PDFParserConfig implements Serializable {
                 ", ocrDPI=" + ocrDPI +
                 ", ocrImageType=" + ocrImageType +
                 ", ocrImageFormatName='" + ocrImageFormatName + '\'' +
+                ", ocrConcurrency=" + ocrConcurrency +
+                ", ocrRenderQueueSize=" + ocrRenderQueueSize +
                 ", accessChecker=" + accessChecker +
                 ", extractActions=" + extractActions +
                 ", catchIntermediateIOExceptions=" + catchIntermediateIOExceptions +
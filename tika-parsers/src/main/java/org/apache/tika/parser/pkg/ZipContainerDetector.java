@@ -104,13 +104,20 @@ public class ZipContainerDetector implements Detector {
             return MediaType.OCTET_STREAM;
         }
 
-        byte[] prefix = new byte[1024]; // enough for all known archive formats
-        input.mark(1024);
-        int length = -1;
-        try {
-            length = IOUtils.read(input, prefix);
-        } finally {
-            input.reset();
+        byte[] prefix;
+        int length;
+        if (TikaInputStream.isTikaInputStream(input)) {
+            //shared with the other detectors in the chain
+            prefix = TikaInputStream.cast(input).getPrefix(1024);
+            length = Math.min(1024, prefix.length);
+        } else {
+            prefix = new byte[1024]; // enough for all known archive formats
+            input.mark(1024);
+            try {
+                length = IOUtils.read(input, prefix);
+            } finally {
+                input.reset();
+            }
         }
 
         MediaType type = detectArchiveFormat(prefix, length);
@@ -17,6 +17,7 @@
 package org.apache.tika.detect;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -41,6 +42,7 @@ import org.apache.tika.mime.MediaTypeRegistry;
 import org.apache.tika.mime.MimeTypes;
 import org.apache.tika.parser.iwork.iwana.IWork13PackageParser;
 import org.apache.tika.parser.iwork.iwana.IWork18PackageParser;
+import org.apache.tika.parser.microsoft.POIFSContainerDetector;
 import org.apache.tika.parser.pkg.StreamingZipContainerDetector;
 import org.apache.tika.utils.XMLReaderUtils;
 import org.junit.After;
@@ -236,6 +238,51 @@ public class TestContainerAwareDetector extends MultiThreadedTikaTest {
         }
     }
 
+    @Test
+    public void testIncrementalOLE2Detection() throws Exception {
+        POIFSContainerDetector poifsDetector = new POIFSContainerDetector();
+        poifsDetector.setIncrementalDetection(true);
+        String[][] files = new String[][]{
+                {"testEXCEL.xls", "application/vnd.ms-excel"},
+                {"testWORD.doc", "application/msword"},
+                {"testPPT.ppt", "application/vnd.ms-powerpoint"},
+                {"test-outlook.msg", "application/vnd.ms-outlook"},
+                {"testVISIO.vsd", "application/vnd.visio"},
+                {"testWORKS2000.wps", "application/vnd.ms-works"},
+                {"testPROJECT2007.mpp", "application/vnd.ms-project"},
+                {"testQUATTRO.qpw", "application/x-quattro-pro; version=9"},
+                {"testStarOffice-5.2-draw.sda", "application/vnd.stardivision.draw"},
+                {"testStarOffice-5.2-impress.sdd", "application/vnd.stardivision.impress"},
+                {"testMSChart-govdocs-428996.ppt", "application/vnd.ms-powerpoint"},
+        };
+        for (String[] file : files) {
+            //not backed by a file, so that nothing needs to be spooled
+            try (TikaInputStream stream = TikaInputStream.get(
+                    getResourceAsStream("/test-documents/" + file[0]))) {
+                assertEquals(file[0], MediaType.parse(file[1]),
+                        poifsDetector.detect(stream, new Metadata()));
+                assertNull(stream.getOpenContainer());
+                assertFalse(stream.hasFile());
+                assertEquals(0xd0, stream.read());
+            }
+        }
+
+        try (TikaInputStream xls = getTruncatedFile("testEXCEL.xls", 400)) {
+            assertEquals(MediaType.application("x-tika-msoffice"),
+                    poifsDetector.detect(xls, new Metadata()));
+        }
+
+        //without a markLimit, the read-ahead is still bounded, and
+        //small files are detected without spooling
+        poifsDetector.setMarkLimit(-1);
+        try (TikaInputStream stream = TikaInputStream.get(
+                getResourceAsStream("/test-documents/testWORD.doc"))) {
+            assertEquals(MediaType.application("msword"),
+                    poifsDetector.detect(stream, new Metadata()));
+            assertFalse(stream.hasFile());
+        }
+    }
+
     /**
      * EPub uses a similar mimetype entry to OpenDocument for storing
      *  the mimetype within the parent zip file
@@ -30,16 +30,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.tika.TikaTest;
+import org.apache.tika.exception.TikaException;
 import org.apache.tika.io.TikaInputStream;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
 import org.apache.tika.parser.utils.CommonsDigester;
+import org.apache.tika.sax.RecursiveParserWrapperHandler;
 import org.junit.Test;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 
 public class DigestingParserTest extends TikaTest {
@@ -126,6 +131,44 @@ public class DigestingParserTest extends TikaTest {
         assertEquals(expectedMD5, m.get(P+"MD5"));
     }
 
+    @Test
+    public void testDigestWhileParsing() throws Exception {
+        for (int markLimit : new int[]{100, UNLIMITED}) {
+            Metadata m = new Metadata();
+            getXML("test_recursive_embedded.docx",
+                    new DigestingParser(AUTO_DETECT_PARSER, new CommonsDigester(markLimit,
+                            "md5,sha256,sha1:32"), true), m);
+            assertEquals("59f626e09a8c16ab6dbc2800c685f772", m.get(P + "MD5"));
+            assertEquals("c4b7fab030a8b6a9d6691f6699ac8e6f" +
+                    "82bc53764a0f1430d134ae3b70c32654", m.get(P + "SHA256"));
+            assertEquals("PIPQAHIWHLEQ3DVFJQCQ7L22HADZPCFG", m.get(P + "SHA1"));
+        }
+    }
+
+    @Test
+    public void testDigestWhileParsingEmbeddedOLE2() throws Exception {
+        //embedded OLE2 documents are passed on as an empty stream with an open container
+        List<Metadata> expected = getRecursiveMetadata("testEXCEL_embeded.xls",
+                new DigestingParser(AUTO_DETECT_PARSER, new CommonsDigester(UNLIMITED, "md5"), false));
+        List<Metadata> actual = getRecursiveMetadata("testEXCEL_embeded.xls",
+                new DigestingParser(AUTO_DETECT_PARSER, new CommonsDigester(UNLIMITED, "md5"), true));
+        assertTrue(expected.size() > 1);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).get(RecursiveParserWrapperHandler.TIKA_CONTENT),
+                    actual.get(i).get(RecursiveParserWrapperHandler.TIKA_CONTENT));
+            assertEquals(expected.get(i).get(P + "MD5"), actual.get(i).get(P + "MD5"));
+        }
+        boolean foundDoc = false;
+        for (Metadata m : actual) {
+            if ("MBD00032A24.doc".equals(m.get(TikaCoreProperties.RESOURCE_NAME_KEY))) {
+                foundDoc = true;
+                assertTrue(m.get(RecursiveParserWrapperHandler.TIKA_CONTENT).trim().length() > 0);
+            }
+        }
+        assertTrue("embedded doc not found", foundDoc);
+    }
+
     @Test
     public void testNegativeMaxMarkLength() throws Exception {
         Metadata m = new Metadata();
@@ -236,6 +279,21 @@ public class DigestingParserTest extends TikaTest {
                     truthValue, resultValue);
         }
 
+        //and while parsing
+        result = new Metadata();
+        try (InputStream is = useTikaInputStream ? TikaInputStream.get(tmp) :
+                new BufferedInputStream(Files.newInputStream(tmp))) {
+            new DigestingParser(AUTO_DETECT_PARSER, digester, true).parse(is,
+                    new DefaultHandler(), result, new ParseContext());
+        } catch (TikaException|SAXException e) {
+            //random bytes may not parse, but they should still be digested
+        }
+        for (CommonsDigester.DigestAlgorithm algo : algos) {
+            assertEquals("while parsing: fileLength("+fileLength+") markLimit("+
+                    markLimit+") useTikaInputStream("+useTikaInputStream+") "+
+                    "algorithm("+algo.name()+") seed("+SEED+")",
+                    truth.get(P+algo.name()), result.get(P+algo.name()));
+        }
     }
 
     private void addTruth(Path tmp, CommonsDigester.DigestAlgorithm algo, Metadata truth) throws IOException {
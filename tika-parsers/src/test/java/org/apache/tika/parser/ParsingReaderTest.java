@@ -17,16 +17,28 @@
 package org.apache.tika.parser;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.tika.TikaTest;
+import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.sax.XHTMLContentHandler;
 import org.junit.Test;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class ParsingReaderTest extends TikaTest {
 
@@ -108,4 +120,87 @@ public class ParsingReaderTest extends TikaTest {
         ParsingReader r = new ParsingReader(is);
         assertEquals(-1, r.read());
     }
+
+    @Test
+    public void testLargeText() throws Exception {
+        TextParser parser = new TextParser(10000, -1);
+        StringBuilder text = new StringBuilder();
+        char[] buffer = new char[1000];
+        try (Reader reader = new ParsingReader(
+                parser, new ByteArrayInputStream(new byte[0]), new Metadata(), new ParseContext())) {
+            for (int n = reader.read(buffer); n != -1; n = reader.read(buffer)) {
+                text.append(buffer, 0, n);
+            }
+        }
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            expected.append("Paragraph ").append(i).append('\n');
+        }
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    @Test
+    public void testParseFailure() throws Exception {
+        TextParser parser = new TextParser(10000, 5000);
+        try (Reader reader = new ParsingReader(
+                parser, new ByteArrayInputStream(new byte[0]), new Metadata(), new ParseContext())) {
+            char[] buffer = new char[1000];
+            while (reader.read(buffer) != -1) {
+            }
+            fail("The parse failure should have been thrown");
+        } catch (IOException e) {
+            assertTrue(e.getCause() instanceof TikaException);
+        }
+    }
+
+    @Test
+    public void testCloseStopsParsing() throws Exception {
+        TextParser parser = new TextParser(Integer.MAX_VALUE, -1);
+        Reader reader = new ParsingReader(
+                parser, new ByteArrayInputStream(new byte[0]), new Metadata(), new ParseContext());
+        assertEquals('P', reader.read());
+        reader.close();
+        assertTrue(parser.done.await(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Parser that writes the given number of paragraphs, optionally
+     * failing after some of them.
+     */
+    private static class TextParser extends AbstractParser {
+
+        private final int paragraphs;
+
+        private final int failAfter;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        TextParser(int paragraphs, int failAfter) {
+            this.paragraphs = paragraphs;
+            this.failAfter = failAfter;
+        }
+
+        @Override
+        public Set<MediaType> getSupportedTypes(ParseContext context) {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public void parse(InputStream stream, ContentHandler handler, Metadata metadata,
+                ParseContext context) throws IOException, SAXException, TikaException {
+            try {
+                XHTMLContentHandler xhtml = new XHTMLContentHandler(handler, metadata);
+                xhtml.startDocument();
+                for (int i = 0; i < paragraphs; i++) {
+                    if (i == failAfter) {
+                        throw new TikaException("Failed after " + i + " paragraphs");
+                    }
+                    xhtml.element("p", "Paragraph " + i);
+                }
+                xhtml.endDocument();
+            } finally {
+                done.countDown();
+            }
+        }
+    }
 }
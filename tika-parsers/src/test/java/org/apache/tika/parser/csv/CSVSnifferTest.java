@@ -105,6 +105,17 @@ public class CSVSnifferTest extends TikaTest {
         assertEquals(new Character(','), results.get(0).getDelimiter());
     }
 
+    @Test
+    public void testReaderReset() throws Exception {
+        CSVSniffer sniffer = new CSVSniffer(20, new char[]{ ',', '\t', ';'}, 0.5);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(CSV_BASIC), StandardCharsets.UTF_8))) {
+            List<CSVResult> results = sniffer.sniff(reader);
+            assertEquals(3, results.size());
+            assertEquals("the,quick,brown\tfox", reader.readLine());
+        }
+    }
+
     @Test
     public void testSort() {
         List<CSVResult> list = new ArrayList<>();
@@ -20,15 +20,19 @@ import org.apache.tika.Tika;
 import org.apache.tika.TikaTest;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.ner.opennlp.OpenNLPNERecogniser;
 import org.apache.tika.parser.ner.regex.RegexNERecogniser;
+import org.apache.tika.sax.BodyContentHandler;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashSet;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assume.assumeTrue;
 
 /**
@@ -88,4 +92,41 @@ public class NamedEntityParserTest extends TikaTest {
         assumeTrue(keys.contains("NER_LOCATION"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWindows() throws Exception {
+        String classNames = System.getProperty(NamedEntityParser.SYS_PROP_NER_IMPL);
+        System.setProperty(NamedEntityParser.SYS_PROP_NER_IMPL,
+                RegexNERecogniser.class.getName());
+        try {
+            StringBuilder text = new StringBuilder("  \n");
+            String[] days = { "monday", "tuesday", "friday", "sunday" };
+            for (int i = 0; i < 200; i++) {
+                text.append("Open on ").append(days[i % days.length]).append(". ");
+                if (i % 10 == 0) {
+                    text.append('\n');
+                }
+            }
+            text.append(" \n ");
+
+            NamedEntityParser parser = new NamedEntityParser();
+            parser.setWindowSize(100);
+            Metadata metadata = new Metadata();
+            metadata.set(Metadata.CONTENT_TYPE, "text/plain");
+            BodyContentHandler handler = new BodyContentHandler();
+            parser.parse(new ByteArrayInputStream(text.toString().getBytes(StandardCharsets.UTF_8)),
+                    handler, metadata, new ParseContext());
+
+            assertEquals(new HashSet<>(Arrays.asList(days)),
+                    new HashSet<>(Arrays.asList(metadata.getValues("NER_WEEK_DAY"))));
+            assertEquals(days.length, metadata.getValues("NER_WEEK_DAY").length);
+            assertEquals(text.toString().trim(), handler.toString().trim());
+        } finally {
+            if (classNames == null) {
+                System.clearProperty(NamedEntityParser.SYS_PROP_NER_IMPL);
+            } else {
+                System.setProperty(NamedEntityParser.SYS_PROP_NER_IMPL, classNames);
+            }
+        }
+    }
+}
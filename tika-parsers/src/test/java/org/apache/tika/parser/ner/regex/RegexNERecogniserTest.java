@@ -20,14 +20,20 @@ import org.apache.tika.Tika;
 import org.apache.tika.config.TikaConfig;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.ner.NamedEntityParser;
+import org.apache.tika.sax.ToTextContentHandler;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.regex.Pattern;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class RegexNERecogniserTest {
@@ -50,4 +56,75 @@ public class RegexNERecogniserTest {
 
 
     }
-}
\ No newline at end of file
+
+    private static final String CONFIG =
+            "EMAIL=[\\w.+-]+@[\\w-]+\\.[\\w.]+\n" +
+            "WEEK_DAY=(?i)\\b(?:mon|tues|fri|sun)day\\b\n" +
+            "AMOUNT=\\$\\d+(?:\\.\\d{2})?\n" +
+            "AFTER_ON=(?<=on )\\w+\n" +
+            "OPTIONAL_X=x*\n" +
+            "LINE_START=(?m)^\\w+\n" +
+            "NOT_WORD_START=\\Bo\n" +
+            "NEGATIVE=\\b-\\d+\n";
+
+    private static final String[] WORDS = {
+            "the", "fox", "on", "Monday", "FRIDAY", "x", "xx", "-12", "$12.50",
+            "a@b.co", "\n", "  ", "\u00e9t\u00e9", "\u65e5\u672c", "\ud83d\ude00" };
+
+    private static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextBoolean()) {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+
+    private static Map<String, Set<String>> findSeparately(
+            RegexNERecogniser recogniser, String text) {
+        Map<String, Set<String>> names = new HashMap<>();
+        for (Map.Entry<String, Pattern> entry : recogniser.patterns.entrySet()) {
+            Set<String> matches = recogniser.findMatches(text, entry.getValue());
+            if (matches != null) {
+                names.put(entry.getKey(), matches);
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void testSinglePass() throws Exception {
+        RegexNERecogniser recogniser = new RegexNERecogniser(
+                new ByteArrayInputStream(CONFIG.getBytes(StandardCharsets.UTF_8)));
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            String text = randomText(random, random.nextInt(50));
+            assertEquals(text, findSeparately(recogniser, text), recogniser.recognise(text));
+        }
+    }
+
+    @Test
+    public void testContentHandler() throws Exception {
+        RegexNERecogniser recogniser = new RegexNERecogniser(
+                new ByteArrayInputStream(CONFIG.getBytes(StandardCharsets.UTF_8)));
+        Random random = new Random(42);
+        String text = randomText(random, 100000);
+
+        ToTextContentHandler delegate = new ToTextContentHandler();
+        RegexNEContentHandler handler = new RegexNEContentHandler(delegate, recogniser);
+        handler.startDocument();
+        char[] chars = text.toCharArray();
+        int start = 0;
+        while (start < chars.length) {
+            int length = Math.min(chars.length - start, 1 + random.nextInt(5000));
+            handler.characters(chars, start, length);
+            start += length;
+        }
+        handler.endDocument();
+
+        assertEquals(text, delegate.toString());
+        assertEquals(findSeparately(recogniser, text), handler.getNames());
+    }
+}
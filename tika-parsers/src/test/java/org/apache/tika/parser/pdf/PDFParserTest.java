@@ -26,6 +26,9 @@ import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,8 +38,10 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 import org.apache.pdfbox.rendering.ImageType;
@@ -1337,6 +1342,43 @@ public class PDFParserTest extends TikaTest {
         assertContains("Norconex", xmlResult.xml);
     }
 
+    @Test
+    public void testConcurrentOCROnlyWithStubTesseract() throws Exception {
+        assumeTrue("stub tesseract is a shell script", SystemUtils.IS_OS_UNIX);
+        Path tesseractDir = Files.createTempDirectory("tika-stub-tesseract");
+        try {
+            //writes the checksum of each page image as its "OCR" output
+            Path tesseract = tesseractDir.resolve("tesseract");
+            Files.write(tesseract, ("#!/bin/sh\n" +
+                    "if [ \"$#\" -lt 2 ]; then exit 0; fi\n" +
+                    "sleep 0.1\n" +
+                    "echo \"ocr-$(cksum < \"$1\" | cut -d ' ' -f 1)\" > \"$2.txt\"\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            assumeTrue("can make the stub tesseract executable", tesseract.toFile().setExecutable(true));
+
+            TesseractOCRConfig tesseractOCRConfig = new TesseractOCRConfig();
+            tesseractOCRConfig.setTesseractPath(tesseractDir.toString());
+            PDFParserConfig config = new PDFParserConfig();
+            config.setOcrStrategy(PDFParserConfig.OCR_STRATEGY.OCR_ONLY);
+            config.setOcrDPI(72);
+            ParseContext context = new ParseContext();
+            context.set(TesseractOCRConfig.class, tesseractOCRConfig);
+            context.set(PDFParserConfig.class, config);
+            String serial = getXML("testJournalParser.pdf", context).xml;
+
+            config.setOcrConcurrency(3);
+            config.setOcrRenderQueueSize(4);
+            String concurrent = getXML("testJournalParser.pdf", context).xml;
+
+            int pages = StringUtils.countMatches(serial, "<div class=\"page\">");
+            assertTrue(pages > 1);
+            assertContainsCount("<div class=\"ocr\">ocr-", serial, pages);
+            assertEquals(serial, concurrent);
+        } finally {
+            FileUtils.deleteDirectory(tesseractDir.toFile());
+        }
+    }
+
     @Test
     public void testOCRAutoMode() throws Exception {
         assumeTrue("can run OCR", canRunOCR());
@@ -23,8 +23,11 @@ import org.apache.tika.parser.ParseContext;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.apache.tika.TikaTest.assertContains;
+import static org.junit.Assert.assertEquals;
 
 /**
  * Test class for the {@link org.apache.tika.sax.PhoneExtractingContentHandler}
@@ -54,4 +57,26 @@ public class PhoneExtractingContentHandlerTest extends TikaTest {
         assertContains("9044687081", phoneNumbers[5]);
         assertContains("2604094811", phoneNumbers[6]);
     }
+
+    @Test
+    public void testWindows() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 3 * CleanPhoneText.PhoneNumberScanner.DEFAULT_WINDOW; i++) {
+            text.append("Call (949) 888-").append(1000 + i % 9000).append(" or ");
+            text.append("nine four nine, 77 seven-");
+            text.append(i % 10).append("&#32;").append(i % 7).append("77 today!\n");
+        }
+        List<String> expected = CleanPhoneText.extractPhoneNumbers(text.toString());
+
+        Metadata metadata = new Metadata();
+        PhoneExtractingContentHandler handler = new PhoneExtractingContentHandler(new BodyContentHandler(-1), metadata);
+        handler.startDocument();
+        char[] ch = text.toString().toCharArray();
+        for (int start = 0; start < ch.length; start += 1000) {
+            handler.characters(ch, start, Math.min(1000, ch.length - start));
+        }
+        handler.endDocument();
+
+        assertEquals(expected, Arrays.asList(metadata.getValues("phonenumbers")));
+    }
 }
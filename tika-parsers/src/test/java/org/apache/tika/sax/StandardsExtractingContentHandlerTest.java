@@ -19,6 +19,9 @@ package org.apache.tika.sax;
 
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.tika.TikaTest;
 import org.apache.tika.metadata.Metadata;
@@ -26,6 +29,7 @@ import org.apache.tika.parser.ParseContext;
 import org.junit.Test;
 
 import static junit.framework.TestCase.assertTrue;
+import static org.junit.Assert.assertEquals;
 
 /**
  * Test class for the {@link StandardsExtractingContentHandler} class.
@@ -50,4 +54,32 @@ public class StandardsExtractingContentHandlerTest extends TikaTest {
 		assertTrue(standardReferences[2].equals("FIPS 140-2"));
 		assertTrue(standardReferences[3].equals("FIPS 197"));
 	}
+
+	@Test
+	public void testWindows() throws Exception {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; text.length() < 3 * StandardsText.ReferenceScanner.DEFAULT_WINDOW; i++) {
+			if (i % 50 == 0) {
+				text.append(i / 50).append(".1 ").append(i % 100 == 0 ? "APPLICABLE DOCUMENTS\n\n" : "GENERAL REQUIREMENTS\n\n");
+			}
+			text.append("This shall comply with ANSI/TIA 222-G-").append(i).append(" and FIPS ").append(140 + i);
+			text.append(", see Standard MIL-STD-").append(1000 + i).append(".\n");
+		}
+		List<String> expected = new ArrayList<String>();
+		for (StandardReference reference : StandardsText.extractStandardReferences(text.toString(), 0.5)) {
+			expected.add(reference.toString());
+		}
+
+		Metadata metadata = new Metadata();
+		StandardsExtractingContentHandler handler = new StandardsExtractingContentHandler(new BodyContentHandler(-1), metadata);
+		handler.setThreshold(0.5);
+		handler.startDocument();
+		char[] ch = text.toString().toCharArray();
+		for (int start = 0; start < ch.length; start += 1000) {
+			handler.characters(ch, start, Math.min(1000, ch.length - start));
+		}
+		handler.endDocument();
+
+		assertEquals(expected, Arrays.asList(metadata.getValues(StandardsExtractingContentHandler.STANDARD_REFERENCES)));
+	}
 }
\ No newline at end of file
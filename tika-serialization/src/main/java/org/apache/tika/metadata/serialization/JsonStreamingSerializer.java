@@ -56,8 +56,21 @@ public class JsonStreamingSerializer implements AutoCloseable {
         jsonWriter.endObject();
     }
 
+    /**
+     * Flushes what has been written so far to the underlying writer,
+     * so that a reader on the other end can see the metadata objects
+     * added so far.
+     */
+    public void flush() throws IOException {
+        jsonWriter.flush();
+    }
+
     @Override
     public void close() throws IOException {
+        if (!hasStartedArray) {
+            jsonWriter.beginArray();
+            hasStartedArray = true;
+        }
         jsonWriter.endArray();
         jsonWriter.flush();
         jsonWriter.close();
@@ -166,4 +166,14 @@ public class JsonMetadataListTest {
         assertEquals(truth, deserialized);
 
     }
+
+    @Test
+    public void testStreamingSerializerEmpty() throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        try(JsonStreamingSerializer serializer = new JsonStreamingSerializer(stringWriter)) {
+            serializer.flush();
+        }
+        assertEquals("[]", stringWriter.toString());
+        assertEquals(0, JsonMetadataList.fromJson(new StringReader(stringWriter.toString())).size());
+    }
 }
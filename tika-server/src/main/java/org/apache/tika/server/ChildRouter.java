@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tika.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Used by the {@link TikaServerWatchDog} when it runs more than one
+ * child process. This listens on the server's public host and port and
+ * forwards each incoming connection to one of the children, round-robin,
+ * skipping children that are being (re)started. Each child listens on
+ * its own port on localhost.
+ * <p>
+ * Routing is per connection, so all requests on a keep-alive connection
+ * go to the same child. If a child dies, the connections routed to it
+ * are closed, as they would be if there were only one child.
+ */
+class ChildRouter implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChildRouter.class);
+
+    private static final String CHILD_HOST = "localhost";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final ServerSocket serverSocket;
+
+    private final int[] childPorts;
+
+    //1 if the child is running and can take connections
+    private final AtomicIntegerArray available;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final long maxWaitMillis;
+
+    private final ExecutorService executorService = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "tika-server-router");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param host host to listen on
+     * @param port port to listen on
+     * @param childPorts ports that the children listen on, on localhost
+     * @param maxWaitMillis how long a connection waits for a child to
+     *                      become available before it is dropped
+     */
+    ChildRouter(String host, int port, int[] childPorts, long maxWaitMillis) throws IOException {
+        this.childPorts = childPorts;
+        this.available = new AtomicIntegerArray(childPorts.length);
+        this.maxWaitMillis = maxWaitMillis;
+        this.serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(host, port));
+    }
+
+    void start() {
+        Thread acceptor = new Thread(this::acceptConnections, "tika-server-router-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    void setAvailable(int child, boolean isAvailable) {
+        available.set(child, isAvailable ? 1 : 0);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOG.debug("problem closing router socket", e);
+        }
+        executorService.shutdownNow();
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            try {
+                Socket client = serverSocket.accept();
+                executorService.execute(() -> route(client));
+            } catch (IOException e) {
+                if (!closed) {
+                    LOG.warn("problem accepting connection", e);
+                }
+            }
+        }
+    }
+
+    private void route(Socket client) {
+        Socket child = connectToChild();
+        if (child == null) {
+            LOG.warn("no child process available after {} ms; dropping connection", maxWaitMillis);
+            closeQuietly(client);
+            return;
+        }
+        //close both sockets once both directions are done,
+        //or as soon as either one fails
+        AtomicInteger open = new AtomicInteger(2);
+        executorService.execute(() -> pump(client, child, open));
+        pump(child, client, open);
+    }
+
+    private Socket connectToChild() {
+        Instant started = Instant.now();
+        while (!closed) {
+            for (int i = 0; i < childPorts.length; i++) {
+                int child = Math.floorMod(next.getAndIncrement(), childPorts.length);
+                if (available.get(child) == 0) {
+                    continue;
+                }
+                Socket socket = new Socket();
+                try {
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress(CHILD_HOST, childPorts[child]),
+                            CONNECT_TIMEOUT_MILLIS);
+                    return socket;
+                } catch (IOException e) {
+                    LOG.debug("couldn't connect to child {}", child, e);
+                    closeQuietly(socket);
+                }
+            }
+            if (Duration.between(started, Instant.now()).toMillis() > maxWaitMillis) {
+                return null;
+            }
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static void pump(Socket from, Socket to, AtomicInteger open) {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        boolean ok = false;
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+                out.flush();
+            }
+            to.shutdownOutput();
+            ok = true;
+        } catch (SocketException e) {
+            //closed on the other side
+        } catch (IOException e) {
+            LOG.debug("problem forwarding connection", e);
+        } finally {
+            if (!ok || open.decrementAndGet() == 0) {
+                closeQuietly(from);
+                closeQuietly(to);
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            //swallow
+        }
+    }
+}
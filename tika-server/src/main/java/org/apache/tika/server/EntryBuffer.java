@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import org.apache.tika.io.TemporaryResources;
+
+/**
+ * Holds the bytes of one entry of an /unpack archive until the archive
+ * writer has written it.  Small entries stay in memory; once an entry
+ * grows past the memory threshold, it is spilled to a temporary file,
+ * which is deleted when the buffer is closed.
+ * <p>
+ * The length and CRC-32 are tracked while writing, because both zip
+ * (stored) and tar entries need them before the entry's data.
+ */
+public class EntryBuffer extends OutputStream {
+
+    public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+    private final int memoryThreshold;
+
+    private final CRC32 crc = new CRC32();
+
+    private final TemporaryResources tmp = new TemporaryResources();
+
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+    private Path file;
+
+    private OutputStream fileStream;
+
+    private long length = 0;
+
+    public EntryBuffer() {
+        this(DEFAULT_MEMORY_THRESHOLD);
+    }
+
+    public EntryBuffer(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (memory != null && memory.size() + 1 > memoryThreshold) {
+            spill();
+        }
+        if (memory != null) {
+            memory.write(b);
+        } else {
+            fileStream.write(b);
+        }
+        crc.update(b);
+        length++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (memory != null && memory.size() + len > memoryThreshold) {
+            spill();
+        }
+        if (memory != null) {
+            memory.write(b, off, len);
+        } else {
+            fileStream.write(b, off, len);
+        }
+        crc.update(b, off, len);
+        length += len;
+    }
+
+    private void spill() throws IOException {
+        file = tmp.createTempFile();
+        fileStream = new BufferedOutputStream(Files.newOutputStream(file));
+        memory.writeTo(fileStream);
+        memory = null;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (fileStream != null) {
+            fileStream.flush();
+        }
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getCrc() {
+        return crc.getValue();
+    }
+
+    /**
+     * @return whether the entry has been spilled to a temporary file
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Copies the buffered bytes to the given stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (memory != null) {
+            memory.writeTo(out);
+        } else {
+            fileStream.flush();
+            Files.copy(file, out);
+        }
+    }
+
+    public InputStream openInputStream() throws IOException {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory.toByteArray());
+        }
+        fileStream.flush();
+        return Files.newInputStream(file);
+    }
+
+    /**
+     * Releases the buffered bytes and deletes the temporary file, if any.
+     */
+    @Override
+    public void close() throws IOException {
+        memory = null;
+        try {
+            if (fileStream != null) {
+                fileStream.close();
+            }
+        } finally {
+            tmp.close();
+        }
+    }
+}
@@ -71,7 +71,7 @@ public class TikaServerCli {
 
 
     //used in spawn-child mode
-    private static final long DEFAULT_MAX_FILES = 100000;
+    static final long DEFAULT_MAX_FILES = 100000;
 
 
     public static final int DEFAULT_PORT = 9998;
@@ -90,7 +90,7 @@ public class TikaServerCli {
     private static final List<String> ONLY_IN_SPAWN_CHILD_MODE =
             Arrays.asList(new String[] { "taskTimeoutMillis", "taskPulseMillis",
             "pingTimeoutMillis", "pingPulseMillis", "maxFiles", "javaHome", "maxRestarts",
-            "childStatusFile", "maxChildStartupMillis", "tmpFilePrefix"});
+            "childStatusFile", "maxChildStartupMillis", "tmpFilePrefix", "numChildren"});
 
     private static Options getOptions() {
         Options options = new Options();
@@ -100,6 +100,8 @@ public class TikaServerCli {
         options.addOption("c", "config", true, "Tika Configuration file to override default config with.");
         options.addOption("d", "digest", true, "include digest in metadata, e.g. md5,sha1:32,sha256");
         options.addOption("dml", "digestMarkLimit", true, "max number of bytes to mark on stream for digest");
+        options.addOption("digestWhileParsing", false, "compute the digests from the bytes the parser reads, " +
+                "instead of reading the stream before the parse; the digests are then only available at the end of the parse");
         options.addOption("l", "log", true, "request URI log level ('debug' or 'info')");
         options.addOption("s", "includeStack", false, "whether or not to return a stack trace\nif there is an exception during 'parse'");
         options.addOption("?", "help", false, "this help message");
@@ -114,6 +116,9 @@ public class TikaServerCli {
         options.addOption("maxRestarts", true, "Only in spawn child mode: how many times to restart child process, default is -1 (always restart)");
         options.addOption("maxFiles", true, "Only in spawn child mode: shutdown server after this many files (to handle parsers that might introduce " +
                 "slowly building memory leaks); the default is "+DEFAULT_MAX_FILES +". Set to -1 to turn this off.");
+        options.addOption("numChildren", true, "Only in spawn child mode: number of child processes to run; the default is 1. " +
+                "With more than one, the parent listens on the port and forwards connections to the children, " +
+                "which listen on localhost on the following ports (port+1 to port+numChildren).");
         options.addOption("javaHome", true, "Only in spawn child mode: override system property JAVA_HOME for calling java for the child process");
         options.addOption("child", false, "Only in spawn child mode: this process is a child process -- do not use this! " +
                 "Should only be invoked by parent process");
@@ -290,7 +295,8 @@ public class TikaServerCli {
             } else {
                 serverStatus = new ServerStatus(true);
             }
-            TikaResource.init(tika, digester, inputStreamFactory, serverStatus);
+            TikaResource.init(tika, digester, line.hasOption("digestWhileParsing"),
+                    inputStreamFactory, serverStatus);
             JAXRSServerFactoryBean sf = new JAXRSServerFactoryBean();
 
             List<ResourceProvider> rCoreProviders = new ArrayList<>();
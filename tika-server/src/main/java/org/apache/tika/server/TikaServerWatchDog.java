@@ -40,7 +40,9 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.nio.file.StandardOpenOption.READ;
 import static java.nio.file.StandardOpenOption.WRITE;
@@ -56,51 +58,143 @@ public class TikaServerWatchDog {
     private static final Logger LOG = LoggerFactory.getLogger(TikaServerWatchDog.class);
     private static final String DEFAULT_CHILD_STATUS_FILE_PREFIX = "tika-server-child-process-mmap-";
 
-    private Object[] childStatusLock = new Object[0];
-    private volatile CHILD_STATUS childStatus = CHILD_STATUS.INITIALIZING;
-    private volatile Instant lastPing = null;
-    private ChildProcess childProcess = null;
+    private volatile List<ChildSlot> childSlots = new ArrayList<>();
 
 
     public void execute(String[] args, ServerTimeouts serverTimeouts) throws Exception {
         LOG.info("server watch dog is starting up");
+        int numChildren = extractNumChildren(args);
+        ChildRouter router = null;
+        List<ChildSlot> slots = new ArrayList<>();
+        for (int i = 0; i < numChildren; i++) {
+            slots.add(new ChildSlot(i, numChildren, args));
+        }
+        childSlots = slots;
         startPingTimer(serverTimeouts);
+        List<Thread> slotThreads = new ArrayList<>();
         try {
-            childProcess = new ChildProcess(args, serverTimeouts);
-            setChildStatus(CHILD_STATUS.RUNNING);
-            int restarts = 0;
-            while (true) {
-                if (!childProcess.ping()) {
-                    LOG.debug("bad ping, initializing");
-                    setChildStatus(CHILD_STATUS.INITIALIZING);
-                    lastPing = null;
-                    childProcess.close();
-                    LOG.debug("About to restart the child process");
-                    childProcess = new ChildProcess(args, serverTimeouts);
-                    LOG.info("Successfully restarted child process -- {} restarts so far)", restarts);
-                    setChildStatus(CHILD_STATUS.RUNNING);
-                    restarts++;
-                    if (serverTimeouts.getMaxRestarts() > -1 && restarts >= serverTimeouts.getMaxRestarts()) {
-                        LOG.warn("hit max restarts: "+restarts+". Stopping now");
-                        break;
-                    }
+            if (numChildren > 1) {
+                int[] childPorts = new int[numChildren];
+                for (ChildSlot slot : slots) {
+                    childPorts[slot.id] = slot.port;
                 }
-                Thread.sleep(serverTimeouts.getPingPulseMillis());
+                router = new ChildRouter(extractHost(args), extractPort(args), childPorts,
+                        serverTimeouts.getMaxChildStartupMillis());
+                router.start();
+            }
+            //each child is started, pinged and restarted on its own thread, so that
+            //a slow (re)start of one child doesn't hold up the pings of the others,
+            //and with more than one child there is never a full outage
+            SlotSupervisor supervisor = new SlotSupervisor(serverTimeouts, router);
+            for (ChildSlot slot : slots) {
+                Thread slotThread = new Thread(() -> supervisor.watch(slot),
+                        "tika-server-watchdog-child-" + slot.id);
+                slotThread.setDaemon(true);
+                slotThreads.add(slotThread);
+                slotThread.start();
+            }
+            supervisor.stopped.await();
+            if (supervisor.failure != null) {
+                throw supervisor.failure;
             }
         } catch (InterruptedException e) {
             //interrupted...shutting down
         } finally {
-            setChildStatus(CHILD_STATUS.SHUTTING_DOWN);
-            LOG.debug("about to shutdown");
-            if (childProcess != null) {
-                LOG.info("about to shutdown process");
-                childProcess.close();
+            if (router != null) {
+                router.close();
+            }
+            //each slot's thread shuts down its own child on the way out
+            for (Thread slotThread : slotThreads) {
+                slotThread.interrupt();
+            }
+            for (Thread slotThread : slotThreads) {
+                joinQuietly(slotThread);
+            }
+        }
+    }
+
+    private static void joinQuietly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
             }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Starts, pings and restarts the child of a slot; there's one thread per slot.
+     * A slot is only marked as {@link CHILD_STATUS#RUNNING} once its child has answered
+     * a ping, so that the ping timer only ever checks children that are being pinged.
+     */
+    private class SlotSupervisor {
+        private final ServerTimeouts serverTimeouts;
+        private final ChildRouter router;
+        private final AtomicInteger restarts = new AtomicInteger();
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private volatile Exception failure = null;
+
+        SlotSupervisor(ServerTimeouts serverTimeouts, ChildRouter router) {
+            this.serverTimeouts = serverTimeouts;
+            this.router = router;
+        }
+
+        private void watch(ChildSlot slot) {
+            try {
+                slot.childProcess = new ChildProcess(slot.args, serverTimeouts);
+                while (true) {
+                    if (slot.childProcess.ping()) {
+                        if (slot.status != CHILD_STATUS.RUNNING) {
+                            setChildStatus(slot, CHILD_STATUS.RUNNING, router);
+                        }
+                    } else if (!restart(slot)) {
+                        return;
+                    }
+                    Thread.sleep(serverTimeouts.getPingPulseMillis());
+                }
+            } catch (InterruptedException e) {
+                //interrupted...shutting down
+            } catch (Exception e) {
+                failure = e;
+                stopped.countDown();
+            } finally {
+                setChildStatus(slot, CHILD_STATUS.SHUTTING_DOWN, router);
+                if (slot.childProcess != null) {
+                    LOG.info("about to shutdown process {}", slot.id);
+                    slot.childProcess.close();
+                }
+            }
+        }
+
+        /**
+         * @return false if the maximum number of restarts has been hit
+         */
+        private boolean restart(ChildSlot slot) throws Exception {
+            LOG.debug("bad ping, initializing child {}", slot.id);
+            setChildStatus(slot, CHILD_STATUS.INITIALIZING, router);
+            slot.childProcess.close();
+            slot.childProcess = null;
+            LOG.debug("About to restart child process {}", slot.id);
+            slot.childProcess = new ChildProcess(slot.args, serverTimeouts);
+            int restartsSoFar = restarts.getAndIncrement();
+            LOG.info("Successfully restarted child process {} -- {} restarts so far)",
+                    slot.id, restartsSoFar);
+            if (serverTimeouts.getMaxRestarts() > -1 && restartsSoFar + 1 >= serverTimeouts.getMaxRestarts()) {
+                LOG.warn("hit max restarts: "+(restartsSoFar + 1)+". Stopping now");
+                stopped.countDown();
+                return false;
+            }
+            return true;
+        }
     }
 
     private void startPingTimer(ServerTimeouts serverTimeouts) {
-        //if the child thread is in stop-the-world mode, and isn't
+        //if a child thread is in stop-the-world mode, and isn't
         //reading the ping, this thread checks to make sure
         //that the parent ping is sent often enough.
         //The write() in ping() could block.
@@ -110,26 +204,8 @@ public class TikaServerWatchDog {
             @Override
             public void run() {
                 while (true) {
-                    long tmpLastPing = -1L;
-                    synchronized (childStatusLock) {
-                        if (childStatus == CHILD_STATUS.RUNNING) {
-                            tmpLastPing = lastPing.toEpochMilli();
-                        }
-                    }
-                    if (tmpLastPing > 0) {
-                        long elapsed = Duration.between(Instant.ofEpochMilli(tmpLastPing), Instant.now()).toMillis();
-                        if (elapsed > serverTimeouts.getPingTimeoutMillis()) {
-                            Process processToDestroy = null;
-                            try {
-                                processToDestroy = childProcess.process;
-                                LOG.warn("{} ms have elapsed since last successful ping. Destroying child now",
-                                        elapsed);
-                                destroyChildForcibly(processToDestroy);
-                                childProcess.close();
-                            } catch (NullPointerException e) {
-                                //ignore
-                            }
-                        }
+                    for (ChildSlot slot : childSlots) {
+                        checkLastPing(slot, serverTimeouts);
                     }
                     try {
                         Thread.sleep(serverTimeouts.getPingPulseMillis());
@@ -145,10 +221,113 @@ public class TikaServerWatchDog {
 
     }
 
-    private void setChildStatus(CHILD_STATUS status) {
-        synchronized (childStatusLock) {
-            childStatus = status;
+    private void checkLastPing(ChildSlot slot, ServerTimeouts serverTimeouts) {
+        ChildProcess childProcess = null;
+        long tmpLastPing = -1L;
+        synchronized (slot) {
+            if (slot.status == CHILD_STATUS.RUNNING) {
+                childProcess = slot.childProcess;
+                tmpLastPing = childProcess.lastPing.toEpochMilli();
+            }
+        }
+        if (tmpLastPing > 0) {
+            long elapsed = Duration.between(Instant.ofEpochMilli(tmpLastPing), Instant.now()).toMillis();
+            if (elapsed > serverTimeouts.getPingTimeoutMillis()) {
+                LOG.warn("{} ms have elapsed since last successful ping of child {}. Destroying child now",
+                        elapsed, slot.id);
+                destroyChildForcibly(childProcess.process);
+                childProcess.close();
+            }
+        }
+    }
+
+    private void setChildStatus(ChildSlot slot, CHILD_STATUS status, ChildRouter router) {
+        synchronized (slot) {
+            slot.status = status;
+        }
+        if (router != null) {
+            router.setAvailable(slot.id, status == CHILD_STATUS.RUNNING);
+        }
+    }
+
+    /**
+     * Port used by the server, which the {@link ChildRouter} listens on
+     * when there is more than one child
+     */
+    private static int extractPort(String[] args) {
+        String port = extractOptionValue(args, "p", "port");
+        return port == null ? TikaServerCli.DEFAULT_PORT : Integer.parseInt(port);
+    }
+
+    private static String extractHost(String[] args) {
+        String host = extractOptionValue(args, "h", "host");
+        if (host == null) {
+            return TikaServerCli.DEFAULT_HOST;
+        }
+        return "*".equals(host) ? "0.0.0.0" : host;
+    }
+
+    private static int extractNumChildren(String[] args) {
+        String numChildren = extractOptionValue(args, null, "numChildren");
+        if (numChildren == null) {
+            return 1;
+        }
+        int n = Integer.parseInt(numChildren);
+        if (n < 1) {
+            throw new IllegalArgumentException("numChildren must be > 0: " + n);
         }
+        return n;
+    }
+
+    private static long extractMaxFiles(String[] args) {
+        String maxFiles = extractOptionValue(args, null, "maxFiles");
+        return maxFiles == null ? TikaServerCli.DEFAULT_MAX_FILES : Long.parseLong(maxFiles);
+    }
+
+    private static String extractOptionValue(String[] args, String shortName, String longName) {
+        for (int i = 0; i < args.length - 1; i++) {
+            if (isOption(args[i], shortName, longName)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static boolean isOption(String arg, String shortName, String longName) {
+        return (shortName != null && arg.equals("-" + shortName))
+                || arg.equals("-" + longName) || arg.equals("--" + longName);
+    }
+
+    /**
+     * With more than one child, each child listens on its own port
+     * on localhost, the ports following the server's port.  The
+     * children's maxFiles are staggered so that they don't all
+     * restart at about the same time.
+     */
+    private static String[] buildChildArgs(String[] args, int id, int numChildren, int childPort) {
+        if (numChildren == 1) {
+            return args;
+        }
+        List<String> childArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (isOption(args[i], "p", "port") || isOption(args[i], "h", "host")
+                    || isOption(args[i], null, "maxFiles") || isOption(args[i], null, "numChildren")) {
+                i++;//skip argument value
+                continue;
+            }
+            childArgs.add(args[i]);
+        }
+        childArgs.add("-p");
+        childArgs.add(Integer.toString(childPort));
+        childArgs.add("-h");
+        childArgs.add("localhost");
+        long maxFiles = extractMaxFiles(args);
+        if (maxFiles > 0) {
+            maxFiles += id * maxFiles / numChildren;
+        }
+        childArgs.add("-maxFiles");
+        childArgs.add(Long.toString(maxFiles));
+        return childArgs.toArray(new String[0]);
     }
 
     private static List<String> extractArgs(String[] args) {
@@ -157,6 +336,10 @@ public class TikaServerWatchDog {
             if (args[i].startsWith("-J") || args[i].equals("-spawnChild") || args[i].equals("--spawnChild")) {
                 continue;
             }
+            if (isOption(args[i], null, "numChildren")) {
+                i++;//skip argument value
+                continue;
+            }
             if (args[i].equals("-javaHome")) {
                 if (i == args.length-1) {
                     throw new IllegalArgumentException("must specify a value for -javaHome");
@@ -210,8 +393,25 @@ public class TikaServerWatchDog {
         return jvmArgs;
     }
 
-    private class ChildProcess {
+    private static class ChildSlot {
+        private final int id;
+        //port of the child when there is more than one; otherwise
+        //the child listens on the server's port
+        private final int port;
+        private final String[] args;
+        private volatile ChildProcess childProcess;
+        private volatile CHILD_STATUS status = CHILD_STATUS.INITIALIZING;
+
+        ChildSlot(int id, int numChildren, String[] args) {
+            this.id = id;
+            this.port = numChildren > 1 ? extractPort(args) + 1 + id : -1;
+            this.args = buildChildArgs(args, id, numChildren, port);
+        }
+    }
+
+    private static class ChildProcess {
         private Thread SHUTDOWN_HOOK = null;
+        private volatile Instant lastPing = null;
 
         private final Process process;
         private final DataOutputStream toChild;
@@ -244,6 +444,10 @@ public class TikaServerWatchDog {
                 //the childStatusFile can be deleted by the
                 //child process if it closes...this can lead to a NoSuchFileException
                 LOG.warn("failed to start child process", e);
+            } catch (InterruptedException e) {
+                //shutting down while the child is starting
+                close();
+                throw e;
             }
 
             if (elapsed > serverTimeouts.getMaxChildStartupMillis()) {
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tika.server;
+
+import java.io.IOException;
+
+/**
+ * The entries of an /unpack response.  Rather than handing the archive
+ * writers a finished map of entries, the resource hands them this object,
+ * and the document is parsed while the archive is written: each entry is
+ * passed to the {@link EntryWriter} as soon as it has been extracted.
+ */
+public interface UnpackedEntries {
+
+    /**
+     * Produces all entries.  This may throw before the first entry has been
+     * written, e.g. with a {@link javax.ws.rs.WebApplicationException}
+     * when there is nothing to unpack.
+     */
+    void writeTo(EntryWriter writer) throws IOException;
+
+    interface EntryWriter {
+        /**
+         * Writes one entry.  The buffer is closed by the caller once this
+         * returns.
+         */
+        void write(String name, EntryBuffer data) throws IOException;
+    }
+}
@@ -27,20 +27,30 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.tika.language.detect.LanguageHandler;
 import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.serialization.JsonStreamingSerializer;
 import org.apache.tika.parser.ParseContext;
 import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.RecursiveParserWrapper;
 import org.apache.tika.sax.BasicContentHandlerFactory;
+import org.apache.tika.sax.ContentHandlerFactory;
 import org.apache.tika.sax.RecursiveParserWrapperHandler;
 import org.apache.tika.server.MetadataList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Path("/rmeta")
 public class RecursiveMetadataResource {
@@ -125,6 +135,68 @@ public class RecursiveMetadataResource {
 						httpHeaders.getRequestHeaders(), info, handlerTypeName)).build();
     }
 
+    /**
+     * Same as {@link #getMetadata(InputStream, HttpHeaders, UriInfo, String)},
+     * but the metadata of each embedded document is written out as soon as
+     * that document has been parsed, instead of after the whole container
+     * has been parsed. Only the metadata and content of the document that
+     * is being parsed are held in memory.
+     * <p>
+     * The response is a JSON array, with the main document last, after all
+     * of its embedded documents. {@link org.apache.tika.metadata.serialization.JsonMetadataList#fromJson}
+     * moves the main document to the front of the list.
+     * <p>
+     * Specify the handler for the content (xml, html, text, ignore)
+     * in the path:<br/>
+     * /rmeta/stream (default: xml)<br/>
+     * /rmeta/stream/xml    (store the content as xml)<br/>
+     * /rmeta/stream/text   (store the content as text)<br/>
+     * /rmeta/stream/ignore (don't record any content)<br/>
+     *
+     * @param info uri info
+     * @param handlerTypeName which type of handler to use
+     * @return StreamingOutput that writes the list of {@link Metadata} objects
+     * @throws Exception
+     */
+    @PUT
+    @Produces("application/json")
+    @Path("stream{" + HANDLER_TYPE_PARAM + " : (\\w+)?}")
+    public StreamingOutput getMetadataStreaming(InputStream is,
+                                                @Context HttpHeaders httpHeaders,
+                                                @Context final UriInfo info,
+                                                @PathParam(HANDLER_TYPE_PARAM) String handlerTypeName
+                                                ) throws Exception {
+        final Metadata metadata = new Metadata();
+        final InputStream tis = TikaResource.getInputStream(is, metadata, httpHeaders);
+        final ParseContext context = new ParseContext();
+        Parser parser = TikaResource.createParser();
+        final RecursiveParserWrapper wrapper = new RecursiveParserWrapper(parser);
+
+        TikaResource.fillMetadata(parser, metadata, context, httpHeaders.getRequestHeaders());
+        TikaResource.fillParseContext(context, httpHeaders.getRequestHeaders(), null);
+        TikaResource.logRequest(LOG, info, metadata);
+
+        final BasicContentHandlerFactory.HANDLER_TYPE type =
+                BasicContentHandlerFactory.parseHandlerType(handlerTypeName, DEFAULT_HANDLER_TYPE);
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                try (JsonStreamingSerializer serializer = new JsonStreamingSerializer(
+                        new OutputStreamWriter(outputStream, UTF_8))) {
+                    StreamingHandler handler = new StreamingHandler(
+                            new BasicContentHandlerFactory(type, -1), serializer);
+                    try {
+                        TikaResource.parse(wrapper, LOG, info.getPath(), tis, handler, metadata, context);
+                    } catch (SecurityException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        //swallow it and report it via the metadata list
+                    }
+                }
+            }
+        };
+    }
+
 	private MetadataList parseMetadata(InputStream is, Metadata metadata,
 			MultivaluedMap<String, String> httpHeaders, UriInfo info, String handlerTypeName)
 			throws Exception {
@@ -161,4 +233,42 @@ public class RecursiveMetadataResource {
 		return new MetadataList(handler.getMetadataList());
 	}
 
+    /**
+     * Writes out the metadata of each document as soon as it has been
+     * parsed, and then forgets it.
+     */
+    private static class StreamingHandler extends RecursiveParserWrapperHandler {
+
+        private final JsonStreamingSerializer serializer;
+
+        StreamingHandler(ContentHandlerFactory contentHandlerFactory,
+                         JsonStreamingSerializer serializer) {
+            super(contentHandlerFactory, -1);
+            this.serializer = serializer;
+        }
+
+        @Override
+        public void endEmbeddedDocument(ContentHandler contentHandler, Metadata metadata) throws SAXException {
+            super.endEmbeddedDocument(contentHandler, metadata);
+            write();
+        }
+
+        @Override
+        public void endDocument(ContentHandler contentHandler, Metadata metadata) throws SAXException {
+            super.endDocument(contentHandler, metadata);
+            write();
+        }
+
+        private void write() throws SAXException {
+            try {
+                for (Metadata metadata : metadataList) {
+                    serializer.add(metadata);
+                }
+                serializer.flush();
+            } catch (IOException e) {
+                throw new SAXException(e);
+            }
+            metadataList.clear();
+        }
+    }
 }
@@ -96,12 +96,20 @@ public class TikaResource {
 
     private static TikaConfig tikaConfig;
     private static DigestingParser.Digester digester = null;
+    private static boolean digestWhileParsing = false;
     private static InputStreamFactory inputStreamFactory = null;
     private static ServerStatus SERVER_STATUS = null;
     public static void init(TikaConfig config, DigestingParser.Digester digestr,
                             InputStreamFactory iSF, ServerStatus serverStatus) {
+        init(config, digestr, false, iSF, serverStatus);
+    }
+
+    public static void init(TikaConfig config, DigestingParser.Digester digestr,
+                            boolean digestWhilePars, InputStreamFactory iSF,
+                            ServerStatus serverStatus) {
         tikaConfig = config;
         digester = digestr;
+        digestWhileParsing = digestWhilePars;
         inputStreamFactory = iSF;
         SERVER_STATUS = serverStatus;
     }
@@ -115,7 +123,7 @@ public class TikaResource {
         final Parser parser = new AutoDetectParser(tikaConfig);
 
         if (digester != null) {
-            return new DigestingParser(parser, digester);
+            return new DigestingParser(parser, digester, digestWhileParsing);
         }
         return parser;
     }
@@ -27,20 +27,20 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 
 import au.com.bytecode.opencsv.CSVWriter;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.poi.poifs.filesystem.DirectoryEntry;
 import org.apache.poi.poifs.filesystem.DocumentEntry;
@@ -64,6 +64,8 @@ import org.apache.tika.parser.Parser;
 import org.apache.tika.parser.microsoft.OfficeParser;
 import org.apache.tika.sax.BodyContentHandler;
 import org.apache.tika.sax.RichTextContentHandler;
+import org.apache.tika.server.EntryBuffer;
+import org.apache.tika.server.UnpackedEntries;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.ContentHandler;
@@ -96,7 +98,7 @@ public class UnpackerResource {
     @Path("/{id:(/.*)?}")
     @PUT
     @Produces({"application/zip", "application/x-tar"})
-    public Map<String, byte[]> unpack(
+    public UnpackedEntries unpack(
             InputStream is,
             @Context HttpHeaders httpHeaders,
             @Context UriInfo info
@@ -107,7 +109,7 @@ public class UnpackerResource {
     @Path("/all{id:(/.*)?}")
     @PUT
     @Produces({"application/zip", "application/x-tar"})
-    public Map<String, byte[]> unpackAll(
+    public UnpackedEntries unpackAll(
             InputStream is,
             @Context HttpHeaders httpHeaders,
             @Context UriInfo info
@@ -115,62 +117,75 @@ public class UnpackerResource {
         return process(TikaResource.getInputStream(is, new Metadata(), httpHeaders), httpHeaders, info, true);
     }
 
-    private Map<String, byte[]> process(
-            InputStream is,
+    /**
+     * Sets up the parse, but doesn't run it: the document is parsed while
+     * the archive writer writes the response, and every embedded document
+     * is written to the archive as soon as it has been extracted.
+     */
+    private UnpackedEntries process(
+            final InputStream is,
             @Context HttpHeaders httpHeaders,
-            @Context UriInfo info,
-            boolean saveAll
+            final @Context UriInfo info,
+            final boolean saveAll
     ) throws Exception {
-        Metadata metadata = new Metadata();
-        ParseContext pc = new ParseContext();
+        final Metadata metadata = new Metadata();
+        final ParseContext pc = new ParseContext();
 
-        Parser parser = TikaResource.createParser();
-        if (parser instanceof DigestingParser) {
+        Parser p = TikaResource.createParser();
+        if (p instanceof DigestingParser) {
             //no need to digest for unwrapping
-            parser = ((DigestingParser)parser).getWrappedParser();
+            p = ((DigestingParser)p).getWrappedParser();
         }
+        final Parser parser = p;
         TikaResource.fillParseContext(pc, httpHeaders.getRequestHeaders(), null);
         TikaResource.fillMetadata(parser, metadata, pc, httpHeaders.getRequestHeaders());
         TikaResource.logRequest(LOG, info, metadata);
         //even though we aren't currently parsing embedded documents,
         //we need to add this to allow for "inline" use of other parsers.
         pc.set(Parser.class, parser);
-        ContentHandler ch;
-        ByteArrayOutputStream text = new ByteArrayOutputStream();
-
-        if (saveAll) {
-            ch = new BodyContentHandler(new RichTextContentHandler(new OutputStreamWriter(text, UTF_8)));
-        } else {
-            ch = new DefaultHandler();
-        }
 
-        Map<String, byte[]> files = new HashMap<>();
-        MutableInt count = new MutableInt();
-
-        pc.set(EmbeddedDocumentExtractor.class, new MyEmbeddedDocumentExtractor(count, files));
-        TikaResource.parse(parser, LOG, info.getPath(), is, ch, metadata, pc);
+        return new UnpackedEntries() {
+            @Override
+            public void writeTo(EntryWriter writer) throws IOException {
+                try (EntryBuffer text = new EntryBuffer()) {
+                    ContentHandler ch;
+                    Writer textWriter = null;
+                    if (saveAll) {
+                        textWriter = new OutputStreamWriter(text, UTF_8);
+                        ch = new BodyContentHandler(new RichTextContentHandler(textWriter));
+                    } else {
+                        ch = new DefaultHandler();
+                    }
 
-        if (count.intValue() == 0 && !saveAll) {
-            throw new WebApplicationException(Response.Status.NO_CONTENT);
-        }
+                    MutableInt count = new MutableInt();
 
-        if (saveAll) {
-            files.put(TEXT_FILENAME, text.toByteArray());
+                    pc.set(EmbeddedDocumentExtractor.class, new MyEmbeddedDocumentExtractor(count, writer));
+                    TikaResource.parse(parser, LOG, info.getPath(), is, ch, metadata, pc);
 
-            ByteArrayOutputStream metaStream = new ByteArrayOutputStream();
-            metadataToCsv(metadata, metaStream);
+                    if (count.intValue() == 0 && !saveAll) {
+                        throw new WebApplicationException(Response.Status.NO_CONTENT);
+                    }
 
-            files.put(META_FILENAME, metaStream.toByteArray());
-        }
+                    if (saveAll) {
+                        textWriter.flush();
+                        writer.write(TEXT_FILENAME, text);
 
-        return files;
+                        try (EntryBuffer metaStream = new EntryBuffer()) {
+                            metadataToCsv(metadata, new CloseShieldOutputStream(metaStream));
+                            writer.write(META_FILENAME, metaStream);
+                        }
+                    }
+                }
+            }
+        };
     }
 
     private class MyEmbeddedDocumentExtractor implements EmbeddedDocumentExtractor {
         private final MutableInt count;
-        private final Map<String, byte[]> zout;
+        private final UnpackedEntries.EntryWriter zout;
+        private final Set<String> names = new HashSet<>();
 
-        MyEmbeddedDocumentExtractor(MutableInt count, Map<String, byte[]> zout) {
+        MyEmbeddedDocumentExtractor(MutableInt count, UnpackedEntries.EntryWriter zout) {
             this.count = count;
             this.zout = zout;
         }
@@ -181,14 +196,19 @@ public class UnpackerResource {
 
         public void parseEmbedded(InputStream inputStream, ContentHandler contentHandler, Metadata metadata, boolean b)
                 throws SAXException, IOException {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            BoundedInputStream bis = new BoundedInputStream(MAX_ATTACHMENT_BYTES, inputStream);
-            IOUtils.copy(bis, bos);
-            if (bis.hasHitBound()) {
-                throw new IOExceptionWithCause(
-                        new TikaMemoryLimitException(MAX_ATTACHMENT_BYTES+1, MAX_ATTACHMENT_BYTES));
+            try (EntryBuffer data = new EntryBuffer()) {
+                BoundedInputStream bis = new BoundedInputStream(MAX_ATTACHMENT_BYTES, inputStream);
+                IOUtils.copy(bis, data);
+                if (bis.hasHitBound()) {
+                    throw new IOExceptionWithCause(
+                            new TikaMemoryLimitException(MAX_ATTACHMENT_BYTES+1, MAX_ATTACHMENT_BYTES));
+                }
+                writeEntry(inputStream, metadata, data);
             }
-            byte[] data = bos.toByteArray();
+        }
+
+        private void writeEntry(InputStream inputStream, Metadata metadata, EntryBuffer data)
+                throws IOException {
 
             String name = metadata.get(TikaCoreProperties.RESOURCE_NAME_KEY);
             String contentType = metadata.get(org.apache.tika.metadata.HttpHeaders.CONTENT_TYPE);
@@ -210,7 +230,10 @@ public class UnpackerResource {
             }
 
             if ("application/vnd.openxmlformats-officedocument.oleObject".equals(contentType)) {
-                POIFSFileSystem poifs = new POIFSFileSystem(new ByteArrayInputStream(data));
+                POIFSFileSystem poifs;
+                try (InputStream dataStream = data.openInputStream()) {
+                    poifs = new POIFSFileSystem(dataStream);
+                }
                 OfficeParser.POIFSDocumentType type = OfficeParser.POIFSDocumentType.detectType(poifs);
 
                 if (type == OfficeParser.POIFSDocumentType.OLE10_NATIVE) {
@@ -225,7 +248,10 @@ public class UnpackerResource {
 
                             name = label;
 
-                            data = ole.getDataBuffer();
+                            EntryBuffer oleData = new EntryBuffer();
+                            oleData.write(ole.getDataBuffer());
+                            data.close();
+                            data = oleData;
                         }
                     } catch (Ole10NativeException ex) {
                         LOG.warn("Skipping invalid part", ex);
@@ -235,10 +261,16 @@ public class UnpackerResource {
                 }
             }
 
-            final String finalName = getFinalName(name, zout);
+            final String finalName = getFinalName(name);
 
-            if (data.length > 0) {
-                zout.put(finalName, data);
+            if (data.getLength() > 0) {
+                names.add(finalName);
+                try {
+                    zout.write(finalName, data);
+                } finally {
+                    //the ole10 payload replaces the buffer the caller closes
+                    data.close();
+                }
 
                 count.increment();
             } else {
@@ -248,17 +280,18 @@ public class UnpackerResource {
                     if (tin.getOpenContainer() != null && tin.getOpenContainer() instanceof DirectoryEntry) {
                         POIFSFileSystem fs = new POIFSFileSystem();
                         copy((DirectoryEntry) tin.getOpenContainer(), fs.getRoot());
-                        ByteArrayOutputStream bos2 = new ByteArrayOutputStream();
-                        fs.writeFilesystem(bos2);
-                        bos2.close();
+                        try (EntryBuffer bos2 = new EntryBuffer()) {
+                            fs.writeFilesystem(bos2);
 
-                        zout.put(finalName, bos2.toByteArray());
+                            names.add(finalName);
+                            zout.write(finalName, bos2);
+                        }
                     }
                 }
             }
         }
 
-        private String getFinalName(String name, Map<String, byte[]> zout) {
+        private String getFinalName(String name) {
             name = name.replaceAll("\u0000", " ");
             String normalizedName = FilenameUtils.normalize(name);
 
@@ -274,7 +307,7 @@ public class UnpackerResource {
             if (prefixLength > -1) {
                 normalizedName = normalizedName.substring(prefixLength);
             }
-            if (zout.containsKey(normalizedName)) {
+            if (names.contains(normalizedName)) {
                 return UUID.randomUUID().toString()+"-"+normalizedName;
             }
             return normalizedName;
@@ -28,40 +28,47 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.Map;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.tika.server.EntryBuffer;
+import org.apache.tika.server.UnpackedEntries;
 
 @Provider
 @Produces("application/x-tar")
-public class TarWriter implements MessageBodyWriter<Map<String, byte[]>> {
-    private static void tarStoreBuffer(TarArchiveOutputStream zip, String name, byte[] dataBuffer) throws IOException {
+public class TarWriter implements MessageBodyWriter<UnpackedEntries> {
+    private static void tarStoreBuffer(TarArchiveOutputStream zip, String name, EntryBuffer dataBuffer) throws IOException {
         TarArchiveEntry entry = new TarArchiveEntry(name);
 
-        entry.setSize(dataBuffer.length);
+        entry.setSize(dataBuffer.getLength());
 
         zip.putArchiveEntry(entry);
 
-        zip.write(dataBuffer);
+        dataBuffer.writeTo(zip);
 
         zip.closeArchiveEntry();
     }
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return Map.class.isAssignableFrom(type);
+        return UnpackedEntries.class.isAssignableFrom(type);
     }
 
-    public long getSize(Map<String, byte[]> stringMap, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    public long getSize(UnpackedEntries entries, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return -1;
     }
 
-    public void writeTo(Map<String, byte[]> parts, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        TarArchiveOutputStream zip = new TarArchiveOutputStream(entityStream);
+    public void writeTo(UnpackedEntries entries, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        final TarArchiveOutputStream zip = new TarArchiveOutputStream(entityStream);
 
-        for (Map.Entry<String, byte[]> entry : parts.entrySet()) {
-            tarStoreBuffer(zip, entry.getKey(), entry.getValue());
-        }
+        //nothing is written before the first entry, so that an exception
+        //thrown before then can still become an error response
+        entries.writeTo(new UnpackedEntries.EntryWriter() {
+            @Override
+            public void write(String name, EntryBuffer data) throws IOException {
+                tarStoreBuffer(zip, name, data);
+                zip.flush();
+            }
+        });
 
         zip.close();
     }
@@ -28,27 +28,25 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
-import java.util.Map;
 import java.util.UUID;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.tika.server.EntryBuffer;
+import org.apache.tika.server.UnpackedEntries;
 
 @Provider
 @Produces("application/zip")
-public class ZipWriter implements MessageBodyWriter<Map<String, byte[]>> {
-    private static void zipStoreBuffer(ZipArchiveOutputStream zip, String name, byte[] dataBuffer) throws IOException {
+public class ZipWriter implements MessageBodyWriter<UnpackedEntries> {
+    private static void zipStoreBuffer(ZipArchiveOutputStream zip, String name, EntryBuffer dataBuffer) throws IOException {
         ZipEntry zipEntry = new ZipEntry(name != null ? name : UUID.randomUUID().toString());
         zipEntry.setMethod(ZipOutputStream.STORED);
 
-        zipEntry.setSize(dataBuffer.length);
-        CRC32 crc32 = new CRC32();
-        crc32.update(dataBuffer);
-        zipEntry.setCrc(crc32.getValue());
+        zipEntry.setSize(dataBuffer.getLength());
+        zipEntry.setCrc(dataBuffer.getCrc());
 
         try {
             zip.putArchiveEntry(new ZipArchiveEntry(zipEntry));
@@ -59,27 +57,33 @@ public class ZipWriter implements MessageBodyWriter<Map<String, byte[]>> {
             }
         }
 
-        zip.write(dataBuffer);
+        dataBuffer.writeTo(zip);
 
         zip.closeArchiveEntry();
     }
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return Map.class.isAssignableFrom(type);
+        return UnpackedEntries.class.isAssignableFrom(type);
     }
 
-    public long getSize(Map<String, byte[]> stringMap, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+    public long getSize(UnpackedEntries entries, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
         return -1;
     }
 
-    public void writeTo(Map<String, byte[]> parts, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
-        ZipArchiveOutputStream zip = new ZipArchiveOutputStream(entityStream);
+    public void writeTo(UnpackedEntries entries, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+        final ZipArchiveOutputStream zip = new ZipArchiveOutputStream(entityStream);
 
         zip.setMethod(ZipArchiveOutputStream.STORED);
 
-        for (Map.Entry<String, byte[]> entry : parts.entrySet()) {
-            zipStoreBuffer(zip, entry.getKey(), entry.getValue());
-        }
+        //nothing is written before the first entry, so that an exception
+        //thrown before then can still become an error response
+        entries.writeTo(new UnpackedEntries.EntryWriter() {
+            @Override
+            public void write(String name, EntryBuffer data) throws IOException {
+                zipStoreBuffer(zip, name, data);
+                zip.flush();
+            }
+        });
 
         zip.close();
     }
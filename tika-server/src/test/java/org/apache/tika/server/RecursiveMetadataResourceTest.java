@@ -59,6 +59,7 @@ public class RecursiveMetadataResourceTest extends CXFTestBase {
     private static final String XML_PATH = "/xml";
     private static final String UNPARSEABLE_PATH = "/somethingOrOther";
     private static final String SLASH = "/";
+    private static final String STREAM_PATH = "/stream";
 
     private static final String TEST_RECURSIVE_DOC = "test_recursive_embedded.docx";
 
@@ -130,6 +131,48 @@ public class RecursiveMetadataResourceTest extends CXFTestBase {
         assertEquals("a38e6c7b38541af87148dee9634cb811", metadataList.get(10).get("X-TIKA:digest:MD5"));
     }
 
+    @Test
+    public void testStreaming() throws Exception {
+        Response response = WebClient
+                .create(endPoint + META_PATH)
+                .accept("application/json")
+                .put(ClassLoader
+                        .getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        Reader reader = new InputStreamReader((InputStream) response.getEntity(), UTF_8);
+        List<Metadata> expected = JsonMetadataList.fromJson(reader);
+
+        response = WebClient
+                .create(endPoint + META_PATH + STREAM_PATH)
+                .accept("application/json")
+                .put(ClassLoader
+                        .getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        reader = new InputStreamReader((InputStream) response.getEntity(), UTF_8);
+        List<Metadata> metadataList = JsonMetadataList.fromJson(reader);
+
+        assertEquals(12, metadataList.size());
+        assertEquals("Microsoft Office Word", metadataList.get(0).get(OfficeOpenXMLExtended.APPLICATION));
+        assertContains("plundered our seas", metadataList.get(6).get("X-TIKA:content"));
+        assertEquals("a38e6c7b38541af87148dee9634cb811", metadataList.get(10).get("X-TIKA:digest:MD5"));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).get(AbstractRecursiveParserWrapperHandler.EMBEDDED_RESOURCE_PATH),
+                    metadataList.get(i).get(AbstractRecursiveParserWrapperHandler.EMBEDDED_RESOURCE_PATH));
+            assertEquals(expected.get(i).get(AbstractRecursiveParserWrapperHandler.TIKA_CONTENT),
+                    metadataList.get(i).get(AbstractRecursiveParserWrapperHandler.TIKA_CONTENT));
+        }
+
+        //text
+        response = WebClient
+                .create(endPoint + META_PATH + STREAM_PATH + TEXT_PATH)
+                .accept("application/json")
+                .put(ClassLoader
+                        .getSystemResourceAsStream(TEST_RECURSIVE_DOC));
+        reader = new InputStreamReader((InputStream) response.getEntity(), UTF_8);
+        metadataList = JsonMetadataList.fromJson(reader);
+        assertEquals(12, metadataList.size());
+        String content = metadataList.get(6).get(AbstractRecursiveParserWrapperHandler.TIKA_CONTENT).trim();
+        assertTrue(content.startsWith("embed_3"));
+    }
+
     @Test
     public void testPasswordProtected() throws Exception {
         Response response = WebClient
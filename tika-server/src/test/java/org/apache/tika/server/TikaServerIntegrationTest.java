@@ -219,6 +219,46 @@ public class TikaServerIntegrationTest extends TikaTest {
         }
     }
 
+    @Test
+    public void testMultipleChildren() throws Exception {
+
+        Thread serverThread = new Thread() {
+            @Override
+            public void run() {
+                TikaServerCli.main(
+                        new String[]{
+                                "-spawnChild", "-numChildren", "2",
+                                "-p", INTEGRATION_TEST_PORT,
+                                "-tmpFilePrefix", "tika-server-multichild"
+
+                        });
+            }
+        };
+        serverThread.start();
+        awaitServerStartup();
+        try {
+            //both children serve requests
+            for (int i = 0; i < 4; i++) {
+                testBaseline();
+            }
+            try {
+                WebClient
+                        .create(endPoint + META_PATH)
+                        .accept("application/json")
+                        .put(ClassLoader
+                                .getSystemResourceAsStream(TEST_SYSTEM_EXIT));
+            } catch (Exception e) {
+                //sys exit causes catchable problems for the client
+            }
+            //no waiting for the restart: the other child takes the requests
+            for (int i = 0; i < 4; i++) {
+                testBaseline();
+            }
+        } finally {
+            serverThread.interrupt();
+        }
+    }
+
     @Test
     public void testTimeoutOk() throws Exception {
         //test that there's enough time for this file.
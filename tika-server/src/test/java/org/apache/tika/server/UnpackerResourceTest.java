@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
 import org.apache.cxf.jaxrs.JAXRSServerFactoryBean;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.jaxrs.lifecycle.SingletonResourceProvider;
@@ -70,6 +71,7 @@ public class UnpackerResourceTest extends CXFTestBase {
     private static final String APPLICATION_MSWORD = "application/msword";
     private static final String APPLICATION_XML = "application/xml";
     private static final String CONTENT_TYPE = "Content-type";
+    private static final String TEST_EMBEDDED_THEN_HANG = "mock/embedded_then_hang.xml";
 
     @Override
     protected void setUpResources(JAXRSServerFactoryBean sf) {
@@ -227,4 +229,24 @@ public class UnpackerResourceTest extends CXFTestBase {
         String txt = readArchiveText((InputStream)response.getEntity());
         assertContains("Happy New Year", txt);
     }
+
+    @Test
+    public void testFirstEntryStreamedBeforeParseCompletes() throws Exception {
+        //the mock parser sleeps for two seconds between the two attachments
+        long start = System.nanoTime();
+        Response response = WebClient.create(endPoint + UNPACKER_PATH)
+                .accept("application/zip")
+                .put(ClassLoader.getSystemResourceAsStream(TEST_EMBEDDED_THEN_HANG));
+
+        ZipArchiveInputStream zip = new ZipArchiveInputStream((InputStream) response.getEntity());
+        assertEquals("first.txt", zip.getNextZipEntry().getName());
+        long firstEntryMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals("second.txt", zip.getNextZipEntry().getName());
+        long secondEntryMillis = (System.nanoTime() - start) / 1000000;
+
+        assertTrue("first entry after " + firstEntryMillis + " ms, second after " +
+                        secondEntryMillis + " ms",
+                secondEntryMillis - firstEntryMillis >= 1000);
+    }
 }